@@ -3,9 +3,12 @@ package controlleur;
 
 import modele.jeu.Coup;
 import modele.jeu.Jeu;
+import modele.jeu.Pendule;
+import modele.jeu.Position;
 import modele.joueur.IJoueur;
 import modele.joueur.JoueurHumain;
 import modele.joueur.JoueurIA;
+import modele.joueur.JoueurMCTS;
 import modele.pieces.PieceColor;
 import modele.pieces.PieceType;
 import modele.plateau.Case;
@@ -32,6 +35,12 @@ public class Controlleur implements Observer {
     
     // État de l'interface
     private boolean interfaceVerrouillee = false;
+
+    // Avec une pendule : affichage des temps et chute du drapeau vue sans attendre le coup suivant
+    private final Timer minuterie = new Timer(100, e -> {
+        jeu.verifierTemps();
+        vue.afficherPendule(jeu.getPendule());
+    });
     
     // Constantes pour les événements
     public static final String PROP_IA_THINKING = "ia_thinking";
@@ -61,9 +70,10 @@ public class Controlleur implements Observer {
      * @param couleurIA la couleur de l'IA (peut être null si avecIA est false)
      */
     public void demarrerPartie(boolean avecIA, PieceColor couleurIA) {
-        // Arrêter l'observation de l'ancien plateau
+        // Arrêter l'observation de l'ancien plateau et annuler ses réflexions IA
         if (jeu != null && jeu.getPlateau() != null) {
             jeu.getPlateau().deleteObserver(this);
+            jeu.arreter();
         }
         
         // Créer un nouveau jeu avec un plateau frais
@@ -90,16 +100,27 @@ public class Controlleur implements Observer {
         
         // Configurer les joueurs
         if (avecIA && couleurIA != null) {
-            // Mode joueur contre IA
-            JoueurIA joueurIA = new JoueurIA(couleurIA);
+            // Mode joueur contre IA (-Dia=mcts pour la recherche Monte-Carlo)
+            IJoueur joueurIA = "mcts".equalsIgnoreCase(System.getProperty("ia"))
+                    ? new JoueurMCTS(couleurIA) : new JoueurIA(couleurIA);
             jeu.setModeIA(joueurIA);
         } else {
             // Mode 2 joueurs humains
             jeu.setModeHumain();
         }
+
+        // Cadence donnée par -Dcadence=5+3 (minutes+secondes), sans limite de temps sinon
+        Pendule pendule = Pendule.depuisCadence(System.getProperty(Pendule.PROPRIETE_CADENCE));
+        jeu.setPendule(pendule);
         
         // Démarrer la partie
         jeu.demarrerPartie();
+        if (pendule != null) {
+            minuterie.start();
+        } else {
+            minuterie.stop();
+        }
+        vue.afficherPendule(pendule);
         
         // Signaler que la partie n'est pas terminée
         firePropertyChange(PROP_GAME_OVER, true, false);
@@ -131,9 +152,9 @@ public class Controlleur implements Observer {
      * @return true si le coup est valide
      */
     public boolean soumettreCoup(Case depart, Case arrivee) {
-        // Vérifier qu'on peut jouer ce coup
-        if (depart.getPiece() != null && 
-            depart.getPiece().getColor() == jeu.getJoueurActuel()) {
+        // Vérifier qu'on peut jouer ce coup, sur l'instantané publié (jouerCoup revalide sous le verrou)
+        Position instantane = jeu.getPosition();
+        if (instantane.getCouleur(depart.getX(), depart.getY()) == instantane.getTrait()) {
             
             // Vérifier que c'est bien au joueur humain de jouer
             if (!jeu.joueurActuelEstIA()) {
@@ -172,6 +193,28 @@ public class Controlleur implements Observer {
         return false;
     }
 
+    /**
+     * Annule le dernier coup du joueur humain : contre l'IA, ses coups
+     * sont annulés aussi pour rendre la main au joueur. La réflexion en
+     * cours de l'IA est abandonnée.
+     */
+    public void annulerCoup() {
+        if (!jeu.annulerCoup()) {
+            return;
+        }
+        while (jeu.joueurActuelEstIA() && jeu.annulerCoup()) {
+            // Remonter jusqu'au dernier coup humain
+        }
+        firePropertyChange(PROP_GAME_OVER, true, false);
+        if (jeu.joueurActuelEstIA()) {
+            // Plus de coup à annuler et l'IA commence : elle rejoue
+            verrouillerInterface(true);
+            jeu.getJoueurCourant().notifierTour();
+        } else {
+            verrouillerInterface(false);
+        }
+    }
+
     /**
      * Cette méthode est appelée quand le plateau change (après un coup de l'IA ou du joueur)
      */
@@ -256,13 +299,14 @@ public class Controlleur implements Observer {
             var label = (javax.swing.JLabel) e.getSource();
             Point position = (Point) label.getClientProperty("pos");
             Case caseCliquee = jeu.getPlateau().getCase(position.x, position.y);
+            // Le plateau ne se lit que sous le verrou du jeu : l'EDT passe par l'instantané publié
+            Position instantane = jeu.getPosition();
 
             if (caseSelectionnee == null) {
                 // Premier clic : sélection d'une pièce
-                if (caseCliquee.getPiece() != null && 
-                    caseCliquee.getPiece().getColor() == jeu.getJoueurActuel()) {
+                if (instantane.getCouleur(position.x, position.y) == instantane.getTrait()) {
                     caseSelectionnee = caseCliquee;
-                    vue.selectCase(caseSelectionnee, caseCliquee.getPiece().getCasesAccessibles());
+                    vue.selectCase(caseSelectionnee, jeu.getCasesAccessibles(caseCliquee));
                 }
             } else {
                 // Deuxième clic : tentative de jouer le coup
@@ -294,7 +338,10 @@ public class Controlleur implements Observer {
         PieceColor vainqueur = jeu.getVainqueur();
         String message;
 
-        if (vainqueur != null) {
+        if (jeu.getPerdantAuTemps() != null) {
+            String couleurGagnante = (vainqueur == PieceColor.WHITE ? "Blanc" : "Noir");
+            message = "TEMPS ÉCOULÉ ! Les " + couleurGagnante + "s ont gagné la partie !";
+        } else if (vainqueur != null) {
             String couleurGagnante = (vainqueur == PieceColor.WHITE ? "Blanc" : "Noir");
             message = "ÉCHEC ET MAT ! Les " + couleurGagnante + "s ont gagné la partie !";
         } else {
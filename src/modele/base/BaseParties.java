@@ -0,0 +1,484 @@
+package modele.base;
+
+import modele.jeu.Fen;
+import modele.jeu.Jeu;
+import modele.moteur.ClesPolyglot;
+import modele.moteur.CodeCoup;
+import modele.moteur.Echiquier;
+import modele.moteur.San;
+import modele.pgn.IngestionPgn;
+import modele.pgn.LecteurPgn;
+import modele.pgn.PartiePgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Base de parties locale, dans un dossier :
+ * <ul>
+ *   <li>parties.dat : parties ajoutées à la suite (coups codés sur 16 bits) ;
+ *       l'identifiant d'une partie est sa position en octets dans ce fichier ;</li>
+ *   <li>index-N.idx : index triés de la clé de position vers
+ *       (partie, demi-coup, résultat, coup joué), fusionnés quand ils sont trop nombreux.</li>
+ * </ul>
+ * « Qu'a-t-on joué ici et avec quel score ? » se résout par une recherche
+ * dichotomique dans chaque index, sans rejouer de partie.
+ * Les entrées récentes restent en mémoire jusqu'à {@link #sauvegarder()} ou {@link #close()}.
+ */
+public final class BaseParties implements Closeable {
+    public static final int RESULTAT_INCONNU = 0, RESULTAT_BLANCS = 1, RESULTAT_NOIRS = 2, RESULTAT_NULLE = 3;
+
+    // Donnée d'une entrée d'index : partie (36 bits) | demi-coup (10) | résultat (2) | coup Polyglot (16)
+    private static final int DECALAGE_PARTIE = 28, DECALAGE_PLY = 18, DECALAGE_RESULTAT = 16;
+    /** Les positions au-delà de ce demi-coup ne sont pas indexées */
+    public static final int PLY_MAX_INDEX = 1023;
+
+    private static final String FICHIER_PARTIES = "parties.dat";
+    private static final int ENTREES_EN_MEMOIRE_MAX = 1 << 20;
+    private static final int INDEX_MAX = 8;
+    // Taille visée des tranches lors d'un import en masse
+    private static final long TAILLE_TRANCHE = 64L << 20;
+
+    private final Path dossier;
+    private final FileChannel parties;
+    private long nombreParties;
+    private final List<IndexPositions> index = new ArrayList<>();
+    private int prochainIndex;
+
+    // Entrées pas encore écrites dans un index
+    private final Lot enAttente = new Lot();
+    private final ClesPolyglot cles = ClesPolyglot.parDefaut();
+    private final Echiquier echiquier = new Echiquier();
+    private final int[] tampon = new int[256];
+
+    private BaseParties(Path dossier) throws IOException {
+        this.dossier = dossier;
+        Files.createDirectories(dossier);
+        this.parties = FileChannel.open(dossier.resolve(FICHIER_PARTIES),
+                java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.READ,
+                java.nio.file.StandardOpenOption.WRITE);
+        compterParties();
+        List<Path> fichiers = new ArrayList<>();
+        try (DirectoryStream<Path> flux = Files.newDirectoryStream(dossier, "index-*.idx")) {
+            flux.forEach(fichiers::add);
+        }
+        fichiers.sort(null);
+        for (Path f : fichiers) {
+            index.add(new IndexPositions(f));
+            String nom = f.getFileName().toString();
+            prochainIndex = Math.max(prochainIndex, Integer.parseInt(nom.substring(6, nom.length() - 4)) + 1);
+        }
+    }
+
+    /**
+     * Ouvre (ou crée) une base dans un dossier
+     */
+    public static BaseParties ouvrir(Path dossier) throws IOException {
+        return new BaseParties(dossier);
+    }
+
+    private void compterParties() throws IOException {
+        ByteBuffer entete = ByteBuffer.allocate(4);
+        long position = 0, taille = parties.size();
+        while (position + 4 <= taille) {
+            entete.clear();
+            parties.read(entete, position);
+            nombreParties++;
+            position += 4 + 2L * (entete.getShort(0) & 0xFFFF) + (entete.get(3) & 0xFF);
+        }
+    }
+
+    public synchronized long getNombreParties() {
+        return nombreParties;
+    }
+
+    // ------------------------------------------------------------------ ajout
+
+    /**
+     * Ajoute une partie lue en PGN
+     * @return L'identifiant de la partie
+     */
+    public synchronized long ajouter(PartiePgn partie) throws IOException {
+        long id = parties.size();
+        Lot lot = new Lot();
+        lot.ajouter(partie, echiquier, cles);
+        ajouterLot(lot, false);
+        return id;
+    }
+
+    /**
+     * Ajoute l'historique d'un jeu
+     * @return L'identifiant de la partie
+     */
+    public long ajouter(Jeu jeu) throws IOException {
+        return ajouter(PartiePgn.depuis(jeu));
+    }
+
+    /**
+     * Importe des fichiers PGN en parallèle : chaque tranche de fichier est
+     * lue, codée et triée sur un thread du pool, puis ajoutée dans l'ordre
+     * sous forme d'un nouvel index. Au plus deux tranches par thread sont en
+     * cours à la fois : la mémoire ne dépend pas de la taille du fichier.
+     * Les parties contenant un coup illégal sont ignorées.
+     * @return Le nombre de parties importées
+     */
+    public long importer(List<Path> fichiers, int threads) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "base-import");
+            t.setDaemon(true);
+            return t;
+        });
+        long importees = 0;
+        try {
+            for (Path fichier : fichiers) {
+                int tranches = (int) Math.max(4L * threads, Files.size(fichier) / TAILLE_TRANCHE);
+                long[] bornes = IngestionPgn.decouper(fichier, tranches);
+                // Fenêtre de tranches en cours, ajoutées dans l'ordre du fichier
+                int fenetre = 2 * Math.max(1, threads);
+                ArrayDeque<Future<Lot>> enCours = new ArrayDeque<>(fenetre);
+                int suivante = 0;
+                while (suivante + 1 < bornes.length || !enCours.isEmpty()) {
+                    while (enCours.size() < fenetre && suivante + 1 < bornes.length) {
+                        long de = bornes[suivante], a = bornes[suivante + 1];
+                        enCours.add(pool.submit(() -> lireTranche(fichier, de, a)));
+                        suivante++;
+                    }
+                    Lot lot = attendre(enCours.poll());
+                    synchronized (this) {
+                        ajouterLot(lot, true);
+                    }
+                    importees += lot.parties;
+                }
+            }
+            synchronized (this) {
+                if (index.size() > INDEX_MAX) {
+                    compacter();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return importees;
+    }
+
+    private Lot lireTranche(Path fichier, long debut, long fin) throws IOException {
+        Lot lot = new Lot();
+        Echiquier e = new Echiquier();
+        ClesPolyglot c = ClesPolyglot.parDefaut();
+        PartiePgn partie = new PartiePgn();
+        try (LecteurPgn lecteur = LecteurPgn.ouvrir(fichier, debut, fin)) {
+            while (lecteur.suivante(partie)) {
+                if (partie.getErreur() == null) {
+                    lot.ajouter(partie, e, c);
+                }
+            }
+        }
+        lot.trier();
+        return lot;
+    }
+
+    private static Lot attendre(Future<Lot> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Écrit les parties d'un lot à la fin du fichier, puis ses entrées
+     * dans un nouvel index (lot trié) ou dans les entrées en attente
+     */
+    private void ajouterLot(Lot lot, boolean nouvelIndex) throws IOException {
+        long base = parties.size();
+        ByteBuffer octets = ByteBuffer.wrap(lot.octets, 0, lot.longueur);
+        while (octets.hasRemaining()) {
+            parties.write(octets, base + octets.position());
+        }
+        nombreParties += lot.parties;
+        long decalage = base << DECALAGE_PARTIE;
+        for (int i = 0; i < lot.entrees; i++) {
+            lot.donnees[i] += decalage;
+        }
+        if (nouvelIndex) {
+            ecrireIndex(lot);
+        } else {
+            for (int i = 0; i < lot.entrees; i++) {
+                enAttente.ajouterEntree(lot.cles[i], lot.donnees[i]);
+            }
+            if (enAttente.entrees >= ENTREES_EN_MEMOIRE_MAX) {
+                sauvegarder();
+            }
+        }
+    }
+
+    private void ecrireIndex(Lot lot) throws IOException {
+        if (lot.entrees == 0) {
+            return;
+        }
+        Path chemin = dossier.resolve(String.format("index-%06d.idx", prochainIndex++));
+        IndexPositions.ecrire(chemin, lot.cles, lot.donnees, lot.entrees);
+        index.add(new IndexPositions(chemin));
+    }
+
+    /**
+     * Écrit les entrées en attente dans un index et force l'écriture des parties
+     */
+    public synchronized void sauvegarder() throws IOException {
+        enAttente.trier();
+        ecrireIndex(enAttente);
+        enAttente.vider();
+        parties.force(false);
+        if (index.size() > INDEX_MAX) {
+            compacter();
+        }
+    }
+
+    /**
+     * Fusionne tous les index en un seul
+     */
+    public synchronized void compacter() throws IOException {
+        if (index.size() <= 1) {
+            return;
+        }
+        Path chemin = dossier.resolve(String.format("index-%06d.idx", prochainIndex++));
+        IndexPositions.fusionner(index, chemin);
+        for (IndexPositions ancien : index) {
+            ancien.close();
+            Files.delete(ancien.getChemin());
+        }
+        index.clear();
+        index.add(new IndexPositions(chemin));
+    }
+
+    // ---------------------------------------------------------------- lecture
+
+    /**
+     * Relit une partie
+     * @param id L'identifiant rendu par ajouter (position dans le fichier)
+     * @param partie Reçoit la position de départ, les coups et le résultat
+     */
+    public synchronized void lire(long id, PartiePgn partie) throws IOException {
+        ByteBuffer entete = ByteBuffer.allocate(4);
+        parties.read(entete, id);
+        int coups = entete.getShort(0) & 0xFFFF;
+        int resultat = entete.get(2);
+        int longueurFen = entete.get(3) & 0xFF;
+        ByteBuffer corps = ByteBuffer.allocate(longueurFen + 2 * coups);
+        while (corps.hasRemaining()) {
+            if (parties.read(corps, id + 4 + corps.position()) < 0) {
+                throw new IOException("Partie tronquée : " + id);
+            }
+        }
+        partie.vider();
+        if (longueurFen > 0) {
+            String fen = new String(corps.array(), 0, longueurFen, StandardCharsets.US_ASCII);
+            partie.setFenDepart(fen);
+            echiquier.chargerFen(fen);
+        } else {
+            echiquier.chargerFen(Fen.INITIALE);
+        }
+        for (int i = 0; i < coups; i++) {
+            int coup = ClesPolyglot.depuisPolyglot(echiquier, corps.getShort(longueurFen + 2 * i) & 0xFFFF, tampon);
+            if (coup == CodeCoup.AUCUN || !echiquier.jouer(coup)) {
+                break;
+            }
+            partie.ajouterCoup(coup);
+            if (echiquier.getHauteur() > Echiquier.HISTORIQUE_MAX / 2) {
+                echiquier.tronquerHistorique();
+            }
+        }
+        partie.setResultat(switch (resultat) {
+            case RESULTAT_BLANCS -> "1-0";
+            case RESULTAT_NOIRS -> "0-1";
+            case RESULTAT_NULLE -> "1/2-1/2";
+            default -> "*";
+        });
+    }
+
+    /**
+     * Coups joués depuis une position, avec leur bilan, du plus joué au moins joué
+     * @param position La position (inchangée au retour)
+     */
+    public synchronized List<StatistiqueCoup> explorer(Echiquier position) {
+        long cle = cles.cle(position);
+        Map<Integer, StatistiqueCoup> parCoup = new HashMap<>();
+        for (IndexPositions idx : index) {
+            for (long i = idx.premiere(cle); i < idx.getNombreEntrees() && idx.cle(i) == cle; i++) {
+                compter(parCoup, position, idx.donnee(i));
+            }
+        }
+        for (int i = 0; i < enAttente.entrees; i++) {
+            if (enAttente.cles[i] == cle) {
+                compter(parCoup, position, enAttente.donnees[i]);
+            }
+        }
+        List<StatistiqueCoup> resultat = new ArrayList<>();
+        for (StatistiqueCoup s : parCoup.values()) {
+            if (s != null) resultat.add(s);
+        }
+        resultat.sort((a, b) -> Integer.compare(b.getParties(), a.getParties()));
+        return resultat;
+    }
+
+    /**
+     * Coups joués depuis la position courante d'un jeu
+     */
+    public List<StatistiqueCoup> explorer(Jeu jeu) {
+        Echiquier position = new Echiquier();
+        position.chargerPosition(jeu.getPosition());
+        return explorer(position);
+    }
+
+    private void compter(Map<Integer, StatistiqueCoup> parCoup, Echiquier position, long donnee) {
+        int polyglot = (int) (donnee & 0xFFFF);
+        StatistiqueCoup s = parCoup.get(polyglot);
+        if (s == null) {
+            if (parCoup.containsKey(polyglot)) {
+                return;
+            }
+            int coup = ClesPolyglot.depuisPolyglot(position, polyglot, tampon);
+            if (coup == CodeCoup.AUCUN) {
+                // Collision de clé : coup illégal ici
+                parCoup.put(polyglot, null);
+                return;
+            }
+            StringBuilder san = new StringBuilder(8);
+            San.ecrire(position, coup, san, tampon);
+            s = new StatistiqueCoup(coup, san.toString());
+            parCoup.put(polyglot, s);
+        }
+        s.compter((int) (donnee >>> DECALAGE_RESULTAT) & 3);
+    }
+
+    /**
+     * Parties passées par une position
+     * @param position La position
+     * @param ids Reçoit les identifiants des parties
+     * @param plies Reçoit le demi-coup où la position est atteinte
+     * @return Le nombre de parties trouvées (au plus ids.length)
+     */
+    public synchronized int rechercherParties(Echiquier position, long[] ids, int[] plies) {
+        long cle = cles.cle(position);
+        int n = 0;
+        for (IndexPositions idx : index) {
+            for (long i = idx.premiere(cle); i < idx.getNombreEntrees() && idx.cle(i) == cle && n < ids.length; i++) {
+                long donnee = idx.donnee(i);
+                ids[n] = donnee >>> DECALAGE_PARTIE;
+                plies[n++] = (int) (donnee >>> DECALAGE_PLY) & PLY_MAX_INDEX;
+            }
+        }
+        for (int i = 0; i < enAttente.entrees && n < ids.length; i++) {
+            if (enAttente.cles[i] == cle) {
+                ids[n] = enAttente.donnees[i] >>> DECALAGE_PARTIE;
+                plies[n++] = (int) (enAttente.donnees[i] >>> DECALAGE_PLY) & PLY_MAX_INDEX;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sauvegarder();
+        for (IndexPositions idx : index) {
+            idx.close();
+        }
+        parties.close();
+    }
+
+    /**
+     * Parties codées et entrées d'index, les positions étant relatives au début du lot.
+     * Enregistrement d'une partie : nombre de coups (2 octets), résultat (1),
+     * longueur de la FEN de départ (1, 0 pour la position initiale), FEN, coups Polyglot (2 octets chacun).
+     */
+    private static final class Lot {
+        byte[] octets = new byte[1 << 12];
+        int longueur;
+        long[] cles = new long[1 << 10];
+        long[] donnees = new long[1 << 10];
+        int entrees;
+        long parties;
+
+        void ajouter(PartiePgn partie, Echiquier e, ClesPolyglot c) {
+            int resultat = switch (partie.getResultat()) {
+                case "1-0" -> RESULTAT_BLANCS;
+                case "0-1" -> RESULTAT_NOIRS;
+                case "1/2-1/2" -> RESULTAT_NULLE;
+                default -> RESULTAT_INCONNU;
+            };
+            String fen = partie.getFenDepart();
+            byte[] octetsFen = fen == null || fen.equals(Fen.INITIALE)
+                    ? new byte[0] : fen.getBytes(StandardCharsets.US_ASCII);
+            int coups = Math.min(partie.getNombreCoups(), 0xFFFF);
+            long offset = longueur;
+            reserver(4 + octetsFen.length + 2 * coups);
+            octets[longueur++] = (byte) (coups >> 8);
+            octets[longueur++] = (byte) coups;
+            octets[longueur++] = (byte) resultat;
+            octets[longueur++] = (byte) octetsFen.length;
+            System.arraycopy(octetsFen, 0, octets, longueur, octetsFen.length);
+            longueur += octetsFen.length;
+
+            e.chargerFen(octetsFen.length > 0 ? fen : Fen.INITIALE);
+            for (int i = 0; i < coups; i++) {
+                int coup = partie.getCoup(i);
+                int polyglot = ClesPolyglot.versPolyglot(coup);
+                octets[longueur++] = (byte) (polyglot >> 8);
+                octets[longueur++] = (byte) polyglot;
+                if (i <= PLY_MAX_INDEX) {
+                    ajouterEntree(c.cle(e), offset << DECALAGE_PARTIE | (long) i << DECALAGE_PLY
+                            | (long) resultat << DECALAGE_RESULTAT | polyglot);
+                }
+                e.jouer(coup);
+                if (e.getHauteur() > Echiquier.HISTORIQUE_MAX / 2) {
+                    e.tronquerHistorique();
+                }
+            }
+            parties++;
+        }
+
+        void ajouterEntree(long cle, long donnee) {
+            if (entrees == cles.length) {
+                cles = Arrays.copyOf(cles, entrees * 2);
+                donnees = Arrays.copyOf(donnees, entrees * 2);
+            }
+            cles[entrees] = cle;
+            donnees[entrees++] = donnee;
+        }
+
+        private void reserver(int n) {
+            if (longueur + n > octets.length) {
+                octets = Arrays.copyOf(octets, Math.max(octets.length * 2, longueur + n));
+            }
+        }
+
+        void trier() {
+            TriCles.trier(cles, donnees, entrees);
+        }
+
+        void vider() {
+            longueur = 0;
+            entrees = 0;
+            parties = 0;
+        }
+    }
+}
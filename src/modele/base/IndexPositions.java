@@ -0,0 +1,140 @@
+package modele.base;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Fichier d'index trié : entrées de 16 octets (clé de position, donnée)
+ * rangées par clé non signée, projetées en mémoire par segments.
+ * Le format de la donnée est défini par {@link BaseParties}.
+ */
+final class IndexPositions implements Closeable {
+    static final int TAILLE_ENTREE = 16;
+    private static final int BITS_SEGMENT = 30;
+
+    private final Path chemin;
+    private final FileChannel fichier;
+    private final ByteBuffer[] segments;
+    private final long entrees;
+
+    IndexPositions(Path chemin) throws IOException {
+        this.chemin = chemin;
+        this.fichier = FileChannel.open(chemin, StandardOpenOption.READ);
+        long taille = fichier.size();
+        this.entrees = taille / TAILLE_ENTREE;
+        int n = (int) ((taille + (1L << BITS_SEGMENT) - 1) >> BITS_SEGMENT);
+        this.segments = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            long debut = (long) i << BITS_SEGMENT;
+            segments[i] = fichier.map(FileChannel.MapMode.READ_ONLY, debut, Math.min(1L << BITS_SEGMENT, taille - debut));
+        }
+    }
+
+    Path getChemin() {
+        return chemin;
+    }
+
+    long getNombreEntrees() {
+        return entrees;
+    }
+
+    long cle(long i) {
+        long octet = i * TAILLE_ENTREE;
+        return segments[(int) (octet >> BITS_SEGMENT)].getLong((int) (octet & ((1L << BITS_SEGMENT) - 1)));
+    }
+
+    long donnee(long i) {
+        long octet = i * TAILLE_ENTREE + 8;
+        return segments[(int) (octet >> BITS_SEGMENT)].getLong((int) (octet & ((1L << BITS_SEGMENT) - 1)));
+    }
+
+    /** Première entrée dont la clé est supérieure ou égale */
+    long premiere(long cle) {
+        long bas = 0, haut = entrees;
+        while (bas < haut) {
+            long milieu = (bas + haut) >>> 1;
+            if (Long.compareUnsigned(cle(milieu), cle) < 0) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fichier.close();
+    }
+
+    /**
+     * Écrit des paires déjà triées dans un nouveau fichier d'index
+     */
+    static void ecrire(Path chemin, long[] cles, long[] donnees, int n) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(chemin), 1 << 16))) {
+            for (int i = 0; i < n; i++) {
+                out.writeLong(cles[i]);
+                out.writeLong(donnees[i]);
+            }
+        }
+    }
+
+    /**
+     * Fusionne plusieurs index triés en un seul (fusion à k voies par tas)
+     */
+    static void fusionner(List<IndexPositions> sources, Path destination) throws IOException {
+        int k = sources.size();
+        long[] positions = new long[k];
+        int[] tas = new int[k];
+        int taille = 0;
+        for (int i = 0; i < k; i++) {
+            if (sources.get(i).entrees > 0) {
+                tas[taille++] = i;
+            }
+        }
+        for (int i = taille / 2 - 1; i >= 0; i--) {
+            descendre(sources, positions, tas, taille, i);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(destination), 1 << 16))) {
+            while (taille > 0) {
+                int s = tas[0];
+                IndexPositions source = sources.get(s);
+                out.writeLong(source.cle(positions[s]));
+                out.writeLong(source.donnee(positions[s]));
+                if (++positions[s] == source.entrees) {
+                    tas[0] = tas[--taille];
+                }
+                descendre(sources, positions, tas, taille, 0);
+            }
+        }
+    }
+
+    private static void descendre(List<IndexPositions> sources, long[] positions, int[] tas, int taille, int i) {
+        while (true) {
+            int min = i, g = 2 * i + 1, d = g + 1;
+            if (g < taille && inferieur(sources, positions, tas[g], tas[min])) min = g;
+            if (d < taille && inferieur(sources, positions, tas[d], tas[min])) min = d;
+            if (min == i) {
+                return;
+            }
+            int t = tas[i];
+            tas[i] = tas[min];
+            tas[min] = t;
+            i = min;
+        }
+    }
+
+    private static boolean inferieur(List<IndexPositions> sources, long[] positions, int a, int b) {
+        IndexPositions sa = sources.get(a), sb = sources.get(b);
+        return TriCles.comparer(sa.cle(positions[a]), sa.donnee(positions[a]),
+                sb.cle(positions[b]), sb.donnee(positions[b])) < 0;
+    }
+}
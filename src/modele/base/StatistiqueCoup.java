@@ -0,0 +1,52 @@
+package modele.base;
+
+/**
+ * Résultat d'une requête d'exploration : un coup joué depuis une position
+ * et le bilan des parties où il l'a été.
+ */
+public final class StatistiqueCoup {
+    private final int coup;
+    private final String san;
+    private int gainsBlancs;
+    private int nulles;
+    private int gainsNoirs;
+    private int inconnus;
+
+    StatistiqueCoup(int coup, String san) {
+        this.coup = coup;
+        this.san = san;
+    }
+
+    void compter(int resultat) {
+        switch (resultat) {
+            case BaseParties.RESULTAT_BLANCS -> gainsBlancs++;
+            case BaseParties.RESULTAT_NOIRS -> gainsNoirs++;
+            case BaseParties.RESULTAT_NULLE -> nulles++;
+            default -> inconnus++;
+        }
+    }
+
+    /** Le coup, codé comme dans le moteur (voir CodeCoup) */
+    public int getCoup() { return coup; }
+    /** Le coup en notation SAN */
+    public String getSan() { return san; }
+    public int getParties() { return gainsBlancs + nulles + gainsNoirs + inconnus; }
+    public int getGainsBlancs() { return gainsBlancs; }
+    public int getNulles() { return nulles; }
+    public int getGainsNoirs() { return gainsNoirs; }
+
+    /**
+     * Score des blancs sur les parties terminées (1 par victoire, 0,5 par nulle)
+     * @return Le score entre 0 et 1, ou 0,5 sans partie terminée
+     */
+    public double getScoreBlancs() {
+        int terminees = gainsBlancs + nulles + gainsNoirs;
+        return terminees == 0 ? 0.5 : (gainsBlancs + 0.5 * nulles) / terminees;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-7s %6d parties  +%d =%d -%d  (%.1f %% pour les blancs)",
+                san, getParties(), gainsBlancs, nulles, gainsNoirs, 100 * getScoreBlancs());
+    }
+}
@@ -0,0 +1,63 @@
+package modele.base;
+
+/**
+ * Tri en place de paires (clé, valeur) rangées dans deux tableaux de long,
+ * par clé puis par valeur (ordre non signé), sans objet intermédiaire.
+ */
+public final class TriCles {
+    private TriCles() {
+    }
+
+    /**
+     * Trie les n premières paires
+     * @param cles Les clés
+     * @param valeurs Les valeurs associées (déplacées avec leur clé)
+     * @param n Nombre de paires à trier
+     */
+    public static void trier(long[] cles, long[] valeurs, int n) {
+        trier(cles, valeurs, 0, n - 1);
+    }
+
+    private static void trier(long[] cles, long[] valeurs, int bas, int haut) {
+        while (haut - bas > 16) {
+            int milieu = (bas + haut) >>> 1;
+            long pivotCle = cles[milieu], pivotValeur = valeurs[milieu];
+            int i = bas, j = haut;
+            while (i <= j) {
+                while (comparer(cles[i], valeurs[i], pivotCle, pivotValeur) < 0) i++;
+                while (comparer(cles[j], valeurs[j], pivotCle, pivotValeur) > 0) j--;
+                if (i <= j) {
+                    echanger(cles, valeurs, i++, j--);
+                }
+            }
+            // Récursion sur la plus petite partie, boucle sur la plus grande
+            if (j - bas < haut - i) {
+                trier(cles, valeurs, bas, j);
+                bas = i;
+            } else {
+                trier(cles, valeurs, i, haut);
+                haut = j;
+            }
+        }
+        for (int i = bas + 1; i <= haut; i++) {
+            for (int k = i; k > bas && comparer(cles[k - 1], valeurs[k - 1], cles[k], valeurs[k]) > 0; k--) {
+                echanger(cles, valeurs, k, k - 1);
+            }
+        }
+    }
+
+    /** Comparaison non signée par clé puis par valeur */
+    public static int comparer(long cleA, long valeurA, long cleB, long valeurB) {
+        int c = Long.compareUnsigned(cleA, cleB);
+        return c != 0 ? c : Long.compareUnsigned(valeurA, valeurB);
+    }
+
+    private static void echanger(long[] cles, long[] valeurs, int i, int j) {
+        long c = cles[i];
+        cles[i] = cles[j];
+        cles[j] = c;
+        long v = valeurs[i];
+        valeurs[i] = valeurs[j];
+        valeurs[j] = v;
+    }
+}
@@ -31,6 +31,7 @@ public abstract class Deco extends Piece {
     @Override public Plateau getPlateau()     { return wrapped.getPlateau(); }
     @Override public Case getCurrentCase()    { return wrapped.getCurrentCase(); }
     @Override public void setPosition(int x,int y) { wrapped.setPosition(x,y); }
+    @Override public void placer(int x,int y)      { wrapped.placer(x,y); }
 
     /** On vire complètement initDecorateur() et setImagePath() hérités */
     @Override protected final void initDecorateur() { /* plus rien */ }
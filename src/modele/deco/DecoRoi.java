@@ -116,15 +116,13 @@ public class DecoRoi extends Deco {
         Case caseTest = getPlateau().getCase(x, y);
         
         // Déplacer temporairement le roi
-        caseTest.setPiece(roi);
-        caseOriginale.setPiece(null);
+        Piece occupant = getPlateau().simulerDeplacement(roi, caseTest);
         
         // Vérifier si le roi est en échec
         boolean enEchec = getPlateau().estEnEchec(getColor(), false);
         
         // Remettre le roi à sa place
-        caseOriginale.setPiece(roi);
-        caseTest.setPiece(null);
+        getPlateau().annulerSimulation(roi, caseOriginale, caseTest, occupant);
         
         return enEchec;
     }
@@ -140,11 +138,9 @@ public class DecoRoi extends Deco {
         
         for (Case destination : mouvements) {
             Case origine = roi.getCurrentCase();
-            Piece pieceCapturee = destination.getPiece();
             
             // Simuler le mouvement
-            destination.setPiece(roi);
-            origine.setPiece(null);
+            Piece pieceCapturee = getPlateau().simulerDeplacement(roi, destination);
             
             // Vérifier si le roi est en échec après le mouvement
             if (!getPlateau().estEnEchec(getColor(), false)) {
@@ -152,8 +148,7 @@ public class DecoRoi extends Deco {
             }
             
             // Annuler le mouvement
-            origine.setPiece(roi);
-            destination.setPiece(pieceCapturee);
+            getPlateau().annulerSimulation(roi, origine, destination, pieceCapturee);
         }
         
         return mouvementsValides;
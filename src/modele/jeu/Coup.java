@@ -1,6 +1,7 @@
 package modele.jeu;
 
 import modele.pieces.Piece;
+import modele.pieces.PieceType;
 import modele.plateau.Case;
 
 /**
@@ -11,6 +12,8 @@ public class Coup {
     private final Case arrivee;
     private final Piece piece;
     private final Piece piecePrise;
+    private final PieceType promotion;
+    private final String san;
 
     /**
      * Crée un nouveau coup
@@ -22,6 +25,24 @@ public class Coup {
         this.arrivee = arrivee;
         this.piece = depart.getPiece();
         this.piecePrise = arrivee.getPiece();
+        this.promotion = null;
+        this.san = null;
+    }
+
+    /**
+     * Copie un coup joué en y ajoutant sa notation SAN et, pour un pion,
+     * la pièce choisie pour la promotion
+     * @param coup Le coup joué
+     * @param promotion Le type de la nouvelle pièce, ou null
+     * @param san La notation SAN, ou null si elle n'est pas connue
+     */
+    Coup(Coup coup, PieceType promotion, String san) {
+        this.depart = coup.depart;
+        this.arrivee = coup.arrivee;
+        this.piece = coup.piece;
+        this.piecePrise = coup.piecePrise;
+        this.promotion = promotion;
+        this.san = san;
     }
 
     /**
@@ -64,8 +85,27 @@ public class Coup {
         return piecePrise != null;
     }
 
+    /**
+     * Obtient la pièce choisie pour la promotion
+     * @return Le type de la nouvelle pièce, ou null si le coup n'est pas une promotion
+     */
+    public PieceType getPromotion() {
+        return promotion;
+    }
+
+    /**
+     * Obtient la notation SAN du coup (Nbd7, exd8=Q+, O-O)
+     * @return La notation, ou null si le coup n'a pas été joué dans un jeu
+     */
+    public String getSan() {
+        return san;
+    }
+
     @Override
     public String toString() {
+        if (san != null) {
+            return san;
+        }
         // Format simple: e2-e4
         char colonneDepart = (char) ('a' + depart.getX());
         char ligneDepart = (char) ('1' + depart.getY());
@@ -0,0 +1,314 @@
+package modele.jeu;
+
+import modele.pieces.*;
+import modele.plateau.Plateau;
+
+import java.util.Arrays;
+
+/**
+ * Position au format FEN : lecture, écriture et passage vers un plateau.
+ * L'objet est mutable et réutilisable : {@link #lire} ne fait aucune
+ * allocation (ni expression régulière ni découpage), ce qui permet de
+ * charger des millions de positions par seconde en réutilisant une instance.
+ * Les cases sont indexées par y * 8 + x (a1 = 0, h8 = 63).
+ */
+public final class Fen {
+    public static final String INITIALE = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final PieceType[] types = new PieceType[64];
+    private final PieceColor[] couleurs = new PieceColor[64];
+    private PieceColor trait = PieceColor.WHITE;
+    // Droits de roque : mêmes bits que Position
+    private int roques;
+    private int enPassant = -1;
+    private int demiCoups;
+    private int numeroCoup = 1;
+
+    public Fen() {
+    }
+
+    /**
+     * Crée la description d'une position FEN
+     * @param texte La position
+     * @throws IllegalArgumentException si la FEN est invalide
+     */
+    public Fen(CharSequence texte) {
+        lire(texte);
+    }
+
+    /**
+     * Lit une position FEN complète (les compteurs de coups sont optionnels)
+     * @param texte La position
+     * @throws IllegalArgumentException si la FEN est invalide
+     */
+    public void lire(CharSequence texte) {
+        lire(texte, 0, texte.length());
+    }
+
+    /**
+     * Lit une position FEN dans une portion de texte, sans allocation
+     * @param texte Le texte contenant la position
+     * @param debut Index du premier caractère
+     * @param fin Index suivant le dernier caractère
+     * @throws IllegalArgumentException si la FEN est invalide
+     */
+    public void lire(CharSequence texte, int debut, int fin) {
+        vider();
+        int i = sauterEspaces(texte, debut, fin);
+
+        // Placement des pièces, de la 8e à la 1re rangée
+        int x = 0, y = 7;
+        int rois = 0;
+        for (; i < fin; i++) {
+            char c = texte.charAt(i);
+            if (c == ' ') {
+                break;
+            } else if (c == '/') {
+                if (x != 8 || y == 0) throw erreur(texte, debut, fin);
+                x = 0;
+                y--;
+            } else if (c >= '1' && c <= '8') {
+                x += c - '0';
+                if (x > 8) throw erreur(texte, debut, fin);
+            } else {
+                PieceType type = typeDepuisLettre(c);
+                if (type == null || x > 7) throw erreur(texte, debut, fin);
+                PieceColor couleur = (c >= 'a') ? PieceColor.BLACK : PieceColor.WHITE;
+                if (type == PieceType.ROI) rois += (couleur == PieceColor.WHITE) ? 1 : 16;
+                types[y * 8 + x] = type;
+                couleurs[y * 8 + x] = couleur;
+                x++;
+            }
+        }
+        if (x != 8 || y != 0 || rois != 17) throw erreur(texte, debut, fin);
+
+        // Trait
+        i = sauterEspaces(texte, i, fin);
+        if (i >= fin) throw erreur(texte, debut, fin);
+        char c = texte.charAt(i++);
+        if (c == 'w') trait = PieceColor.WHITE;
+        else if (c == 'b') trait = PieceColor.BLACK;
+        else throw erreur(texte, debut, fin);
+
+        // Droits de roque (absents : aucun)
+        i = sauterEspaces(texte, i, fin);
+        if (i < fin && texte.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < fin && texte.charAt(i) != ' '; i++) {
+                switch (texte.charAt(i)) {
+                    case 'K' -> roques |= Position.ROQUE_BLANC_ROI;
+                    case 'Q' -> roques |= Position.ROQUE_BLANC_DAME;
+                    case 'k' -> roques |= Position.ROQUE_NOIR_ROI;
+                    case 'q' -> roques |= Position.ROQUE_NOIR_DAME;
+                    default -> throw erreur(texte, debut, fin);
+                }
+            }
+        }
+
+        // Case de prise en passant
+        i = sauterEspaces(texte, i, fin);
+        if (i < fin && texte.charAt(i) == '-') {
+            i++;
+        } else if (i + 1 < fin) {
+            char colonne = texte.charAt(i), rangee = texte.charAt(i + 1);
+            if (colonne < 'a' || colonne > 'h' || (rangee != '3' && rangee != '6')) {
+                throw erreur(texte, debut, fin);
+            }
+            enPassant = (rangee - '1') * 8 + (colonne - 'a');
+            i += 2;
+        }
+
+        // Compteurs de demi-coups et de coups
+        i = sauterEspaces(texte, i, fin);
+        if (i < fin) {
+            int valeur = 0, chiffres = 0;
+            for (; i < fin && texte.charAt(i) >= '0' && texte.charAt(i) <= '9'; i++, chiffres++) {
+                valeur = valeur * 10 + (texte.charAt(i) - '0');
+            }
+            if (chiffres == 0) throw erreur(texte, debut, fin);
+            demiCoups = valeur;
+            i = sauterEspaces(texte, i, fin);
+            valeur = 0;
+            chiffres = 0;
+            for (; i < fin && texte.charAt(i) >= '0' && texte.charAt(i) <= '9'; i++, chiffres++) {
+                valeur = valeur * 10 + (texte.charAt(i) - '0');
+            }
+            if (chiffres > 0) numeroCoup = Math.max(1, valeur);
+        }
+    }
+
+    /**
+     * Écrit la position au format FEN à la suite d'un tampon
+     * @param sb Le tampon de sortie
+     * @return Le tampon
+     */
+    public StringBuilder ecrire(StringBuilder sb) {
+        for (int y = 7; y >= 0; y--) {
+            int vides = 0;
+            for (int x = 0; x < 8; x++) {
+                PieceType type = types[y * 8 + x];
+                if (type == null) {
+                    vides++;
+                    continue;
+                }
+                if (vides > 0) {
+                    sb.append((char) ('0' + vides));
+                    vides = 0;
+                }
+                char lettre = type.getLetter();
+                sb.append(couleurs[y * 8 + x] == PieceColor.WHITE ? lettre : Character.toLowerCase(lettre));
+            }
+            if (vides > 0) sb.append((char) ('0' + vides));
+            if (y > 0) sb.append('/');
+        }
+        sb.append(trait == PieceColor.WHITE ? " w " : " b ");
+        if (roques == 0) {
+            sb.append('-');
+        } else {
+            if ((roques & Position.ROQUE_BLANC_ROI) != 0) sb.append('K');
+            if ((roques & Position.ROQUE_BLANC_DAME) != 0) sb.append('Q');
+            if ((roques & Position.ROQUE_NOIR_ROI) != 0) sb.append('k');
+            if ((roques & Position.ROQUE_NOIR_DAME) != 0) sb.append('q');
+        }
+        sb.append(' ');
+        if (enPassant < 0) {
+            sb.append('-');
+        } else {
+            sb.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >> 3)));
+        }
+        return sb.append(' ').append(demiCoups).append(' ').append(numeroCoup);
+    }
+
+    @Override
+    public String toString() {
+        return ecrire(new StringBuilder(90)).toString();
+    }
+
+    /**
+     * Recopie un instantané de partie (sans verrou)
+     * @param position L'instantané publié par le jeu
+     */
+    public void charger(Position position) {
+        vider();
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                types[y * 8 + x] = position.getType(x, y);
+                couleurs[y * 8 + x] = position.getCouleur(x, y);
+            }
+        }
+        trait = position.getTrait();
+        roques = position.getRoques();
+        enPassant = position.getEnPassant();
+        demiCoups = position.getDemiCoups();
+        numeroCoup = position.getNumeroCoup();
+    }
+
+    /**
+     * Remplace les pièces d'un plateau par celles de la position. Les rois et
+     * tours sans droit de roque sont marqués comme ayant bougé, le pion qui
+     * vient d'avancer de deux cases peut être pris en passant.
+     * @param plateau Le plateau à remplir
+     */
+    public void remplir(Plateau plateau) {
+        plateau.vider();
+        for (int sq = 0; sq < 64; sq++) {
+            if (types[sq] != null) {
+                plateau.ajouterPiece(creerPiece(types[sq], sq & 7, sq >> 3, couleurs[sq], plateau));
+            }
+        }
+        marquerRoques(plateau, PieceColor.WHITE, 0, Position.ROQUE_BLANC_ROI, Position.ROQUE_BLANC_DAME);
+        marquerRoques(plateau, PieceColor.BLACK, 7, Position.ROQUE_NOIR_ROI, Position.ROQUE_NOIR_DAME);
+        if (enPassant >= 0) {
+            // Le pion est devant la case de prise : 4e rangée pour les blancs, 5e pour les noirs
+            int y = (enPassant >> 3) == 2 ? 3 : 4;
+            Piece pion = plateau.getCase(enPassant & 7, y).getPiece();
+            if (pion instanceof Pion) {
+                ((Pion) pion).setPriseEnPassantPossible(true);
+            }
+        }
+    }
+
+    private void marquerRoques(Plateau plateau, PieceColor couleur, int ligne, int droitRoi, int droitDame) {
+        for (Piece tour : plateau.getPieces(couleur, PieceType.TOUR)) {
+            boolean roquable = tour.getY() == ligne
+                    && ((tour.getX() == 7 && (roques & droitRoi) != 0)
+                    || (tour.getX() == 0 && (roques & droitDame) != 0));
+            ((Tour) tour).setHasMoved(!roquable);
+        }
+        for (Piece roi : plateau.getPieces(couleur, PieceType.ROI)) {
+            boolean roquable = roi.getX() == 4 && roi.getY() == ligne && (roques & (droitRoi | droitDame)) != 0;
+            ((Roi) roi).setHasMoved(!roquable);
+        }
+    }
+
+    private static Piece creerPiece(PieceType type, int x, int y, PieceColor couleur, Plateau plateau) {
+        return switch (type) {
+            case PION -> new Pion(x, y, couleur, plateau);
+            case TOUR -> new Tour(x, y, couleur, plateau);
+            case CAVALIER -> new Cavalier(x, y, couleur, plateau);
+            case FOU -> new Fou(x, y, couleur, plateau);
+            case DAME -> new Dame(x, y, couleur, plateau);
+            case ROI -> new Roi(x, y, couleur, plateau);
+        };
+    }
+
+    /** Type correspondant à une lettre FEN (majuscule ou minuscule), null si inconnue */
+    public static PieceType typeDepuisLettre(char c) {
+        return switch (c) {
+            case 'P', 'p' -> PieceType.PION;
+            case 'N', 'n' -> PieceType.CAVALIER;
+            case 'B', 'b' -> PieceType.FOU;
+            case 'R', 'r' -> PieceType.TOUR;
+            case 'Q', 'q' -> PieceType.DAME;
+            case 'K', 'k' -> PieceType.ROI;
+            default -> null;
+        };
+    }
+
+    private static int sauterEspaces(CharSequence texte, int i, int fin) {
+        while (i < fin && texte.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static IllegalArgumentException erreur(CharSequence texte, int debut, int fin) {
+        return new IllegalArgumentException("FEN invalide : " + texte.subSequence(debut, fin));
+    }
+
+    /** Vide l'échiquier et remet les champs par défaut */
+    public void vider() {
+        Arrays.fill(types, null);
+        Arrays.fill(couleurs, null);
+        trait = PieceColor.WHITE;
+        roques = 0;
+        enPassant = -1;
+        demiCoups = 0;
+        numeroCoup = 1;
+    }
+
+    /**
+     * Pose une pièce (ou vide la case si type est null)
+     * @param sq Index de la case
+     */
+    public void setPiece(int sq, PieceType type, PieceColor couleur) {
+        types[sq] = type;
+        couleurs[sq] = type == null ? null : couleur;
+    }
+
+    /** Type de la pièce sur une case, ou null */
+    public PieceType getType(int sq) { return types[sq]; }
+    /** Couleur de la pièce sur une case, ou null */
+    public PieceColor getCouleur(int sq) { return couleurs[sq]; }
+
+    public PieceColor getTrait() { return trait; }
+    public void setTrait(PieceColor trait) { this.trait = trait; }
+    public int getRoques() { return roques; }
+    public void setRoques(int roques) { this.roques = roques; }
+    /** Index de la case de prise en passant, ou -1 */
+    public int getEnPassant() { return enPassant; }
+    public void setEnPassant(int enPassant) { this.enPassant = enPassant; }
+    public int getDemiCoups() { return demiCoups; }
+    public void setDemiCoups(int demiCoups) { this.demiCoups = demiCoups; }
+    public int getNumeroCoup() { return numeroCoup; }
+    public void setNumeroCoup(int numeroCoup) { this.numeroCoup = numeroCoup; }
+}
@@ -5,6 +5,11 @@ import java.util.ArrayList;
 import java.util.List;
 import modele.joueur.IJoueur;
 import modele.joueur.JoueurHumain;
+import modele.joueur.OrdonnanceurIA;
+import modele.moteur.CodeCoup;
+import modele.moteur.Echiquier;
+import modele.moteur.San;
+import modele.moteur.SolveurMat;
 import modele.plateau.Plateau;
 import modele.plateau.Case;
 import modele.pieces.*;
@@ -14,6 +19,8 @@ import java.util.Observable;
 /**
  * Logique de la partie : historique, tour de jeu, validation, etc.
  * L'initialisation des pièces se fait désormais dans Plateau.
+ * Le plateau n'est lu et modifié que sous le verrou de Jeu ; les lecteurs
+ * concurrents (vues, IA) utilisent l'instantané publié par {@link #getPosition()}.
  */
 public class Jeu {
     private final Plateau plateau;
@@ -22,12 +29,35 @@ public class Jeu {
     private boolean promotionEnCours = false;
     private Case casePromotion;
     private boolean partieTerminee = false;
+    // Compteurs FEN : demi-coups depuis la dernière prise ou poussée de pion, numéro du coup
+    private int demiCoups = 0;
+    private int numeroCoup = 1;
+    // Position de départ si elle a été chargée en FEN, null pour la position initiale
+    private String fenDepart;
+
+    // Copie compacte de la position pour la notation SAN, tenue à jour à chaque coup.
+    // Elle ne déjoue jamais (annulerCoup rejoue la partie) : une petite pile suffit
+    private static final int HISTORIQUE_MIROIR = 256;
+    private final Echiquier miroir = new Echiquier(HISTORIQUE_MIROIR);
+    private final int[] tamponCoups = new int[256];
+    private final StringBuilder tamponSan = new StringBuilder(16);
+    // Dernier instantané publié, lu sans verrou
+    private volatile Position position;
     
     // Nouveaux attributs pour les joueurs
     private IJoueur joueurBlanc;
     private IJoueur joueurNoir;
     private boolean modeIA = false;
 
+    // Réflexions de l'IA propres à cette partie
+    private final OrdonnanceurIA ordonnanceur = new OrdonnanceurIA();
+    private volatile boolean arretee = false;
+
+    // Pendule de la partie (null : partie sans limite de temps)
+    private volatile Pendule pendule;
+    // Joueur qui a dépassé son temps, null sinon
+    private PieceColor tombe;
+
     public Jeu() {
         this.plateau = new Plateau();
         this.historique = new ArrayList<>();
@@ -38,6 +68,66 @@ public class Jeu {
         this.joueurNoir = new JoueurHumain(PieceColor.BLACK);
         this.joueurBlanc.setJeu(this);
         this.joueurNoir.setJeu(this);
+        publierPosition();
+    }
+
+    /**
+     * Crée une partie à partir d'une position FEN
+     * @param fen La position de départ
+     * @throws IllegalArgumentException si la FEN est invalide
+     */
+    public Jeu(String fen) {
+        this();
+        chargerFen(fen);
+    }
+
+    /**
+     * Remplace la position par une position FEN (trait, roques, prise en passant
+     * et compteurs compris) et vide l'historique.
+     * @param fen La position à charger
+     * @throws IllegalArgumentException si la FEN est invalide (la partie est alors inchangée)
+     */
+    public synchronized void chargerFen(CharSequence fen) {
+        Fen lue = new Fen(fen);
+        lue.remplir(plateau);
+        miroir.chargerFen(lue);
+        joueurActuel = lue.getTrait();
+        demiCoups = lue.getDemiCoups();
+        numeroCoup = lue.getNumeroCoup();
+        historique.clear();
+        fenDepart = lue.toString();
+        promotionEnCours = false;
+        casePromotion = null;
+        tombe = null;
+        publierPosition();
+        partieTerminee = position.estTerminee();
+        plateau.notifierObservers(position);
+    }
+
+    /**
+     * Retourne la position courante au format FEN (lue dans l'instantané, sans verrou)
+     * @return La position FEN
+     */
+    public String getFen() {
+        Fen fen = new Fen();
+        fen.charger(position);
+        return fen.toString();
+    }
+
+    /**
+     * Retourne la position de départ de la partie
+     * @return La FEN de départ, ou null si la partie part de la position initiale
+     */
+    public synchronized String getFenDepart() {
+        return fenDepart;
+    }
+
+    /**
+     * Retourne les coups joués depuis la position de départ
+     * @return Une copie de l'historique
+     */
+    public synchronized List<Coup> getHistorique() {
+        return new ArrayList<>(historique);
     }
 
     /**
@@ -57,6 +147,19 @@ public class Jeu {
         this.modeIA = true;
     }
 
+    /**
+     * Place deux joueurs quelconques (partie IA contre IA, tournoi)
+     * @param blanc Le joueur des blancs
+     * @param noir Le joueur des noirs
+     */
+    public void setJoueurs(IJoueur blanc, IJoueur noir) {
+        this.joueurBlanc = blanc;
+        this.joueurNoir = noir;
+        this.joueurBlanc.setJeu(this);
+        this.joueurNoir.setJeu(this);
+        this.modeIA = blanc.estIA() || noir.estIA();
+    }
+
     /**
      * Désactive le mode IA et remet en place deux joueurs humains
      */
@@ -68,6 +171,69 @@ public class Jeu {
         this.modeIA = false;
     }
     
+    /**
+     * Retourne l'ordonnanceur des réflexions IA de cette partie
+     * (délai artificiel configurable, annulation)
+     */
+    public OrdonnanceurIA getOrdonnanceur() {
+        return ordonnanceur;
+    }
+
+    /**
+     * Attache une pendule à la partie (avant demarrerPartie)
+     * @param pendule La pendule, ou null pour jouer sans limite de temps
+     */
+    public void setPendule(Pendule pendule) {
+        this.pendule = pendule;
+    }
+
+    public Pendule getPendule() {
+        return pendule;
+    }
+
+    /**
+     * Vérifie le drapeau du joueur au trait : s'il a dépassé son temps,
+     * la partie se termine à son détriment et sa réflexion est abandonnée.
+     * Appelée régulièrement par l'interface, le serveur ou le tournoi, pour
+     * que la chute soit vue sans attendre le coup suivant.
+     * @return true si la partie vient de se terminer au temps
+     */
+    public synchronized boolean verifierTemps() {
+        if (pendule == null || tombe != null || position.estTerminee() || !pendule.estTombe(joueurActuel)) {
+            return false;
+        }
+        pendule.arreter();
+        ordonnanceur.annuler();
+        tombe = joueurActuel;
+        publierPosition();
+        partieTerminee = true;
+        plateau.notifierObservers(position);
+        return true;
+    }
+
+    /**
+     * Retourne le joueur qui a perdu au temps
+     * @return Sa couleur, ou null si personne n'a dépassé son temps
+     */
+    public synchronized PieceColor getPerdantAuTemps() {
+        return tombe;
+    }
+
+    /**
+     * Abandonne la partie : annule les réflexions en cours et refuse tout coup ultérieur.
+     * Appelée quand une nouvelle partie remplace celle-ci.
+     */
+    public void arreter() {
+        arretee = true;
+        Pendule p = pendule;
+        if (p != null) {
+            p.arreter();
+        }
+        joueurBlanc.arreter();
+        joueurNoir.arreter();
+        ordonnanceur.arreter();
+    }
+
     /**
      * Récupère le joueur actuel
      * @return Le joueur dont c'est le tour
@@ -76,6 +242,14 @@ public class Jeu {
         return (joueurActuel == PieceColor.WHITE) ? joueurBlanc : joueurNoir;
     }
     
+    /**
+     * Récupère l'adversaire du joueur actuel
+     * @return Le joueur qui attend son tour
+     */
+    public IJoueur getJoueurAdverse() {
+        return (joueurActuel == PieceColor.WHITE) ? joueurNoir : joueurBlanc;
+    }
+
     /**
      * Vérifie si le joueur actuel est une IA
      * @return true si le joueur actuel est une IA
@@ -92,6 +266,73 @@ public class Jeu {
         return joueurActuel;
     }
 
+    /**
+     * Retourne le dernier instantané cohérent de la partie.
+     * Lecture sans verrou : utilisable depuis n'importe quel thread.
+     * @return La position publiée après le dernier coup
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Calcule et publie l'instantané de la position courante.
+     * Doit être appelée sous le verrou, après chaque modification du plateau.
+     */
+    private void publierPosition() {
+        boolean echecBlanc = plateau.estEnEchec(PieceColor.WHITE);
+        boolean echecNoir = plateau.estEnEchec(PieceColor.BLACK);
+        // Seul le joueur au trait peut être mat ou pat : un seul parcours de ses coups
+        boolean terminee = !aDesMouvementsValides(joueurActuel);
+        PieceColor vainqueur = null;
+        if (terminee && (joueurActuel == PieceColor.WHITE ? echecBlanc : echecNoir)) {
+            vainqueur = joueurActuel == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE;
+        }
+        if (tombe != null) {
+            terminee = true;
+            vainqueur = tombe == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE;
+        }
+        position = Position.depuis(plateau, joueurActuel, historique.size(), demiCoups, numeroCoup,
+                echecBlanc, echecNoir, terminee, vainqueur);
+    }
+
+    /**
+     * Liste les coups légaux du joueur actuel.
+     * @return Les coups légaux (vide si le joueur est mat ou pat)
+     */
+    public synchronized List<Coup> getCoupsLegaux() {
+        List<Coup> coups = new ArrayList<>();
+        for (Piece p : new ArrayList<>(plateau.getPieces(joueurActuel))) {
+            Case depart = p.getCurrentCase();
+            for (Case arrivee : p.getCasesAccessibles()) {
+                if (MoveValidator.isValid(p, arrivee, plateau)) {
+                    coups.add(new Coup(depart, arrivee));
+                }
+            }
+        }
+        return coups;
+    }
+
+    /**
+     * Cases d'arrivée légales de la pièce d'une case, calculées sous le verrou
+     * (l'interface ne parcourt pas le plateau pendant qu'une IA joue)
+     * @param depart La case de la pièce
+     * @return Les arrivées, vide si la case n'a pas de pièce du joueur au trait
+     */
+    public synchronized List<Case> getCasesAccessibles(Case depart) {
+        List<Case> cases = new ArrayList<>();
+        Piece p = depart.getPiece();
+        if (p == null || p.getColor() != joueurActuel) {
+            return cases;
+        }
+        for (Case arrivee : p.getCasesAccessibles()) {
+            if (MoveValidator.isValid(p, arrivee, plateau)) {
+                cases.add(arrivee);
+            }
+        }
+        return cases;
+    }
+
     /**
      * Vérifie si le joueur spécifié est en échec.
      * @param couleur Couleur du joueur à vérifier
@@ -103,11 +344,11 @@ public class Jeu {
 
     /**
      * Vérifie si la partie est terminée (échec et mat ou pat).
+     * Lu dans l'instantané publié, sans verrou.
      * @return true si la partie est terminée
      */
-    public synchronized boolean estPartieTerminee() {
-        return estEchecEtMat(PieceColor.WHITE) || estEchecEtMat(PieceColor.BLACK) 
-               || estPat(PieceColor.WHITE) || estPat(PieceColor.BLACK);
+    public boolean estPartieTerminee() {
+        return position.estTerminee();
     }
 
     /**
@@ -115,9 +356,7 @@ public class Jeu {
      * @return La couleur du vainqueur, ou null
      */
     public PieceColor getVainqueur() {
-        if (estEchecEtMat(PieceColor.WHITE)) return PieceColor.BLACK;
-        if (estEchecEtMat(PieceColor.BLACK)) return PieceColor.WHITE;
-        return null;
+        return position.getVainqueur();
     }
 
     /**
@@ -126,8 +365,12 @@ public class Jeu {
      */
     public void demarrerPartie() {
         // Réinitialiser l'état
+        // Le trait est celui de la position de départ (initiale ou chargée en FEN)
         partieTerminee = false;
-        joueurActuel = PieceColor.WHITE;
+        Pendule p = pendule;
+        if (p != null) {
+            p.demarrer(joueurActuel);
+        }
         
         // Notifier le premier joueur
         getJoueurCourant().notifierTour();
@@ -150,6 +393,10 @@ public class Jeu {
      * @return true si le coup a été appliqué avec succès
      */
     public synchronized boolean appliquerCoup(Coup coup) {
+        // Partie abandonnée, ou perdue au temps entre deux coups
+        if (arretee || tombe != null) {
+            return false;
+        }
         Case depart = coup.getDepart();
         Case arrivee = coup.getArrivee();
         
@@ -160,6 +407,37 @@ public class Jeu {
 
         Piece piece = depart.getPiece();
 
+        // Le coup arrive après la chute du drapeau : la partie est perdue au temps
+        if (pendule != null && !pendule.appuyer(joueurActuel)) {
+            tombe = joueurActuel;
+            publierPosition();
+            partieTerminee = true;
+            plateau.notifierObservers(position);
+            return false;
+        }
+
+        // Notation SAN calculée sur le miroir avant de jouer (différée pour une promotion)
+        int code = miroir.trouverCoup(depart.getY() * 8 + depart.getX(),
+                arrivee.getY() * 8 + arrivee.getX(), 0, tamponCoups);
+        String san = null;
+        if (code != CodeCoup.AUCUN) {
+            tamponSan.setLength(0);
+            San.ecrire(miroir, code, tamponSan, tamponCoups);
+            san = tamponSan.toString();
+        }
+
+        // Compteurs FEN : une prise ou un coup de pion remet la règle des 50 coups à zéro
+        boolean irreversible = piece instanceof Pion || arrivee.getPiece() != null;
+        demiCoups = irreversible ? 0 : demiCoups + 1;
+        if (joueurActuel == PieceColor.BLACK) {
+            numeroCoup++;
+        }
+
+        // Retirer la pièce prise des listes du plateau
+        if (arrivee.getPiece() != null) {
+            plateau.retirerPiece(arrivee.getPiece());
+        }
+
         // Gestion spéciale du roque
         if (piece instanceof Roi && Math.abs(arrivee.getX() - depart.getX()) == 2) {
             executerRoque((Roi) piece, arrivee);
@@ -189,21 +467,26 @@ public class Jeu {
         }
 
         // Ajouter le coup à l'historique
-        historique.add(coup);
+        historique.add(san != null ? new Coup(coup, null, san) : coup);
 
         // Changer le joueur actuel
         PieceColor previousPlayer = joueurActuel;
         joueurActuel = (joueurActuel == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
 
         // Réinitialiser les drapeaux de prise en passant pour le JOUEUR ACTUEL (pas l'adversaire)
-        for (Piece p : plateau.getPieces()) {
-            if (p.getColor() == joueurActuel && p instanceof Pion) {
-                ((Pion) p).setPriseEnPassantPossible(false);
-            }
+        for (Piece p : plateau.getPieces(joueurActuel, PieceType.PION)) {
+            ((Pion) p).setPriseEnPassantPossible(false);
         }
 
-        // Notifier les observateurs
-        plateau.notifierObservers();
+        // Publier le nouvel instantané, rejouer le coup sur le miroir puis notifier les observateurs
+        publierPosition();
+        if (position.estTerminee() && pendule != null) {
+            pendule.arreter();
+        }
+        if (!promotionEnCours) {
+            synchroniserMiroir(code);
+        }
+        plateau.notifierObservers(position);
         return true;
     }
 
@@ -218,19 +501,92 @@ public class Jeu {
         boolean resultat = appliquerCoup(coup);
         
         // Si le coup a été joué avec succès et que ce n'est pas une promotion en cours
+        // (le coup se termine alors au choix de la pièce, dans promouvoirPion)
         if (resultat && !promotionEnCours) {
-            // Vérifier si la partie est terminée
-            if (estPartieTerminee()) {
-                partieTerminee = true;
-            } else {
-                // Notifier le prochain joueur
-                getJoueurCourant().notifierTour();
-            }
+            terminerCoup();
         }
         
         return resultat;
     }
 
+    /**
+     * Fin d'un coup complet : fin de partie, ou tour du joueur suivant
+     */
+    private void terminerCoup() {
+        // Vérifier si la partie est terminée
+        if (position.estTerminee()) {
+            partieTerminee = true;
+            // Un mat par promotion n'est connu qu'une fois la pièce choisie
+            if (pendule != null) {
+                pendule.arreter();
+            }
+        } else {
+            // Le prochain joueur apprend le coup joué (promotion comprise), puis c'est son tour
+            IJoueur suivant = getJoueurCourant();
+            suivant.coupAdverse(historique.get(historique.size() - 1));
+            suivant.notifierTour();
+        }
+    }
+
+    /**
+     * Joue un coup calculé par une IA, seulement si la position est toujours
+     * celle pour laquelle il a été calculé (ni coup annulé ni nouvelle position
+     * entre-temps)
+     * @param attendue Instantané lu au début de la réflexion
+     * @param promotion Pièce choisie si le coup est une promotion
+     * @return true si le coup a été joué
+     */
+    public synchronized boolean jouerCoupCalcule(Position attendue, Case depart, Case arrivee, PieceType promotion) {
+        if (position != attendue || !jouerCoup(depart, arrivee)) {
+            return false;
+        }
+        if (promotionEnCours) {
+            promouvoirPion(promotion);
+        }
+        return true;
+    }
+
+    /**
+     * Annule le dernier coup : les réflexions en cours sont abandonnées, puis
+     * la partie est rejouée depuis sa position de départ sans le dernier coup.
+     * Le joueur au trait n'est pas notifié (c'est à l'appelant de relancer l'IA).
+     * @return true si un coup a été annulé
+     */
+    public synchronized boolean annulerCoup() {
+        if (arretee || historique.isEmpty()) {
+            return false;
+        }
+        joueurBlanc.annulerReflexion();
+        joueurNoir.annulerReflexion();
+        List<Coup> coups = new ArrayList<>(historique.subList(0, historique.size() - 1));
+        String depart = fenDepart;
+        // La pendule ne tourne pas pendant la relecture
+        Pendule p = pendule;
+        if (p != null) {
+            p.arreter();
+        }
+        pendule = null;
+        try {
+            chargerFen(depart != null ? depart : Fen.INITIALE);
+            for (Coup c : coups) {
+                Case de = plateau.getCase(c.getDepart().getX(), c.getDepart().getY());
+                Case a = plateau.getCase(c.getArrivee().getX(), c.getArrivee().getY());
+                appliquerCoup(new Coup(de, a));
+                if (promotionEnCours) {
+                    appliquerPromotion(c.getPromotion() != null ? c.getPromotion() : PieceType.DAME);
+                }
+            }
+        } finally {
+            fenDepart = depart;
+            pendule = p;
+        }
+        partieTerminee = position.estTerminee();
+        if (p != null && !partieTerminee) {
+            p.demarrer(joueurActuel);
+        }
+        return true;
+    }
+
     private void executerRoque(Roi roi, Case arrivee) {
         int dir = (arrivee.getX() == 6) ? 1 : -1;
         int rookStartX = (dir == 1) ? 7 : 0;
@@ -253,9 +609,8 @@ public class Jeu {
         
         // Capturer le pion adverse
         Piece pionAdverse = casePionAdverse.getPiece();
-        casePionAdverse.setPiece(null);
         if (pionAdverse != null) {
-            plateau.getPieces().remove(pionAdverse);
+            plateau.retirerPiece(pionAdverse);
         }
 
         // Déplacer le pion attaquant
@@ -300,27 +655,16 @@ public class Jeu {
         if (caseRoi == null || caseRoi.getPiece() == null) return false;
 
         // Vérifier si le roi peut se déplacer vers une case sûre
-        for (Case destination : caseRoi.getPiece().getCasesAccessibles()) {
-            // Simuler le déplacement
-            Piece roi = caseRoi.getPiece();
-            Piece pieceCapturee = destination.getPiece();
-
-            // Sauvegarder les coordonnées originales du roi
-            int origX = roi.getX();
-            int origY = roi.getY();
-
-            // Déplacer le roi vers la nouvelle position
-            destination.setPiece(roi);
-            caseRoi.setPiece(null);
-            roi.setPosition(destination.getX(), destination.getY());
+        Piece roi = caseRoi.getPiece();
+        for (Case destination : roi.getCasesAccessibles()) {
+            // Déplacer le roi vers la nouvelle position (simulation)
+            Piece pieceCapturee = plateau.simulerDeplacement(roi, destination);
 
             // Vérifier si le roi est toujours en échec après le déplacement
             boolean enEchec = plateau.estEnEchec(couleur);
 
             // Annuler la simulation
-            roi.setPosition(origX, origY);
-            caseRoi.setPiece(roi);
-            destination.setPiece(pieceCapturee);
+            plateau.annulerSimulation(roi, caseRoi, destination, pieceCapturee);
 
             // Si le roi n'est pas en échec après le déplacement, il peut s'échapper
             if (!enEchec) return true;
@@ -343,35 +687,28 @@ public class Jeu {
         // Trouver les pièces attaquantes
         PieceColor couleurAdversaire = (couleur == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
 
-        for (Piece pieceAdversaire : plateau.getPieces()) {
-            if (pieceAdversaire.getColor() == couleurAdversaire) {
-                // Vérifier si cette pièce attaque le roi
-                if (pieceAdversaire.getCasesAccessibles().contains(caseRoi)) {
-                    Case caseAttaquant = pieceAdversaire.getCurrentCase();
-
-                    // Vérifier si une pièce amie peut capturer l'attaquant
-                    for (Piece pieceAmie : plateau.getPieces()) {
-                        if (pieceAmie.getColor() == couleur) {
-                            // Vérifier si la pièce amie peut capturer l'attaquant
-                            for (Case destination : pieceAmie.getCasesAccessibles()) {
-                                if (destination.equals(caseAttaquant)) {
-                                    // Simuler la capture
-                                    Case caseAmie = pieceAmie.getCurrentCase();
-
-                                    caseAttaquant.setPiece(pieceAmie);
-                                    caseAmie.setPiece(null);
-
-                                    // Vérifier si le roi est toujours en échec après la capture
-                                    boolean enEchec = plateau.estEnEchec(couleur);
-
-                                    // Annuler la simulation
-                                    caseAmie.setPiece(pieceAmie);
-                                    caseAttaquant.setPiece(pieceAdversaire);
-
-                                    // Si la capture résout l'échec, retourner vrai
-                                    if (!enEchec) return true;
-                                }
-                            }
+        for (Piece pieceAdversaire : plateau.getPieces(couleurAdversaire)) {
+            // Vérifier si cette pièce attaque le roi
+            if (pieceAdversaire.getCasesAccessibles().contains(caseRoi)) {
+                Case caseAttaquant = pieceAdversaire.getCurrentCase();
+
+                // Vérifier si une pièce amie peut capturer l'attaquant
+                for (Piece pieceAmie : plateau.getPieces(couleur)) {
+                    // Vérifier si la pièce amie peut capturer l'attaquant
+                    for (Case destination : pieceAmie.getCasesAccessibles()) {
+                        if (destination.equals(caseAttaquant)) {
+                            // Simuler la capture
+                            Case caseAmie = pieceAmie.getCurrentCase();
+                            Piece prise = plateau.simulerDeplacement(pieceAmie, caseAttaquant);
+
+                            // Vérifier si le roi est toujours en échec après la capture
+                            boolean enEchec = plateau.estEnEchec(couleur);
+
+                            // Annuler la simulation
+                            plateau.annulerSimulation(pieceAmie, caseAmie, caseAttaquant, prise);
+
+                            // Si la capture résout l'échec, retourner vrai
+                            if (!enEchec) return true;
                         }
                     }
                 }
@@ -394,38 +731,32 @@ public class Jeu {
         // Trouver les pièces attaquantes
         PieceColor couleurAdversaire = (couleur == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
 
-        for (Piece pieceAdversaire : plateau.getPieces()) {
-            if (pieceAdversaire.getColor() == couleurAdversaire) {
-                // Vérifier si cette pièce attaque le roi
-                if (pieceAdversaire.getCasesAccessibles().contains(caseRoi)) {
-                    // Les cavaliers ne peuvent pas être bloqués
-                    if (pieceAdversaire.getType() == PieceType.CAVALIER) continue;
-
-                    // Trouver les cases entre le roi et l'attaquant
-                    List<Case> casesEntreRoiEtAttaquant = getCasesEntreRoiEtAttaquant(caseRoi, pieceAdversaire.getCurrentCase());
-
-                    // Vérifier si une pièce amie peut bloquer l'attaque
-                    for (Piece pieceAmie : plateau.getPieces()) {
-                        if (pieceAmie.getColor() == couleur && pieceAmie.getType() != PieceType.ROI) {
-                            for (Case caseAccessible : pieceAmie.getCasesAccessibles()) {
-                                if (casesEntreRoiEtAttaquant.contains(caseAccessible)) {
-                                    // Simuler le blocage
-                                    Case caseAmie = pieceAmie.getCurrentCase();
-
-                                    caseAccessible.setPiece(pieceAmie);
-                                    caseAmie.setPiece(null);
-
-                                    // Vérifier si le roi est toujours en échec après le blocage
-                                    boolean enEchec = plateau.estEnEchec(couleur);
-
-                                    // Annuler la simulation
-                                    caseAmie.setPiece(pieceAmie);
-                                    caseAccessible.setPiece(null);
-
-                                    // Si le blocage résout l'échec, retourner vrai
-                                    if (!enEchec) return true;
-                                }
-                            }
+        for (Piece pieceAdversaire : plateau.getPieces(couleurAdversaire)) {
+            // Vérifier si cette pièce attaque le roi
+            if (pieceAdversaire.getCasesAccessibles().contains(caseRoi)) {
+                // Les cavaliers ne peuvent pas être bloqués
+                if (pieceAdversaire.getType() == PieceType.CAVALIER) continue;
+
+                // Trouver les cases entre le roi et l'attaquant
+                List<Case> casesEntreRoiEtAttaquant = getCasesEntreRoiEtAttaquant(caseRoi, pieceAdversaire.getCurrentCase());
+
+                // Vérifier si une pièce amie peut bloquer l'attaque
+                for (Piece pieceAmie : plateau.getPieces(couleur)) {
+                    if (pieceAmie.getType() == PieceType.ROI) continue;
+                    for (Case caseAccessible : pieceAmie.getCasesAccessibles()) {
+                        if (casesEntreRoiEtAttaquant.contains(caseAccessible)) {
+                            // Simuler le blocage
+                            Case caseAmie = pieceAmie.getCurrentCase();
+                            Piece occupant = plateau.simulerDeplacement(pieceAmie, caseAccessible);
+
+                            // Vérifier si le roi est toujours en échec après le blocage
+                            boolean enEchec = plateau.estEnEchec(couleur);
+
+                            // Annuler la simulation
+                            plateau.annulerSimulation(pieceAmie, caseAmie, caseAccessible, occupant);
+
+                            // Si le blocage résout l'échec, retourner vrai
+                            if (!enEchec) return true;
                         }
                     }
                 }
@@ -472,18 +803,13 @@ public class Jeu {
     }
 
     private boolean aDesMouvementsValides(PieceColor couleur) {
-        for (Piece p : plateau.getPieces()) {
-            if (p.getColor() == couleur) {
-                Case origine = p.getCurrentCase();
-                for (Case dest : p.getCasesAccessibles()) {
-                    Piece backup = dest.getPiece();
-                    dest.setPiece(p);
-                    origine.setPiece(null);
-                    boolean valide = !plateau.estEnEchec(couleur);
-                    origine.setPiece(p);
-                    dest.setPiece(backup);
-                    if (valide) return true;
-                }
+        for (Piece p : plateau.getPieces(couleur)) {
+            Case origine = p.getCurrentCase();
+            for (Case dest : p.getCasesAccessibles()) {
+                Piece backup = plateau.simulerDeplacement(p, dest);
+                boolean valide = !plateau.estEnEchec(couleur);
+                plateau.annulerSimulation(p, origine, dest, backup);
+                if (valide) return true;
             }
         }
         return false;
@@ -517,7 +843,20 @@ public class Jeu {
         return casePromotion;
     }
 
-    public void promouvoirPion(PieceType nouvellePiece) {
+    /**
+     * Termine une promotion en cours : le pion devient la pièce choisie, puis
+     * le coup s'achève comme dans jouerCoup (fin de partie ou tour suivant)
+     * @param nouvellePiece Dame, tour, fou ou cavalier
+     */
+    public synchronized void promouvoirPion(PieceType nouvellePiece) {
+        appliquerPromotion(nouvellePiece);
+        terminerCoup();
+    }
+
+    /**
+     * Remplace le pion à promouvoir, sans notifier le joueur suivant
+     */
+    private void appliquerPromotion(PieceType nouvellePiece) {
         Pion pion = (Pion) casePromotion.getPiece();
         Piece piece = switch (nouvellePiece) {
             case DAME -> new Dame(casePromotion.getX(), casePromotion.getY(), pion.getColor(), plateau);
@@ -527,10 +866,72 @@ public class Jeu {
             default -> throw new IllegalArgumentException("Type invalide");
         };
 
-        casePromotion.setPiece(piece);
-        plateau.getPieces().remove(pion);
-        plateau.getPieces().add(piece);
+        plateau.retirerPiece(pion);
+        plateau.ajouterPiece(piece);
+        // Garder la pièce choisie et la notation dans l'historique (export PGN)
+        int dernier = historique.size() - 1;
+        Coup coup = historique.get(dernier);
+        int code = miroir.trouverCoup(coup.getDepart().getY() * 8 + coup.getDepart().getX(),
+                casePromotion.getY() * 8 + casePromotion.getX(), Echiquier.depuisPieceType(nouvellePiece), tamponCoups);
+        String san = null;
+        if (code != CodeCoup.AUCUN) {
+            tamponSan.setLength(0);
+            San.ecrire(miroir, code, tamponSan, tamponCoups);
+            san = tamponSan.toString();
+        }
+        historique.set(dernier, new Coup(coup, nouvellePiece, san));
         promotionEnCours = false;
-        plateau.notifierObservers();
+        publierPosition();
+        synchroniserMiroir(code);
+        plateau.notifierObservers(position);
+    }
+
+    /**
+     * Joue le coup sur le miroir ; s'il n'y est pas reconnu, le miroir est
+     * rechargé depuis l'instantané publié
+     */
+    private void synchroniserMiroir(int code) {
+        if (code != CodeCoup.AUCUN && miroir.jouer(code)) {
+            if (miroir.getHauteur() > HISTORIQUE_MIROIR / 2) {
+                miroir.tronquerHistorique();
+            }
+        } else {
+            miroir.chargerPosition(position);
+        }
+    }
+
+    /**
+     * Cherche un mat en au plus n coups pour le joueur au trait, sur une copie
+     * de la position courante (la partie n'est pas bloquée pendant la résolution)
+     * @param coups N
+     * @return La ligne du mat le plus court, ou la preuve qu'il n'y en a pas
+     */
+    public SolveurMat.Resultat chercherMat(int coups) throws InterruptedException {
+        Echiquier copie = new Echiquier();
+        synchronized (this) {
+            copie.copier(miroir);
+        }
+        return new SolveurMat(Runtime.getRuntime().availableProcessors()).resoudre(copie, coups);
+    }
+
+    /**
+     * Joue un coup donné en notation SAN (Nbd7, exd8=Q+, O-O),
+     * promotion comprise
+     * @param san Le coup
+     * @return true si le coup a été joué
+     */
+    public synchronized boolean jouerSan(String san) {
+        int code = San.lire(miroir, san, 0, san.length(), tamponCoups);
+        if (code == CodeCoup.AUCUN) {
+            return false;
+        }
+        int de = CodeCoup.depart(code), a = CodeCoup.arrivee(code);
+        if (!jouerCoup(plateau.getCase(de & 7, de >> 3), plateau.getCase(a & 7, a >> 3))) {
+            return false;
+        }
+        if (promotionEnCours) {
+            promouvoirPion(Echiquier.versPieceType(CodeCoup.promotion(code)));
+        }
+        return true;
     }
 }
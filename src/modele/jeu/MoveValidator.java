@@ -68,15 +68,13 @@ public class MoveValidator {
 
     private static boolean simulerEchec(Piece p, Case tgt, Plateau plat) {
         // Simulation du mouvement pour vérifier l'échec
-        Piece pieceCapturee = tgt.getPiece();
-        p.setPosition(tgt.getX(), tgt.getY());
-        tgt.setPiece(p);
+        Case origine = plat.getCase(p.getX(), p.getY());
+        Piece pieceCapturee = plat.simulerDeplacement(p, tgt);
 
         boolean enEchec = plat.estEnEchec(p.getColor());
 
         // Annulation de la simulation
-        p.setPosition(tgt.getX(), tgt.getY());
-        tgt.setPiece(pieceCapturee);
+        plat.annulerSimulation(p, origine, tgt, pieceCapturee);
 
         return enEchec;
     }
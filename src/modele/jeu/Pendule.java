@@ -0,0 +1,137 @@
+package modele.jeu;
+
+import modele.pieces.PieceColor;
+
+/**
+ * Pendule d'échecs : un temps de base et un incrément par joueur (cadence
+ * Fischer). Le temps est décompté avec System.nanoTime ; seule la pendule
+ * du joueur au trait tourne.
+ */
+public class Pendule {
+    /** Propriété système donnant la cadence des parties (interface, serveur) */
+    public static final String PROPRIETE_CADENCE = "cadence";
+
+    private final long[] restantNs = new long[2];
+    private final long[] incrementNs = new long[2];
+    // Couleur dont la pendule tourne (-1 : arrêtée) et instant de son départ
+    private int active = -1;
+    private long departNs;
+
+    /**
+     * Même cadence pour les deux joueurs
+     * @param baseMs Temps de base
+     * @param incrementMs Temps ajouté après chaque coup
+     */
+    public Pendule(long baseMs, long incrementMs) {
+        this(baseMs, incrementMs, baseMs, incrementMs);
+    }
+
+    /**
+     * Cadences différentes (handicap)
+     */
+    public Pendule(long baseBlancMs, long incrementBlancMs, long baseNoirMs, long incrementNoirMs) {
+        restantNs[0] = baseBlancMs * 1_000_000L;
+        incrementNs[0] = incrementBlancMs * 1_000_000L;
+        restantNs[1] = baseNoirMs * 1_000_000L;
+        incrementNs[1] = incrementNoirMs * 1_000_000L;
+    }
+
+    /**
+     * Pendule d'une cadence notée « base+incrément », la base en minutes et
+     * l'incrément en secondes : « 5+3 », « 0.5+0.1 », « 90 » sans incrément
+     * @param cadence La cadence, ou null
+     * @return La pendule, ou null si la cadence est absente (partie sans limite de temps)
+     */
+    public static Pendule depuisCadence(String cadence) {
+        if (cadence == null || cadence.isBlank()) {
+            return null;
+        }
+        String[] champs = cadence.trim().split("\\+", 2);
+        try {
+            double base = Double.parseDouble(champs[0]);
+            double increment = champs.length > 1 ? Double.parseDouble(champs[1]) : 0;
+            if (base > 0 && increment >= 0 && Double.isFinite(base) && Double.isFinite(increment)) {
+                return new Pendule(Math.round(base * 60_000), Math.round(increment * 1000));
+            }
+        } catch (NumberFormatException e) {
+            // Signalé ci-dessous
+        }
+        throw new IllegalArgumentException("Cadence invalide : " + cadence + " (minutes+secondes, par exemple 5+3)");
+    }
+
+    private static int indice(PieceColor couleur) {
+        return couleur == PieceColor.WHITE ? 0 : 1;
+    }
+
+    /**
+     * Met en marche la pendule d'un joueur (début de partie)
+     */
+    public synchronized void demarrer(PieceColor couleur) {
+        decompter();
+        active = indice(couleur);
+        departNs = System.nanoTime();
+    }
+
+    /**
+     * Le joueur a joué : sa pendule s'arrête, reçoit l'incrément, et celle
+     * de l'adversaire démarre
+     * @return false si le joueur avait dépassé son temps (sa pendule reste alors à zéro)
+     */
+    public synchronized boolean appuyer(PieceColor couleur) {
+        decompter();
+        int i = indice(couleur);
+        if (restantNs[i] < 0) {
+            restantNs[i] = 0;
+            active = -1;
+            return false;
+        }
+        restantNs[i] += incrementNs[i];
+        active = 1 - i;
+        departNs = System.nanoTime();
+        return true;
+    }
+
+    /** Arrête les deux pendules (fin ou abandon de la partie) */
+    public synchronized void arreter() {
+        decompter();
+        active = -1;
+    }
+
+    // Retire le temps écoulé depuis le dernier départ à la pendule active
+    private void decompter() {
+        if (active >= 0) {
+            long maintenant = System.nanoTime();
+            restantNs[active] -= maintenant - departNs;
+            departNs = maintenant;
+        }
+    }
+
+    /**
+     * Temps restant d'un joueur, au moment de l'appel
+     * @return Le temps en millisecondes (négatif si le joueur a dépassé son temps)
+     */
+    public synchronized long getTempsRestantMs(PieceColor couleur) {
+        int i = indice(couleur);
+        long restant = restantNs[i];
+        if (active == i) {
+            restant -= System.nanoTime() - departNs;
+        }
+        return restant / 1_000_000L;
+    }
+
+    public long getIncrementMs(PieceColor couleur) {
+        return incrementNs[indice(couleur)] / 1_000_000L;
+    }
+
+    /**
+     * Le joueur a-t-il dépassé son temps ?
+     */
+    public boolean estTombe(PieceColor couleur) {
+        return getTempsRestantMs(couleur) < 0;
+    }
+
+    /** Couleur dont la pendule tourne, ou null si elle est arrêtée */
+    public synchronized PieceColor getActive() {
+        return active < 0 ? null : (active == 0 ? PieceColor.WHITE : PieceColor.BLACK);
+    }
+}
@@ -0,0 +1,179 @@
+package modele.jeu;
+
+import modele.pieces.Piece;
+import modele.pieces.PieceColor;
+import modele.pieces.PieceType;
+import modele.pieces.Pion;
+import modele.pieces.Roi;
+import modele.pieces.Tour;
+import modele.plateau.Plateau;
+
+/**
+ * Instantané immuable d'une position, publié par {@link Jeu} après chaque coup.
+ * Les pièces sont stockées sous forme de bitboards (bit = y * 8 + x), ce qui rend
+ * la copie quasi gratuite. Les vues et l'IA le lisent sans prendre de verrou.
+ */
+public final class Position {
+    // Droits de roque (bits)
+    public static final int ROQUE_BLANC_ROI = 1;
+    public static final int ROQUE_BLANC_DAME = 2;
+    public static final int ROQUE_NOIR_ROI = 4;
+    public static final int ROQUE_NOIR_DAME = 8;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private final long blancs;
+    private final long noirs;
+    private final long[] parType;
+    private final PieceColor trait;
+    private final int roques;
+    private final int enPassant;
+    private final int ply;
+    private final int demiCoups;
+    private final int numeroCoup;
+    private final boolean echecBlanc;
+    private final boolean echecNoir;
+    private final boolean terminee;
+    private final PieceColor vainqueur;
+
+    Position(long blancs, long noirs, long[] parType, PieceColor trait, int roques, int enPassant,
+             int ply, int demiCoups, int numeroCoup, boolean echecBlanc, boolean echecNoir, boolean terminee, PieceColor vainqueur) {
+        this.blancs = blancs;
+        this.noirs = noirs;
+        this.parType = parType;
+        this.trait = trait;
+        this.roques = roques;
+        this.enPassant = enPassant;
+        this.ply = ply;
+        this.demiCoups = demiCoups;
+        this.numeroCoup = numeroCoup;
+        this.echecBlanc = echecBlanc;
+        this.echecNoir = echecNoir;
+        this.terminee = terminee;
+        this.vainqueur = vainqueur;
+    }
+
+    /**
+     * Capture l'état des pièces d'un plateau (sans information de partie :
+     * trait aux blancs, pas d'échec ni de fin de partie).
+     * Le plateau ne doit pas être modifié pendant l'appel.
+     * @param plateau Le plateau à capturer
+     * @return L'instantané correspondant
+     */
+    public static Position depuis(Plateau plateau) {
+        return depuis(plateau, PieceColor.WHITE, 0, 0, 1, false, false, false, null);
+    }
+
+    static Position depuis(Plateau plateau, PieceColor trait, int ply, int demiCoups, int numeroCoup, boolean echecBlanc,
+                           boolean echecNoir, boolean terminee, PieceColor vainqueur) {
+        long blancs = 0, noirs = 0;
+        long[] parType = new long[TYPES.length];
+        int enPassant = -1;
+        for (PieceColor couleur : PieceColor.values()) {
+            for (Piece p : plateau.getPieces(couleur)) {
+                long bit = 1L << (p.getY() * 8 + p.getX());
+                if (couleur == PieceColor.WHITE) blancs |= bit; else noirs |= bit;
+                parType[p.getType().ordinal()] |= bit;
+                // Case de prise en passant : derrière le pion qui vient d'avancer de deux cases
+                if (p instanceof Pion && ((Pion) p).isPriseEnPassantPossible()) {
+                    int derriere = (couleur == PieceColor.WHITE) ? p.getY() - 1 : p.getY() + 1;
+                    enPassant = derriere * 8 + p.getX();
+                }
+            }
+        }
+        int roques = droitDeRoque(plateau, PieceColor.WHITE, 0) | droitDeRoque(plateau, PieceColor.BLACK, 7) << 2;
+        return new Position(blancs, noirs, parType, trait, roques, enPassant, ply, demiCoups, numeroCoup,
+                echecBlanc, echecNoir, terminee, vainqueur);
+    }
+
+    /** Droits de roque d'une couleur : bit 0 côté roi, bit 1 côté dame */
+    private static int droitDeRoque(Plateau plateau, PieceColor couleur, int ligne) {
+        Piece roi = plateau.getRoi(couleur) == null ? null : plateau.getRoi(couleur).getPiece();
+        if (!(roi instanceof Roi) || ((Roi) roi).hasMoved() || roi.getX() != 4 || roi.getY() != ligne) {
+            return 0;
+        }
+        int droits = 0;
+        Piece tourRoi = plateau.getCase(7, ligne).getPiece();
+        if (tourRoi instanceof Tour && tourRoi.getColor() == couleur && !((Tour) tourRoi).hasMoved()) {
+            droits |= 1;
+        }
+        Piece tourDame = plateau.getCase(0, ligne).getPiece();
+        if (tourDame instanceof Tour && tourDame.getColor() == couleur && !((Tour) tourDame).hasMoved()) {
+            droits |= 2;
+        }
+        return droits;
+    }
+
+    /**
+     * Type de la pièce sur une case
+     * @return Le type, ou null si la case est vide
+     */
+    public PieceType getType(int x, int y) {
+        long bit = 1L << (y * 8 + x);
+        if (((blancs | noirs) & bit) == 0) return null;
+        for (int t = 0; t < TYPES.length; t++) {
+            if ((parType[t] & bit) != 0) return TYPES[t];
+        }
+        return null;
+    }
+
+    /**
+     * Couleur de la pièce sur une case
+     * @return La couleur, ou null si la case est vide
+     */
+    public PieceColor getCouleur(int x, int y) {
+        long bit = 1L << (y * 8 + x);
+        if ((blancs & bit) != 0) return PieceColor.WHITE;
+        if ((noirs & bit) != 0) return PieceColor.BLACK;
+        return null;
+    }
+
+    /**
+     * Chemin de l'image de la pièce sur une case (même convention que Piece)
+     * @return Le chemin, ou null si la case est vide
+     */
+    public String getImagePath(int x, int y) {
+        PieceType type = getType(x, y);
+        if (type == null) return null;
+        return "/Images/" + (getCouleur(x, y) == PieceColor.WHITE ? "w" : "b") + type.getLetter() + ".png";
+    }
+
+    /**
+     * Bitboard des pièces d'une couleur et d'un type
+     */
+    public long getPieces(PieceColor couleur, PieceType type) {
+        return parType[type.ordinal()] & getOccupation(couleur);
+    }
+
+    /**
+     * Bitboard des pièces d'une couleur
+     */
+    public long getOccupation(PieceColor couleur) {
+        return couleur == PieceColor.WHITE ? blancs : noirs;
+    }
+
+    /**
+     * Index (y * 8 + x) de la case du roi, ou -1 s'il est absent
+     */
+    public int getRoi(PieceColor couleur) {
+        long roi = getPieces(couleur, PieceType.ROI);
+        return roi == 0 ? -1 : Long.numberOfTrailingZeros(roi);
+    }
+
+    public PieceColor getTrait() { return trait; }
+    public int getRoques() { return roques; }
+    /** Index de la case de prise en passant, ou -1 */
+    public int getEnPassant() { return enPassant; }
+    /** Nombre de demi-coups joués depuis le début de la partie */
+    public int getPly() { return ply; }
+    /** Demi-coups depuis la dernière prise ou le dernier coup de pion (règle des 50 coups) */
+    public int getDemiCoups() { return demiCoups; }
+    /** Numéro du coup en cours, comme dans la notation FEN */
+    public int getNumeroCoup() { return numeroCoup; }
+    public boolean estEnEchec(PieceColor couleur) {
+        return couleur == PieceColor.WHITE ? echecBlanc : echecNoir;
+    }
+    public boolean estTerminee() { return terminee; }
+    /** Vainqueur, ou null si la partie continue ou est nulle */
+    public PieceColor getVainqueur() { return vainqueur; }
+}
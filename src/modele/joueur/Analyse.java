@@ -0,0 +1,76 @@
+package modele.joueur;
+
+import modele.jeu.Coup;
+
+import java.util.List;
+
+/**
+ * Résultat d'une itération d'analyse : les meilleurs coups de la position,
+ * du meilleur au moins bon, chacun avec son score et sa variante.
+ * Instantané immuable, publié à chaque profondeur terminée.
+ */
+public final class Analyse {
+    private final int profondeur;
+    private final int profondeurSelective;
+    private final long noeuds;
+    private final long tempsMs;
+    private final List<Ligne> lignes;
+
+    public Analyse(int profondeur, int profondeurSelective, long noeuds, long tempsMs, List<Ligne> lignes) {
+        this.profondeur = profondeur;
+        this.profondeurSelective = profondeurSelective;
+        this.noeuds = noeuds;
+        this.tempsMs = tempsMs;
+        this.lignes = List.copyOf(lignes);
+    }
+
+    public int getProfondeur() { return profondeur; }
+    public int getProfondeurSelective() { return profondeurSelective; }
+    public long getNoeuds() { return noeuds; }
+    public long getTempsMs() { return tempsMs; }
+
+    /** Les lignes, de la meilleure à la moins bonne */
+    public List<Ligne> getLignes() { return lignes; }
+
+    /** La meilleure ligne */
+    public Ligne getMeilleure() { return lignes.get(0); }
+
+    /**
+     * Une ligne d'analyse : premier coup, score et variante principale
+     */
+    public static final class Ligne {
+        private final int rang;
+        private final Coup coup;
+        private final int score;
+        private final boolean mat;
+        private final List<String> variante;
+
+        /**
+         * @param rang Rang de la ligne, à partir de 1
+         * @param coup Premier coup, tel que le jeu l'accepte
+         * @param score Score en centipions pour le joueur au trait, ou nombre de
+         *              coups avant le mat (négatif si le joueur au trait est maté)
+         * @param mat true si le score est un nombre de coups avant le mat
+         * @param variante Variante en notation SAN
+         */
+        public Ligne(int rang, Coup coup, int score, boolean mat, List<String> variante) {
+            this.rang = rang;
+            this.coup = coup;
+            this.score = score;
+            this.mat = mat;
+            this.variante = List.copyOf(variante);
+        }
+
+        public int getRang() { return rang; }
+        public Coup getCoup() { return coup; }
+        public int getScore() { return score; }
+        public boolean estMat() { return mat; }
+        public List<String> getVariante() { return variante; }
+
+        @Override
+        public String toString() {
+            return rang + ". " + (mat ? "#" + score : String.format("%+.2f", score / 100.0))
+                    + " " + String.join(" ", variante);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import modele.jeu.Coup;
 import modele.jeu.Jeu;
 import modele.pieces.PieceColor;
 
+import java.util.concurrent.Flow;
+
 /**
  * Interface pour les joueurs (humain ou IA)
  */
@@ -36,4 +38,46 @@ public interface IJoueur {
      * @return true si le joueur est contrôlé par une IA
      */
     boolean estIA();
+
+    /**
+     * L'adversaire vient de jouer un coup valide (appelé par le jeu juste avant
+     * notifierTour, promotion choisie comprise). Un joueur
+     * qui réfléchit sur le temps adverse confirme ou abandonne sa prédiction.
+     * @param coup Le coup de l'adversaire
+     */
+    default void coupAdverse(Coup coup) {
+    }
+
+    /**
+     * La position a changé sans que ce soit un coup (coup annulé) : la
+     * réflexion en cours est abandonnée, le joueur reste utilisable
+     */
+    default void annulerReflexion() {
+    }
+
+    /**
+     * Analyse la position courante sans jouer : les meilleurs coups sont
+     * publiés à chaque profondeur terminée, jusqu'à arreterAnalyse, un
+     * changement de position ou la fin de la partie (le flux est alors fermé).
+     * Un abonné trop lent perd des analyses intermédiaires, pas la recherche.
+     * @param lignes Nombre de meilleurs coups à suivre
+     * @return Le flux des analyses successives
+     * @throws UnsupportedOperationException si le joueur ne sait pas analyser
+     */
+    default Flow.Publisher<Analyse> analyser(int lignes) {
+        throw new UnsupportedOperationException("Ce joueur ne sait pas analyser");
+    }
+
+    /**
+     * Arrête l'analyse en cours (sans effet s'il n'y en a pas)
+     */
+    default void arreterAnalyse() {
+    }
+
+    /**
+     * Arrête toute activité du joueur (réflexion en cours, attente),
+     * appelé quand la partie est abandonnée
+     */
+    default void arreter() {
+    }
 } 
\ No newline at end of file
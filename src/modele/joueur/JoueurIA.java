@@ -2,6 +2,19 @@ package modele.joueur;
 
 import modele.jeu.Coup;
 import modele.jeu.Jeu;
+import modele.jeu.Pendule;
+import modele.jeu.Position;
+import modele.moteur.CodeCoup;
+import modele.moteur.EcouteurRecherche;
+import modele.moteur.Echiquier;
+import modele.moteur.Evaluation;
+import modele.moteur.Limites;
+import modele.moteur.LivreOuvertures;
+import modele.moteur.Moteur;
+import modele.moteur.Recherche;
+import modele.moteur.San;
+import modele.moteur.TablesFinales;
+import modele.moteur.TacheRecherche;
 import modele.pieces.Piece;
 import modele.pieces.PieceColor;
 import modele.pieces.PieceType;
@@ -9,38 +22,76 @@ import modele.plateau.Case;
 import modele.plateau.Plateau;
 
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Implémentation d'un joueur contrôlé par une intelligence artificielle simple
+ * Implémentation d'un joueur contrôlé par une intelligence artificielle.
+ * Le coup est cherché par le moteur (alpha-beta) ; l'heuristique gloutonne
+ * d'origine sert de repli si le coup du moteur n'est pas accepté par le jeu.
  */
 public class JoueurIA implements IJoueur {
     private Jeu jeu;
     private final PieceColor couleur;
     private final AtomicBoolean estEnTrain = new AtomicBoolean(false);
     private final Random random = new Random();
-    
-    // Pondération simple pour l'évaluation des pièces
-    private static final Map<PieceType, Integer> VALEUR_PIECES = Map.of(
-        PieceType.PION, 1,
-        PieceType.CAVALIER, 3,
-        PieceType.FOU, 3,
-        PieceType.TOUR, 5,
-        PieceType.DAME, 9,
-        PieceType.ROI, 100
-    );
-    
-    // Pool de threads pour exécuter l'IA sans bloquer l'interface utilisateur
-    private static final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final Moteur moteur = new Moteur();
+    private final Echiquier echiquier = new Echiquier();
+    private final Limites limites = new Limites();
+    // Pièce de promotion choisie par le moteur pour le dernier coup
+    private volatile PieceType promotion = PieceType.DAME;
+    // Dernier coup choisi, en code moteur (point de départ du ponder)
+    private int dernierCode = CodeCoup.AUCUN;
+    // Recherche du coup en cours, annulable depuis un autre thread
+    private volatile TacheRecherche tacheEnCours;
+    // Partie abandonnée : plus aucune recherche n'est lancée
+    private volatile boolean arrete = false;
+
+    // Réflexion sur le temps de l'adversaire : position après la réponse prédite
+    private boolean ponderActive = true;
+    private final Echiquier echiquierPonder = new Echiquier();
+    private final Limites limitesPonder = new Limites();
+    private TacheRecherche reflexionPonder;
+    private int coupPredit = CodeCoup.AUCUN;
 
+    // Analyse en cours (sans jouer)
+    private TacheRecherche tacheAnalyse;
+
+    // Temps de réflexion par coup
+    private static final long TEMPS_PAR_COUP_MS = 500;
+    
     /**
      * Crée une nouvelle instance de JoueurIA
      * @param couleur La couleur des pièces du joueur IA
      */
     public JoueurIA(PieceColor couleur) {
         this.couleur = couleur;
+        limites.setTempsParCoupMs(TEMPS_PAR_COUP_MS);
+        // Coups théoriques joués sans réfléchir si un livre est disponible
+        moteur.setLivre(LivreOuvertures.parDefaut());
+        // Finales en table jouées parfaitement
+        moteur.setTablesFinales(TablesFinales.parDefaut());
+    }
+
+    /**
+     * Moteur de recherche utilisé par ce joueur
+     * @return Le moteur
+     */
+    public Moteur getMoteur() {
+        return moteur;
+    }
+
+    /**
+     * Limites appliquées à chaque coup (temps par coup par défaut, nœuds...) ;
+     * une pendule attachée à la partie remplace le temps par coup
+     */
+    public Limites getLimites() {
+        return limites;
     }
 
     @Override
@@ -51,60 +102,378 @@ public class JoueurIA implements IJoueur {
         }
         
         try {
-            // Attendre un court délai pour simuler la "réflexion"
-            Thread.sleep(500);
-            
             // Vérifier si la partie est terminée
             if (jeu.estPartieTerminee()) {
                 return null;
             }
             
-            // Trouver le meilleur coup selon notre stratégie simple
+            // Trouver le meilleur coup (moteur, puis stratégie simple en repli)
             return trouverMeilleurCoup();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return null;
         } finally {
             estEnTrain.set(false);
         }
     }
 
     /**
-     * Trouve le "meilleur" coup selon une stratégie simple
-     * @return Le coup choisi par l'IA
+     * Trouve le meilleur coup avec le moteur, sur une copie de la position publiée
+     * @return Le coup choisi par l'IA, ou null si la réflexion a été annulée
      */
     private Coup trouverMeilleurCoup() {
-        Plateau plateau = jeu.getPlateau();
-        List<Piece> mesPieces = new ArrayList<>();
-        
-        // Récupérer toutes les pièces de l'IA
-        for (Piece piece : plateau.getPieces()) {
-            if (piece.getColor() == couleur) {
-                mesPieces.add(piece);
+        // Les coups légaux sont listés sous le verrou du jeu ; chaque Coup garde
+        // les pièces concernées, l'évaluation ne relit donc plus le plateau
+        List<Coup> coupsLegaux = jeu.getCoupsLegaux();
+        if (coupsLegaux.isEmpty()) {
+            // Aucun coup possible, situation d'échec et mat ou de pat
+            return null;
+        }
+
+        echiquier.chargerPosition(jeu.getPosition());
+        int code = CodeCoup.AUCUN;
+        if (ponderEnCours()) {
+            // Réponse prédite : la réflexion commencée pendant le temps adverse continue
+            if (ponderConfirme(echiquier.getCle())) {
+                try {
+                    code = attendrePonder();
+                } catch (InterruptedException | CancellationException e) {
+                    arreterPonder();
+                    return null;
+                }
+            } else {
+                arreterPonder();
             }
         }
-        
-        // Mélanger les pièces pour ajouter de la variété
-        Collections.shuffle(mesPieces);
+        if (code == CodeCoup.AUCUN) {
+            lirePendule(jeu, limites);
+            try {
+                code = chercher();
+            } catch (InterruptedException | CancellationException e) {
+                // Nouvelle partie ou coup annulé : le résultat ne vaut plus rien
+                return null;
+            }
+        }
+        dernierCode = code;
+        Coup coup = versCoup(coupsLegaux, code);
+        if (coup != null) {
+            promotion = promotionDe(code);
+            return coup;
+        }
+        promotion = PieceType.DAME;
+        return choisirCoupGlouton(coupsLegaux);
+    }
+
+    /**
+     * Lance la recherche du coup et attend son résultat. Une interruption du
+     * thread (ordonnanceur) annule la recherche, qui s'arrête en moins d'une
+     * milliseconde ; le moteur est libre au retour.
+     */
+    private int chercher() throws InterruptedException {
+        TacheRecherche tache;
+        synchronized (this) {
+            if (arrete) {
+                throw new CancellationException();
+            }
+            tache = moteur.lancer(echiquier, limites, null);
+            tacheEnCours = tache;
+        }
+        try {
+            return tache.get();
+        } catch (InterruptedException e) {
+            tache.cancel(true);
+            tache.attendreFin();
+            throw e;
+        } catch (ExecutionException e) {
+            // Erreur du moteur : le repli glouton prend le relais
+            return CodeCoup.AUCUN;
+        } finally {
+            tacheEnCours = null;
+        }
+    }
+
+    // ------------------------------------------------------------------ ponder
+
+    /**
+     * Active ou non la réflexion sur le temps de l'adversaire
+     */
+    public synchronized void setPonder(boolean actif) {
+        ponderActive = actif;
+        if (!actif) {
+            arreterPonder();
+        }
+    }
+
+    /**
+     * Après notre coup : joue la réponse prédite par la variante principale et
+     * cherche la position obtenue, sans limite de temps, jusqu'au coup adverse.
+     * Le thread de ponder est hors de l'ordonnanceur : il n'occupe la machine
+     * que pendant le temps de réflexion d'un humain.
+     */
+    private synchronized void demarrerPonder() {
+        Recherche recherche = moteur.getRecherchePrincipale();
+        int[] pv = recherche.getPv();
+        // Coup de livre ou de table : pas de variante principale à suivre
+        if (arrete || !ponderActive || jeu.estPartieTerminee() || recherche.getLongueurPv() < 2 || pv[0] != dernierCode) {
+            return;
+        }
+        echiquierPonder.copier(echiquier);
+        if (!echiquierPonder.jouer(pv[0]) || !echiquierPonder.jouer(pv[1])) {
+            return;
+        }
+        coupPredit = pv[1];
+        limitesPonder.copier(limites);
+        limitesPonder.setPonder(true);
+        reflexionPonder = moteur.lancer(echiquierPonder, limitesPonder, null);
+    }
+
+    @Override
+    public synchronized void coupAdverse(Coup coup) {
+        if (reflexionPonder == null || !limitesPonder.estPonder()) {
+            return;
+        }
+        int depart = CodeCoup.depart(coupPredit), arrivee = CodeCoup.arrivee(coupPredit);
+        int promotion = coup.getPromotion() == null ? 0 : Echiquier.depuisPieceType(coup.getPromotion());
+        boolean predit = coup.getDepart().getX() == (depart & 7) && coup.getDepart().getY() == (depart >> 3)
+                && coup.getArrivee().getX() == (arrivee & 7) && coup.getArrivee().getY() == (arrivee >> 3)
+                && promotion == CodeCoup.promotion(coupPredit);
+        if (predit) {
+            confirmerPonder();
+        } else {
+            // Prédiction manquée : la recherche s'arrête, la table de transposition reste
+            arreterPonder();
+        }
+    }
+
+    private synchronized boolean ponderEnCours() {
+        return reflexionPonder != null;
+    }
+
+    /**
+     * La position à jouer est-elle celle du ponder ? Si oui, la recherche
+     * devient limitée en temps (si le coup adverse ne l'a pas déjà fait).
+     */
+    private synchronized boolean ponderConfirme(long cle) {
+        if (reflexionPonder == null || echiquierPonder.getCle() != cle) {
+            return false;
+        }
+        confirmerPonder();
+        return true;
+    }
+
+    // « ponderhit » : le temps du coup court à partir de maintenant
+    private void confirmerPonder() {
+        if (limitesPonder.estPonder()) {
+            lirePendule(jeu, limitesPonder);
+            limitesPonder.setPonder(false);
+            moteur.ponderhit(limitesPonder, echiquierPonder.getTrait());
+        }
+    }
+
+    /** Attend la fin de la recherche confirmée, au plus son temps maximal */
+    private int attendrePonder() throws InterruptedException {
+        TacheRecherche tache;
+        synchronized (this) {
+            tache = reflexionPonder;
+        }
+        long maximal = limitesPonder.tempsMaximalMs(echiquierPonder.getTrait());
+        try {
+            if (maximal >= 0) {
+                tache.get(maximal + 1, TimeUnit.MILLISECONDS);
+            } else {
+                tache.get();
+            }
+        } catch (TimeoutException | ExecutionException e) {
+            // Temps maximal dépassé : l'arrêt garde le meilleur coup trouvé
+        }
+        tache.arreter();
+        tache.attendreFin();
+        synchronized (this) {
+            if (reflexionPonder == tache) {
+                reflexionPonder = null;
+            }
+        }
+        try {
+            return tache.get();
+        } catch (ExecutionException e) {
+            return CodeCoup.AUCUN;
+        }
+    }
+
+    /**
+     * Abandonne la recherche de ponder et attend sa fin : le moteur est libre au retour
+     */
+    private synchronized void arreterPonder() {
+        TacheRecherche tache = reflexionPonder;
+        reflexionPonder = null;
+        if (tache != null) {
+            tache.cancel(true);
+            tache.attendreFin();
+        }
+    }
+
+    // ---------------------------------------------------------------- analyse
+
+    /**
+     * Analyse infinie de la position courante sur plusieurs lignes. Le moteur
+     * est partagé avec le jeu : l'analyse remplace le ponder, et la recherche
+     * d'un coup l'arrête.
+     */
+    @Override
+    public Flow.Publisher<Analyse> analyser(int lignes) {
+        // Lus sous le verrou du jeu, avant de prendre celui du joueur (ordre de Jeu.annulerCoup)
+        List<Coup> coupsLegaux = jeu.getCoupsLegaux();
+        Position racine = jeu.getPosition();
+        Echiquier position = new Echiquier();
+        position.chargerPosition(racine);
+        Limites limitesAnalyse = new Limites();
+        limitesAnalyse.setInfini(true);
+        limitesAnalyse.setLignes(lignes);
+        SubmissionPublisher<Analyse> publication = new SubmissionPublisher<>();
+        PublicationAnalyse ecouteur = new PublicationAnalyse(position, coupsLegaux, racine, publication);
+        TacheRecherche tache;
+        synchronized (this) {
+            arreterAnalyse();
+            arreterPonder();
+            tache = moteur.lancer(position, limitesAnalyse, ecouteur);
+            ecouteur.tache = tache;
+            tacheAnalyse = tache;
+        }
+        // Le flux est fermé à la fin de la recherche, quelle qu'en soit la cause
+        Thread.ofVirtual().name("analyse").start(() -> {
+            tache.attendreFin();
+            publication.close();
+        });
+        return publication;
+    }
+
+    @Override
+    public synchronized void arreterAnalyse() {
+        if (tacheAnalyse != null) {
+            tacheAnalyse.arreter();
+            tacheAnalyse.attendreFin();
+            tacheAnalyse = null;
+        }
+    }
+
+    /**
+     * Transforme les lignes du moteur en instantanés d'analyse et les publie,
+     * sans jamais bloquer la recherche
+     */
+    private final class PublicationAnalyse implements EcouteurRecherche {
+        private final Echiquier racine = new Echiquier();
+        private final List<Coup> coupsLegaux;
+        private final Position position;
+        private final SubmissionPublisher<Analyse> publication;
+        private final List<Analyse.Ligne> lignes = new ArrayList<>();
+        private final StringBuilder san = new StringBuilder(16);
+        private final int[] tampon = new int[256];
+        private volatile TacheRecherche tache;
+
+        PublicationAnalyse(Echiquier position, List<Coup> coupsLegaux, Position racine,
+                           SubmissionPublisher<Analyse> publication) {
+            this.racine.copier(position);
+            this.coupsLegaux = coupsLegaux;
+            this.position = racine;
+            this.publication = publication;
+        }
+
+        @Override
+        public void iterationTerminee(int profondeur, int profondeurSelective, int score, long noeuds,
+                                      long tempsMs, int[] pv, int longueurPv) {
+            ligneTerminee(1, 1, profondeur, profondeurSelective, score, noeuds, tempsMs, pv, longueurPv);
+        }
+
+        @Override
+        public void ligneTerminee(int rang, int nombre, int profondeur, int profondeurSelective, int score,
+                                  long noeuds, long tempsMs, int[] pv, int longueurPv) {
+            List<String> variante = new ArrayList<>(longueurPv);
+            int joues = 0;
+            while (joues < longueurPv) {
+                san.setLength(0);
+                San.ecrire(racine, pv[joues], san, tampon);
+                if (!racine.jouer(pv[joues])) {
+                    break;
+                }
+                variante.add(san.toString());
+                joues++;
+            }
+            while (joues > 0) {
+                racine.dejouer(pv[--joues]);
+            }
+            boolean mat = Recherche.estScoreMat(score);
+            lignes.add(new Analyse.Ligne(rang, versCoup(coupsLegaux, pv[0]), mat ? Recherche.coupsAvantMat(score) : score,
+                    mat, variante));
+            if (rang < nombre) {
+                return;
+            }
+            publication.offer(new Analyse(profondeur, profondeurSelective, moteur.getNoeuds(), tempsMs, lignes),
+                    null);
+            lignes.clear();
+            // Position changée (coup joué, coup annulé) : l'analyse est caduque
+            if (jeu.getPosition() != position) {
+                TacheRecherche t = tache;
+                if (t != null) {
+                    t.arreter();
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrouve le Coup du jeu correspondant à un coup du moteur
+     * @return Le coup, ou null s'il n'est pas parmi les coups légaux
+     */
+    static Coup versCoup(List<Coup> coupsLegaux, int code) {
+        if (code == CodeCoup.AUCUN) {
+            return null;
+        }
+        int depart = CodeCoup.depart(code);
+        int arrivee = CodeCoup.arrivee(code);
+        for (Coup coup : coupsLegaux) {
+            if (coup.getDepart().getX() == (depart & 7) && coup.getDepart().getY() == (depart >> 3)
+                    && coup.getArrivee().getX() == (arrivee & 7) && coup.getArrivee().getY() == (arrivee >> 3)) {
+                return coup;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reporte la pendule de la partie dans les limites de la recherche : le
+     * temps du coup est alors réparti d'après le temps restant et l'incrément
+     * au lieu du temps fixe par coup. Sans pendule, les limites sont inchangées.
+     */
+    static void lirePendule(Jeu jeu, Limites limites) {
+        Pendule pendule = jeu.getPendule();
+        if (pendule == null) {
+            return;
+        }
+        limites.setTempsParCoupMs(-1);
+        limites.setTempsRestantMs(Echiquier.BLANC, Math.max(0, pendule.getTempsRestantMs(PieceColor.WHITE)));
+        limites.setTempsRestantMs(Echiquier.NOIR, Math.max(0, pendule.getTempsRestantMs(PieceColor.BLACK)));
+        limites.setIncrementMs(Echiquier.BLANC, pendule.getIncrementMs(PieceColor.WHITE));
+        limites.setIncrementMs(Echiquier.NOIR, pendule.getIncrementMs(PieceColor.BLACK));
+    }
+
+    /** Pièce de promotion d'un coup du moteur (dame s'il n'y en a pas) */
+    static PieceType promotionDe(int code) {
+        int typePromotion = CodeCoup.promotion(code);
+        return typePromotion != 0 ? Echiquier.versPieceType(typePromotion) : PieceType.DAME;
+    }
+
+    /**
+     * Choisit un coup selon une stratégie simple (repli si le moteur échoue)
+     * @param coupsLegaux Les coups légaux de la position
+     * @return Le coup choisi
+     */
+    private Coup choisirCoupGlouton(List<Coup> coupsLegaux) {
+        // Mélanger les coups pour ajouter de la variété
+        Collections.shuffle(coupsLegaux);
         
         // Structure pour stocker les coups possibles avec leur score
         List<CoupEvalue> coupsPossibles = new ArrayList<>();
         
-        // Examiner chaque pièce et ses mouvements possibles
-        for (Piece piece : mesPieces) {
-            Case caseDepart = piece.getCurrentCase();
-            List<Case> casesAccessibles = piece.getCasesAccessibles();
-            
-            for (Case caseArrivee : casesAccessibles) {
-                // Évaluer ce coup
-                int score = evaluerCoup(caseDepart, caseArrivee);
-                coupsPossibles.add(new CoupEvalue(new Coup(caseDepart, caseArrivee), score));
-            }
-        }
-        
-        if (coupsPossibles.isEmpty()) {
-            // Aucun coup possible, situation d'échec et mat ou de pat
-            return null;
+        // Évaluer chaque coup
+        for (Coup coup : coupsLegaux) {
+            coupsPossibles.add(new CoupEvalue(coup, evaluerCoup(coup)));
         }
         
         // Trier par score décroissant
@@ -139,20 +508,21 @@ public class JoueurIA implements IJoueur {
     
     /**
      * Évalue un coup selon des critères simples
-     * @param depart La case de départ
-     * @param arrivee La case d'arrivée
+     * @param coup Le coup à évaluer
      * @return Un score pour ce coup
      */
-    private int evaluerCoup(Case depart, Case arrivee) {
+    private int evaluerCoup(Coup coup) {
+        Case depart = coup.getDepart();
+        Case arrivee = coup.getArrivee();
         int score = 0;
         
         // Bonus pour les captures (basé sur la valeur de la pièce capturée)
-        if (arrivee.getPiece() != null) {
-            score += 10 * VALEUR_PIECES.getOrDefault(arrivee.getPiece().getType(), 1);
+        if (coup.estCapture()) {
+            score += Evaluation.VALEURS[Echiquier.depuisPieceType(coup.getPiecePrise().getType())] / 10;
         }
         
         // Bonus pour avancer les pions vers la promotion
-        if (depart.getPiece().getType() == PieceType.PION) {
+        if (coup.getPiece().getType() == PieceType.PION) {
             int direction = (couleur == PieceColor.WHITE) ? 1 : -1;
             if (arrivee.getY() - depart.getY() == direction) {
                 score += 1;
@@ -167,7 +537,7 @@ public class JoueurIA implements IJoueur {
         }
         
         // Petit malus pour déplacer le roi (sauf en cas de capture)
-        if (depart.getPiece().getType() == PieceType.ROI && arrivee.getPiece() == null) {
+        if (coup.getPiece().getType() == PieceType.ROI && !coup.estCapture()) {
             score -= 1;
         }
         
@@ -194,37 +564,54 @@ public class JoueurIA implements IJoueur {
             return; // Ne rien faire si la partie est terminée
         }
         
-        // Exécuter l'IA dans un thread séparé pour ne pas bloquer l'interface
-        executorService.submit(() -> {
-            try {
-                // Petit délai pour que l'interface ait le temps de se mettre à jour
-                Thread.sleep(200);
-                
-                // Vérifier à nouveau si la partie est terminée (au cas où elle a changé pendant le délai)
-                if (jeu.estPartieTerminee()) {
-                    return;
-                }
-                
-                Coup coup = getCoup();
-                if (coup != null) {
-                    boolean reussi = jeu.jouerCoup(coup.getDepart(), coup.getArrivee());
-                    
-                    if (!reussi) {
-                        return;
-                    }
-                    
-                    // Gérer la promotion si nécessaire
-                    if (jeu.isPromotionEnCours()) {
-                        // L'IA choisit toujours la dame pour la promotion
-                        jeu.promouvoirPion(PieceType.DAME);
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+        // Réfléchir sur le thread de la partie (délai artificiel géré par l'ordonnanceur)
+        jeu.getOrdonnanceur().soumettre(() -> {
+            // Vérifier à nouveau si la partie est terminée (au cas où elle a changé pendant le délai)
+            if (jeu.estPartieTerminee()) {
+                return;
+            }
+            
+            // Position pour laquelle le coup est calculé
+            Position attendue = jeu.getPosition();
+            Coup coup = getCoup();
+            // Réflexion annulée (nouvelle partie, coup annulé) : ne pas jouer
+            if (coup == null || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            // Pièce de promotion choisie par le moteur (dame par défaut) ;
+            // le coup est refusé si la position a changé entre-temps
+            boolean reussi = jeu.jouerCoupCalcule(attendue, coup.getDepart(), coup.getArrivee(), promotion);
+            if (reussi) {
+                demarrerPonder();
             }
         });
     }
 
+    @Override
+    public void annulerReflexion() {
+        arreterAnalyse();
+        TacheRecherche tache = tacheEnCours;
+        if (tache != null) {
+            tache.cancel(true);
+        }
+        arreterPonder();
+        jeu.getOrdonnanceur().annuler();
+    }
+
+    @Override
+    public void arreter() {
+        synchronized (this) {
+            arrete = true;
+        }
+        TacheRecherche tache = tacheEnCours;
+        if (tache != null) {
+            tache.cancel(true);
+        }
+        arreterPonder();
+        arreterAnalyse();
+        jeu.getOrdonnanceur().arreter();
+    }
+
     @Override
     public boolean estIA() {
         return true;
@@ -0,0 +1,154 @@
+package modele.joueur;
+
+import modele.jeu.Coup;
+import modele.jeu.Jeu;
+import modele.jeu.Position;
+import modele.moteur.CodeCoup;
+import modele.moteur.Echiquier;
+import modele.moteur.Limites;
+import modele.moteur.MonteCarlo;
+import modele.pieces.PieceColor;
+import modele.pieces.PieceType;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Joueur IA fondé sur la recherche arborescente Monte-Carlo (UCT) plutôt que
+ * sur l'alpha-bêta. L'arbre est gardé d'un coup à l'autre : la réflexion
+ * reprend sous la réponse de l'adversaire.
+ */
+public class JoueurMCTS implements IJoueur {
+    private Jeu jeu;
+    private final PieceColor couleur;
+    private final AtomicBoolean estEnTrain = new AtomicBoolean(false);
+    private final MonteCarlo monteCarlo;
+    private final Echiquier echiquier = new Echiquier();
+    private final Limites limites = new Limites();
+    // Pièce de promotion choisie pour le dernier coup
+    private volatile PieceType promotion = PieceType.DAME;
+
+    // Temps de réflexion par coup
+    private static final long TEMPS_PAR_COUP_MS = 500;
+
+    /**
+     * Crée un joueur Monte-Carlo utilisant tous les processeurs
+     * @param couleur La couleur des pièces du joueur
+     */
+    public JoueurMCTS(PieceColor couleur) {
+        this(couleur, Runtime.getRuntime().availableProcessors(), MonteCarlo.EXPLORATION_PAR_DEFAUT);
+    }
+
+    /**
+     * @param couleur La couleur des pièces du joueur
+     * @param threads Nombre de threads de simulation
+     * @param exploration Constante d'exploration d'UCT
+     */
+    public JoueurMCTS(PieceColor couleur, int threads, double exploration) {
+        this.couleur = couleur;
+        this.monteCarlo = new MonteCarlo(MonteCarlo.CAPACITE_PAR_DEFAUT, threads);
+        monteCarlo.setExploration(exploration);
+        limites.setTempsParCoupMs(TEMPS_PAR_COUP_MS);
+    }
+
+    /**
+     * Recherche Monte-Carlo utilisée par ce joueur (réglages, statistiques)
+     */
+    public MonteCarlo getMonteCarlo() {
+        return monteCarlo;
+    }
+
+    /**
+     * Limites appliquées à chaque coup (temps par coup, nombre de simulations)
+     */
+    public Limites getLimites() {
+        return limites;
+    }
+
+    @Override
+    public Coup getCoup() {
+        return calculer(monteCarlo.reserver());
+    }
+
+    /**
+     * Cherche le coup sous un numéro de recherche réservé
+     * @param numero Numéro rendu par MonteCarlo.reserver() : annulerReflexion
+     *               l'arrête même si la recherche n'a pas encore démarré
+     */
+    private Coup calculer(long numero) {
+        if (estEnTrain.getAndSet(true)) {
+            return null;
+        }
+        try {
+            if (jeu.estPartieTerminee()) {
+                return null;
+            }
+            List<Coup> coupsLegaux = jeu.getCoupsLegaux();
+            if (coupsLegaux.isEmpty()) {
+                return null;
+            }
+            echiquier.chargerPosition(jeu.getPosition());
+            JoueurIA.lirePendule(jeu, limites);
+            int code = monteCarlo.chercher(echiquier, limites, numero);
+            Coup coup = JoueurIA.versCoup(coupsLegaux, code);
+            if (coup == null) {
+                // Ne devrait pas arriver : le premier coup légal plutôt que rien
+                code = CodeCoup.AUCUN;
+                coup = coupsLegaux.get(0);
+            }
+            promotion = JoueurIA.promotionDe(code);
+            return coup;
+        } finally {
+            estEnTrain.set(false);
+        }
+    }
+
+    @Override
+    public void setJeu(Jeu jeu) {
+        this.jeu = jeu;
+        monteCarlo.nouvellePartie();
+    }
+
+    @Override
+    public PieceColor getCouleur() {
+        return couleur;
+    }
+
+    @Override
+    public void notifierTour() {
+        if (jeu.estPartieTerminee()) {
+            return;
+        }
+        // Numéro réservé dès maintenant : une annulation pendant le délai de l'ordonnanceur l'arrête aussi
+        long numero = monteCarlo.reserver();
+        jeu.getOrdonnanceur().soumettre(() -> {
+            if (jeu.estPartieTerminee()) {
+                return;
+            }
+            Position attendue = jeu.getPosition();
+            Coup coup = calculer(numero);
+            // Réflexion annulée (nouvelle partie, coup annulé) : ne pas jouer
+            if (coup == null || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            jeu.jouerCoupCalcule(attendue, coup.getDepart(), coup.getArrivee(), promotion);
+        });
+    }
+
+    @Override
+    public void annulerReflexion() {
+        monteCarlo.arreter();
+        jeu.getOrdonnanceur().annuler();
+    }
+
+    @Override
+    public void arreter() {
+        monteCarlo.arreter();
+        jeu.getOrdonnanceur().arreter();
+    }
+
+    @Override
+    public boolean estIA() {
+        return true;
+    }
+}
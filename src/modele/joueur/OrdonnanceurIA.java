@@ -0,0 +1,115 @@
+package modele.joueur;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordonnanceur de réflexion de l'IA, un par partie.
+ * Chaque réflexion tourne sur son propre thread virtuel ; le nombre de réflexions
+ * qui calculent en même temps dans la JVM est borné par un sémaphore équitable
+ * (file d'attente FIFO), pour qu'aucune partie ne passe devant les autres.
+ */
+public class OrdonnanceurIA {
+    /** Délai artificiel par défaut, pour laisser l'interface se mettre à jour */
+    public static final long DELAI_PAR_DEFAUT_MS = 700;
+
+    // Nombre maximal de réflexions simultanées, toutes parties confondues
+    private static final Semaphore CALCULS =
+            new Semaphore(Runtime.getRuntime().availableProcessors(), true);
+    private static final AtomicLong COMPTEUR = new AtomicLong();
+
+    private volatile long delaiMs;
+    private Thread tache;
+    private boolean arrete = false;
+
+    /**
+     * Crée un ordonnanceur avec le délai artificiel par défaut
+     */
+    public OrdonnanceurIA() {
+        this(DELAI_PAR_DEFAUT_MS);
+    }
+
+    /**
+     * Crée un ordonnanceur
+     * @param delaiMs Délai artificiel avant chaque réflexion (0 pour un usage en lot)
+     */
+    public OrdonnanceurIA(long delaiMs) {
+        this.delaiMs = delaiMs;
+    }
+
+    /**
+     * Lance une réflexion. Une réflexion précédente encore en cours pour
+     * cette partie est annulée.
+     * @param reflexion Le calcul à exécuter
+     */
+    public synchronized void soumettre(Runnable reflexion) {
+        if (arrete) {
+            return;
+        }
+        // Une réflexion peut soumettre la suivante (IA contre IA) : on ne s'interrompt pas soi-même
+        if (tache != null && tache != Thread.currentThread()) {
+            tache.interrupt();
+        }
+        tache = Thread.ofVirtual()
+                .name("ia-" + COMPTEUR.incrementAndGet())
+                .start(() -> executer(reflexion));
+    }
+
+    private void executer(Runnable reflexion) {
+        try {
+            if (delaiMs > 0) {
+                Thread.sleep(delaiMs);
+            }
+            CALCULS.acquire();
+        } catch (InterruptedException e) {
+            // Réflexion annulée avant d'avoir commencé
+            return;
+        }
+        try {
+            if (!Thread.currentThread().isInterrupted()) {
+                reflexion.run();
+            }
+        } catch (Exception e) {
+            // L'IA ne joue pas ce coup : une ligne qui dit quelle réflexion a échoué, et où
+            StackTraceElement[] pile = e.getStackTrace();
+            System.err.println("Réflexion " + Thread.currentThread().getName() + " abandonnée : " + e
+                    + (pile.length > 0 ? " (" + pile[0] + ")" : ""));
+        } finally {
+            CALCULS.release();
+        }
+    }
+
+    /**
+     * Annule la réflexion en cours, sans refuser les suivantes (coup annulé)
+     */
+    public synchronized void annuler() {
+        if (tache != null && tache != Thread.currentThread()) {
+            tache.interrupt();
+        }
+        tache = null;
+    }
+
+    /**
+     * Annule la réflexion en cours et refuse les suivantes
+     * (nouvelle partie, fermeture).
+     */
+    public synchronized void arreter() {
+        arrete = true;
+        if (tache != null) {
+            tache.interrupt();
+            tache = null;
+        }
+    }
+
+    public long getDelai() {
+        return delaiMs;
+    }
+
+    /**
+     * Change le délai artificiel avant chaque réflexion
+     * @param delaiMs Le délai en millisecondes (0 pour aucun délai)
+     */
+    public void setDelai(long delaiMs) {
+        this.delaiMs = delaiMs;
+    }
+}
@@ -0,0 +1,94 @@
+package modele.moteur;
+
+/**
+ * Tables d'attaques précalculées (bitboards, case = rangée * 8 + colonne).
+ * Les pièces glissantes utilisent des rayons : on coupe le rayon au premier
+ * bloqueur, sans aucune allocation.
+ */
+public final class Attaques {
+    // Directions des rayons : N, E, NE, NO (croissantes) puis S, O, SE, SO (décroissantes)
+    static final int NORD = 0, EST = 1, NORD_EST = 2, NORD_OUEST = 3;
+    static final int SUD = 4, OUEST = 5, SUD_EST = 6, SUD_OUEST = 7;
+    private static final int[] DX = {0, 1, 1, -1, 0, -1, 1, -1};
+    private static final int[] DY = {1, 0, 1, 1, -1, 0, -1, -1};
+
+    static final long[] CAVALIER = new long[64];
+    static final long[] ROI = new long[64];
+    /** PION[couleur][case] : cases attaquées par un pion de cette couleur */
+    static final long[][] PION = new long[2][64];
+    static final long[][] RAYONS = new long[8][64];
+    /** ENTRE[a][b] : cases strictement entre a et b s'ils sont alignés, sinon 0 */
+    static final long[][] ENTRE = new long[64][64];
+
+    static {
+        int[][] sautsCavalier = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int sq = 0; sq < 64; sq++) {
+            int x = sq & 7, y = sq >> 3;
+            for (int[] s : sautsCavalier) {
+                CAVALIER[sq] |= bit(x + s[0], y + s[1]);
+            }
+            for (int d = 0; d < 8; d++) {
+                ROI[sq] |= bit(x + DX[d], y + DY[d]);
+                for (int nx = x + DX[d], ny = y + DY[d]; bit(nx, ny) != 0; nx += DX[d], ny += DY[d]) {
+                    RAYONS[d][sq] |= bit(nx, ny);
+                }
+            }
+            PION[Echiquier.BLANC][sq] = bit(x - 1, y + 1) | bit(x + 1, y + 1);
+            PION[Echiquier.NOIR][sq] = bit(x - 1, y - 1) | bit(x + 1, y - 1);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int d = 0; d < 8; d++) {
+                long rayon = RAYONS[d][a];
+                for (long r = rayon; r != 0; r &= r - 1) {
+                    int b = Long.numberOfTrailingZeros(r);
+                    ENTRE[a][b] = rayon & ~RAYONS[d][b] & ~(1L << b);
+                }
+            }
+        }
+    }
+
+    private Attaques() {
+    }
+
+    private static long bit(int x, int y) {
+        return (x < 0 || x > 7 || y < 0 || y > 7) ? 0 : 1L << (y * 8 + x);
+    }
+
+    private static long rayon(int dir, int sq, long occupation) {
+        long rayon = RAYONS[dir][sq];
+        long bloqueurs = rayon & occupation;
+        if (bloqueurs != 0) {
+            int premier = dir < SUD
+                    ? Long.numberOfTrailingZeros(bloqueurs)
+                    : 63 - Long.numberOfLeadingZeros(bloqueurs);
+            rayon ^= RAYONS[dir][premier];
+        }
+        return rayon;
+    }
+
+    public static long fou(int sq, long occupation) {
+        return rayon(NORD_EST, sq, occupation) | rayon(NORD_OUEST, sq, occupation)
+                | rayon(SUD_EST, sq, occupation) | rayon(SUD_OUEST, sq, occupation);
+    }
+
+    public static long tour(int sq, long occupation) {
+        return rayon(NORD, sq, occupation) | rayon(EST, sq, occupation)
+                | rayon(SUD, sq, occupation) | rayon(OUEST, sq, occupation);
+    }
+
+    public static long dame(int sq, long occupation) {
+        return fou(sq, occupation) | tour(sq, occupation);
+    }
+
+    public static long cavalier(int sq) {
+        return CAVALIER[sq];
+    }
+
+    public static long roi(int sq) {
+        return ROI[sq];
+    }
+
+    public static long pion(int couleur, int sq) {
+        return PION[couleur][sq];
+    }
+}
@@ -0,0 +1,151 @@
+package modele.moteur;
+
+/**
+ * Bitbase roi et pion contre roi : un bit par position (gain ou nulle pour
+ * le camp du pion), calculé au premier usage par classification itérative
+ * et gardé dans 3072 longs (24 Ko). Sondage en temps constant, sans allocation.
+ *
+ * Index : roi fort (6 bits), roi faible (6), trait (1), pion ramené sur les
+ * colonnes a à d des rangées 2 à 7 (24 cases) ; le camp du pion joue « vers le haut ».
+ */
+public final class BitbaseKPK {
+    private static final int TAILLE = 2 * 24 * 64 * 64;
+    // Classification pendant le calcul
+    private static final byte INVALIDE = 0, INCONNU = 1, NULLE = 2, GAIN = 4;
+    private static final int FORT = 0, FAIBLE = 1;
+
+    private static final long[] GAINS = calculer();
+
+    private BitbaseKPK() {
+    }
+
+    /**
+     * La position est-elle une finale roi et pion contre roi ?
+     */
+    public static boolean estKPK(Echiquier e) {
+        return Long.bitCount(e.getOccupation()) == 3 && (e.pieces[Echiquier.PION] | e.pieces[8 | Echiquier.PION]) != 0;
+    }
+
+    /**
+     * Le camp du pion gagne-t-il ? (position KPK uniquement)
+     */
+    public static boolean estGagnant(Echiquier e) {
+        int fort = e.pieces[Echiquier.PION] != 0 ? Echiquier.BLANC : Echiquier.NOIR;
+        int retourne = fort == Echiquier.BLANC ? 0 : 56;
+        int pion = Long.numberOfTrailingZeros(e.pieces[fort << 3 | Echiquier.PION]) ^ retourne;
+        int miroir = (pion & 7) > 3 ? 7 : 0;
+        return gagne(e.getRoi(fort) ^ retourne ^ miroir, pion ^ miroir, e.getRoi(fort ^ 1) ^ retourne ^ miroir,
+                e.trait == fort ? FORT : FAIBLE);
+    }
+
+    /**
+     * Évaluation exacte d'une position KPK, du point de vue du joueur au trait :
+     * 0 si nulle, sinon un bonus qui croît avec l'avance du pion et la proximité
+     * du roi, en restant sous la valeur d'une dame pour que la promotion reste préférée
+     */
+    public static int evaluer(Echiquier e) {
+        if (!estGagnant(e)) {
+            return 0;
+        }
+        int fort = e.pieces[Echiquier.PION] != 0 ? Echiquier.BLANC : Echiquier.NOIR;
+        int pion = Long.numberOfTrailingZeros(e.pieces[fort << 3 | Echiquier.PION]);
+        int rangee = fort == Echiquier.BLANC ? pion >> 3 : 7 - (pion >> 3);
+        int roi = e.getRoi(fort);
+        int distance = Math.max(Math.abs((roi & 7) - (pion & 7)), Math.abs((roi >> 3) - (pion >> 3)));
+        int score = 2 * Evaluation.VALEURS[Echiquier.PION] + 40 * rangee - 5 * distance;
+        return e.trait == fort ? score : -score;
+    }
+
+    /**
+     * @param roiFort Case du roi du camp du pion (pion montant, colonnes a à d)
+     * @param trait FORT (0) ou FAIBLE (1)
+     */
+    static boolean gagne(int roiFort, int pion, int roiFaible, int trait) {
+        int i = index(trait, roiFort, roiFaible, pion);
+        return (GAINS[i >>> 6] & 1L << i) != 0;
+    }
+
+    private static int index(int trait, int roiFort, int roiFaible, int pion) {
+        return roiFort | roiFaible << 6 | trait << 12 | ((pion & 7) + 4 * (6 - (pion >> 3))) << 13;
+    }
+
+    // ---------------------------------------------------------------- calcul
+
+    private static long[] calculer() {
+        byte[] db = new byte[TAILLE];
+        for (int i = 0; i < TAILLE; i++) {
+            db[i] = initialiser(i);
+        }
+        boolean change = true;
+        while (change) {
+            change = false;
+            for (int i = 0; i < TAILLE; i++) {
+                if (db[i] == INCONNU) {
+                    byte r = classer(db, i);
+                    if (r != INCONNU) {
+                        db[i] = r;
+                        change = true;
+                    }
+                }
+            }
+        }
+        long[] gains = new long[TAILLE / 64];
+        for (int i = 0; i < TAILLE; i++) {
+            if (db[i] == GAIN) {
+                gains[i >>> 6] |= 1L << i;
+            }
+        }
+        return gains;
+    }
+
+    private static int distance(int a, int b) {
+        return Math.max(Math.abs((a & 7) - (b & 7)), Math.abs((a >> 3) - (b >> 3)));
+    }
+
+    private static byte initialiser(int i) {
+        int roiFort = i & 63, roiFaible = (i >> 6) & 63, trait = (i >> 12) & 1;
+        int p = i >> 13;
+        int pion = (6 - (p >> 2)) * 8 + (p & 3);
+        int devant = pion + 8;
+        if (distance(roiFort, roiFaible) <= 1 || roiFort == pion || roiFaible == pion
+                || (trait == FORT && (Attaques.PION[Echiquier.BLANC][pion] & 1L << roiFaible) != 0)) {
+            return INVALIDE;
+        }
+        // Promotion immédiate sans que la dame puisse être prise
+        if (trait == FORT && (pion >> 3) == 6 && roiFort != devant
+                && (distance(roiFaible, devant) > 1 || distance(roiFort, devant) == 1)) {
+            return GAIN;
+        }
+        if (trait == FAIBLE) {
+            long refuges = Attaques.ROI[roiFaible] & ~(Attaques.ROI[roiFort] | Attaques.PION[Echiquier.BLANC][pion]);
+            // Pat, ou pion non défendu pris
+            if (refuges == 0 || (Attaques.ROI[roiFaible] & ~Attaques.ROI[roiFort] & 1L << pion) != 0) {
+                return NULLE;
+            }
+        }
+        return INCONNU;
+    }
+
+    private static byte classer(byte[] db, int i) {
+        int roiFort = i & 63, roiFaible = (i >> 6) & 63, trait = (i >> 12) & 1;
+        int p = i >> 13;
+        int pion = (6 - (p >> 2)) * 8 + (p & 3);
+        int bon = trait == FORT ? GAIN : NULLE;
+        int mauvais = trait == FORT ? NULLE : GAIN;
+        int r = INVALIDE;
+        int roi = trait == FORT ? roiFort : roiFaible;
+        for (long bb = Attaques.ROI[roi]; bb != 0; bb &= bb - 1) {
+            int sq = Long.numberOfTrailingZeros(bb);
+            r |= trait == FORT ? db[index(FAIBLE, sq, roiFaible, pion)] : db[index(FORT, roiFort, sq, pion)];
+        }
+        if (trait == FORT) {
+            if ((pion >> 3) < 6) {
+                r |= db[index(FAIBLE, roiFort, roiFaible, pion + 8)];
+            }
+            if ((pion >> 3) == 1 && pion + 8 != roiFort && pion + 8 != roiFaible) {
+                r |= db[index(FAIBLE, roiFort, roiFaible, pion + 16)];
+            }
+        }
+        return (byte) ((r & bon) != 0 ? bon : (r & INCONNU) != 0 ? INCONNU : mauvais);
+    }
+}
@@ -0,0 +1,91 @@
+package modele.moteur;
+
+/**
+ * Codage d'un coup du moteur dans un int, pour générer et stocker les coups
+ * sans allocation :
+ * bits 0-5 case de départ, 6-11 case d'arrivée, 12-14 type de promotion,
+ * 15 prise en passant, 16 roque, 17 poussée de deux cases.
+ */
+public final class CodeCoup {
+    /** Absence de coup */
+    public static final int AUCUN = 0;
+
+    static final int PRISE_EN_PASSANT = 1 << 15;
+    static final int ROQUE = 1 << 16;
+    static final int DOUBLE_PAS = 1 << 17;
+
+    private static final char[] LETTRES_PROMOTION = {' ', ' ', 'n', 'b', 'r', 'q', ' '};
+
+    private CodeCoup() {
+    }
+
+    static int creer(int depart, int arrivee) {
+        return depart | arrivee << 6;
+    }
+
+    static int creer(int depart, int arrivee, int promotion, int drapeaux) {
+        return depart | arrivee << 6 | promotion << 12 | drapeaux;
+    }
+
+    public static int depart(int coup) {
+        return coup & 63;
+    }
+
+    public static int arrivee(int coup) {
+        return (coup >>> 6) & 63;
+    }
+
+    /** Type de la pièce de promotion (Echiquier.DAME...), 0 sinon */
+    public static int promotion(int coup) {
+        return (coup >>> 12) & 7;
+    }
+
+    public static boolean estPriseEnPassant(int coup) {
+        return (coup & PRISE_EN_PASSANT) != 0;
+    }
+
+    public static boolean estRoque(int coup) {
+        return (coup & ROQUE) != 0;
+    }
+
+    public static boolean estDoublePas(int coup) {
+        return (coup & DOUBLE_PAS) != 0;
+    }
+
+    /**
+     * Écrit le coup en notation UCI (e2e4, e7e8q) dans le tampon
+     */
+    public static void ecrire(int coup, StringBuilder sb) {
+        if (coup == AUCUN) {
+            sb.append("0000");
+            return;
+        }
+        ecrireCase(depart(coup), sb);
+        ecrireCase(arrivee(coup), sb);
+        if (promotion(coup) != 0) {
+            sb.append(LETTRES_PROMOTION[promotion(coup)]);
+        }
+    }
+
+    public static void ecrireCase(int sq, StringBuilder sb) {
+        sb.append((char) ('a' + (sq & 7))).append((char) ('1' + (sq >> 3)));
+    }
+
+    /**
+     * Lit une case ("e4") à la position donnée
+     * @return L'index de la case, ou -1 si la notation est invalide
+     */
+    public static int lireCase(CharSequence texte, int debut) {
+        if (debut + 1 >= texte.length()) return -1;
+        int x = texte.charAt(debut) - 'a';
+        int y = texte.charAt(debut + 1) - '1';
+        if (x < 0 || x > 7 || y < 0 || y > 7) return -1;
+        return y * 8 + x;
+    }
+
+    public static String toString(int coup) {
+        StringBuilder sb = new StringBuilder(5);
+        ecrire(coup, sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,729 @@
+package modele.moteur;
+
+import modele.jeu.Fen;
+import modele.jeu.Position;
+import modele.pieces.PieceColor;
+import modele.pieces.PieceType;
+
+/**
+ * Échiquier compact du moteur : tableau de 64 cases et bitboards tenus à jour
+ * de façon incrémentale, avec jouer/déjouer et clé de Zobrist.
+ * Contrairement au Plateau (objets Case/Piece pour l'interface), il est conçu
+ * pour la recherche : aucune allocation par coup.
+ *
+ * Codage des pièces : type (PION..ROI) + 8 pour les noirs, 0 pour une case vide.
+ */
+public final class Echiquier {
+    public static final int BLANC = 0, NOIR = 1;
+    public static final int VIDE = 0, PION = 1, CAVALIER = 2, FOU = 3, TOUR = 4, DAME = 5, ROI = 6;
+
+    // Droits de roque, même codage que Position
+    public static final int ROQUE_BLANC_ROI = 1, ROQUE_BLANC_DAME = 2, ROQUE_NOIR_ROI = 4, ROQUE_NOIR_DAME = 8;
+
+    /** Nombre maximal de demi-coups mémorisés pour déjouer (partie + recherche) */
+    public static final int HISTORIQUE_MAX = 1024;
+
+    public static final String FEN_INITIALE = Fen.INITIALE;
+
+    // Clés de Zobrist : pièces, roques, colonne de prise en passant, trait
+    static final long[][] ZOBRIST_PIECES = new long[16][64];
+    static final long[] ZOBRIST_ROQUES = new long[16];
+    static final long[] ZOBRIST_EN_PASSANT = new long[8];
+    static final long ZOBRIST_TRAIT;
+
+    // Masque des droits de roque conservés quand un coup touche une case
+    private static final int[] MASQUE_ROQUES = new int[64];
+
+    static {
+        long graine = 0x9E3779B97F4A7C15L;
+        for (int p = 0; p < 16; p++) {
+            for (int sq = 0; sq < 64; sq++) {
+                graine = suivant(graine);
+                ZOBRIST_PIECES[p][sq] = melanger(graine);
+            }
+        }
+        long[] roques = new long[4];
+        for (int i = 0; i < 4; i++) {
+            graine = suivant(graine);
+            roques[i] = melanger(graine);
+        }
+        for (int droits = 0; droits < 16; droits++) {
+            for (int i = 0; i < 4; i++) {
+                if ((droits & (1 << i)) != 0) ZOBRIST_ROQUES[droits] ^= roques[i];
+            }
+        }
+        for (int f = 0; f < 8; f++) {
+            graine = suivant(graine);
+            ZOBRIST_EN_PASSANT[f] = melanger(graine);
+        }
+        graine = suivant(graine);
+        ZOBRIST_TRAIT = melanger(graine);
+
+        for (int sq = 0; sq < 64; sq++) MASQUE_ROQUES[sq] = 15;
+        MASQUE_ROQUES[4] &= ~(ROQUE_BLANC_ROI | ROQUE_BLANC_DAME);
+        MASQUE_ROQUES[7] &= ~ROQUE_BLANC_ROI;
+        MASQUE_ROQUES[0] &= ~ROQUE_BLANC_DAME;
+        MASQUE_ROQUES[60] &= ~(ROQUE_NOIR_ROI | ROQUE_NOIR_DAME);
+        MASQUE_ROQUES[63] &= ~ROQUE_NOIR_ROI;
+        MASQUE_ROQUES[56] &= ~ROQUE_NOIR_DAME;
+    }
+
+    private static long suivant(long x) {
+        return x + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long melanger(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    final int[] cases = new int[64];
+    /** Bitboard par code de pièce (0..15) */
+    final long[] pieces = new long[16];
+    final long[] couleurs = new long[2];
+    int trait;
+    int roques;
+    int enPassant = -1;
+    int demiCoups;
+    int numeroCoup = 1;
+    long cle;
+
+    // Pile d'annulation : clé et état (pièce prise, roques, en passant, demi-coups)
+    private final long[] pileCles;
+    private final int[] pileEtats;
+    private int hauteur;
+
+    // Lecteur FEN réutilisé par chargerFen(CharSequence)
+    private Fen lecteurFen;
+
+    public Echiquier() {
+        this(HISTORIQUE_MAX);
+    }
+
+    /**
+     * Échiquier à la pile d'annulation réduite, pour une copie qui ne déjoue
+     * pas et tronque son historique à mi-hauteur (miroir d'une partie)
+     * @param capaciteHistorique Nombre maximal de coups dans la pile
+     */
+    public Echiquier(int capaciteHistorique) {
+        pileCles = new long[capaciteHistorique];
+        pileEtats = new int[capaciteHistorique];
+        chargerFen(FEN_INITIALE);
+    }
+
+    // ------------------------------------------------------------------ état
+
+    public int getTrait() { return trait; }
+    public int getRoques() { return roques; }
+    /** Case de prise en passant, ou -1 */
+    public int getEnPassant() { return enPassant; }
+    public int getDemiCoups() { return demiCoups; }
+    public int getNumeroCoup() { return numeroCoup; }
+    public long getCle() { return cle; }
+    /** Code de la pièce sur la case (0 si vide) */
+    public int getPiece(int sq) { return cases[sq]; }
+    public long getOccupation() { return couleurs[BLANC] | couleurs[NOIR]; }
+    public long getOccupation(int couleur) { return couleurs[couleur]; }
+    public long getPieces(int couleur, int type) { return pieces[couleur << 3 | type]; }
+    public int getRoi(int couleur) { return Long.numberOfTrailingZeros(pieces[couleur << 3 | ROI]); }
+    /** Nombre de demi-coups joués depuis la position chargée */
+    public int getHauteur() { return hauteur; }
+
+    public static int type(int piece) { return piece & 7; }
+    public static int couleur(int piece) { return piece >> 3; }
+
+    /** Conversion vers le type de pièce du modèle */
+    public static PieceType versPieceType(int type) {
+        return switch (type) {
+            case PION -> PieceType.PION;
+            case CAVALIER -> PieceType.CAVALIER;
+            case FOU -> PieceType.FOU;
+            case TOUR -> PieceType.TOUR;
+            case DAME -> PieceType.DAME;
+            case ROI -> PieceType.ROI;
+            default -> null;
+        };
+    }
+
+    /** Conversion depuis le type de pièce du modèle */
+    public static int depuisPieceType(PieceType type) {
+        return switch (type) {
+            case PION -> PION;
+            case CAVALIER -> CAVALIER;
+            case FOU -> FOU;
+            case TOUR -> TOUR;
+            case DAME -> DAME;
+            case ROI -> ROI;
+        };
+    }
+
+    // ------------------------------------------------------------ chargement
+
+    /**
+     * Vide l'échiquier (état transitoire avant de poser des pièces)
+     */
+    void vider() {
+        java.util.Arrays.fill(cases, VIDE);
+        java.util.Arrays.fill(pieces, 0L);
+        couleurs[BLANC] = couleurs[NOIR] = 0L;
+        trait = BLANC;
+        roques = 0;
+        enPassant = -1;
+        demiCoups = 0;
+        numeroCoup = 1;
+        hauteur = 0;
+        cle = 0;
+    }
+
+    void poser(int piece, int sq) {
+        cases[sq] = piece;
+        pieces[piece] |= 1L << sq;
+        couleurs[piece >> 3] |= 1L << sq;
+    }
+
+    /**
+     * Recalcule la clé de Zobrist à partir de zéro
+     */
+    long calculerCle() {
+        long k = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (cases[sq] != VIDE) k ^= ZOBRIST_PIECES[cases[sq]][sq];
+        }
+        k ^= ZOBRIST_ROQUES[roques];
+        if (enPassant >= 0) k ^= ZOBRIST_EN_PASSANT[enPassant & 7];
+        if (trait == NOIR) k ^= ZOBRIST_TRAIT;
+        return k;
+    }
+
+    /**
+     * Charge une position FEN (champs de coups optionnels)
+     * @param fen La position
+     * @throws IllegalArgumentException si la FEN est invalide
+     */
+    public void chargerFen(CharSequence fen) {
+        if (lecteurFen == null) {
+            lecteurFen = new Fen();
+        }
+        lecteurFen.lire(fen);
+        chargerFen(lecteurFen);
+    }
+
+    /**
+     * Charge une position FEN déjà lue (chemin sans allocation pour l'analyse en masse)
+     * @param fen La position lue
+     */
+    public void chargerFen(Fen fen) {
+        vider();
+        for (int sq = 0; sq < 64; sq++) {
+            PieceType type = fen.getType(sq);
+            if (type != null) {
+                poser(depuisPieceType(type) | (fen.getCouleur(sq) == PieceColor.WHITE ? 0 : 8), sq);
+            }
+        }
+        trait = fen.getTrait() == PieceColor.WHITE ? BLANC : NOIR;
+        roques = fen.getRoques();
+        enPassant = fen.getEnPassant();
+        demiCoups = fen.getDemiCoups();
+        numeroCoup = fen.getNumeroCoup();
+        cle = calculerCle();
+    }
+
+    /**
+     * Décrit la position courante dans un objet FEN réutilisable
+     * @param fen La description à remplir
+     */
+    public void ecrireFen(Fen fen) {
+        fen.vider();
+        for (int sq = 0; sq < 64; sq++) {
+            if (cases[sq] != VIDE) {
+                fen.setPiece(sq, versPieceType(type(cases[sq])),
+                        couleur(cases[sq]) == BLANC ? PieceColor.WHITE : PieceColor.BLACK);
+            }
+        }
+        fen.setTrait(trait == BLANC ? PieceColor.WHITE : PieceColor.BLACK);
+        fen.setRoques(roques);
+        fen.setEnPassant(enPassant);
+        fen.setDemiCoups(demiCoups);
+        fen.setNumeroCoup(numeroCoup);
+    }
+
+    /**
+     * @return La position courante au format FEN
+     */
+    public String versFen() {
+        Fen fen = new Fen();
+        ecrireFen(fen);
+        return fen.toString();
+    }
+
+    /**
+     * Charge l'instantané publié par une partie
+     * @param position La position à recopier
+     */
+    public void chargerPosition(Position position) {
+        vider();
+        for (PieceColor pc : PieceColor.values()) {
+            int c = pc == PieceColor.WHITE ? BLANC : NOIR;
+            for (PieceType pt : PieceType.values()) {
+                for (long bb = position.getPieces(pc, pt); bb != 0; bb &= bb - 1) {
+                    poser(depuisPieceType(pt) | c << 3, Long.numberOfTrailingZeros(bb));
+                }
+            }
+        }
+        trait = position.getTrait() == PieceColor.WHITE ? BLANC : NOIR;
+        roques = position.getRoques();
+        enPassant = position.getEnPassant();
+        demiCoups = position.getDemiCoups();
+        numeroCoup = position.getNumeroCoup();
+        cle = calculerCle();
+    }
+
+    /**
+     * Recopie un autre échiquier, avec la partie de l'historique encore utile
+     * pour détecter les répétitions (depuis le dernier coup irréversible).
+     * La copie ne peut pas déjouer les coups antérieurs.
+     */
+    public void copier(Echiquier autre) {
+        System.arraycopy(autre.cases, 0, cases, 0, 64);
+        System.arraycopy(autre.pieces, 0, pieces, 0, 16);
+        couleurs[BLANC] = autre.couleurs[BLANC];
+        couleurs[NOIR] = autre.couleurs[NOIR];
+        trait = autre.trait;
+        roques = autre.roques;
+        enPassant = autre.enPassant;
+        demiCoups = autre.demiCoups;
+        numeroCoup = autre.numeroCoup;
+        cle = autre.cle;
+        hauteur = Math.min(Math.min(autre.hauteur, autre.demiCoups), pileCles.length);
+        System.arraycopy(autre.pileCles, autre.hauteur - hauteur, pileCles, 0, hauteur);
+        System.arraycopy(autre.pileEtats, autre.hauteur - hauteur, pileEtats, 0, hauteur);
+    }
+
+    /**
+     * Oublie les coups joués avant le dernier coup irréversible : ils ne
+     * pourront plus être déjoués, mais les répétitions restent détectées.
+     * Permet de rejouer des parties plus longues que la pile (HISTORIQUE_MAX).
+     */
+    public void tronquerHistorique() {
+        int garde = Math.min(hauteur, Math.min(demiCoups, pileCles.length / 4));
+        System.arraycopy(pileCles, hauteur - garde, pileCles, 0, garde);
+        System.arraycopy(pileEtats, hauteur - garde, pileEtats, 0, garde);
+        hauteur = garde;
+    }
+
+    // ------------------------------------------------------------- attaques
+
+    /**
+     * Vérifie si une case est attaquée par une couleur
+     */
+    public boolean estAttaquee(int sq, int parCouleur) {
+        int base = parCouleur << 3;
+        long occupation = couleurs[BLANC] | couleurs[NOIR];
+        if ((Attaques.PION[parCouleur ^ 1][sq] & pieces[base | PION]) != 0) return true;
+        if ((Attaques.CAVALIER[sq] & pieces[base | CAVALIER]) != 0) return true;
+        if ((Attaques.ROI[sq] & pieces[base | ROI]) != 0) return true;
+        long diagonales = pieces[base | FOU] | pieces[base | DAME];
+        if (diagonales != 0 && (Attaques.fou(sq, occupation) & diagonales) != 0) return true;
+        long droites = pieces[base | TOUR] | pieces[base | DAME];
+        return droites != 0 && (Attaques.tour(sq, occupation) & droites) != 0;
+    }
+
+    /**
+     * Bitboard de toutes les pièces (des deux couleurs) qui attaquent une case
+     */
+    public long attaquants(int sq, long occupation) {
+        return (Attaques.PION[NOIR][sq] & pieces[PION])
+                | (Attaques.PION[BLANC][sq] & pieces[8 | PION])
+                | (Attaques.CAVALIER[sq] & (pieces[CAVALIER] | pieces[8 | CAVALIER]))
+                | (Attaques.ROI[sq] & (pieces[ROI] | pieces[8 | ROI]))
+                | (Attaques.fou(sq, occupation) & (pieces[FOU] | pieces[8 | FOU] | pieces[DAME] | pieces[8 | DAME]))
+                | (Attaques.tour(sq, occupation) & (pieces[TOUR] | pieces[8 | TOUR] | pieces[DAME] | pieces[8 | DAME]));
+    }
+
+    /** Le joueur au trait est-il en échec ? */
+    public boolean estEnEchec() {
+        return estAttaquee(getRoi(trait), trait ^ 1);
+    }
+
+    /**
+     * Une position chargée peut-elle être cherchée ? Le camp qui n'a pas le
+     * trait n'est pas en échec (rois adjacents compris) et aucun pion n'est
+     * sur la première ou la dernière rangée.
+     */
+    public boolean estValide() {
+        if (((pieces[PION] | pieces[8 | PION]) & 0xFF000000000000FFL) != 0) {
+            return false;
+        }
+        return !estAttaquee(getRoi(trait ^ 1), trait);
+    }
+
+    // ------------------------------------------------------------ génération
+
+    /**
+     * Génère les coups pseudo-légaux du joueur au trait
+     * @param coups Tampon de sortie
+     * @param debut Premier index libre du tampon
+     * @return L'index qui suit le dernier coup généré
+     */
+    public int genererCoups(int[] coups, int debut) {
+        return generer(coups, debut, false);
+    }
+
+    /**
+     * Génère les captures et promotions pseudo-légales (recherche de quiescence)
+     */
+    public int genererCaptures(int[] coups, int debut) {
+        return generer(coups, debut, true);
+    }
+
+    /**
+     * Génère les coups légaux du joueur au trait
+     */
+    public int genererCoupsLegaux(int[] coups, int debut) {
+        int fin = generer(coups, debut, false);
+        int n = debut;
+        for (int i = debut; i < fin; i++) {
+            if (jouer(coups[i])) {
+                dejouer(coups[i]);
+                coups[n++] = coups[i];
+            }
+        }
+        return n;
+    }
+
+    private int generer(int[] coups, int n, boolean capturesSeulement) {
+        int nous = trait, eux = trait ^ 1, base = nous << 3;
+        long amis = couleurs[nous], ennemis = couleurs[eux];
+        long occupation = amis | ennemis;
+        long cibles = capturesSeulement ? ennemis : ~amis;
+
+        n = genererPions(coups, n, capturesSeulement, ennemis, occupation);
+
+        for (long bb = pieces[base | CAVALIER]; bb != 0; bb &= bb - 1) {
+            int de = Long.numberOfTrailingZeros(bb);
+            n = ajouter(coups, n, de, Attaques.CAVALIER[de] & cibles);
+        }
+        for (long bb = pieces[base | FOU]; bb != 0; bb &= bb - 1) {
+            int de = Long.numberOfTrailingZeros(bb);
+            n = ajouter(coups, n, de, Attaques.fou(de, occupation) & cibles);
+        }
+        for (long bb = pieces[base | TOUR]; bb != 0; bb &= bb - 1) {
+            int de = Long.numberOfTrailingZeros(bb);
+            n = ajouter(coups, n, de, Attaques.tour(de, occupation) & cibles);
+        }
+        for (long bb = pieces[base | DAME]; bb != 0; bb &= bb - 1) {
+            int de = Long.numberOfTrailingZeros(bb);
+            n = ajouter(coups, n, de, Attaques.dame(de, occupation) & cibles);
+        }
+        int roi = getRoi(nous);
+        n = ajouter(coups, n, roi, Attaques.ROI[roi] & cibles);
+
+        if (!capturesSeulement) {
+            n = genererRoques(coups, n, occupation);
+        }
+        return n;
+    }
+
+    private static int ajouter(int[] coups, int n, int de, long arrivees) {
+        for (; arrivees != 0; arrivees &= arrivees - 1) {
+            coups[n++] = CodeCoup.creer(de, Long.numberOfTrailingZeros(arrivees));
+        }
+        return n;
+    }
+
+    private int genererPions(int[] coups, int n, boolean capturesSeulement, long ennemis, long occupation) {
+        long pions = pieces[trait << 3 | PION];
+        int avance = trait == BLANC ? 8 : -8;
+        long rangeePromotion = trait == BLANC ? 0xFF00000000000000L : 0xFFL;
+        long rangeeDouble = trait == BLANC ? 0xFF0000L : 0xFF0000000000L;
+        long vides = ~occupation;
+
+        long simples = (trait == BLANC ? pions << 8 : pions >>> 8) & vides;
+        long doubles = (trait == BLANC ? (simples & 0xFF0000L) << 8 : (simples & 0xFF0000000000L) >>> 8) & vides;
+        for (long bb = simples; bb != 0; bb &= bb - 1) {
+            int a = Long.numberOfTrailingZeros(bb);
+            if (((1L << a) & rangeePromotion) != 0) {
+                n = ajouterPromotions(coups, n, a - avance, a, capturesSeulement);
+            } else if (!capturesSeulement) {
+                coups[n++] = CodeCoup.creer(a - avance, a);
+            }
+        }
+        if (!capturesSeulement) {
+            for (long bb = doubles; bb != 0; bb &= bb - 1) {
+                int a = Long.numberOfTrailingZeros(bb);
+                coups[n++] = CodeCoup.creer(a - 2 * avance, a, 0, CodeCoup.DOUBLE_PAS);
+            }
+        }
+        for (long bb = pions; bb != 0; bb &= bb - 1) {
+            int de = Long.numberOfTrailingZeros(bb);
+            long prises = Attaques.PION[trait][de] & ennemis;
+            for (; prises != 0; prises &= prises - 1) {
+                int a = Long.numberOfTrailingZeros(prises);
+                if (((1L << a) & rangeePromotion) != 0) {
+                    n = ajouterPromotions(coups, n, de, a, false);
+                } else {
+                    coups[n++] = CodeCoup.creer(de, a);
+                }
+            }
+            if (enPassant >= 0 && (Attaques.PION[trait][de] & (1L << enPassant)) != 0) {
+                coups[n++] = CodeCoup.creer(de, enPassant, 0, CodeCoup.PRISE_EN_PASSANT);
+            }
+        }
+        return n;
+    }
+
+    private static int ajouterPromotions(int[] coups, int n, int de, int a, boolean dameSeulement) {
+        coups[n++] = CodeCoup.creer(de, a, DAME, 0);
+        if (!dameSeulement) {
+            coups[n++] = CodeCoup.creer(de, a, CAVALIER, 0);
+            coups[n++] = CodeCoup.creer(de, a, TOUR, 0);
+            coups[n++] = CodeCoup.creer(de, a, FOU, 0);
+        }
+        return n;
+    }
+
+    private int genererRoques(int[] coups, int n, long occupation) {
+        int eux = trait ^ 1;
+        long tours = pieces[trait << 3 | TOUR];
+        if (trait == BLANC) {
+            if ((roques & ROQUE_BLANC_ROI) != 0 && (tours & 0x80L) != 0 && (occupation & 0x60L) == 0
+                    && !estAttaquee(4, eux) && !estAttaquee(5, eux) && !estAttaquee(6, eux)) {
+                coups[n++] = CodeCoup.creer(4, 6, 0, CodeCoup.ROQUE);
+            }
+            if ((roques & ROQUE_BLANC_DAME) != 0 && (tours & 0x01L) != 0 && (occupation & 0x0EL) == 0
+                    && !estAttaquee(4, eux) && !estAttaquee(3, eux) && !estAttaquee(2, eux)) {
+                coups[n++] = CodeCoup.creer(4, 2, 0, CodeCoup.ROQUE);
+            }
+        } else {
+            if ((roques & ROQUE_NOIR_ROI) != 0 && (tours & 0x8000000000000000L) != 0
+                    && (occupation & 0x6000000000000000L) == 0
+                    && !estAttaquee(60, eux) && !estAttaquee(61, eux) && !estAttaquee(62, eux)) {
+                coups[n++] = CodeCoup.creer(60, 62, 0, CodeCoup.ROQUE);
+            }
+            if ((roques & ROQUE_NOIR_DAME) != 0 && (tours & 0x0100000000000000L) != 0
+                    && (occupation & 0x0E00000000000000L) == 0
+                    && !estAttaquee(60, eux) && !estAttaquee(59, eux) && !estAttaquee(58, eux)) {
+                coups[n++] = CodeCoup.creer(60, 58, 0, CodeCoup.ROQUE);
+            }
+        }
+        return n;
+    }
+
+    // ------------------------------------------------------- jouer / déjouer
+
+    private void deplacer(int piece, int de, int a) {
+        long mouvement = (1L << de) | (1L << a);
+        cases[de] = VIDE;
+        cases[a] = piece;
+        pieces[piece] ^= mouvement;
+        couleurs[piece >> 3] ^= mouvement;
+        cle ^= ZOBRIST_PIECES[piece][de] ^ ZOBRIST_PIECES[piece][a];
+    }
+
+    private void retirer(int sq) {
+        int piece = cases[sq];
+        cases[sq] = VIDE;
+        pieces[piece] ^= 1L << sq;
+        couleurs[piece >> 3] ^= 1L << sq;
+        cle ^= ZOBRIST_PIECES[piece][sq];
+    }
+
+    private void ajouterPiece(int piece, int sq) {
+        poser(piece, sq);
+        cle ^= ZOBRIST_PIECES[piece][sq];
+    }
+
+    /**
+     * Joue un coup pseudo-légal. S'il laisse le roi en échec, il est
+     * aussitôt déjoué.
+     * @return true si le coup est légal (et donc joué)
+     */
+    public boolean jouer(int coup) {
+        int de = CodeCoup.depart(coup), a = CodeCoup.arrivee(coup);
+        int piece = cases[de];
+        int nous = trait;
+        int prise = CodeCoup.estPriseEnPassant(coup) ? (PION | (nous ^ 1) << 3) : cases[a];
+
+        pileCles[hauteur] = cle;
+        pileEtats[hauteur] = prise | roques << 4 | (enPassant + 1) << 8 | demiCoups << 15;
+        hauteur++;
+
+        if (enPassant >= 0) cle ^= ZOBRIST_EN_PASSANT[enPassant & 7];
+        cle ^= ZOBRIST_ROQUES[roques];
+
+        if (CodeCoup.estPriseEnPassant(coup)) {
+            retirer(nous == BLANC ? a - 8 : a + 8);
+        } else if (prise != VIDE) {
+            retirer(a);
+        }
+        deplacer(piece, de, a);
+        if (CodeCoup.promotion(coup) != 0) {
+            retirer(a);
+            ajouterPiece(CodeCoup.promotion(coup) | nous << 3, a);
+        } else if (CodeCoup.estRoque(coup)) {
+            int tourDe = a > de ? a + 1 : a - 2;
+            int tourA = a > de ? a - 1 : a + 1;
+            deplacer(cases[tourDe], tourDe, tourA);
+        }
+
+        roques &= MASQUE_ROQUES[de] & MASQUE_ROQUES[a];
+        cle ^= ZOBRIST_ROQUES[roques];
+        enPassant = CodeCoup.estDoublePas(coup) ? (de + a) >> 1 : -1;
+        if (enPassant >= 0) cle ^= ZOBRIST_EN_PASSANT[enPassant & 7];
+        demiCoups = (type(piece) == PION || prise != VIDE) ? 0 : demiCoups + 1;
+        if (nous == NOIR) numeroCoup++;
+        trait ^= 1;
+        cle ^= ZOBRIST_TRAIT;
+
+        if (estAttaquee(getRoi(nous), trait)) {
+            dejouer(coup);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Annule le dernier coup joué
+     */
+    public void dejouer(int coup) {
+        hauteur--;
+        int etat = pileEtats[hauteur];
+        int de = CodeCoup.depart(coup), a = CodeCoup.arrivee(coup);
+        trait ^= 1;
+        int nous = trait;
+        if (nous == NOIR) numeroCoup--;
+
+        int piece = cases[a];
+        if (CodeCoup.promotion(coup) != 0) {
+            retirer(a);
+            poser(PION | nous << 3, a);
+            piece = PION | nous << 3;
+        }
+        deplacer(piece, a, de);
+        if (CodeCoup.estRoque(coup)) {
+            int tourDe = a > de ? a + 1 : a - 2;
+            int tourA = a > de ? a - 1 : a + 1;
+            deplacer(cases[tourA], tourA, tourDe);
+        }
+        int prise = etat & 15;
+        if (prise != VIDE) {
+            poser(prise, CodeCoup.estPriseEnPassant(coup) ? (nous == BLANC ? a - 8 : a + 8) : a);
+        }
+        roques = (etat >> 4) & 15;
+        enPassant = ((etat >> 8) & 127) - 1;
+        demiCoups = etat >>> 15;
+        cle = pileCles[hauteur];
+    }
+
+    /**
+     * Passe le trait sans jouer (coup nul, pour l'élagage)
+     */
+    public void jouerCoupNul() {
+        pileCles[hauteur] = cle;
+        pileEtats[hauteur] = roques << 4 | (enPassant + 1) << 8 | demiCoups << 15;
+        hauteur++;
+        if (enPassant >= 0) cle ^= ZOBRIST_EN_PASSANT[enPassant & 7];
+        enPassant = -1;
+        demiCoups++;
+        trait ^= 1;
+        cle ^= ZOBRIST_TRAIT;
+    }
+
+    public void dejouerCoupNul() {
+        hauteur--;
+        int etat = pileEtats[hauteur];
+        trait ^= 1;
+        enPassant = ((etat >> 8) & 127) - 1;
+        demiCoups = etat >>> 15;
+        cle = pileCles[hauteur];
+    }
+
+    /**
+     * Le coup est-il une capture (prise en passant comprise) ?
+     */
+    public boolean estCapture(int coup) {
+        return cases[CodeCoup.arrivee(coup)] != VIDE || CodeCoup.estPriseEnPassant(coup);
+    }
+
+    /**
+     * Retrouve le coup légal correspondant à une notation UCI (e2e4, e7e8q)
+     * @return Le coup, ou CodeCoup.AUCUN s'il n'est pas légal
+     */
+    public int lireCoupUci(CharSequence texte, int debut, int[] tampon) {
+        int de = CodeCoup.lireCase(texte, debut);
+        int a = CodeCoup.lireCase(texte, debut + 2);
+        if (de < 0 || a < 0) return CodeCoup.AUCUN;
+        int promotion = 0;
+        if (debut + 4 < texte.length()) {
+            promotion = switch (texte.charAt(debut + 4)) {
+                case 'q' -> DAME;
+                case 'r' -> TOUR;
+                case 'b' -> FOU;
+                case 'n' -> CAVALIER;
+                default -> 0;
+            };
+        }
+        return trouverCoup(de, a, promotion, tampon);
+    }
+
+    /**
+     * Retrouve le coup légal allant d'une case à une autre
+     * @param promotion Type de la pièce de promotion, 0 sinon
+     * @return Le coup, ou CodeCoup.AUCUN s'il n'est pas légal
+     */
+    public int trouverCoup(int de, int a, int promotion, int[] tampon) {
+        int fin = genererCoups(tampon, 0);
+        for (int i = 0; i < fin; i++) {
+            int c = tampon[i];
+            if (CodeCoup.depart(c) == de && CodeCoup.arrivee(c) == a && CodeCoup.promotion(c) == promotion) {
+                if (!jouer(c)) {
+                    return CodeCoup.AUCUN;
+                }
+                dejouer(c);
+                return c;
+            }
+        }
+        return CodeCoup.AUCUN;
+    }
+
+    /**
+     * Vérifie s'il existe au moins un coup légal (arrêt au premier trouvé)
+     * @param tampon Tampon de travail pour les coups pseudo-légaux
+     */
+    public boolean aUnCoupLegal(int[] tampon) {
+        int fin = genererCoups(tampon, 0);
+        for (int i = 0; i < fin; i++) {
+            if (jouer(tampon[i])) {
+                dejouer(tampon[i]);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------- nullités
+
+    /**
+     * Répétition de position (une seule suffit dans l'arbre) ou règle des 50 coups
+     */
+    public boolean estNulle() {
+        if (demiCoups >= 100) return true;
+        int limite = Math.max(0, hauteur - demiCoups);
+        for (int i = hauteur - 2; i >= limite; i -= 2) {
+            if (pileCles[i] == cle) return true;
+        }
+        return materielInsuffisant();
+    }
+
+    /**
+     * Roi contre roi, ou roi et pièce mineure contre roi
+     */
+    public boolean materielInsuffisant() {
+        if ((pieces[PION] | pieces[8 | PION] | pieces[TOUR] | pieces[8 | TOUR]
+                | pieces[DAME] | pieces[8 | DAME]) != 0) {
+            return false;
+        }
+        return Long.bitCount(couleurs[BLANC] | couleurs[NOIR]) <= 3;
+    }
+}
@@ -0,0 +1,34 @@
+package modele.moteur;
+
+/**
+ * Reçoit les résultats intermédiaires d'une recherche, à la fin de chaque itération.
+ */
+public interface EcouteurRecherche {
+    /**
+     * Appelée par le thread de recherche principal après chaque profondeur terminée.
+     * Le tableau pv est réutilisé par la recherche : le copier pour le conserver.
+     * @param profondeur Profondeur nominale terminée
+     * @param profondeurSelective Profondeur maximale atteinte (quiescence comprise)
+     * @param score Score en centipions du point de vue du joueur au trait
+     * @param noeuds Nœuds visités depuis le début de la recherche
+     * @param tempsMs Temps écoulé depuis le début de la recherche
+     * @param pv Variante principale (codes de coups)
+     * @param longueurPv Nombre de coups valides dans pv
+     */
+    void iterationTerminee(int profondeur, int profondeurSelective, int score, long noeuds,
+                           long tempsMs, int[] pv, int longueurPv);
+
+    /**
+     * Appelée après chaque profondeur terminée, une fois par ligne suivie
+     * (Limites.setLignes), de la meilleure à la moins bonne. Par défaut seule
+     * la meilleure ligne est transmise, à iterationTerminee.
+     * @param rang Rang de la ligne, à partir de 1
+     * @param lignes Nombre de lignes de l'itération
+     */
+    default void ligneTerminee(int rang, int lignes, int profondeur, int profondeurSelective, int score,
+                               long noeuds, long tempsMs, int[] pv, int longueurPv) {
+        if (rang == 1) {
+            iterationTerminee(profondeur, profondeurSelective, score, noeuds, tempsMs, pv, longueurPv);
+        }
+    }
+}
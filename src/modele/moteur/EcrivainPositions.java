@@ -0,0 +1,91 @@
+package modele.moteur;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Ajout de positions compactes ({@link PositionCompacte}) à la fin d'un
+ * fichier, par un canal NIO et un tampon direct. Partagé entre threads :
+ * chaque appel à {@link #ajouter(ByteBuffer)} est écrit d'un seul bloc, de
+ * sorte que les positions d'une même partie restent contiguës.
+ */
+public final class EcrivainPositions implements Closeable {
+    private static final int TAILLE_TAMPON = PositionCompacte.TAILLE << 15;
+
+    private final FileChannel canal;
+    private final ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+    private long nombre;
+
+    /**
+     * Ouvre le fichier en ajout (créé s'il n'existe pas). Un enregistrement
+     * incomplet en fin de fichier, laissé par une écriture interrompue, est écrasé.
+     */
+    public EcrivainPositions(Path fichier) throws IOException {
+        canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        nombre = canal.size() / PositionCompacte.TAILLE;
+        long fin = nombre * PositionCompacte.TAILLE;
+        canal.truncate(fin);
+        canal.position(fin);
+    }
+
+    /**
+     * Ajoute les enregistrements compris entre la position et la limite du tampon
+     * @param positions Suite d'enregistrements complets ; entièrement consommée
+     */
+    public synchronized void ajouter(ByteBuffer positions) throws IOException {
+        if (positions.remaining() % PositionCompacte.TAILLE != 0) {
+            throw new IllegalArgumentException("Enregistrement incomplet");
+        }
+        nombre += positions.remaining() / PositionCompacte.TAILLE;
+        if (positions.remaining() > tampon.remaining()) {
+            vider();
+        }
+        if (positions.remaining() > tampon.capacity()) {
+            while (positions.hasRemaining()) {
+                canal.write(positions);
+            }
+        } else {
+            tampon.put(positions);
+        }
+    }
+
+    /**
+     * Ajoute une seule position
+     */
+    public synchronized void ajouter(Echiquier e, int score, int resultat) throws IOException {
+        if (tampon.remaining() < PositionCompacte.TAILLE) {
+            vider();
+        }
+        PositionCompacte.ecrire(e, score, resultat, tampon);
+        nombre++;
+    }
+
+    /** Nombre d'enregistrements du fichier, tampon compris */
+    public synchronized long getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Écrit le tampon dans le fichier
+     */
+    public synchronized void vider() throws IOException {
+        tampon.flip();
+        while (tampon.hasRemaining()) {
+            canal.write(tampon);
+        }
+        tampon.clear();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            vider();
+        } finally {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package modele.moteur;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Évaluation statique : matériel et tables de placement des pièces,
+ * avec une table du roi qui passe progressivement du milieu de partie à la finale.
+ * Le score est donné du point de vue du joueur au trait, en centipions.
+ *
+ * Tous les termes sont des poids d'un même vecteur (voir {@link #getPoids()}),
+ * ce qui permet de les régler automatiquement (outils.Texel) puis de les
+ * recharger depuis un fichier texte.
+ */
+public final class Evaluation {
+    /**
+     * Valeur des pièces, indexée par type (PION..ROI) ; reflète les poids
+     * courants (modifiée par {@link #setPoids(int[])})
+     */
+    public static final int[] VALEURS = {0, 100, 320, 330, 500, 900, 0};
+
+    // Poids de chaque type dans la phase de jeu (24 = toutes les pièces)
+    private static final int[] PHASE = {0, 0, 1, 1, 2, 4, 0};
+    private static final int PHASE_MAX = 24;
+
+    // Tables vues du côté blanc, rangée 8 en premier (comme un diagramme)
+    private static final int[] TABLE_PION = {
+         0,  0,  0,  0,  0,  0,  0,  0,
+        50, 50, 50, 50, 50, 50, 50, 50,
+        10, 10, 20, 30, 30, 20, 10, 10,
+         5,  5, 10, 25, 25, 10,  5,  5,
+         0,  0,  0, 20, 20,  0,  0,  0,
+         5, -5,-10,  0,  0,-10, -5,  5,
+         5, 10, 10,-20,-20, 10, 10,  5,
+         0,  0,  0,  0,  0,  0,  0,  0
+    };
+    private static final int[] TABLE_CAVALIER = {
+        -50,-40,-30,-30,-30,-30,-40,-50,
+        -40,-20,  0,  0,  0,  0,-20,-40,
+        -30,  0, 10, 15, 15, 10,  0,-30,
+        -30,  5, 15, 20, 20, 15,  5,-30,
+        -30,  0, 15, 20, 20, 15,  0,-30,
+        -30,  5, 10, 15, 15, 10,  5,-30,
+        -40,-20,  0,  5,  5,  0,-20,-40,
+        -50,-40,-30,-30,-30,-30,-40,-50
+    };
+    private static final int[] TABLE_FOU = {
+        -20,-10,-10,-10,-10,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5, 10, 10,  5,  0,-10,
+        -10,  5,  5, 10, 10,  5,  5,-10,
+        -10,  0, 10, 10, 10, 10,  0,-10,
+        -10, 10, 10, 10, 10, 10, 10,-10,
+        -10,  5,  0,  0,  0,  0,  5,-10,
+        -20,-10,-10,-10,-10,-10,-10,-20
+    };
+    private static final int[] TABLE_TOUR = {
+         0,  0,  0,  0,  0,  0,  0,  0,
+         5, 10, 10, 10, 10, 10, 10,  5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+        -5,  0,  0,  0,  0,  0,  0, -5,
+         0,  0,  0,  5,  5,  0,  0,  0
+    };
+    private static final int[] TABLE_DAME = {
+        -20,-10,-10, -5, -5,-10,-10,-20,
+        -10,  0,  0,  0,  0,  0,  0,-10,
+        -10,  0,  5,  5,  5,  5,  0,-10,
+         -5,  0,  5,  5,  5,  5,  0, -5,
+          0,  0,  5,  5,  5,  5,  0, -5,
+        -10,  5,  5,  5,  5,  5,  0,-10,
+        -10,  0,  5,  0,  0,  0,  0,-10,
+        -20,-10,-10, -5, -5,-10,-10,-20
+    };
+    private static final int[] TABLE_ROI_MILIEU = {
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -30,-40,-40,-50,-50,-40,-40,-30,
+        -20,-30,-30,-40,-40,-30,-30,-20,
+        -10,-20,-20,-20,-20,-20,-20,-10,
+         20, 20,  0,  0,  0,  0, 20, 20,
+         20, 30, 10,  0,  0, 10, 30, 20
+    };
+    private static final int[] TABLE_ROI_FINALE = {
+        -50,-40,-30,-20,-20,-30,-40,-50,
+        -30,-20,-10,  0,  0,-10,-20,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 30, 40, 40, 30,-10,-30,
+        -30,-10, 20, 30, 30, 20,-10,-30,
+        -30,-30,  0,  0,  0,  0,-30,-30,
+        -50,-30,-30,-30,-30,-30,-30,-50
+    };
+
+    // Disposition du vecteur de poids : matériel (PION..DAME), tables des
+    // pièces (PION..DAME, 64 cases chacune), puis tables du roi
+    /** Premier poids du matériel, un par type de PION à DAME */
+    public static final int POIDS_MATERIEL = 0;
+    /** Première table de placement : poids POIDS_TABLES + (type - 1) * 64 + index de table */
+    public static final int POIDS_TABLES = POIDS_MATERIEL + 5;
+    public static final int POIDS_ROI_MILIEU = POIDS_TABLES + 5 * 64;
+    public static final int POIDS_ROI_FINALE = POIDS_ROI_MILIEU + 64;
+    public static final int NOMBRE_POIDS = POIDS_ROI_FINALE + 64;
+
+    private static final String[] NOMS_SECTIONS = {"materiel", "pion", "cavalier", "fou", "tour", "dame",
+            "roi_milieu", "roi_finale"};
+
+    private static final int[] POIDS = new int[NOMBRE_POIDS];
+    private static final int[] POIDS_PAR_DEFAUT;
+
+    static {
+        int[][] tables = {TABLE_PION, TABLE_CAVALIER, TABLE_FOU, TABLE_TOUR, TABLE_DAME};
+        for (int type = Echiquier.PION; type <= Echiquier.DAME; type++) {
+            POIDS[POIDS_MATERIEL + type - 1] = VALEURS[type];
+            System.arraycopy(tables[type - 1], 0, POIDS, POIDS_TABLES + (type - 1) * 64, 64);
+        }
+        System.arraycopy(TABLE_ROI_MILIEU, 0, POIDS, POIDS_ROI_MILIEU, 64);
+        System.arraycopy(TABLE_ROI_FINALE, 0, POIDS, POIDS_ROI_FINALE, 64);
+        POIDS_PAR_DEFAUT = POIDS.clone();
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * Index dans une table pour une pièce blanche (table rangée 8 en premier) ;
+     * une pièce noire utilise directement sa case
+     */
+    public static int indexBlanc(int sq) {
+        return sq ^ 56;
+    }
+
+    /** Poids de la phase de jeu pour un type de pièce */
+    public static int phase(int type) {
+        return PHASE[type];
+    }
+
+    /**
+     * Évalue la position du point de vue du joueur au trait
+     */
+    public static int evaluer(Echiquier e) {
+        if (BitbaseKPK.estKPK(e)) {
+            return BitbaseKPK.evaluer(e);
+        }
+        int[] poids = POIDS;
+        int score = 0;
+        int phase = 0;
+        for (int type = Echiquier.PION; type <= Echiquier.DAME; type++) {
+            int materiel = poids[POIDS_MATERIEL + type - 1];
+            int table = POIDS_TABLES + (type - 1) * 64;
+            for (long bb = e.pieces[type]; bb != 0; bb &= bb - 1) {
+                score += materiel + poids[table + indexBlanc(Long.numberOfTrailingZeros(bb))];
+                phase += PHASE[type];
+            }
+            for (long bb = e.pieces[8 | type]; bb != 0; bb &= bb - 1) {
+                score -= materiel + poids[table + Long.numberOfTrailingZeros(bb)];
+                phase += PHASE[type];
+            }
+        }
+        phase = Math.min(phase, PHASE_MAX);
+        int roiBlanc = indexBlanc(e.getRoi(Echiquier.BLANC));
+        int roiNoir = e.getRoi(Echiquier.NOIR);
+        int milieu = poids[POIDS_ROI_MILIEU + roiBlanc] - poids[POIDS_ROI_MILIEU + roiNoir];
+        int finale = poids[POIDS_ROI_FINALE + roiBlanc] - poids[POIDS_ROI_FINALE + roiNoir];
+        score += (milieu * phase + finale * (PHASE_MAX - phase)) / PHASE_MAX;
+
+        return e.trait == Echiquier.BLANC ? score : -score;
+    }
+
+    // ------------------------------------------------------------------ poids
+
+    /** Copie des poids courants */
+    public static int[] getPoids() {
+        return POIDS.clone();
+    }
+
+    /** Copie des poids d'origine, écrits dans le code */
+    public static int[] getPoidsParDefaut() {
+        return POIDS_PAR_DEFAUT.clone();
+    }
+
+    /**
+     * Remplace les poids de l'évaluation (à appeler hors recherche)
+     * @param poids NOMBRE_POIDS valeurs, dans la disposition décrite par les constantes POIDS_*
+     */
+    public static void setPoids(int[] poids) {
+        if (poids.length != NOMBRE_POIDS) {
+            throw new IllegalArgumentException("Il faut " + NOMBRE_POIDS + " poids, pas " + poids.length);
+        }
+        System.arraycopy(poids, 0, POIDS, 0, NOMBRE_POIDS);
+        for (int type = Echiquier.PION; type <= Echiquier.DAME; type++) {
+            VALEURS[type] = poids[POIDS_MATERIEL + type - 1];
+        }
+    }
+
+    /**
+     * Écrit des poids dans un fichier texte : une section par ligne (nom puis
+     * valeurs), les tables rangée 8 en premier comme dans le code
+     */
+    public static void ecrirePoids(int[] poids, Path fichier) throws IOException {
+        try (BufferedWriter sortie = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            for (int section = 0; section < NOMS_SECTIONS.length; section++) {
+                sortie.write(NOMS_SECTIONS[section]);
+                for (int i = debutSection(section); i < debutSection(section + 1); i++) {
+                    sortie.write(' ');
+                    sortie.write(Integer.toString(poids[i]));
+                }
+                sortie.newLine();
+            }
+        }
+    }
+
+    /**
+     * Lit des poids écrits par {@link #ecrirePoids} (les sections absentes
+     * gardent leur valeur courante)
+     * @throws IOException si le fichier est illisible ou mal formé
+     */
+    public static int[] lirePoids(Path fichier) throws IOException {
+        int[] poids = getPoids();
+        for (String ligne : Files.readAllLines(fichier, StandardCharsets.UTF_8)) {
+            String[] champs = ligne.trim().split("\\s+");
+            if (champs[0].isEmpty() || champs[0].startsWith("#")) {
+                continue;
+            }
+            int section = List.of(NOMS_SECTIONS).indexOf(champs[0]);
+            if (section < 0) {
+                throw new IOException("Section inconnue : " + champs[0]);
+            }
+            int debut = debutSection(section), taille = debutSection(section + 1) - debut;
+            if (champs.length - 1 != taille) {
+                throw new IOException("Section " + champs[0] + " : " + taille + " valeurs attendues");
+            }
+            try {
+                for (int i = 0; i < taille; i++) {
+                    poids[debut + i] = Integer.parseInt(champs[i + 1]);
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Section " + champs[0] + " : " + e.getMessage(), e);
+            }
+        }
+        return poids;
+    }
+
+    private static int debutSection(int section) {
+        return switch (section) {
+            case 0 -> POIDS_MATERIEL;
+            case 6 -> POIDS_ROI_MILIEU;
+            case 7 -> POIDS_ROI_FINALE;
+            case 8 -> NOMBRE_POIDS;
+            default -> POIDS_TABLES + (section - 1) * 64;
+        };
+    }
+}
@@ -0,0 +1,376 @@
+package modele.moteur;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Génère des tables de finales par analyse rétrograde.
+ *
+ * Une première passe parcourt toutes les positions indexées avec le
+ * générateur de coups du moteur : positions impossibles, mats, pats, nombre
+ * de coups tranquilles, et résultat des captures et promotions d'après les
+ * tables déjà générées du matériel réduit. On remonte ensuite niveau par
+ * niveau (mat en 0, 1, 2... demi-coups) en défaisant les coups tranquilles :
+ * un prédécesseur d'une position perdue est gagné, celui dont tous les coups
+ * mènent à des positions gagnées pour l'adversaire est perdu. Chaque passe est
+ * répartie sur un pool de threads ; les compteurs de coups sont décrémentés
+ * de façon atomique.
+ *
+ * Les tables manquantes du matériel réduit sont générées d'abord.
+ */
+public final class GenerateurTablesFinales {
+    private static final VarHandle COMPTEURS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    // États pendant la génération ; BASE + n : mat en n demi-coups
+    private static final int INCONNU = 0, IMPOSSIBLE = 1, PAT = 2, BASE = 3;
+    private static final int NIVEAU_MAX = 250;
+    // Une capture ou promotion mène à une nulle ou à un gain : jamais perdu
+    private static final int ISSUE = 0xFF;
+    private static final int TRANCHE = 1 << 15;
+    private static final int[] PROMOTIONS = {Echiquier.CAVALIER, Echiquier.FOU, Echiquier.TOUR, Echiquier.DAME};
+
+    private final Path dossier;
+    private final int threads;
+    private final TablesFinales tables = new TablesFinales();
+    private Consumer<String> journal = s -> { };
+
+    // Table en cours
+    private int[] pieces;
+    private int n;
+    private byte[] valeurs;
+    private int[] compteurs;
+    private byte[] gains;
+    private byte[] pertes;
+
+    /**
+     * @param dossier Dossier des fichiers .tbf (les tables présentes sont réutilisées)
+     * @param threads Nombre de threads de calcul
+     */
+    public GenerateurTablesFinales(Path dossier, int threads) {
+        this.dossier = dossier;
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Reçoit une ligne par table générée */
+    public void setJournal(Consumer<String> journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Génère la table d'un matériel (et celles dont elle dépend)
+     * @param materiel Par exemple « KQK », « KBNK » ou « KRKP »
+     * @throws IllegalArgumentException si le matériel est invalide
+     */
+    public void generer(String materiel) throws IOException, InterruptedException {
+        Files.createDirectories(dossier);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "tables-finales");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            generer(TableFinale.materiel(materiel), pool);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Tables générées ou relues jusqu'ici */
+    public TablesFinales getTables() {
+        return tables;
+    }
+
+    private void generer(int[] materiel, ExecutorService pool) throws IOException, InterruptedException {
+        String nom = TableFinale.nom(materiel);
+        if (tables.getTable(nom) != null) {
+            return;
+        }
+        Path chemin = dossier.resolve(nom + TableFinale.EXTENSION);
+        if (Files.isRegularFile(chemin)) {
+            tables.ajouter(TableFinale.ouvrir(chemin));
+            return;
+        }
+        // Matériels atteints par une capture ou une promotion
+        for (int i = 0; i < materiel.length; i++) {
+            int[] reste = new int[materiel.length - 1];
+            for (int j = 0, k = 0; j < materiel.length; j++) {
+                if (j != i) reste[k++] = materiel[j];
+            }
+            generer(TableFinale.canonique(reste), pool);
+            if (Echiquier.type(materiel[i]) == Echiquier.PION) {
+                for (int promotion : PROMOTIONS) {
+                    int[] promu = materiel.clone();
+                    promu[i] = promotion | (materiel[i] & 8);
+                    generer(TableFinale.canonique(promu), pool);
+                }
+            }
+        }
+
+        long debut = System.nanoTime();
+        pieces = materiel;
+        n = materiel.length;
+        int taille = (int) TableFinale.taille(n);
+        valeurs = new byte[taille];
+        compteurs = new int[taille];
+        gains = new byte[taille];
+        pertes = new byte[taille];
+
+        AtomicInteger germeMax = new AtomicInteger();
+        parallele(pool, taille, (de, a, t) -> initialiser(de, a, t, germeMax));
+        int niveau = 0;
+        long resolues = 0;
+        for (int d = 0; d < NIVEAU_MAX; d++) {
+            int courant = d;
+            if (d > 0 && d <= germeMax.get()) {
+                parallele(pool, taille, (de, a, t) -> germer(de, a, courant));
+            }
+            long traitees = parallele(pool, taille, (de, a, t) -> remonter(de, a, t, courant));
+            resolues += traitees;
+            if (traitees > 0) {
+                niveau = d;
+            } else if (d >= germeMax.get()) {
+                break;
+            }
+        }
+
+        // Codes définitifs : 0 (nulle, impossible) ou demi-coups + 1
+        for (int i = 0; i < taille; i++) {
+            int v = valeurs[i] & 0xFF;
+            valeurs[i] = (byte) (v >= BASE ? v - BASE + 1 : 0);
+        }
+        compteurs = null;
+        gains = pertes = null;
+        TableFinale.ecrire(chemin, materiel, valeurs);
+        valeurs = null;
+        tables.ajouter(TableFinale.ouvrir(chemin));
+        journal.accept(String.format("%s : %d positions décidées, mat le plus long en %d demi-coups, %.1f s",
+                nom, resolues, niveau, (System.nanoTime() - debut) / 1e9));
+    }
+
+    // --------------------------------------------------------------- passes
+
+    /** Travail d'une tranche d'index */
+    private interface Passe {
+        long traiter(int debut, int fin, Travail travail) throws IOException;
+    }
+
+    /** Tampons d'un thread */
+    private static final class Travail {
+        final Echiquier echiquier = new Echiquier();
+        final int[] cases = new int[4];
+        final int[] coups = new int[256];
+    }
+
+    private long parallele(ExecutorService pool, int taille, Passe passe) throws IOException, InterruptedException {
+        List<Future<Long>> taches = new ArrayList<>();
+        for (int debut = 0; debut < taille; debut += TRANCHE * 8) {
+            int de = debut, a = Math.min(taille, debut + TRANCHE * 8);
+            taches.add(pool.submit(() -> {
+                Travail travail = new Travail();
+                long total = 0;
+                for (int i = de; i < a; i += TRANCHE) {
+                    total += passe.traiter(i, Math.min(a, i + TRANCHE), travail);
+                }
+                return total;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> tache : taches) {
+            try {
+                total += tache.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Première passe : validité, mats et pats, coups tranquilles, captures et promotions
+     */
+    private long initialiser(int debut, int fin, Travail travail, AtomicInteger germeMax) {
+        Echiquier e = travail.echiquier;
+        int[] cases = travail.cases;
+        int[] coups = travail.coups;
+        int germe = 0;
+        for (int i = debut; i < fin; i++) {
+            int trait = TableFinale.decoder(i, cases, n);
+            if (!placer(e, cases, trait)) {
+                valeurs[i] = IMPOSSIBLE;
+                continue;
+            }
+            int calmes = 0, conversions = 0, gain = 0, perte = 0;
+            boolean issue = false;
+            int nombre = e.genererCoups(coups, 0);
+            for (int k = 0; k < nombre; k++) {
+                int coup = coups[k];
+                boolean conversion = e.estCapture(coup) || CodeCoup.promotion(coup) != 0;
+                if (!e.jouer(coup)) {
+                    continue;
+                }
+                if (conversion) {
+                    conversions++;
+                    int r = tables.sonder(e);
+                    if (r == TablesFinales.ABSENTE) {
+                        throw new IllegalStateException("Table manquante après " + CodeCoup.toString(coup) + " : " + e.versFen());
+                    }
+                    if (r == TablesFinales.NULLE) {
+                        issue = true;
+                    } else if (TablesFinales.estPerte(r)) {
+                        issue = true;
+                        gain = gain == 0 ? r : Math.min(gain, r);
+                    } else {
+                        perte = Math.max(perte, r);
+                    }
+                } else {
+                    calmes++;
+                }
+                e.dejouer(coup);
+            }
+            if (calmes + conversions == 0) {
+                valeurs[i] = (byte) (e.estEnEchec() ? BASE : PAT);
+                continue;
+            }
+            // r = demi-coups de l'adversaire + 1 : exactement la distance vue d'ici
+            compteurs[i] = calmes;
+            gains[i] = (byte) gain;
+            pertes[i] = (byte) (issue ? ISSUE : perte);
+            germe = Math.max(germe, Math.max(gain, issue ? 0 : perte));
+        }
+        germeMax.accumulateAndGet(germe, Math::max);
+        return 0;
+    }
+
+    /**
+     * Pose les pièces d'un index
+     * @return false si la position est impossible (cases confondues, pion sur
+     *         la première ou la dernière rangée, roi adverse en échec)
+     */
+    private boolean placer(Echiquier e, int[] cases, int trait) {
+        long occupation = 0;
+        for (int k = 0; k < n + 2; k++) {
+            long bit = 1L << cases[k];
+            if ((occupation & bit) != 0) {
+                return false;
+            }
+            occupation |= bit;
+        }
+        for (int k = 0; k < n; k++) {
+            int rangee = cases[k + 2] >> 3;
+            if (Echiquier.type(pieces[k]) == Echiquier.PION && (rangee == 0 || rangee == 7)) {
+                return false;
+            }
+        }
+        e.vider();
+        e.poser(Echiquier.ROI, cases[0]);
+        e.poser(Echiquier.ROI | 8, cases[1]);
+        for (int k = 0; k < n; k++) {
+            e.poser(pieces[k], cases[k + 2]);
+        }
+        e.trait = trait;
+        return !e.estAttaquee(e.getRoi(trait ^ 1), trait);
+    }
+
+    /**
+     * Positions décidées au niveau d par une capture ou une promotion
+     */
+    private long germer(int debut, int fin, int d) {
+        for (int i = debut; i < fin; i++) {
+            if (valeurs[i] != INCONNU) {
+                continue;
+            }
+            int perte = pertes[i] & 0xFF;
+            if ((gains[i] & 0xFF) == d || (compteurs[i] == 0 && perte != ISSUE && perte == d)) {
+                valeurs[i] = (byte) (BASE + d);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Remonte d'un niveau : défait les coups tranquilles qui mènent aux positions du niveau d
+     * @return Le nombre de positions du niveau d
+     */
+    private long remonter(int debut, int fin, Travail travail, int d) {
+        int[] cases = travail.cases;
+        long traitees = 0;
+        for (int i = debut; i < fin; i++) {
+            if ((valeurs[i] & 0xFF) != BASE + d) {
+                continue;
+            }
+            traitees++;
+            int trait = TableFinale.decoder(i, cases, n);
+            int joueur = trait ^ 1;
+            long occupation = 0;
+            for (int k = 0; k < n + 2; k++) {
+                occupation |= 1L << cases[k];
+            }
+            for (int k = 0; k < n + 2; k++) {
+                int piece = k < 2 ? Echiquier.ROI | k << 3 : pieces[k - 2];
+                if (Echiquier.couleur(piece) != joueur) {
+                    continue;
+                }
+                int sq = cases[k];
+                long departs = (switch (Echiquier.type(piece)) {
+                    case Echiquier.ROI -> Attaques.ROI[sq];
+                    case Echiquier.CAVALIER -> Attaques.CAVALIER[sq];
+                    case Echiquier.FOU -> Attaques.fou(sq, occupation);
+                    case Echiquier.TOUR -> Attaques.tour(sq, occupation);
+                    case Echiquier.DAME -> Attaques.dame(sq, occupation);
+                    default -> departsPion(joueur, sq, occupation);
+                }) & ~occupation;
+                for (; departs != 0; departs &= departs - 1) {
+                    cases[k] = Long.numberOfTrailingZeros(departs);
+                    predecesseur((int) TableFinale.index(joueur, cases, n), d);
+                }
+                cases[k] = sq;
+            }
+        }
+        return traitees;
+    }
+
+    // Cases d'où un pion a pu avancer jusqu'à sq (sans prise)
+    private static long departsPion(int couleur, int sq, long occupation) {
+        int rangee = sq >> 3;
+        if (couleur == Echiquier.BLANC) {
+            if (rangee < 2) return 0;
+            long simple = 1L << (sq - 8);
+            return rangee == 3 && (occupation & simple) == 0 ? simple | 1L << (sq - 16) : simple;
+        }
+        if (rangee > 5) return 0;
+        long simple = 1L << (sq + 8);
+        return rangee == 4 && (occupation & simple) == 0 ? simple | 1L << (sq + 16) : simple;
+    }
+
+    // Pendant une passe, toutes les écritures dans valeurs portent la même
+    // valeur (BASE + d + 1) : une écriture simple suffit, même concurrente
+    private void predecesseur(int q, int d) {
+        if (valeurs[q] != INCONNU) {
+            return;
+        }
+        if ((d & 1) == 0) {
+            // La position atteinte est perdue pour l'adversaire : q gagne
+            valeurs[q] = (byte) (BASE + d + 1);
+        } else if ((int) COMPTEURS.getAndAdd(compteurs, q, -1) == 1) {
+            // Dernier coup tranquille réfuté : q perd, au plus tard après ses captures perdantes
+            int perte = pertes[q] & 0xFF;
+            if (perte != ISSUE && perte <= d + 1) {
+                valeurs[q] = (byte) (BASE + d + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package modele.moteur;
+
+/**
+ * Gestion du temps d'une recherche : une limite douce (temps visé, au-delà
+ * duquel on ne commence plus d'itération) et une limite dure (jamais
+ * dépassée, vérifiée tous les 1024 nœuds).
+ *
+ * La limite douce est modulée après chaque itération : elle diminue quand
+ * le meilleur coup reste le même d'une itération à l'autre, et augmente
+ * quand le score chute (« fail-low »), sans jamais dépasser la limite dure.
+ */
+public final class GestionTemps {
+    // Marge gardée sur la pendule pour ne jamais tomber
+    private static final long MARGE_MS = 50;
+    // Coups restants supposés quand la cadence n'en précise pas
+    private static final int COUPS_RESTANTS = 30;
+    // Une itération coûte plusieurs fois la précédente : on ne la commence pas au-delà de cette part du temps visé
+    private static final double PART_NOUVELLE_ITERATION = 0.6;
+    // Chute de score (centipions) à partir de laquelle on prolonge
+    private static final int SEUIL_CHUTE = 20;
+
+    // Écrits par le thread UCI au « ponderhit », lus par la recherche
+    private volatile long debutNs;
+    private volatile long douxNs;
+    private volatile long durNs;
+    private int coupPrecedent;
+    private int scorePrecedent;
+    private int stabilite;
+    private double facteur;
+
+    /**
+     * Calcule les limites du coup à jouer
+     * @param limites Limites de la recherche (pendules, temps par coup)
+     * @param couleur Couleur au trait
+     * @param debutNs Début de la recherche (System.nanoTime)
+     */
+    public void demarrer(Limites limites, int couleur, long debutNs) {
+        this.debutNs = debutNs;
+        coupPrecedent = CodeCoup.AUCUN;
+        scorePrecedent = 0;
+        stabilite = 0;
+        facteur = 1.0;
+        if (limites.estPonder()) {
+            douxNs = durNs = Long.MAX_VALUE;
+        } else {
+            fixer(tempsDouxMs(limites, couleur), tempsDurMs(limites, couleur), debutNs);
+        }
+    }
+
+    /**
+     * Temps visé pour le coup
+     * @return Le temps en millisecondes, ou -1 si la recherche n'est pas limitée en temps
+     */
+    public static long tempsDouxMs(Limites limites, int couleur) {
+        if (limites.estInfini()) return -1;
+        if (limites.getTempsParCoupMs() >= 0) return limites.getTempsParCoupMs();
+        long restant = limites.getTempsRestantMs(couleur);
+        if (restant < 0) return -1;
+        int coups = limites.getCoupsAvantControle() > 0 ? limites.getCoupsAvantControle() : COUPS_RESTANTS;
+        long vise = restant / coups + limites.getIncrementMs(couleur) * 3 / 4;
+        return Math.max(1, Math.min(vise, restant - MARGE_MS));
+    }
+
+    /**
+     * Temps à ne jamais dépasser pour le coup
+     * @return Le temps en millisecondes, ou -1 si la recherche n'est pas limitée en temps
+     */
+    public static long tempsDurMs(Limites limites, int couleur) {
+        if (limites.estInfini()) return -1;
+        if (limites.getTempsParCoupMs() >= 0) return limites.getTempsParCoupMs();
+        long restant = limites.getTempsRestantMs(couleur);
+        if (restant < 0) return -1;
+        long doux = tempsDouxMs(limites, couleur);
+        // Jusqu'à quatre fois le temps visé, sans engager plus d'un quart du temps restant
+        long dur = Math.max(doux, Math.min(doux * 4, restant / 4 + limites.getIncrementMs(couleur)));
+        return Math.max(1, Math.min(dur, restant - MARGE_MS));
+    }
+
+    /**
+     * Fixe les limites à partir d'un instant (fin du ponder)
+     * @param douxMs Temps visé, -1 pour aucune limite
+     * @param durMs Temps maximal, -1 pour aucune limite
+     * @param maintenantNs Instant de départ (System.nanoTime)
+     */
+    public void fixer(long douxMs, long durMs, long maintenantNs) {
+        debutNs = maintenantNs;
+        douxNs = douxMs < 0 ? Long.MAX_VALUE : maintenantNs + douxMs * 1_000_000L;
+        durNs = durMs < 0 ? Long.MAX_VALUE : maintenantNs + durMs * 1_000_000L;
+    }
+
+    /**
+     * Enregistre une itération terminée et dit s'il faut s'arrêter là
+     * @param meilleurCoup Meilleur coup de l'itération
+     * @param score Son score
+     * @return true si la prochaine itération ne doit pas être commencée
+     */
+    public boolean iterationTerminee(int profondeur, int meilleurCoup, int score) {
+        stabilite = meilleurCoup == coupPrecedent ? stabilite + 1 : 0;
+        // Meilleur coup stable : jusqu'à deux fois moins de temps
+        facteur = Math.max(0.5, 1.3 - 0.15 * stabilite);
+        // Score en chute : jusqu'à deux fois plus de temps
+        if (profondeur > 1 && scorePrecedent - score > SEUIL_CHUTE) {
+            facteur *= 1.0 + Math.min(scorePrecedent - score, 150) / 150.0;
+        }
+        coupPrecedent = meilleurCoup;
+        scorePrecedent = score;
+        if (douxNs == Long.MAX_VALUE) {
+            return false;
+        }
+        return System.nanoTime() - debutNs >= PART_NOUVELLE_ITERATION * tempsViseNs();
+    }
+
+    /** La limite dure est-elle atteinte ? */
+    public boolean estDepasse(long maintenantNs) {
+        return maintenantNs >= durNs;
+    }
+
+    /** Temps visé depuis le début, modulé par la stabilité et les chutes de score */
+    private double tempsViseNs() {
+        double vise = (douxNs - debutNs) * facteur;
+        return Math.min(vise, (double) (durNs - debutNs));
+    }
+}
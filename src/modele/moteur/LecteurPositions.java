@@ -0,0 +1,78 @@
+package modele.moteur;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lecture d'un fichier de positions compactes ({@link PositionCompacte}),
+ * projeté en mémoire par segments : accès direct à la i-ème position sans
+ * copie, le système se chargeant du cache. Un enregistrement incomplet en fin
+ * de fichier est ignoré. Les lectures peuvent se faire depuis plusieurs threads.
+ */
+public final class LecteurPositions implements Closeable {
+    // 2^30 octets, multiple de la taille d'un enregistrement : aucun n'est coupé
+    private static final int BITS_SEGMENT = 30;
+    private static final long MASQUE_SEGMENT = (1L << BITS_SEGMENT) - 1;
+
+    private final FileChannel canal;
+    private final ByteBuffer[] segments;
+    private final long nombre;
+
+    public LecteurPositions(Path fichier) throws IOException {
+        canal = FileChannel.open(fichier, StandardOpenOption.READ);
+        nombre = canal.size() / PositionCompacte.TAILLE;
+        long taille = nombre * PositionCompacte.TAILLE;
+        int n = (int) ((taille + MASQUE_SEGMENT) >> BITS_SEGMENT);
+        segments = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            long debut = (long) i << BITS_SEGMENT;
+            segments[i] = canal.map(FileChannel.MapMode.READ_ONLY, debut, Math.min(1L << BITS_SEGMENT, taille - debut));
+        }
+    }
+
+    public long getNombre() {
+        return nombre;
+    }
+
+    /** Charge la i-ème position */
+    public void lire(long i, Echiquier e) {
+        PositionCompacte.lire(segment(i), debut(i), e);
+    }
+
+    public long occupation(long i) {
+        return PositionCompacte.occupation(segment(i), debut(i));
+    }
+
+    public long piecesBas(long i) {
+        return PositionCompacte.piecesBas(segment(i), debut(i));
+    }
+
+    public long piecesHaut(long i) {
+        return PositionCompacte.piecesHaut(segment(i), debut(i));
+    }
+
+    public int score(long i) {
+        return PositionCompacte.score(segment(i), debut(i));
+    }
+
+    public int resultat(long i) {
+        return PositionCompacte.resultat(segment(i), debut(i));
+    }
+
+    private ByteBuffer segment(long i) {
+        return segments[(int) ((i * PositionCompacte.TAILLE) >> BITS_SEGMENT)];
+    }
+
+    private static int debut(long i) {
+        return (int) ((i * PositionCompacte.TAILLE) & MASQUE_SEGMENT);
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,85 @@
+package modele.moteur;
+
+/**
+ * Limites d'une recherche (profondeur, nœuds, temps, pendules).
+ * Objet mutable réutilisable : le front-end UCI le remplit à chaque « go »
+ * sans rien allouer.
+ */
+public final class Limites {
+    private int profondeur;
+    private long noeuds;
+    private long tempsParCoupMs;
+    private final long[] tempsRestantMs = new long[2];
+    private final long[] incrementMs = new long[2];
+    private int coupsAvantControle;
+    private boolean infini;
+    // Nombre de meilleurs coups suivis (analyse multi-PV)
+    private int lignes;
+    // Levé par un autre thread au « ponderhit », pendant que la recherche démarre
+    private volatile boolean ponder;
+
+    public Limites() {
+        reinitialiser();
+    }
+
+    /** Remet toutes les limites à « aucune » */
+    public void reinitialiser() {
+        profondeur = Recherche.PLY_MAX - 1;
+        noeuds = Long.MAX_VALUE;
+        tempsParCoupMs = -1;
+        tempsRestantMs[0] = tempsRestantMs[1] = -1;
+        incrementMs[0] = incrementMs[1] = 0;
+        coupsAvantControle = 0;
+        infini = false;
+        lignes = 1;
+        ponder = false;
+    }
+
+    /** Recopie toutes les limites d'un autre objet */
+    public void copier(Limites autre) {
+        profondeur = autre.profondeur;
+        noeuds = autre.noeuds;
+        tempsParCoupMs = autre.tempsParCoupMs;
+        System.arraycopy(autre.tempsRestantMs, 0, tempsRestantMs, 0, 2);
+        System.arraycopy(autre.incrementMs, 0, incrementMs, 0, 2);
+        coupsAvantControle = autre.coupsAvantControle;
+        infini = autre.infini;
+        lignes = autre.lignes;
+        ponder = autre.ponder;
+    }
+
+    /**
+     * Temps à consacrer au coup pour la couleur au trait (limite douce)
+     * @return Le temps en millisecondes, ou -1 si la recherche n'est pas limitée en temps
+     */
+    public long tempsAlloueMs(int couleur) {
+        return GestionTemps.tempsDouxMs(this, couleur);
+    }
+
+    /**
+     * Temps à ne jamais dépasser pour la couleur au trait (limite dure)
+     * @return Le temps en millisecondes, ou -1 si la recherche n'est pas limitée en temps
+     */
+    public long tempsMaximalMs(int couleur) {
+        return GestionTemps.tempsDurMs(this, couleur);
+    }
+
+    public int getProfondeur() { return profondeur; }
+    public void setProfondeur(int profondeur) { this.profondeur = Math.max(1, Math.min(profondeur, Recherche.PLY_MAX - 1)); }
+    public long getNoeuds() { return noeuds; }
+    public void setNoeuds(long noeuds) { this.noeuds = noeuds; }
+    public long getTempsParCoupMs() { return tempsParCoupMs; }
+    public void setTempsParCoupMs(long ms) { this.tempsParCoupMs = ms; }
+    public long getTempsRestantMs(int couleur) { return tempsRestantMs[couleur]; }
+    public void setTempsRestantMs(int couleur, long ms) { tempsRestantMs[couleur] = ms; }
+    public long getIncrementMs(int couleur) { return incrementMs[couleur]; }
+    public void setIncrementMs(int couleur, long ms) { incrementMs[couleur] = ms; }
+    public int getCoupsAvantControle() { return coupsAvantControle; }
+    public void setCoupsAvantControle(int coups) { this.coupsAvantControle = coups; }
+    public boolean estInfini() { return infini; }
+    public void setInfini(boolean infini) { this.infini = infini; }
+    public int getLignes() { return lignes; }
+    public void setLignes(int lignes) { this.lignes = Math.max(1, Math.min(lignes, Recherche.LIGNES_MAX)); }
+    public boolean estPonder() { return ponder; }
+    public void setPonder(boolean ponder) { this.ponder = ponder; }
+}
@@ -0,0 +1,186 @@
+package modele.moteur;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Livre d'ouvertures au format Polyglot (.bin) : entrées de 16 octets
+ * (clé, coup, poids, apprentissage) triées par clé. Le fichier est projeté en
+ * mémoire par segments, il n'est jamais copié sur le tas ; une recherche
+ * dichotomique retrouve les coups d'une position. Lecture thread-safe.
+ */
+public final class LivreOuvertures implements Closeable {
+    private static final int TAILLE_ENTREE = 16;
+    // Segments de 1 Go (multiple de la taille d'une entrée)
+    private static final int BITS_SEGMENT = 30;
+
+    /** Propriété système donnant le livre utilisé par défaut */
+    public static final String PROPRIETE_LIVRE = "livre";
+    private static final String LIVRE_PAR_DEFAUT = "livre.bin";
+
+    private final FileChannel fichier;
+    private final ByteBuffer[] segments;
+    private final long entrees;
+    private final ClesPolyglot cles;
+
+    private LivreOuvertures(FileChannel fichier, ClesPolyglot cles) throws IOException {
+        this.fichier = fichier;
+        this.cles = cles;
+        long taille = fichier.size();
+        this.entrees = taille / TAILLE_ENTREE;
+        int n = (int) ((taille + (1L << BITS_SEGMENT) - 1) >> BITS_SEGMENT);
+        this.segments = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            long debut = (long) i << BITS_SEGMENT;
+            segments[i] = fichier.map(FileChannel.MapMode.READ_ONLY, debut, Math.min(1L << BITS_SEGMENT, taille - debut));
+        }
+    }
+
+    /**
+     * Ouvre un livre dont les clés suivent la table par défaut. Un livre
+     * construit avec la table officielle alors qu'une autre table est imposée
+     * est signalé sur la sortie d'erreur : aucune de ses positions ne serait
+     * trouvée.
+     */
+    public static LivreOuvertures ouvrir(Path chemin) throws IOException {
+        LivreOuvertures livre = ouvrir(chemin, ClesPolyglot.parDefaut());
+        if (!livre.cles.estOfficielle() && livre.contient(ClesPolyglot.CLE_INITIALE_OFFICIELLE)) {
+            System.err.println("Livre " + chemin + " construit avec la table officielle de Polyglot :"
+                    + " retirer -D" + ClesPolyglot.PROPRIETE_TABLE);
+        }
+        return livre;
+    }
+
+    /**
+     * Ouvre un livre avec une table de clés donnée
+     */
+    public static LivreOuvertures ouvrir(Path chemin, ClesPolyglot cles) throws IOException {
+        return new LivreOuvertures(FileChannel.open(chemin, StandardOpenOption.READ), cles);
+    }
+
+    /**
+     * Livre partagé désigné par la propriété « livre » (livre.bin par défaut)
+     * @return Le livre, ou null s'il est absent ou illisible
+     */
+    public static LivreOuvertures parDefaut() {
+        return Partage.LIVRE;
+    }
+
+    private static final class Partage {
+        static final LivreOuvertures LIVRE = charger();
+
+        private static LivreOuvertures charger() {
+            Path chemin = Paths.get(System.getProperty(PROPRIETE_LIVRE, LIVRE_PAR_DEFAUT));
+            if (!Files.isRegularFile(chemin)) {
+                return null;
+            }
+            try {
+                return ouvrir(chemin);
+            } catch (IOException e) {
+                System.err.println("Livre d'ouvertures illisible : " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    public ClesPolyglot getCles() {
+        return cles;
+    }
+
+    public long getNombreEntrees() {
+        return entrees;
+    }
+
+    /**
+     * Coups du livre pour une position, par poids décroissant dans le fichier
+     * @param echiquier La position
+     * @param coups Reçoit les coups (codes du moteur, légaux)
+     * @param poids Reçoit leurs poids
+     * @param tampon Tampon de travail pour la génération des coups
+     * @return Le nombre de coups trouvés
+     */
+    public int coups(Echiquier echiquier, int[] coups, int[] poids, int[] tampon) {
+        long cle = cles.cle(echiquier);
+        int n = 0;
+        for (long i = premiere(cle); i < entrees && cle(i) == cle && n < coups.length; i++) {
+            int coup = ClesPolyglot.depuisPolyglot(echiquier, coupPolyglot(i), tampon);
+            if (coup != CodeCoup.AUCUN) {
+                coups[n] = coup;
+                poids[n] = poids(i);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Tire un coup du livre au hasard, proportionnellement à son poids
+     * @return Le coup, ou CodeCoup.AUCUN si la position n'est pas dans le livre
+     */
+    public int choisirCoup(Echiquier echiquier, Random aleatoire, int[] tampon) {
+        long cle = cles.cle(echiquier);
+        long debut = premiere(cle);
+        long total = 0;
+        long fin = debut;
+        for (; fin < entrees && cle(fin) == cle; fin++) {
+            total += poids(fin);
+        }
+        if (total == 0) {
+            return CodeCoup.AUCUN;
+        }
+        long tirage = (long) (aleatoire.nextDouble() * total);
+        for (long i = debut; i < fin; i++) {
+            tirage -= poids(i);
+            if (tirage < 0) {
+                return ClesPolyglot.depuisPolyglot(echiquier, coupPolyglot(i), tampon);
+            }
+        }
+        return CodeCoup.AUCUN;
+    }
+
+    private boolean contient(long cle) {
+        long i = premiere(cle);
+        return i < entrees && cle(i) == cle;
+    }
+
+    /** Première entrée dont la clé est supérieure ou égale (ordre non signé) */
+    private long premiere(long cle) {
+        long bas = 0, haut = entrees;
+        while (bas < haut) {
+            long milieu = (bas + haut) >>> 1;
+            if (Long.compareUnsigned(cle(milieu), cle) < 0) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    private long cle(long i) {
+        long octet = i * TAILLE_ENTREE;
+        return segments[(int) (octet >> BITS_SEGMENT)].getLong((int) (octet & ((1L << BITS_SEGMENT) - 1)));
+    }
+
+    private int coupPolyglot(long i) {
+        long octet = i * TAILLE_ENTREE + 8;
+        return segments[(int) (octet >> BITS_SEGMENT)].getShort((int) (octet & ((1L << BITS_SEGMENT) - 1))) & 0xFFFF;
+    }
+
+    private int poids(long i) {
+        long octet = i * TAILLE_ENTREE + 10;
+        return segments[(int) (octet >> BITS_SEGMENT)].getShort((int) (octet & ((1L << BITS_SEGMENT) - 1))) & 0xFFFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fichier.close();
+    }
+}
@@ -0,0 +1,523 @@
+package modele.moteur;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recherche arborescente Monte-Carlo (UCT).
+ *
+ * L'arbre est stocké dans des tableaux de primitives préalloués (un indice
+ * par nœud, les enfants d'un nœud sont contigus) : aucune allocation pendant
+ * la recherche. Plusieurs threads descendent l'arbre en même temps ; chaque
+ * descente compte aussitôt une visite sans gain (perte virtuelle), ce qui
+ * écarte les autres threads des branches en cours d'évaluation.
+ *
+ * Les simulations jouent des coups pseudo-légaux au hasard (captures
+ * favorisées) sur un Echiquier, puis l'évaluation statique convertie en
+ * probabilité de gain termine la partie simulée. L'arbre est conservé
+ * d'un coup à l'autre : la position suivante est retrouvée parmi les
+ * petits-enfants de l'ancienne racine.
+ */
+public final class MonteCarlo {
+    public static final double EXPLORATION_PAR_DEFAUT = 1.0;
+    public static final int CAPACITE_PAR_DEFAUT = 1 << 21;
+    public static final int LONGUEUR_SIMULATION_PAR_DEFAUT = 4;
+    public static final int SEUIL_DEVELOPPEMENT_PAR_DEFAUT = 8;
+
+    // Gains exprimés en millièmes de point
+    private static final int ECHELLE = 1000;
+    private static final int PROFONDEUR_MAX = 256;
+    // On vérifie le temps toutes les 256 simulations
+    private static final int MASQUE_CONTROLE = 255;
+
+    private static final int FEUILLE = 0, EN_COURS = 1, DEVELOPPE = 2, TERMINAL = 3;
+
+    private static final VarHandle ENTIERS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final AtomicInteger COMPTEUR_THREADS = new AtomicInteger();
+
+    // Arbre : coup menant au nœud, premier enfant, nombre d'enfants (ou, pour
+    // un nœud terminal, résultat pour le joueur au trait), état, visites, gains
+    // du joueur qui a joué le coup
+    private int capacite;
+    private int[] coups;
+    private int[] premiers;
+    private int[] nombres;
+    private int[] etats;
+    private int[] visites;
+    private long[] gains;
+    private final AtomicInteger alloues = new AtomicInteger();
+    private int racine = -1;
+    private final Echiquier positionRacine = new Echiquier();
+    private final Echiquier essai = new Echiquier();
+    private final int[] tamponRacine = new int[256];
+
+    private double exploration = EXPLORATION_PAR_DEFAUT;
+    private int longueurSimulation = LONGUEUR_SIMULATION_PAR_DEFAUT;
+    private int seuilDeveloppement = SEUIL_DEVELOPPEMENT_PAR_DEFAUT;
+
+    private Travailleur[] travailleurs;
+    private ExecutorService auxiliaires;
+    private final AtomicLong simulations = new AtomicLong();
+    private volatile boolean arret;
+    // Numéro de la dernière recherche réservée, et jusqu'à quel numéro l'arrêt a été demandé :
+    // une demande faite avant le départ effectif d'une recherche n'est pas perdue
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long arreteJusqua;
+    private long limiteSimulations;
+    private long limiteNs;
+    private long debutNs;
+
+    public MonteCarlo() {
+        this(CAPACITE_PAR_DEFAUT, 1);
+    }
+
+    /**
+     * @param capacite Nombre maximal de nœuds de l'arbre (28 octets par nœud)
+     * @param threads Nombre de threads de simulation
+     */
+    public MonteCarlo(int capacite, int threads) {
+        setCapacite(capacite);
+        setThreads(threads);
+    }
+
+    /**
+     * Cherche le meilleur coup (bloquant) : le coup le plus visité de la racine
+     * @param position Position à analyser (non modifiée)
+     * @param limites Limites (temps, nombre de simulations via getNoeuds)
+     * @return Le meilleur coup, ou CodeCoup.AUCUN s'il n'y en a pas
+     */
+    public int chercher(Echiquier position, Limites limites) {
+        return chercher(position, limites, reserver());
+    }
+
+    /**
+     * Réserve le numéro d'une recherche pas encore lancée : un {@link #arreter()}
+     * appelé avant son départ s'appliquera à elle
+     * @return Le numéro à passer à {@link #chercher(Echiquier, Limites, long)}
+     */
+    public long reserver() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Cherche le meilleur coup sous un numéro réservé (bloquant)
+     * @param numero Numéro rendu par {@link #reserver()}
+     */
+    public int chercher(Echiquier position, Limites limites, long numero) {
+        debutNs = System.nanoTime();
+        arret = false;
+        // Arrêt demandé avant le départ : aucune simulation
+        if (numero <= arreteJusqua) {
+            arret = true;
+        }
+        simulations.set(0);
+        limiteSimulations = limites.getNoeuds();
+        long alloue = limites.estPonder() ? -1 : limites.tempsAlloueMs(position.getTrait());
+        limiteNs = alloue < 0 ? Long.MAX_VALUE : debutNs + alloue * 1_000_000L;
+
+        preparerRacine(position);
+        developperRacine();
+        if (etats[racine] != DEVELOPPE) {
+            return CodeCoup.AUCUN;
+        }
+        // Un seul coup légal : inutile de simuler
+        if (nombres[racine] == 1) {
+            return coups[premiers[racine]];
+        }
+
+        Travailleur[] actifs = travailleurs;
+        Future<?>[] taches = new Future<?>[actifs.length - 1];
+        for (int i = 1; i < actifs.length; i++) {
+            Travailleur t = actifs[i];
+            taches[i - 1] = auxiliaires.submit(t::simuler);
+        }
+        actifs[0].simuler();
+        arret = true;
+        for (Future<?> tache : taches) {
+            try {
+                tache.get();
+            } catch (Exception e) {
+                // Un auxiliaire en échec ne change pas le résultat
+            }
+        }
+        return coups[meilleurEnfant(racine)];
+    }
+
+    /** Arrête la recherche en cours, ou celle qui est sur le point de démarrer */
+    public void arreter() {
+        long numero = sequence.get();
+        synchronized (sequence) {
+            if (numero <= arreteJusqua) {
+                return;
+            }
+            arreteJusqua = numero;
+        }
+        if (numero == sequence.get()) {
+            arret = true;
+        }
+    }
+
+    /** Nouvelle partie : oublie l'arbre */
+    public void nouvellePartie() {
+        racine = -1;
+    }
+
+    /**
+     * Place la racine sur la position : l'ancien sous-arbre est gardé si la
+     * position est l'ancienne racine, un de ses enfants ou petits-enfants.
+     * Sinon, ou si l'arbre est trop rempli, il repart de zéro.
+     */
+    private void preparerRacine(Echiquier position) {
+        int trouve = racine >= 0 && alloues.get() < capacite - capacite / 4
+                ? retrouver(position.getCle()) : -1;
+        // Une feuille que l'arbre plein n'a pas pu développer ne peut pas servir de racine
+        if (trouve < 0 || etats[trouve] == EN_COURS) {
+            alloues.set(1);
+            trouve = 0;
+            etats[0] = FEUILLE;
+            visites[0] = 0;
+            gains[0] = 0;
+            coups[0] = CodeCoup.AUCUN;
+        }
+        racine = trouve;
+        positionRacine.copier(position);
+    }
+
+    /** Cherche la position dans l'ancienne racine, ses enfants et petits-enfants */
+    private int retrouver(long cle) {
+        essai.copier(positionRacine);
+        if (essai.getCle() == cle) {
+            return racine;
+        }
+        return retrouverEnfants(racine, cle, 2);
+    }
+
+    private int retrouverEnfants(int noeud, long cle, int profondeur) {
+        if (profondeur == 0 || etats[noeud] != DEVELOPPE) {
+            return -1;
+        }
+        for (int i = premiers[noeud], fin = i + nombres[noeud]; i < fin; i++) {
+            if (visites[i] == 0) {
+                continue;
+            }
+            essai.jouer(coups[i]);
+            int trouve = essai.getCle() == cle ? i : retrouverEnfants(i, cle, profondeur - 1);
+            essai.dejouer(coups[i]);
+            if (trouve >= 0) {
+                return trouve;
+            }
+        }
+        return -1;
+    }
+
+    private void developperRacine() {
+        if (etats[racine] == FEUILLE) {
+            essai.copier(positionRacine);
+            etats[racine] = EN_COURS;
+            developper(racine, essai, tamponRacine);
+        }
+    }
+
+    /**
+     * Crée les enfants d'un nœud (état EN_COURS, réservé par l'appelant).
+     * Si l'arbre est plein, le nœud reste EN_COURS : il ne sera plus développé.
+     */
+    private void developper(int noeud, Echiquier e, int[] tampon) {
+        int n = e.genererCoupsLegaux(tampon, 0);
+        if (n == 0) {
+            nombres[noeud] = e.estEnEchec() ? 0 : ECHELLE / 2;
+            ENTIERS.setRelease(etats, noeud, TERMINAL);
+            return;
+        }
+        int debut = alloues.getAndAdd(n);
+        if (debut > capacite - n) {
+            return;
+        }
+        // Captures et promotions d'abord : essayées en premier
+        int captures = 0;
+        for (int i = 0; i < n; i++) {
+            int coup = tampon[i];
+            if (e.estCapture(coup) || CodeCoup.promotion(coup) != 0) {
+                tampon[i] = tampon[captures];
+                tampon[captures++] = coup;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            int enfant = debut + i;
+            coups[enfant] = tampon[i];
+            etats[enfant] = FEUILLE;
+            visites[enfant] = 0;
+            gains[enfant] = 0;
+        }
+        premiers[noeud] = debut;
+        nombres[noeud] = n;
+        ENTIERS.setRelease(etats, noeud, DEVELOPPE);
+    }
+
+    /** Enfant le plus visité */
+    private int meilleurEnfant(int noeud) {
+        int meilleur = premiers[noeud];
+        for (int i = meilleur + 1, fin = premiers[noeud] + nombres[noeud]; i < fin; i++) {
+            if (visites[i] > visites[meilleur]
+                    || visites[i] == visites[meilleur] && gains[i] > gains[meilleur]) {
+                meilleur = i;
+            }
+        }
+        return meilleur;
+    }
+
+    /** Enfant maximisant UCT (moyenne des gains + exploration) ; les non visités d'abord */
+    private int choisirEnfant(int noeud) {
+        int debut = premiers[noeud], fin = debut + nombres[noeud];
+        double logParent = Math.log(Math.max(1, (int) ENTIERS.getOpaque(visites, noeud)));
+        int meilleur = debut;
+        double noteMeilleure = Double.NEGATIVE_INFINITY;
+        for (int i = debut; i < fin; i++) {
+            int v = (int) ENTIERS.getOpaque(visites, i);
+            if (v == 0) {
+                return i;
+            }
+            double note = (long) LONGS.getOpaque(gains, i) / (double) (ECHELLE * (long) v)
+                    + exploration * Math.sqrt(logParent / v);
+            if (note > noteMeilleure) {
+                noteMeilleure = note;
+                meilleur = i;
+            }
+        }
+        return meilleur;
+    }
+
+    /** Probabilité de gain (en millièmes) d'un score en centipions */
+    private static int probabilite(int score) {
+        return (int) (ECHELLE / (1 + Math.pow(10, -score / 400.0)));
+    }
+
+    /**
+     * Une descente de l'arbre, une simulation et la remontée du résultat,
+     * toutes avec les structures d'un thread.
+     */
+    private final class Travailleur {
+        private final Echiquier echiquier = new Echiquier();
+        private final int[] chemin = new int[PROFONDEUR_MAX + 1];
+        private final int[] tampon = new int[256];
+        private long graine;
+        private long locales;
+
+        Travailleur(long graine) {
+            this.graine = graine | 1;
+        }
+
+        void simuler() {
+            while (!arret) {
+                iteration();
+                long total = simulations.incrementAndGet();
+                if (total >= limiteSimulations) {
+                    arret = true;
+                } else if ((++locales & MASQUE_CONTROLE) == 0 && System.nanoTime() >= limiteNs) {
+                    arret = true;
+                }
+            }
+        }
+
+        private void iteration() {
+            Echiquier e = echiquier;
+            e.copier(positionRacine);
+            int noeud = racine;
+            int longueur = 0;
+            chemin[longueur++] = noeud;
+            ENTIERS.getAndAdd(visites, noeud, 1);
+            int valeur;
+            while (true) {
+                int etat = (int) ENTIERS.getAcquire(etats, noeud);
+                if (etat == TERMINAL) {
+                    valeur = nombres[noeud];
+                    break;
+                }
+                if (etat != DEVELOPPE) {
+                    if (etat == FEUILLE && (int) ENTIERS.getOpaque(visites, noeud) > seuilDeveloppement
+                            && ENTIERS.compareAndSet(etats, noeud, FEUILLE, EN_COURS)) {
+                        developper(noeud, e, tampon);
+                        continue;
+                    }
+                    valeur = jouerAuHasard(e);
+                    break;
+                }
+                int enfant = choisirEnfant(noeud);
+                // Perte virtuelle : la visite compte avant que le résultat soit connu
+                ENTIERS.getAndAdd(visites, enfant, 1);
+                e.jouer(coups[enfant]);
+                chemin[longueur++] = enfant;
+                noeud = enfant;
+                if (e.estNulle()) {
+                    valeur = ECHELLE / 2;
+                    break;
+                }
+                if (longueur == PROFONDEUR_MAX) {
+                    valeur = probabilite(Evaluation.evaluer(e));
+                    break;
+                }
+            }
+            // valeur est du point de vue du joueur au trait au dernier nœud ;
+            // chaque nœud reçoit le gain du joueur qui y a mené
+            for (int i = longueur - 1; i >= 0; i--) {
+                valeur = ECHELLE - valeur;
+                LONGS.getAndAdd(gains, chemin[i], (long) valeur);
+            }
+        }
+
+        /**
+         * Termine la partie au hasard sur quelques demi-coups, puis l'évalue
+         * @return Le résultat en millièmes pour le joueur au trait au départ
+         */
+        private int jouerAuHasard(Echiquier e) {
+            int ply = 0;
+            int valeur;
+            while (true) {
+                if (ply > 0 && e.estNulle()) {
+                    valeur = ECHELLE / 2;
+                    break;
+                }
+                if (ply >= longueurSimulation) {
+                    valeur = probabilite(Evaluation.evaluer(e));
+                    break;
+                }
+                if (!jouerUnCoup(e)) {
+                    valeur = e.estEnEchec() ? 0 : ECHELLE / 2;
+                    break;
+                }
+                ply++;
+            }
+            return (ply & 1) == 0 ? valeur : ECHELLE - valeur;
+        }
+
+        /** Joue un coup légal au hasard, une capture une fois sur deux s'il y en a */
+        private boolean jouerUnCoup(Echiquier e) {
+            if ((suivant() & 1) == 0 && jouerParmi(e, e.genererCaptures(tampon, 0))) {
+                return true;
+            }
+            return jouerParmi(e, e.genererCoups(tampon, 0));
+        }
+
+        private boolean jouerParmi(Echiquier e, int n) {
+            while (n > 0) {
+                int i = (int) ((suivant() >>> 33) % n);
+                int coup = tampon[i];
+                if (e.jouer(coup)) {
+                    return true;
+                }
+                tampon[i] = tampon[--n];
+            }
+            return false;
+        }
+
+        // Générateur xorshift : pas d'allocation ni de synchronisation
+        private long suivant() {
+            long x = graine;
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            graine = x;
+            return x;
+        }
+    }
+
+    // ------------------------------------------------------------ réglages
+
+    /** Constante d'exploration d'UCT (plus grande : arbre plus large) */
+    public void setExploration(double exploration) {
+        this.exploration = exploration;
+    }
+
+    public double getExploration() {
+        return exploration;
+    }
+
+    /** Nombre de demi-coups joués au hasard avant d'évaluer la position */
+    public void setLongueurSimulation(int longueur) {
+        this.longueurSimulation = Math.max(0, longueur);
+    }
+
+    /** Nombre de visites d'une feuille avant de créer ses enfants */
+    public void setSeuilDeveloppement(int seuil) {
+        this.seuilDeveloppement = Math.max(0, seuil);
+    }
+
+    /**
+     * Réalloue l'arbre (à appeler hors recherche)
+     * @param capacite Nombre maximal de nœuds
+     */
+    public void setCapacite(int capacite) {
+        this.capacite = Math.max(1024, capacite);
+        coups = new int[this.capacite];
+        premiers = new int[this.capacite];
+        nombres = new int[this.capacite];
+        etats = new int[this.capacite];
+        visites = new int[this.capacite];
+        gains = new long[this.capacite];
+        racine = -1;
+    }
+
+    /**
+     * Change le nombre de threads (à appeler hors recherche)
+     */
+    public void setThreads(int threads) {
+        int n = Math.max(1, threads);
+        if (auxiliaires != null) {
+            auxiliaires.shutdownNow();
+            auxiliaires = null;
+        }
+        travailleurs = new Travailleur[n];
+        for (int i = 0; i < n; i++) {
+            travailleurs[i] = new Travailleur(0x9E3779B97F4A7C15L * (i + 1) ^ System.nanoTime());
+        }
+        if (n > 1) {
+            auxiliaires = Executors.newFixedThreadPool(n - 1, r -> {
+                Thread t = new Thread(r, "monte-carlo-" + COMPTEUR_THREADS.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public int getThreads() {
+        return travailleurs.length;
+    }
+
+    // ----------------------------------------------------------- résultats
+
+    /** Simulations de la dernière recherche */
+    public long getSimulations() {
+        return simulations.get();
+    }
+
+    /** Visites de la racine (simulations conservées de l'arbre réutilisé comprises) */
+    public int getVisitesRacine() {
+        return racine < 0 ? 0 : visites[racine];
+    }
+
+    /** Nœuds de l'arbre en cours d'utilisation */
+    public int getNoeudsAlloues() {
+        return Math.min(alloues.get(), capacite);
+    }
+
+    /**
+     * Espérance de gain du meilleur coup pour le joueur au trait, en millièmes
+     */
+    public int getEsperance() {
+        if (racine < 0 || etats[racine] != DEVELOPPE) {
+            return ECHELLE / 2;
+        }
+        int meilleur = meilleurEnfant(racine);
+        return visites[meilleur] == 0 ? ECHELLE / 2 : (int) (gains[meilleur] / visites[meilleur]);
+    }
+
+    public long getTempsEcouleMs() {
+        return (System.nanoTime() - debutNs) / 1_000_000L;
+    }
+}
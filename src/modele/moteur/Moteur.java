@@ -0,0 +1,259 @@
+package modele.moteur;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Point d'entrée du moteur : une table de transposition partagée et une ou
+ * plusieurs recherches en parallèle (« Lazy SMP » : les threads auxiliaires
+ * explorent le même arbre et enrichissent la table commune, seul le thread
+ * principal donne le résultat).
+ */
+public final class Moteur {
+    public static final int HASH_PAR_DEFAUT_MO = 16;
+
+    private static final AtomicInteger COMPTEUR_THREADS = new AtomicInteger();
+
+    private final TableTransposition tt;
+    private Recherche[] recherches;
+    private ExecutorService auxiliaires;
+    private final Limites limitesAuxiliaires = new Limites();
+    private volatile Recherche principale;
+
+    // Numéro de la dernière recherche lancée, et jusqu'à quel numéro l'arrêt a été demandé :
+    // une demande faite avant le départ effectif d'une recherche n'est pas perdue
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long arreteJusqua;
+    private TacheRecherche enCours;
+
+    // Livre d'ouvertures consulté avant toute recherche (null : aucun)
+    private LivreOuvertures livre;
+    private final Random aleatoire = new Random();
+    private final int[] tamponLivre = new int[256];
+    // Tables de finales : coup parfait immédiat à la racine, sondage dans l'arbre
+    private TablesFinales tables;
+
+    public Moteur() {
+        this(HASH_PAR_DEFAUT_MO, 1);
+    }
+
+    /**
+     * @param hashMo Taille de la table de transposition en mégaoctets
+     * @param threads Nombre de threads de recherche
+     */
+    public Moteur(int hashMo, int threads) {
+        this.tt = new TableTransposition(hashMo);
+        setThreads(threads);
+    }
+
+    /**
+     * Cherche le meilleur coup (bloquant)
+     * @param position Position à analyser (non modifiée)
+     * @param limites Limites de la recherche
+     * @param ecouteur Reçoit les itérations du thread principal (peut être null)
+     * @return Le meilleur coup, ou CodeCoup.AUCUN s'il n'y en a pas
+     */
+    public int chercher(Echiquier position, Limites limites, EcouteurRecherche ecouteur) {
+        return chercher(position, limites, ecouteur, sequence.incrementAndGet());
+    }
+
+    /**
+     * Lance une recherche sur son propre thread et rend aussitôt la main.
+     * Une recherche précédente encore en cours est d'abord arrêtée.
+     * Le thread est un thread système : une recherche ne rend jamais la main
+     * et monopoliserait le porteur d'un thread virtuel.
+     * @param position Position à analyser (copiée : l'appelant peut la modifier ensuite)
+     * @param limites Limites de la recherche (lues pendant toute la recherche)
+     * @param ecouteur Reçoit les itérations du thread principal (peut être null)
+     * @return La poignée de la recherche (arrêt, annulation, résultat)
+     */
+    public synchronized TacheRecherche lancer(Echiquier position, Limites limites, EcouteurRecherche ecouteur) {
+        if (enCours != null) {
+            enCours.arreter();
+            enCours.attendreFin();
+        }
+        Echiquier copie = new Echiquier();
+        copie.copier(position);
+        long numero = sequence.incrementAndGet();
+        TacheRecherche tache = new TacheRecherche(this, numero);
+        Thread.ofPlatform().daemon().name("recherche-" + numero)
+                .start(() -> tache.executer(() -> chercher(copie, limites, ecouteur, numero)));
+        enCours = tache;
+        return tache;
+    }
+
+    private int chercher(Echiquier position, Limites limites, EcouteurRecherche ecouteur, long numero) {
+        // Coup de livre : réponse immédiate, sans recherche (sauf analyse infinie)
+        if (livre != null && !limites.estInfini() && !limites.estPonder()) {
+            int coup = livre.choisirCoup(position, aleatoire, tamponLivre);
+            if (coup != CodeCoup.AUCUN) {
+                return coup;
+            }
+        }
+        if (tables != null && !limites.estInfini() && !limites.estPonder()) {
+            int coup = tables.meilleurCoup(position, tamponLivre);
+            if (coup != CodeCoup.AUCUN) {
+                return coup;
+            }
+        }
+        RechercheEvenement evenement = new RechercheEvenement();
+        evenement.begin();
+        long debut = System.nanoTime();
+        tt.nouvelleRecherche();
+        Recherche[] actives = recherches;
+        principale = actives[0];
+        for (Recherche r : actives) {
+            r.rearmer();
+        }
+        // Arrêt demandé avant le départ : chaque recherche s'arrête dès son premier contrôle
+        if (numero <= arreteJusqua) {
+            for (Recherche r : actives) {
+                r.arreter();
+            }
+        }
+        Future<?>[] taches = new Future<?>[actives.length - 1];
+        if (taches.length > 0) {
+            limitesAuxiliaires.reinitialiser();
+            limitesAuxiliaires.setProfondeur(limites.getProfondeur());
+            limitesAuxiliaires.setInfini(true);
+            for (int i = 1; i < actives.length; i++) {
+                Recherche auxiliaire = actives[i];
+                int depart = 1 + (i & 1);
+                taches[i - 1] = auxiliaires.submit(
+                        () -> auxiliaire.approfondir(position, limitesAuxiliaires, null, depart));
+            }
+        }
+        int coup = actives[0].approfondir(position, limites, ecouteur, 1);
+        for (int i = 1; i < actives.length; i++) {
+            actives[i].arreter();
+        }
+        for (Future<?> tache : taches) {
+            try {
+                tache.get();
+            } catch (Exception e) {
+                // Un auxiliaire en échec ne change pas le résultat du thread principal
+            }
+        }
+        StatistiquesMoteur.globales().enregistrer(actives, tt, System.nanoTime() - debut, evenement);
+        return coup;
+    }
+
+    /** Arrête la recherche en cours, ou celle qui est sur le point de démarrer */
+    public void arreter() {
+        arreter(sequence.get());
+    }
+
+    /**
+     * Arrête les recherches lancées jusqu'au numéro donné (pas les suivantes)
+     */
+    void arreter(long numero) {
+        synchronized (sequence) {
+            if (numero <= arreteJusqua) {
+                return;
+            }
+            arreteJusqua = numero;
+        }
+        if (numero == sequence.get()) {
+            for (Recherche r : recherches) {
+                r.arreter();
+            }
+        }
+    }
+
+    /**
+     * Fin du ponder : la recherche en cours devient limitée en temps
+     * @param limites Limites du coup (pendules), le ponder étant levé
+     * @param couleur Couleur au trait dans la position cherchée
+     */
+    public void ponderhit(Limites limites, int couleur) {
+        Recherche r = principale;
+        if (r != null) {
+            r.setLimitesTemps(limites.tempsAlloueMs(couleur), limites.tempsMaximalMs(couleur));
+        }
+    }
+
+    /**
+     * Définit le livre d'ouvertures consulté avant de chercher
+     * @param livre Le livre, ou null pour n'en utiliser aucun
+     */
+    public void setLivre(LivreOuvertures livre) {
+        this.livre = livre;
+    }
+
+    public LivreOuvertures getLivre() {
+        return livre;
+    }
+
+    /**
+     * Définit les tables de finales utilisées par la recherche
+     * @param tables Les tables, ou null pour n'en utiliser aucune
+     */
+    public void setTablesFinales(TablesFinales tables) {
+        this.tables = tables;
+        for (Recherche r : recherches) {
+            r.setTablesFinales(tables);
+        }
+    }
+
+    public TablesFinales getTablesFinales() {
+        return tables;
+    }
+
+    /** Nouvelle partie : oublie la table de transposition */
+    public void nouvellePartie() {
+        tt.vider();
+    }
+
+    public void setHash(int megaoctets) {
+        tt.redimensionner(megaoctets);
+    }
+
+    /**
+     * Change le nombre de threads (à appeler hors recherche)
+     */
+    public void setThreads(int threads) {
+        int n = Math.max(1, threads);
+        if (auxiliaires != null) {
+            auxiliaires.shutdownNow();
+            auxiliaires = null;
+        }
+        recherches = new Recherche[n];
+        for (int i = 0; i < n; i++) {
+            recherches[i] = new Recherche(tt);
+            recherches[i].setTablesFinales(tables);
+        }
+        if (n > 1) {
+            auxiliaires = Executors.newFixedThreadPool(n - 1, r -> {
+                Thread t = new Thread(r, "recherche-" + COMPTEUR_THREADS.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public int getThreads() {
+        return recherches.length;
+    }
+
+    /** Nœuds visités par tous les threads lors de la dernière recherche */
+    public long getNoeuds() {
+        long total = 0;
+        for (Recherche r : recherches) {
+            total += r.getNoeuds();
+        }
+        return total;
+    }
+
+    /** Recherche du thread principal (résultat, variante principale) */
+    public Recherche getRecherchePrincipale() {
+        return recherches[0];
+    }
+
+    public TableTransposition getTable() {
+        return tt;
+    }
+}
@@ -0,0 +1,104 @@
+package modele.moteur;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Position étiquetée sur 32 octets, pour les fichiers d'apprentissage
+ * (réglage de l'évaluation, entraînement) :
+ * <ul>
+ *   <li>0 : occupation (long, bit sq = rangée * 8 + colonne) ;</li>
+ *   <li>8, 16 : pièces des cases occupées par ordre croissant, 4 bits chacune
+ *       (couleur &lt;&lt; 3 | type) : la i-ème dans les bits 4i du premier long
+ *       (i &lt; 16), puis du second ;</li>
+ *   <li>24 : score de recherche en centipions pour les blancs (short,
+ *       SCORE_INCONNU s'il n'y en a pas) ;</li>
+ *   <li>26 : résultat de la partie (RESULTAT_*), 27 : trait ;</li>
+ *   <li>28 : numéro du coup (short), 30 : demi-coups depuis la dernière prise
+ *       ou poussée de pion (plafonnés à 255), 31 : droits de roque.</li>
+ * </ul>
+ * La case de prise en passant n'est pas conservée. Les fichiers sont de
+ * simples suites d'enregistrements, sans en-tête, ce qui permet de les
+ * concaténer et de les projeter en mémoire.
+ */
+public final class PositionCompacte {
+    public static final int TAILLE = 32;
+    public static final int RESULTAT_NOIRS = 0, RESULTAT_NULLE = 1, RESULTAT_BLANCS = 2;
+    public static final int SCORE_INCONNU = Short.MIN_VALUE;
+
+    private static final int OCCUPATION = 0, PIECES = 8, SCORE = 24, RESULTAT = 26, TRAIT = 27,
+            NUMERO_COUP = 28, DEMI_COUPS = 30, ROQUES = 31;
+
+    private PositionCompacte() {
+    }
+
+    /**
+     * Écrit la position à la suite dans le tampon
+     * @param score Score pour les blancs, borné à ±32767, ou SCORE_INCONNU
+     * @param resultat RESULTAT_NOIRS, RESULTAT_NULLE ou RESULTAT_BLANCS
+     */
+    public static void ecrire(Echiquier e, int score, int resultat, ByteBuffer tampon) {
+        long occupation = e.getOccupation();
+        long bas = 0, haut = 0;
+        int n = 0;
+        for (long bb = occupation; bb != 0; bb &= bb - 1, n++) {
+            long piece = e.cases[Long.numberOfTrailingZeros(bb)];
+            if (n < 16) bas |= piece << (4 * n);
+            else haut |= piece << (4 * (n - 16));
+        }
+        tampon.putLong(occupation).putLong(bas).putLong(haut)
+                .putShort((short) (score == SCORE_INCONNU ? score : Math.max(-Short.MAX_VALUE, Math.min(Short.MAX_VALUE, score))))
+                .put((byte) resultat).put((byte) e.trait)
+                .putShort((short) Math.min(e.numeroCoup, Short.MAX_VALUE))
+                .put((byte) Math.min(e.demiCoups, 255)).put((byte) e.roques);
+    }
+
+    /**
+     * Charge l'enregistrement commençant à l'octet {@code debut} du tampon
+     */
+    public static void lire(ByteBuffer tampon, int debut, Echiquier e) {
+        long bas = piecesBas(tampon, debut), haut = piecesHaut(tampon, debut);
+        e.vider();
+        int n = 0;
+        for (long bb = occupation(tampon, debut); bb != 0; bb &= bb - 1, n++) {
+            e.poser(piece(bas, haut, n), Long.numberOfTrailingZeros(bb));
+        }
+        e.trait = tampon.get(debut + TRAIT);
+        e.numeroCoup = Math.max(1, tampon.getShort(debut + NUMERO_COUP));
+        e.demiCoups = tampon.get(debut + DEMI_COUPS) & 0xff;
+        e.roques = tampon.get(debut + ROQUES) & 15;
+        e.cle = e.calculerCle();
+    }
+
+    public static long occupation(ByteBuffer tampon, int debut) {
+        return tampon.getLong(debut + OCCUPATION);
+    }
+
+    public static long piecesBas(ByteBuffer tampon, int debut) {
+        return tampon.getLong(debut + PIECES);
+    }
+
+    public static long piecesHaut(ByteBuffer tampon, int debut) {
+        return tampon.getLong(debut + PIECES + 8);
+    }
+
+    public static int score(ByteBuffer tampon, int debut) {
+        return tampon.getShort(debut + SCORE);
+    }
+
+    public static int resultat(ByteBuffer tampon, int debut) {
+        return tampon.get(debut + RESULTAT);
+    }
+
+    /**
+     * Fixe le résultat d'un enregistrement déjà écrit (positions d'une partie
+     * gardées en tampon jusqu'à sa fin)
+     */
+    public static void setResultat(ByteBuffer tampon, int debut, int resultat) {
+        tampon.put(debut + RESULTAT, (byte) resultat);
+    }
+
+    /** Pièce de la n-ième case occupée, d'après les deux longs de pièces */
+    public static int piece(long bas, long haut, int n) {
+        return (int) ((n < 16 ? bas >>> (4 * n) : haut >>> (4 * (n - 16))) & 15);
+    }
+}
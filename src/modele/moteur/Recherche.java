@@ -0,0 +1,541 @@
+package modele.moteur;
+
+/**
+ * Recherche alpha-bêta (negamax, fenêtre nulle, approfondissement itératif)
+ * avec recherche de quiescence, table de transposition, coup nul, réductions
+ * des coups tardifs et tri des coups (coup de la table, captures MVV-LVA,
+ * coups tueurs, historique).
+ *
+ * En analyse multi-PV, chaque itération cherche les k meilleurs coups l'un
+ * après l'autre, en excluant à la racine ceux déjà trouvés ; la table de
+ * transposition remplie par la première ligne rend les suivantes peu chères.
+ *
+ * Toutes les structures sont préallouées : aucune allocation par nœud.
+ * Une instance n'est utilisée que par un thread à la fois.
+ */
+public final class Recherche {
+    public static final int PLY_MAX = 128;
+    public static final int MAT = 30000;
+    public static final int INFINI = 32000;
+    /** Nombre maximal de lignes suivies en analyse multi-PV */
+    public static final int LIGNES_MAX = 32;
+
+    // On vérifie le temps et l'arrêt tous les 1024 nœuds
+    private static final int MASQUE_CONTROLE = 1023;
+    private static final int NOTE_COUP_TT = 1 << 30;
+    private static final int NOTE_CAPTURE = 1 << 28;
+    private static final int NOTE_TUEUR = 1 << 27;
+
+    private final Echiquier echiquier = new Echiquier();
+    private final TableTransposition tt;
+    private final int[][] coups = new int[PLY_MAX + 1][256];
+    private final int[][] notes = new int[PLY_MAX + 1][256];
+    private final int[][] pv = new int[PLY_MAX + 1][PLY_MAX + 1];
+    private final int[] longueurPv = new int[PLY_MAX + 1];
+    private final int[][] tueurs = new int[PLY_MAX + 1][2];
+    private final int[][] historique = new int[16][64];
+    private final int[] meilleurePv = new int[PLY_MAX];
+    // Lignes multi-PV de la dernière itération terminée, et celles de l'itération en cours
+    private int[][] lignes = new int[LIGNES_MAX][PLY_MAX];
+    private int[] longueursLignes = new int[LIGNES_MAX];
+    private int[] scoresLignes = new int[LIGNES_MAX];
+    private int[][] lignesEnCours = new int[LIGNES_MAX][PLY_MAX];
+    private int[] longueursEnCours = new int[LIGNES_MAX];
+    private int[] scoresEnCours = new int[LIGNES_MAX];
+    private int nombreLignes;
+    // Coups exclus à la racine (lignes déjà trouvées dans l'itération)
+    private final int[] exclus = new int[LIGNES_MAX];
+    private int nombreExclus;
+    // Tables de finales sondées dans l'arbre (null : aucune)
+    private TablesFinales tables;
+
+    private long noeuds;
+    private int profondeurSelective;
+    // Statistiques de la dernière recherche
+    private long sondagesTable;
+    private long succesTable;
+    private long coupuresTable;
+    private long coupuresBeta;
+    private long coupuresPremierCoup;
+    private long coupuresCoupNul;
+    private long evaluations;
+    private volatile boolean arret;
+    private final GestionTemps temps = new GestionTemps();
+    private long limiteNoeuds;
+    private long debutNs;
+    private int meilleurCoup;
+    private int meilleurScore;
+    private int longueurMeilleurePv;
+    private int profondeurAtteinte;
+
+    public Recherche(TableTransposition tt) {
+        this.tt = tt;
+    }
+
+    /**
+     * Lance une recherche par approfondissement itératif (bloquant)
+     * @param position Position de départ (non modifiée)
+     * @param limites Limites de la recherche
+     * @param ecouteur Reçoit chaque itération terminée (peut être null)
+     * @param profondeurInitiale Première profondeur (les threads auxiliaires décalent leur départ)
+     * @return Le meilleur coup, ou CodeCoup.AUCUN s'il n'y a aucun coup légal
+     */
+    public int chercher(Echiquier position, Limites limites, EcouteurRecherche ecouteur, int profondeurInitiale) {
+        arret = false;
+        return approfondir(position, limites, ecouteur, profondeurInitiale);
+    }
+
+    /**
+     * Comme chercher, sans lever une demande d'arrêt déjà reçue : le moteur
+     * réarme ses recherches lui-même, avant de vérifier qu'elles n'ont pas été
+     * annulées entre-temps
+     */
+    int approfondir(Echiquier position, Limites limites, EcouteurRecherche ecouteur, int profondeurInitiale) {
+        echiquier.copier(position);
+        noeuds = 0;
+        profondeurSelective = 0;
+        sondagesTable = succesTable = coupuresTable = 0;
+        coupuresBeta = coupuresPremierCoup = coupuresCoupNul = 0;
+        evaluations = 0;
+        debutNs = System.nanoTime();
+        limiteNoeuds = limites.getNoeuds();
+        temps.demarrer(limites, echiquier.getTrait(), debutNs);
+        for (int[] t : tueurs) {
+            t[0] = t[1] = CodeCoup.AUCUN;
+        }
+        for (int[] h : historique) {
+            java.util.Arrays.fill(h, 0);
+        }
+
+        // Coup de secours si la première itération est interrompue
+        int n = echiquier.genererCoupsLegaux(coups[0], 0);
+        meilleurCoup = n > 0 ? coups[0][0] : CodeCoup.AUCUN;
+        meilleurScore = 0;
+        longueurMeilleurePv = 0;
+        profondeurAtteinte = 0;
+        nombreLignes = 0;
+        nombreExclus = 0;
+        if (n == 0) {
+            return CodeCoup.AUCUN;
+        }
+        int k = Math.min(limites.getLignes(), n);
+
+        for (int profondeur = profondeurInitiale; profondeur <= limites.getProfondeur(); profondeur++) {
+            nombreExclus = 0;
+            for (int rang = 0; rang < k && !arret; rang++) {
+                int score = alphaBeta(profondeur, -INFINI, INFINI, 0, false);
+                if (!arret) {
+                    ajouterLigne(rang, score);
+                    exclus[nombreExclus++] = pv[0][0];
+                }
+            }
+            nombreExclus = 0;
+            // Itération interrompue : on garde la précédente
+            if (arret) {
+                break;
+            }
+            publierLignes(k);
+            int score = scoresLignes[0];
+            meilleurCoup = lignes[0][0];
+            meilleurScore = score;
+            profondeurAtteinte = profondeur;
+            longueurMeilleurePv = longueursLignes[0];
+            System.arraycopy(lignes[0], 0, meilleurePv, 0, longueurMeilleurePv);
+            if (ecouteur != null) {
+                long tempsMs = getTempsEcouleMs();
+                for (int i = 0; i < k; i++) {
+                    ecouteur.ligneTerminee(i + 1, k, profondeur, profondeurSelective, scoresLignes[i], noeuds,
+                            tempsMs, lignes[i], longueursLignes[i]);
+                }
+            }
+            // Mat trouvé sur toutes les lignes : inutile de chercher plus loin
+            if (Math.abs(scoresLignes[k - 1]) >= MAT - profondeur && Math.abs(score) >= MAT - profondeur) {
+                break;
+            }
+            // Temps visé atteint (modulé par la stabilité du coup et les chutes de score)
+            if (temps.iterationTerminee(profondeur, meilleurCoup, score)) {
+                break;
+            }
+        }
+        return meilleurCoup;
+    }
+
+    /**
+     * Range la variante de la racine parmi les lignes de l'itération en cours,
+     * par score décroissant (une ligne trouvée plus tard peut être meilleure
+     * quand la recherche est instable)
+     */
+    private void ajouterLigne(int rang, int score) {
+        int i = rang;
+        int[] libre = lignesEnCours[rang];
+        while (i > 0 && scoresEnCours[i - 1] < score) {
+            lignesEnCours[i] = lignesEnCours[i - 1];
+            longueursEnCours[i] = longueursEnCours[i - 1];
+            scoresEnCours[i] = scoresEnCours[i - 1];
+            i--;
+        }
+        lignesEnCours[i] = libre;
+        longueursEnCours[i] = longueurPv[0];
+        scoresEnCours[i] = score;
+        System.arraycopy(pv[0], 0, libre, 0, longueurPv[0]);
+    }
+
+    /** L'itération terminée devient la référence ; ses tableaux sont échangés, pas copiés */
+    private void publierLignes(int k) {
+        int[][] l = lignes;
+        lignes = lignesEnCours;
+        lignesEnCours = l;
+        int[] t = longueursLignes;
+        longueursLignes = longueursEnCours;
+        longueursEnCours = t;
+        t = scoresLignes;
+        scoresLignes = scoresEnCours;
+        scoresEnCours = t;
+        nombreLignes = k;
+    }
+
+    private boolean estExclu(int coup) {
+        for (int i = 0; i < nombreExclus; i++) {
+            if (exclus[i] == coup) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int alphaBeta(int profondeur, int alpha, int beta, int ply, boolean nulAutorise) {
+        longueurPv[ply] = ply;
+        if ((++noeuds & MASQUE_CONTROLE) == 0) {
+            verifierArret();
+        }
+        if (arret) {
+            return 0;
+        }
+        boolean racine = ply == 0;
+        if (!racine) {
+            if (echiquier.estNulle()) {
+                return 0;
+            }
+            // Finale en table : résultat exact, sans chercher plus loin
+            if (tables != null && Long.bitCount(echiquier.getOccupation()) <= TablesFinales.PIECES_MAX) {
+                int resultat = tables.sonder(echiquier);
+                if (resultat != TablesFinales.ABSENTE) {
+                    return TablesFinales.score(resultat, ply);
+                }
+            }
+            // Roi et pion contre roi : nulle exacte d'après la bitbase
+            if (BitbaseKPK.estKPK(echiquier) && !BitbaseKPK.estGagnant(echiquier)) {
+                return 0;
+            }
+            // Élagage par distance au mat
+            alpha = Math.max(alpha, -MAT + ply);
+            beta = Math.min(beta, MAT - ply - 1);
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+        boolean enEchec = echiquier.estEnEchec();
+        if (enEchec) {
+            profondeur++;
+        }
+        if (profondeur <= 0) {
+            return quiescence(alpha, beta, ply);
+        }
+        if (ply >= PLY_MAX - 1) {
+            return evaluer();
+        }
+        boolean noeudPv = beta - alpha > 1;
+
+        long cle = echiquier.getCle();
+        long entree = tt.sonder(cle);
+        sondagesTable++;
+        int coupTT = CodeCoup.AUCUN;
+        if (entree != 0) {
+            succesTable++;
+            coupTT = TableTransposition.coupDe(entree);
+            if (!noeudPv && TableTransposition.profondeurDe(entree) >= profondeur) {
+                int score = scoreDepuisTable(TableTransposition.scoreDe(entree), ply);
+                int borne = TableTransposition.borneDe(entree);
+                if (borne == TableTransposition.BORNE_EXACTE
+                        || (borne == TableTransposition.BORNE_BASSE && score >= beta)
+                        || (borne == TableTransposition.BORNE_HAUTE && score <= alpha)) {
+                    coupuresTable++;
+                    return score;
+                }
+            }
+        }
+
+        // Coup nul : si passer son tour suffit à dépasser beta, le nœud est coupé
+        if (nulAutorise && !noeudPv && !enEchec && profondeur >= 3 && aDesPieces(echiquier.getTrait())
+                && evaluer() >= beta) {
+            int reduction = profondeur > 6 ? 3 : 2;
+            echiquier.jouerCoupNul();
+            int score = -alphaBeta(profondeur - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+            echiquier.dejouerCoupNul();
+            if (arret) {
+                return 0;
+            }
+            if (score >= beta) {
+                coupuresCoupNul++;
+                return score >= MAT - PLY_MAX ? beta : score;
+            }
+        }
+
+        int[] liste = coups[ply];
+        int n = echiquier.genererCoups(liste, 0);
+        noter(ply, n, coupTT);
+
+        int alphaInitial = alpha;
+        int meilleur = -INFINI;
+        int coupMeilleur = CodeCoup.AUCUN;
+        int legaux = 0;
+        for (int i = 0; i < n; i++) {
+            int coup = choisirSuivant(ply, i, n);
+            boolean tranquille = !echiquier.estCapture(coup) && CodeCoup.promotion(coup) == 0;
+            if (racine && nombreExclus > 0 && estExclu(coup)) {
+                continue;
+            }
+            if (!echiquier.jouer(coup)) {
+                continue;
+            }
+            legaux++;
+            boolean donneEchec = echiquier.estEnEchec();
+            int score;
+            if (legaux == 1) {
+                score = -alphaBeta(profondeur - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                int reduction = (profondeur >= 3 && legaux > 3 && tranquille && !enEchec && !donneEchec
+                        && coup != tueurs[ply][0] && coup != tueurs[ply][1]) ? (legaux > 10 ? 2 : 1) : 0;
+                score = -alphaBeta(profondeur - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && (reduction > 0 || score < beta)) {
+                    score = -alphaBeta(profondeur - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            echiquier.dejouer(coup);
+            if (arret) {
+                return 0;
+            }
+            if (score > meilleur) {
+                meilleur = score;
+                coupMeilleur = coup;
+                if (score > alpha) {
+                    alpha = score;
+                    mettreAJourPv(ply, coup);
+                    if (score >= beta) {
+                        coupuresBeta++;
+                        if (legaux == 1) {
+                            coupuresPremierCoup++;
+                        }
+                        if (tranquille) {
+                            enregistrerCoupure(ply, coup, profondeur);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (legaux == 0) {
+            return enEchec ? -MAT + ply : 0;
+        }
+
+        // Racine privée de ses meilleurs coups : son résultat ne vaut pas pour la table
+        if (racine && nombreExclus > 0) {
+            return meilleur;
+        }
+        int borne = meilleur >= beta ? TableTransposition.BORNE_BASSE
+                : (meilleur > alphaInitial ? TableTransposition.BORNE_EXACTE : TableTransposition.BORNE_HAUTE);
+        tt.stocker(cle, coupMeilleur, scoreVersTable(meilleur, ply), profondeur, borne);
+        return meilleur;
+    }
+
+    private int quiescence(int alpha, int beta, int ply) {
+        longueurPv[ply] = ply;
+        if ((++noeuds & MASQUE_CONTROLE) == 0) {
+            verifierArret();
+        }
+        if (arret) {
+            return 0;
+        }
+        if (ply > profondeurSelective) {
+            profondeurSelective = ply;
+        }
+        int statique = evaluer();
+        if (ply >= PLY_MAX - 1 || statique >= beta) {
+            return statique;
+        }
+        if (statique > alpha) {
+            alpha = statique;
+        }
+        int[] liste = coups[ply];
+        int n = echiquier.genererCaptures(liste, 0);
+        noter(ply, n, CodeCoup.AUCUN);
+        for (int i = 0; i < n; i++) {
+            int coup = choisirSuivant(ply, i, n);
+            if (!echiquier.jouer(coup)) {
+                continue;
+            }
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            echiquier.dejouer(coup);
+            if (arret) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                mettreAJourPv(ply, coup);
+                if (score >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /** Évaluation statique de la position courante (comptée) */
+    private int evaluer() {
+        evaluations++;
+        return Evaluation.evaluer(echiquier);
+    }
+
+    /** Attribue une note de tri à chaque coup généré */
+    private void noter(int ply, int n, int coupTT) {
+        int[] liste = coups[ply];
+        int[] note = notes[ply];
+        for (int i = 0; i < n; i++) {
+            int coup = liste[i];
+            if (coup == coupTT) {
+                note[i] = NOTE_COUP_TT;
+            } else if (echiquier.estCapture(coup) || CodeCoup.promotion(coup) != 0) {
+                int victime = CodeCoup.estPriseEnPassant(coup) ? Echiquier.PION
+                        : Echiquier.type(echiquier.getPiece(CodeCoup.arrivee(coup)));
+                int attaquant = Echiquier.type(echiquier.getPiece(CodeCoup.depart(coup)));
+                note[i] = NOTE_CAPTURE + Evaluation.VALEURS[victime] * 8 + Evaluation.VALEURS[CodeCoup.promotion(coup)]
+                        - attaquant;
+            } else if (coup == tueurs[ply][0]) {
+                note[i] = NOTE_TUEUR + 1;
+            } else if (coup == tueurs[ply][1]) {
+                note[i] = NOTE_TUEUR;
+            } else {
+                note[i] = historique[echiquier.getPiece(CodeCoup.depart(coup))][CodeCoup.arrivee(coup)];
+            }
+        }
+    }
+
+    /** Tri par sélection paresseux : amène le meilleur coup restant en position i */
+    private int choisirSuivant(int ply, int i, int n) {
+        int[] liste = coups[ply];
+        int[] note = notes[ply];
+        int meilleur = i;
+        for (int j = i + 1; j < n; j++) {
+            if (note[j] > note[meilleur]) meilleur = j;
+        }
+        int coup = liste[meilleur];
+        liste[meilleur] = liste[i];
+        liste[i] = coup;
+        int tmp = note[meilleur];
+        note[meilleur] = note[i];
+        note[i] = tmp;
+        return coup;
+    }
+
+    private void enregistrerCoupure(int ply, int coup, int profondeur) {
+        if (tueurs[ply][0] != coup) {
+            tueurs[ply][1] = tueurs[ply][0];
+            tueurs[ply][0] = coup;
+        }
+        int[] h = historique[echiquier.getPiece(CodeCoup.depart(coup))];
+        int a = CodeCoup.arrivee(coup);
+        h[a] = Math.min(h[a] + profondeur * profondeur, NOTE_TUEUR - 1);
+    }
+
+    private void mettreAJourPv(int ply, int coup) {
+        pv[ply][ply] = coup;
+        int fin = longueurPv[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, fin - ply - 1);
+        longueurPv[ply] = Math.max(fin, ply + 1);
+    }
+
+    private boolean aDesPieces(int couleur) {
+        return (echiquier.getOccupation(couleur)
+                & ~echiquier.getPieces(couleur, Echiquier.PION)
+                & ~echiquier.getPieces(couleur, Echiquier.ROI)) != 0;
+    }
+
+    // Les scores de mat sont stockés relativement au nœud, pas à la racine
+    private static int scoreVersTable(int score, int ply) {
+        if (score >= MAT - PLY_MAX) return score + ply;
+        if (score <= -MAT + PLY_MAX) return score - ply;
+        return score;
+    }
+
+    private static int scoreDepuisTable(int score, int ply) {
+        if (score >= MAT - PLY_MAX) return score - ply;
+        if (score <= -MAT + PLY_MAX) return score + ply;
+        return score;
+    }
+
+    private void verifierArret() {
+        if (noeuds >= limiteNoeuds || temps.estDepasse(System.nanoTime())) {
+            arret = true;
+        }
+    }
+
+    public void setTablesFinales(TablesFinales tables) {
+        this.tables = tables;
+    }
+
+    /** Demande l'arrêt de la recherche (pris en compte dans les 1024 nœuds) */
+    public void arreter() {
+        arret = true;
+    }
+
+    /** Lève la demande d'arrêt avant une nouvelle recherche */
+    void rearmer() {
+        arret = false;
+    }
+
+    /**
+     * Fixe les échéances de la recherche en cours (fin du ponder)
+     * @param douxMs Temps visé à partir de maintenant, ou -1 pour aucune limite
+     * @param durMs Temps maximal à partir de maintenant, ou -1 pour aucune limite
+     */
+    public void setLimitesTemps(long douxMs, long durMs) {
+        temps.fixer(douxMs, durMs, System.nanoTime());
+    }
+
+    public long getNoeuds() { return noeuds; }
+    public int getProfondeurSelective() { return profondeurSelective; }
+    public long getSondagesTable() { return sondagesTable; }
+    public long getSuccesTable() { return succesTable; }
+    public long getCoupuresTable() { return coupuresTable; }
+    public long getCoupuresBeta() { return coupuresBeta; }
+    /** Coupures bêta obtenues dès le premier coup essayé (qualité du tri) */
+    public long getCoupuresPremierCoup() { return coupuresPremierCoup; }
+    public long getCoupuresCoupNul() { return coupuresCoupNul; }
+    public long getEvaluations() { return evaluations; }
+    public int getMeilleurCoup() { return meilleurCoup; }
+    public int getMeilleurScore() { return meilleurScore; }
+    public int getProfondeurAtteinte() { return profondeurAtteinte; }
+    /** Variante principale de la dernière itération terminée (tableau réutilisé) */
+    public int[] getPv() { return meilleurePv; }
+    public int getLongueurPv() { return longueurMeilleurePv; }
+    /** Nombre de lignes de la dernière itération terminée (1 hors analyse multi-PV) */
+    public int getNombreLignes() { return nombreLignes; }
+    /** Variante de la ligne de rang i (0 : la meilleure) ; tableau réutilisé */
+    public int[] getLigne(int i) { return lignes[i]; }
+    public int getLongueurLigne(int i) { return longueursLignes[i]; }
+    public int getScoreLigne(int i) { return scoresLignes[i]; }
+
+    public long getTempsEcouleMs() {
+        return (System.nanoTime() - debutNs) / 1_000_000L;
+    }
+
+    /** Un score de mat est-il en jeu ? */
+    public static boolean estScoreMat(int score) {
+        return Math.abs(score) >= MAT - PLY_MAX;
+    }
+
+    /** Nombre de coups avant le mat (positif si on mate, négatif si on est maté) */
+    public static int coupsAvantMat(int score) {
+        return score > 0 ? (MAT - score + 1) / 2 : -(MAT + score) / 2;
+    }
+}
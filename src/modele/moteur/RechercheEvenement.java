@@ -0,0 +1,66 @@
+package modele.moteur;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR émis à la fin de chaque recherche du moteur (hors coups de
+ * livre et de tables de finales). Sans enregistrement JFR actif, il ne coûte
+ * qu'une allocation par recherche.
+ */
+@Name("modele.moteur.Recherche")
+@Label("Recherche")
+@Category({"Échecs", "Moteur"})
+@Description("Recherche du moteur : nœuds, vitesse, profondeur, table de transposition, coupures")
+@StackTrace(false)
+final class RechercheEvenement extends Event {
+    @Label("Nœuds")
+    long noeuds;
+
+    @Label("Nœuds par seconde")
+    long noeudsParSeconde;
+
+    @Label("Profondeur")
+    int profondeur;
+
+    @Label("Profondeur sélective")
+    int profondeurSelective;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Coup")
+    String coup;
+
+    @Label("Score")
+    int score;
+
+    @Label("Sondages de la table")
+    long sondagesTable;
+
+    @Label("Succès de la table")
+    long succesTable;
+
+    @Label("Coupures par la table")
+    long coupuresTable;
+
+    @Label("Remplissage de la table")
+    @Description("En pour mille")
+    int remplissageTable;
+
+    @Label("Coupures bêta")
+    long coupuresBeta;
+
+    @Label("Coupures au premier coup")
+    long coupuresPremierCoup;
+
+    @Label("Coupures par coup nul")
+    long coupuresCoupNul;
+
+    @Label("Évaluations")
+    long evaluations;
+}
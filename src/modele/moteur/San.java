@@ -0,0 +1,228 @@
+package modele.moteur;
+
+/**
+ * Notation algébrique standard (SAN) : lecture et écriture des coups du moteur,
+ * sans allocation. Les pièces candidates sont retrouvées depuis la case
+ * d'arrivée avec les tables d'attaques ; seule leur légalité est vérifiée.
+ * Le tampon passé en paramètre reçoit des coups générés ; il doit pouvoir
+ * en contenir 256.
+ */
+public final class San {
+    private static final char[] LETTRES = {' ', ' ', 'N', 'B', 'R', 'Q', 'K'};
+
+    private San() {
+    }
+
+    /**
+     * Retrouve le coup légal désigné par une notation SAN (Nbd7, exd8=Q+, O-O...).
+     * Les suffixes d'échec et d'annotation (+, #, !, ?) sont ignorés.
+     * @param echiquier La position avant le coup
+     * @param texte Le texte contenant le coup
+     * @param debut Index du premier caractère
+     * @param fin Index suivant le dernier caractère
+     * @param tampon Tampon de travail pour les coups légaux
+     * @return Le coup, ou CodeCoup.AUCUN s'il est illégal, ambigu ou mal formé
+     */
+    public static int lire(Echiquier echiquier, CharSequence texte, int debut, int fin, int[] tampon) {
+        while (fin > debut && estSuffixe(texte.charAt(fin - 1))) {
+            fin--;
+        }
+        if (fin - debut < 2) {
+            return CodeCoup.AUCUN;
+        }
+
+        // Roques
+        char premier = texte.charAt(debut);
+        if (premier == 'O' || premier == '0') {
+            int longueur = fin - debut;
+            boolean grand = longueur == 5;
+            if (longueur != 3 && longueur != 5) return CodeCoup.AUCUN;
+            int n = echiquier.genererCoupsLegaux(tampon, 0);
+            for (int i = 0; i < n; i++) {
+                int c = tampon[i];
+                if (CodeCoup.estRoque(c) && ((CodeCoup.arrivee(c) & 7) == 2) == grand) {
+                    return c;
+                }
+            }
+            return CodeCoup.AUCUN;
+        }
+
+        int type = Echiquier.PION;
+        int i = debut;
+        switch (premier) {
+            case 'N' -> type = Echiquier.CAVALIER;
+            case 'B' -> type = Echiquier.FOU;
+            case 'R' -> type = Echiquier.TOUR;
+            case 'Q' -> type = Echiquier.DAME;
+            case 'K' -> type = Echiquier.ROI;
+            default -> i--;
+        }
+        i++;
+
+        // Promotion : e8=Q ou e8Q
+        int promotion = 0;
+        if (type == Echiquier.PION) {
+            promotion = typeDepuisLettre(texte.charAt(fin - 1));
+            if (promotion != 0) {
+                fin--;
+                if (fin > i && texte.charAt(fin - 1) == '=') fin--;
+            }
+        }
+
+        // Case d'arrivée : les deux derniers caractères
+        if (fin - i < 2) return CodeCoup.AUCUN;
+        int arrivee = CodeCoup.lireCase(texte, fin - 2);
+        if (arrivee < 0) return CodeCoup.AUCUN;
+
+        // Précisions éventuelles : colonne et/ou rangée de départ
+        int colonne = -1, rangee = -1;
+        for (int k = i; k < fin - 2; k++) {
+            char c = texte.charAt(k);
+            if (c >= 'a' && c <= 'h') colonne = c - 'a';
+            else if (c >= '1' && c <= '8') rangee = c - '1';
+            else if (c != 'x' && c != '-' && c != ':') return CodeCoup.AUCUN;
+        }
+
+        // Cases de départ possibles, calculées depuis l'arrivée : seule la
+        // légalité des candidats est vérifiée, sans générer tous les coups
+        int trait = echiquier.getTrait();
+        long cible = 1L << arrivee;
+        if ((echiquier.getOccupation(trait) & cible) != 0) return CodeCoup.AUCUN;
+        long occupation = echiquier.getOccupation();
+        long origines;
+        int drapeaux = 0;
+        switch (type) {
+            case Echiquier.CAVALIER, Echiquier.FOU, Echiquier.TOUR, Echiquier.DAME, Echiquier.ROI ->
+                    origines = origines(type, arrivee, occupation);
+            default -> {
+                boolean derniereRangee = (arrivee >> 3) == (trait == Echiquier.BLANC ? 7 : 0);
+                if (derniereRangee != (promotion != 0)) return CodeCoup.AUCUN;
+                int avance = trait == Echiquier.BLANC ? 8 : -8;
+                if (colonne >= 0 && colonne != (arrivee & 7)) {
+                    origines = Attaques.PION[trait ^ 1][arrivee];
+                    if (arrivee == echiquier.getEnPassant()) {
+                        drapeaux = CodeCoup.PRISE_EN_PASSANT;
+                    } else if ((occupation & cible) == 0) {
+                        return CodeCoup.AUCUN;
+                    }
+                } else {
+                    if ((occupation & cible) != 0) return CodeCoup.AUCUN;
+                    int de = arrivee - avance;
+                    origines = 1L << de;
+                    if ((occupation & origines) == 0 && (arrivee >> 3) == (trait == Echiquier.BLANC ? 3 : 4)) {
+                        origines = 1L << (de - avance);
+                        drapeaux = CodeCoup.DOUBLE_PAS;
+                    }
+                }
+            }
+        }
+        origines &= echiquier.getPieces(trait, type);
+        if (colonne >= 0) origines &= 0x0101010101010101L << colonne;
+        if (rangee >= 0) origines &= 0xFFL << (8 * rangee);
+
+        int trouve = CodeCoup.AUCUN;
+        for (; origines != 0; origines &= origines - 1) {
+            int c = CodeCoup.creer(Long.numberOfTrailingZeros(origines), arrivee, promotion, drapeaux);
+            if (!echiquier.jouer(c)) {
+                continue;
+            }
+            echiquier.dejouer(c);
+            if (trouve != CodeCoup.AUCUN) {
+                return CodeCoup.AUCUN;
+            }
+            trouve = c;
+        }
+        return trouve;
+    }
+
+    /**
+     * Écrit un coup légal en SAN, avec précision de départ, prise, promotion
+     * et suffixe d'échec (+) ou de mat (#)
+     * @param echiquier La position avant le coup (inchangée au retour)
+     * @param coup Le coup à écrire
+     * @param sb Le tampon de sortie
+     * @param tampon Tampon de travail pour les coups légaux
+     */
+    public static void ecrire(Echiquier echiquier, int coup, StringBuilder sb, int[] tampon) {
+        int de = CodeCoup.depart(coup), a = CodeCoup.arrivee(coup);
+        int type = Echiquier.type(echiquier.getPiece(de));
+        boolean prise = echiquier.estCapture(coup);
+
+        if (CodeCoup.estRoque(coup)) {
+            sb.append((a & 7) == 6 ? "O-O" : "O-O-O");
+        } else if (type == Echiquier.PION) {
+            if (prise) {
+                sb.append((char) ('a' + (de & 7))).append('x');
+            }
+            CodeCoup.ecrireCase(a, sb);
+            int promotion = CodeCoup.promotion(coup);
+            if (promotion != 0) {
+                sb.append('=').append(LETTRES[promotion]);
+            }
+        } else {
+            sb.append(LETTRES[type]);
+            // Précision : autres pièces du même type pouvant aller sur la même case.
+            // Seules ces pièces sont essayées, la liste complète n'est pas générée
+            boolean autre = false, memeColonne = false, memeRangee = false;
+            long rivales = origines(type, a, echiquier.getOccupation())
+                    & echiquier.getPieces(echiquier.getTrait(), type) & ~(1L << de);
+            for (; rivales != 0; rivales &= rivales - 1) {
+                int d = Long.numberOfTrailingZeros(rivales);
+                int c = CodeCoup.creer(d, a);
+                if (!echiquier.jouer(c)) {
+                    continue;
+                }
+                echiquier.dejouer(c);
+                autre = true;
+                memeColonne |= (d & 7) == (de & 7);
+                memeRangee |= (d >> 3) == (de >> 3);
+            }
+            if (autre) {
+                if (!memeColonne) {
+                    sb.append((char) ('a' + (de & 7)));
+                } else if (!memeRangee) {
+                    sb.append((char) ('1' + (de >> 3)));
+                } else {
+                    CodeCoup.ecrireCase(de, sb);
+                }
+            }
+            if (prise) {
+                sb.append('x');
+            }
+            CodeCoup.ecrireCase(a, sb);
+        }
+
+        // Échec : une requête d'attaque sur le roi ; mat : arrêt au premier coup légal
+        if (echiquier.jouer(coup)) {
+            if (echiquier.estEnEchec()) {
+                sb.append(echiquier.aUnCoupLegal(tampon) ? '+' : '#');
+            }
+            echiquier.dejouer(coup);
+        }
+    }
+
+    /** Cases d'où une pièce (hors pion) de ce type atteint la case d'arrivée */
+    private static long origines(int type, int arrivee, long occupation) {
+        return switch (type) {
+            case Echiquier.CAVALIER -> Attaques.CAVALIER[arrivee];
+            case Echiquier.FOU -> Attaques.fou(arrivee, occupation);
+            case Echiquier.TOUR -> Attaques.tour(arrivee, occupation);
+            case Echiquier.DAME -> Attaques.dame(arrivee, occupation);
+            default -> Attaques.ROI[arrivee];
+        };
+    }
+
+    private static boolean estSuffixe(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static int typeDepuisLettre(char c) {
+        return switch (c) {
+            case 'Q', 'q' -> Echiquier.DAME;
+            case 'R', 'r' -> Echiquier.TOUR;
+            case 'B' -> Echiquier.FOU;
+            case 'N', 'n' -> Echiquier.CAVALIER;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,504 @@
+package modele.moteur;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Solveur de mats en N coups par recherche en nombres de preuve en
+ * profondeur (df-pn), bornée en profondeur : la clé d'un nœud inclut le
+ * nombre de demi-coups restants, le graphe exploré est donc sans cycle.
+ *
+ * Les coups de l'attaquant sont essayés échecs d'abord ; au dernier coup,
+ * seuls les échecs sont générés. Les coups de la racine sont répartis sur
+ * plusieurs threads, chacun avec sa propre table de transposition. Les
+ * mats sont cherchés en 1, 2... N coups : le premier trouvé est le plus court.
+ */
+public final class SolveurMat {
+    public enum Statut { MAT, PAS_DE_MAT, INCONNU }
+
+    private static final int INFINI = 1 << 30;
+    private static final int PLY_MAX = 64;
+    private static final int MASQUE_CONTROLE = 1023;
+    private static final long[] CLES_PROFONDEUR = new long[PLY_MAX + 1];
+
+    static {
+        SplittableRandom aleatoire = new SplittableRandom(0x4D415453L);
+        for (int i = 0; i <= PLY_MAX; i++) {
+            CLES_PROFONDEUR[i] = aleatoire.nextLong();
+        }
+    }
+
+    /** Nombre maximal de coups d'un problème */
+    public static final int COUPS_MAX = PLY_MAX / 2;
+
+    private final int threads;
+    private final int bitsTable;
+    private long noeudsMax = Long.MAX_VALUE;
+    private final AtomicLong noeuds = new AtomicLong();
+    private volatile boolean arret;
+
+    /**
+     * @param threads Nombre de threads (répartis sur les coups de la racine)
+     */
+    public SolveurMat(int threads) {
+        this(threads, 20);
+    }
+
+    /**
+     * @param threads Nombre de threads
+     * @param bitsTable Taille de la table de transposition de chaque thread (2^bits entrées de 16 octets)
+     */
+    public SolveurMat(int threads, int bitsTable) {
+        this.threads = Math.max(1, threads);
+        this.bitsTable = bitsTable;
+    }
+
+    /** Limite le nombre total de nœuds (au-delà, le résultat est INCONNU) */
+    public void setNoeudsMax(long noeudsMax) {
+        this.noeudsMax = noeudsMax;
+    }
+
+    /** Interrompt la résolution en cours */
+    public void arreter() {
+        arret = true;
+    }
+
+    /**
+     * Cherche un mat en au plus N coups pour le joueur au trait
+     * @param position La position (non modifiée)
+     * @param coupsMax N
+     * @return Le mat le plus court et sa ligne (meilleure défense), ou la preuve qu'il n'y en a pas
+     */
+    public Resultat resoudre(Echiquier position, int coupsMax) throws InterruptedException {
+        long debut = System.nanoTime();
+        arret = false;
+        noeuds.set(0);
+        int n = Math.min(coupsMax, COUPS_MAX);
+        Preuve[] preuves = new Preuve[threads];
+        for (int i = 0; i < threads; i++) {
+            preuves[i] = new Preuve(position);
+        }
+        int[] racine = new int[256];
+        int nombre = ordonner(preuves[0].echiquier, racine, preuves[0].echiquier.genererCoupsLegaux(racine, 0));
+        if (nombre == 0) {
+            return new Resultat(Statut.PAS_DE_MAT, position, new int[0], 0, 0, debut);
+        }
+
+        ExecutorService pool = threads > 1 ? Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "solveur-mat");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        boolean inconnu = false;
+        try {
+            for (int coups = 1; coups <= n; coups++) {
+                int plies = 2 * coups - 2;
+                AtomicInteger suivant = new AtomicInteger();
+                AtomicInteger trouve = new AtomicInteger(-1);
+                AtomicInteger auteur = new AtomicInteger(-1);
+                boolean[] indecis = new boolean[threads];
+                List<Future<?>> taches = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int id = t;
+                    Runnable travail = () -> {
+                        Preuve p = preuves[id];
+                        for (int i = suivant.getAndIncrement(); i < nombre && trouve.get() < 0 && !arret;
+                                i = suivant.getAndIncrement()) {
+                            int r = p.prouverApres(racine[i], plies, trouve);
+                            if (r == PROUVE && trouve.compareAndSet(-1, i)) {
+                                auteur.set(id);
+                            } else if (r == INDECIS) {
+                                indecis[id] = true;
+                            }
+                        }
+                    };
+                    if (pool != null) taches.add(pool.submit(travail));
+                    else travail.run();
+                }
+                for (Future<?> f : taches) {
+                    try {
+                        f.get();
+                    } catch (java.util.concurrent.ExecutionException e) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                }
+                if (trouve.get() >= 0) {
+                    int[] ligne = preuves[auteur.get()].ligne(racine[trouve.get()], 2 * coups - 1);
+                    return new Resultat(Statut.MAT, position, ligne, coups, compter(preuves), debut);
+                }
+                for (boolean b : indecis) inconnu |= b;
+                if (arret) {
+                    inconnu = true;
+                    break;
+                }
+            }
+        } finally {
+            if (pool != null) pool.shutdownNow();
+        }
+        return new Resultat(inconnu ? Statut.INCONNU : Statut.PAS_DE_MAT, position, new int[0], 0, compter(preuves), debut);
+    }
+
+    private static long compter(Preuve[] preuves) {
+        long total = 0;
+        for (Preuve p : preuves) {
+            total += p.locaux;
+        }
+        return total;
+    }
+
+    /** Place les échecs en tête, dans l'ordre de génération */
+    private static int ordonner(Echiquier e, int[] coups, int n) {
+        int echecs = 0;
+        for (int i = 0; i < n; i++) {
+            int coup = coups[i];
+            e.jouer(coup);
+            boolean echec = e.estEnEchec();
+            e.dejouer(coup);
+            if (echec) {
+                System.arraycopy(coups, echecs, coups, echecs + 1, i - echecs);
+                coups[echecs++] = coup;
+            }
+        }
+        return n;
+    }
+
+    // ---------------------------------------------------------------- df-pn
+
+    private static final int PROUVE = 0, REFUTE = 1, INDECIS = 2;
+
+    /** Recherche df-pn d'un thread, avec sa table de transposition */
+    private final class Preuve {
+        final Echiquier echiquier = new Echiquier();
+        private final Echiquier racine;
+        private final long[] cles;
+        private final long[] valeurs;
+        private final int masque;
+        private final int[][] coups = new int[PLY_MAX + 1][256];
+        private final long[][] clesEnfants = new long[PLY_MAX + 1][256];
+        private final int[][] pnEnfants = new int[PLY_MAX + 1][256];
+        private final int[][] dnEnfants = new int[PLY_MAX + 1][256];
+        private final int[] tampon = new int[256];
+        private int dernierPn, dernierDn;
+        private long locaux;
+        private AtomicInteger trouve;
+
+        Preuve(Echiquier racine) {
+            this.racine = racine;
+            echiquier.copier(racine);
+            cles = new long[1 << bitsTable];
+            valeurs = new long[1 << bitsTable];
+            masque = (1 << bitsTable) - 1;
+        }
+
+        /**
+         * Le coup de la racine mate-t-il en plies demi-coups de plus ?
+         */
+        int prouverApres(int coup, int plies, AtomicInteger trouve) {
+            this.trouve = trouve;
+            echiquier.copier(racine);
+            echiquier.jouer(coup);
+            return prouver(0, plies, false);
+        }
+
+        private int prouver(int ply, int plies, boolean attaquant) {
+            long v = sonder(echiquier.getCle() ^ CLES_PROFONDEUR[plies]);
+            dernierPn = v == -1 ? 1 : pn(v);
+            dernierDn = v == -1 ? 1 : dn(v);
+            while (dernierPn != 0 && dernierDn != 0) {
+                if (interrompu()) {
+                    return INDECIS;
+                }
+                mid(ply, plies, attaquant, INFINI, INFINI);
+            }
+            return dernierPn == 0 ? PROUVE : REFUTE;
+        }
+
+        private boolean interrompu() {
+            return arret || (trouve != null && trouve.get() >= 0);
+        }
+
+        /**
+         * Développe un nœud jusqu'à ce que ses nombres de preuve ou de réfutation
+         * atteignent les seuils ; les valeurs finales sont laissées dans
+         * dernierPn et dernierDn (la table peut les avoir déjà écrasées)
+         */
+        private void mid(int ply, int plies, boolean attaquant, int seuilPn, int seuilDn) {
+            long cle = echiquier.getCle() ^ CLES_PROFONDEUR[plies];
+            if ((++locaux & MASQUE_CONTROLE) == 0) {
+                if (noeuds.addAndGet(MASQUE_CONTROLE + 1) >= noeudsMax) {
+                    arret = true;
+                }
+            }
+            // Nœuds terminaux
+            if (!attaquant && plies == 0) {
+                boolean mat = echiquier.estEnEchec() && !echiquier.aUnCoupLegal(tampon);
+                resultat(cle, mat ? 0 : INFINI, mat ? INFINI : 0);
+                return;
+            }
+            int[] liste = coups[ply];
+            long[] enfants = clesEnfants[ply];
+            int[] pns = pnEnfants[ply], dns = dnEnfants[ply];
+            int n = 0;
+            int fin = echiquier.genererCoups(liste, 0);
+            for (int i = 0; i < fin; i++) {
+                int coup = liste[i];
+                if (!echiquier.jouer(coup)) {
+                    continue;
+                }
+                boolean echec = echiquier.estEnEchec();
+                // Au dernier coup de l'attaquant, seul un échec peut mater
+                if (attaquant && plies == 1 && !echec) {
+                    echiquier.dejouer(coup);
+                    continue;
+                }
+                long cleEnfant = echiquier.getCle() ^ CLES_PROFONDEUR[plies - 1];
+                long v = sonder(cleEnfant);
+                int pn = 1, dn = 1;
+                if (v != -1) {
+                    pn = pn(v);
+                    dn = dn(v);
+                } else if (attaquant) {
+                    // Moins le défenseur a de réponses, plus le mat est proche
+                    int reponses = echiquier.genererCoupsLegaux(tampon, 0);
+                    if (reponses == 0) {
+                        pn = echec ? 0 : INFINI;
+                        dn = echec ? INFINI : 0;
+                    } else if (plies == 1) {
+                        pn = INFINI;
+                        dn = 0;
+                    } else {
+                        pn = reponses;
+                    }
+                }
+                echiquier.dejouer(coup);
+                // Échecs en tête
+                int place = n;
+                if (attaquant && echec) {
+                    place = 0;
+                    while (place < n && echecEnTete(ply, place)) place++;
+                    System.arraycopy(liste, place, liste, place + 1, n - place);
+                    System.arraycopy(enfants, place, enfants, place + 1, n - place);
+                    System.arraycopy(pns, place, pns, place + 1, n - place);
+                    System.arraycopy(dns, place, dns, place + 1, n - place);
+                    coup |= ECHEC;
+                }
+                liste[place] = coup;
+                enfants[place] = cleEnfant;
+                pns[place] = pn;
+                dns[place] = dn;
+                n++;
+            }
+            if (n == 0) {
+                boolean gagne = !attaquant && echiquier.estEnEchec();
+                resultat(cle, gagne ? 0 : INFINI, gagne ? INFINI : 0);
+                return;
+            }
+
+            while (true) {
+                // pn et dn du nœud d'après ses enfants
+                long somme = 0;
+                int min = INFINI, second = INFINI, meilleur = 0;
+                for (int i = 0; i < n; i++) {
+                    int critere = attaquant ? pns[i] : dns[i];
+                    somme += attaquant ? dns[i] : pns[i];
+                    if (critere < min) {
+                        second = min;
+                        min = critere;
+                        meilleur = i;
+                    } else if (critere < second) {
+                        second = critere;
+                    }
+                }
+                int total = (int) Math.min(somme, INFINI);
+                int pn = attaquant ? min : total, dn = attaquant ? total : min;
+                if (pn >= seuilPn || dn >= seuilDn || interrompu()) {
+                    resultat(cle, pn, dn);
+                    return;
+                }
+                // Seuils des enfants, avec la marge 1 + 1/4 qui limite les allers-retours
+                int marge = (int) Math.min(INFINI, second + (second >> 2) + 1L);
+                int seuilPnEnfant, seuilDnEnfant;
+                if (attaquant) {
+                    seuilPnEnfant = Math.min(seuilPn, marge);
+                    seuilDnEnfant = (int) Math.min(INFINI, (long) seuilDn - dn + dns[meilleur]);
+                } else {
+                    seuilDnEnfant = Math.min(seuilDn, marge);
+                    seuilPnEnfant = (int) Math.min(INFINI, (long) seuilPn - pn + pns[meilleur]);
+                }
+                int coup = liste[meilleur] & ~ECHEC;
+                echiquier.jouer(coup);
+                mid(ply + 1, plies - 1, !attaquant, seuilPnEnfant, seuilDnEnfant);
+                echiquier.dejouer(coup);
+                pns[meilleur] = dernierPn;
+                dns[meilleur] = dernierDn;
+            }
+        }
+
+        private void resultat(long cle, int pn, int dn) {
+            stocker(cle, pn, dn);
+            dernierPn = pn;
+            dernierDn = dn;
+        }
+
+        private boolean echecEnTete(int ply, int i) {
+            return (coups[ply][i] & ECHEC) != 0;
+        }
+
+        // Table à deux entrées par case ; les nœuds résolus y sont conservés en priorité
+
+        private long sonder(long cle) {
+            int i = (int) cle & masque & ~1;
+            if (cles[i] == cle) return valeurs[i];
+            if (cles[i + 1] == cle) return valeurs[i + 1];
+            return -1;
+        }
+
+        private void stocker(long cle, int pn, int dn) {
+            int i = (int) cle & masque & ~1;
+            if (cles[i] != cle && (cles[i + 1] == cle || estResolu(i) && !estResolu(i + 1))) {
+                i++;
+            }
+            cles[i] = cle;
+            valeurs[i] = (long) pn << 32 | dn;
+        }
+
+        private boolean estResolu(int i) {
+            return cles[i] != 0 && (pn(valeurs[i]) == 0 || dn(valeurs[i]) == 0);
+        }
+
+        /**
+         * Ligne du mat prouvé : l'attaquant mate au plus vite, le défenseur
+         * retarde le mat le plus possible
+         */
+        int[] ligne(int premier, int plies) {
+            trouve = null;
+            echiquier.copier(racine);
+            List<Integer> ligne = new ArrayList<>();
+            ligne.add(premier);
+            echiquier.jouer(premier);
+            plies--;
+            int[] liste = new int[256];
+            while (plies > 0) {
+                boolean attaquant = (ligne.size() & 1) == 0;
+                int n = echiquier.genererCoupsLegaux(liste, 0);
+                int choisi = CodeCoup.AUCUN, distance = attaquant ? Integer.MAX_VALUE : -1;
+                for (int i = 0; i < n; i++) {
+                    int coup = liste[i];
+                    echiquier.jouer(coup);
+                    // Plus court mat encore prouvable après ce coup
+                    int d = -1;
+                    for (int reste = attaquant ? 0 : 1; reste < plies; reste += 2) {
+                        if (prouver(0, reste, !attaquant) == PROUVE) {
+                            d = reste;
+                            break;
+                        }
+                    }
+                    echiquier.dejouer(coup);
+                    if (d >= 0 && (attaquant ? d < distance : d > distance)) {
+                        distance = d;
+                        choisi = coup;
+                    }
+                }
+                if (choisi == CodeCoup.AUCUN || arret) {
+                    break;
+                }
+                ligne.add(choisi);
+                echiquier.jouer(choisi);
+                plies = distance;
+            }
+            int[] resultat = new int[ligne.size()];
+            for (int i = 0; i < resultat.length; i++) {
+                resultat[i] = ligne.get(i);
+            }
+            return resultat;
+        }
+    }
+
+    // Marque d'un coup donnant échec dans les listes du solveur (hors des bits du code)
+    private static final int ECHEC = 1 << 30;
+
+    private static int pn(long v) {
+        return (int) (v >>> 32);
+    }
+
+    private static int dn(long v) {
+        return (int) v;
+    }
+
+    // ------------------------------------------------------------- résultat
+
+    /**
+     * Résultat d'une résolution
+     */
+    public static final class Resultat {
+        private final Statut statut;
+        private final int[] coups;
+        private final List<String> san;
+        private final int coupsAvantMat;
+        private final long noeuds;
+        private final long tempsMs;
+
+        Resultat(Statut statut, Echiquier position, int[] coups, int coupsAvantMat, long noeuds, long debutNs) {
+            this.statut = statut;
+            this.coups = coups;
+            this.coupsAvantMat = coupsAvantMat;
+            this.noeuds = noeuds;
+            this.tempsMs = (System.nanoTime() - debutNs) / 1_000_000L;
+            Echiquier e = new Echiquier();
+            e.copier(position);
+            int[] tampon = new int[256];
+            List<String> notation = new ArrayList<>();
+            StringBuilder sb = new StringBuilder();
+            for (int coup : coups) {
+                sb.setLength(0);
+                San.ecrire(e, coup, sb, tampon);
+                notation.add(sb.toString());
+                e.jouer(coup);
+            }
+            this.san = Collections.unmodifiableList(notation);
+        }
+
+        public Statut getStatut() {
+            return statut;
+        }
+
+        /** Ligne du mat (codes du moteur), vide s'il n'y en a pas */
+        public int[] getCoups() {
+            return coups.clone();
+        }
+
+        /** Ligne du mat en notation SAN */
+        public List<String> getSan() {
+            return san;
+        }
+
+        /** N du mat trouvé (0 s'il n'y en a pas) */
+        public int getCoupsAvantMat() {
+            return coupsAvantMat;
+        }
+
+        public long getNoeuds() {
+            return noeuds;
+        }
+
+        public long getTempsMs() {
+            return tempsMs;
+        }
+
+        @Override
+        public String toString() {
+            return switch (statut) {
+                case MAT -> "Mat en " + coupsAvantMat + " : " + String.join(" ", san);
+                case PAS_DE_MAT -> "Pas de mat";
+                case INCONNU -> "Indécis";
+            } + " (" + noeuds + " nœuds, " + tempsMs + " ms)";
+        }
+    }
+}
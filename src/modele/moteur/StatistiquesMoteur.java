@@ -0,0 +1,161 @@
+package modele.moteur;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Statistiques de toutes les recherches du processus (tous les moteurs),
+ * exposées en JMX sous {@value #NOM_JMX} ; chaque recherche est aussi émise
+ * comme événement JFR « modele.moteur.Recherche ». De quoi comprendre un
+ * moteur lent sur un serveur en production (vitesse, profondeur, efficacité
+ * de la table et du tri) avec jconsole ou un enregistrement JFR, sans débogueur.
+ *
+ * Les compteurs sont additionnés une fois par recherche : la recherche
+ * elle-même ne fait qu'incrémenter des champs de sa propre instance.
+ */
+public final class StatistiquesMoteur implements StatistiquesMoteurMBean {
+    public static final String NOM_JMX = "modele.moteur:type=StatistiquesMoteur";
+
+    private static final StatistiquesMoteur GLOBALES = new StatistiquesMoteur();
+    private static volatile boolean publiees;
+
+    private long recherches;
+    private long noeuds;
+    private long tempsNs;
+    private long sommeProfondeurs;
+    private long sondagesTable;
+    private long succesTable;
+    private long coupuresTable;
+    private long coupuresBeta;
+    private long coupuresPremierCoup;
+    private long coupuresCoupNul;
+    private long evaluations;
+    private long noeudsDerniere;
+    private long tempsDerniereNs;
+    private int profondeurDerniere;
+    private int profondeurSelectiveDerniere;
+    private int remplissageTable;
+
+    private StatistiquesMoteur() {
+    }
+
+    /**
+     * Les statistiques du processus, enregistrées auprès du serveur JMX de
+     * la plateforme au premier appel
+     */
+    public static StatistiquesMoteur globales() {
+        if (!publiees) {
+            publier();
+        }
+        return GLOBALES;
+    }
+
+    private static synchronized void publier() {
+        if (publiees) {
+            return;
+        }
+        publiees = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBALES, new ObjectName(NOM_JMX));
+        } catch (JMException | SecurityException e) {
+            // Sans JMX (ou déjà enregistré par un autre chargeur) : statistiques locales seulement
+        }
+    }
+
+    /**
+     * Ajoute une recherche terminée et émet son événement JFR
+     * @param recherches Recherches des threads, la principale en premier
+     * @param dureeNs Durée de la recherche
+     * @param evenement Événement commencé au départ de la recherche
+     */
+    void enregistrer(Recherche[] recherches, TableTransposition tt, long dureeNs, RechercheEvenement evenement) {
+        long n = 0, sondages = 0, succes = 0, table = 0, beta = 0, premier = 0, nul = 0, evals = 0;
+        for (Recherche r : recherches) {
+            n += r.getNoeuds();
+            sondages += r.getSondagesTable();
+            succes += r.getSuccesTable();
+            table += r.getCoupuresTable();
+            beta += r.getCoupuresBeta();
+            premier += r.getCoupuresPremierCoup();
+            nul += r.getCoupuresCoupNul();
+            evals += r.getEvaluations();
+        }
+        Recherche principale = recherches[0];
+        int remplissage = tt.remplissage();
+        synchronized (this) {
+            this.recherches++;
+            noeuds += n;
+            tempsNs += dureeNs;
+            sommeProfondeurs += principale.getProfondeurAtteinte();
+            sondagesTable += sondages;
+            succesTable += succes;
+            coupuresTable += table;
+            coupuresBeta += beta;
+            coupuresPremierCoup += premier;
+            coupuresCoupNul += nul;
+            evaluations += evals;
+            noeudsDerniere = n;
+            tempsDerniereNs = dureeNs;
+            profondeurDerniere = principale.getProfondeurAtteinte();
+            profondeurSelectiveDerniere = principale.getProfondeurSelective();
+            remplissageTable = remplissage;
+        }
+
+        evenement.end();
+        if (evenement.shouldCommit()) {
+            evenement.noeuds = n;
+            evenement.noeudsParSeconde = parSeconde(n, dureeNs);
+            evenement.profondeur = principale.getProfondeurAtteinte();
+            evenement.profondeurSelective = principale.getProfondeurSelective();
+            evenement.threads = recherches.length;
+            evenement.coup = CodeCoup.toString(principale.getMeilleurCoup());
+            evenement.score = principale.getMeilleurScore();
+            evenement.sondagesTable = sondages;
+            evenement.succesTable = succes;
+            evenement.coupuresTable = table;
+            evenement.remplissageTable = remplissage;
+            evenement.coupuresBeta = beta;
+            evenement.coupuresPremierCoup = premier;
+            evenement.coupuresCoupNul = nul;
+            evenement.evaluations = evals;
+            evenement.commit();
+        }
+    }
+
+    private static long parSeconde(long n, long ns) {
+        return ns > 0 ? n * 1_000_000_000L / ns : 0;
+    }
+
+    private static double pourcentage(long partie, long total) {
+        return total > 0 ? 100.0 * partie / total : 0;
+    }
+
+    @Override public synchronized long getRecherches() { return recherches; }
+    @Override public synchronized long getNoeuds() { return noeuds; }
+    @Override public synchronized long getTempsTotalMs() { return tempsNs / 1_000_000L; }
+    @Override public synchronized long getNoeudsParSeconde() { return parSeconde(noeuds, tempsNs); }
+    @Override public synchronized long getNoeudsParSecondeDerniere() { return parSeconde(noeudsDerniere, tempsDerniereNs); }
+    @Override public synchronized long getTempsDerniereMs() { return tempsDerniereNs / 1_000_000L; }
+    @Override public synchronized double getTempsMoyenMs() { return recherches > 0 ? tempsNs / 1e6 / recherches : 0; }
+    @Override public synchronized int getProfondeurDerniere() { return profondeurDerniere; }
+    @Override public synchronized int getProfondeurSelectiveDerniere() { return profondeurSelectiveDerniere; }
+    @Override public synchronized double getProfondeurMoyenne() { return recherches > 0 ? (double) sommeProfondeurs / recherches : 0; }
+    @Override public synchronized double getTauxSuccesTable() { return pourcentage(succesTable, sondagesTable); }
+    @Override public synchronized double getTauxCoupuresTable() { return pourcentage(coupuresTable, sondagesTable); }
+    @Override public synchronized int getRemplissageTable() { return remplissageTable; }
+    @Override public synchronized long getCoupuresBeta() { return coupuresBeta; }
+    @Override public synchronized double getTauxCoupuresPremierCoup() { return pourcentage(coupuresPremierCoup, coupuresBeta); }
+    @Override public synchronized long getCoupuresCoupNul() { return coupuresCoupNul; }
+    @Override public synchronized long getEvaluations() { return evaluations; }
+    @Override public synchronized double getEvaluationsParNoeud() { return noeuds > 0 ? (double) evaluations / noeuds : 0; }
+
+    @Override
+    public synchronized void reinitialiser() {
+        recherches = noeuds = tempsNs = sommeProfondeurs = 0;
+        sondagesTable = succesTable = coupuresTable = 0;
+        coupuresBeta = coupuresPremierCoup = coupuresCoupNul = evaluations = 0;
+        noeudsDerniere = tempsDerniereNs = 0;
+        profondeurDerniere = profondeurSelectiveDerniere = remplissageTable = 0;
+    }
+}
@@ -0,0 +1,52 @@
+package modele.moteur;
+
+/**
+ * Interface JMX des statistiques du moteur ({@link StatistiquesMoteur}).
+ * Les totaux portent sur toutes les recherches depuis le démarrage ou la
+ * dernière réinitialisation, les valeurs « dernière » sur la plus récente.
+ */
+public interface StatistiquesMoteurMBean {
+    long getRecherches();
+
+    long getNoeuds();
+
+    long getTempsTotalMs();
+
+    /** Vitesse moyenne sur toutes les recherches */
+    long getNoeudsParSeconde();
+
+    long getNoeudsParSecondeDerniere();
+
+    long getTempsDerniereMs();
+
+    double getTempsMoyenMs();
+
+    int getProfondeurDerniere();
+
+    int getProfondeurSelectiveDerniere();
+
+    double getProfondeurMoyenne();
+
+    /** Sondages de la table de transposition qui ont trouvé une entrée, en % */
+    double getTauxSuccesTable();
+
+    /** Sondages de la table qui ont suffi à conclure le nœud, en % */
+    double getTauxCoupuresTable();
+
+    /** Remplissage de la table après la dernière recherche, en pour mille */
+    int getRemplissageTable();
+
+    long getCoupuresBeta();
+
+    /** Coupures bêta obtenues dès le premier coup essayé, en % (qualité du tri) */
+    double getTauxCoupuresPremierCoup();
+
+    long getCoupuresCoupNul();
+
+    long getEvaluations();
+
+    double getEvaluationsParNoeud();
+
+    /** Remet les compteurs à zéro */
+    void reinitialiser();
+}
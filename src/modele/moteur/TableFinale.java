@@ -0,0 +1,307 @@
+package modele.moteur;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Table de finale pour un matériel donné (au plus deux pièces en plus des rois),
+ * projetée en mémoire. Pour chaque position indexée, un code sur quelques bits :
+ * 0 pour une nulle (ou une position impossible), sinon le nombre de demi-coups
+ * avant le mat plus un. Un nombre impair de demi-coups gagne pour le joueur
+ * au trait, un nombre pair perd.
+ *
+ * Index : trait, roi blanc ramené sur les colonnes a à d (symétrie gauche-droite),
+ * roi noir, puis les autres pièces dans l'ordre du matériel. Les blancs ont
+ * toujours le matériel le plus fort ; les positions inverses sont retournées.
+ */
+final class TableFinale implements Closeable {
+    static final int MAGIQUE = 0x54424631; // "TBF1"
+    static final int TAILLE_ENTETE = 16;
+    static final String EXTENSION = ".tbf";
+
+    private static final char[] LETTRES = {' ', 'P', 'N', 'B', 'R', 'Q', 'K'};
+    // Ordre d'écriture du matériel : pièces fortes d'abord
+    private static final int[] ORDRE = {Echiquier.DAME, Echiquier.TOUR, Echiquier.FOU, Echiquier.CAVALIER, Echiquier.PION};
+
+    private final int[] pieces;
+    private final String nom;
+    private final long taille;
+    private final int bits;
+    private final FileChannel fichier;
+    private final ByteBuffer donnees;
+
+    private TableFinale(int[] pieces, int bits, FileChannel fichier, ByteBuffer donnees) {
+        this.pieces = pieces;
+        this.nom = nom(pieces);
+        this.taille = taille(pieces.length);
+        this.bits = bits;
+        this.fichier = fichier;
+        this.donnees = donnees;
+    }
+
+    /**
+     * Projette une table en mémoire
+     */
+    static TableFinale ouvrir(Path chemin) throws IOException {
+        FileChannel fichier = FileChannel.open(chemin, StandardOpenOption.READ);
+        try {
+            ByteBuffer donnees = fichier.map(FileChannel.MapMode.READ_ONLY, 0, fichier.size());
+            if (donnees.getInt(0) != MAGIQUE) {
+                throw new IOException("Table de finale invalide : " + chemin);
+            }
+            int n = donnees.get(4);
+            int[] pieces = new int[n];
+            for (int i = 0; i < n; i++) {
+                pieces[i] = donnees.get(5 + i);
+            }
+            int bits = donnees.get(7);
+            long attendu = TAILLE_ENTETE + ((taille(n) * bits + 63) >>> 6) * 8 + 8;
+            if (n > 2 || bits < 1 || bits > 8 || fichier.size() < attendu) {
+                throw new IOException("Table de finale tronquée : " + chemin);
+            }
+            return new TableFinale(pieces, bits, fichier, donnees);
+        } catch (IOException | RuntimeException e) {
+            fichier.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Écrit une table (codes 0..255 par index) en bits compactés
+     */
+    static void ecrire(Path chemin, int[] pieces, byte[] codes) throws IOException {
+        int max = 0;
+        for (byte c : codes) {
+            max = Math.max(max, c & 0xFF);
+        }
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        ByteBuffer tampon = ByteBuffer.allocate(1 << 16);
+        tampon.putInt(MAGIQUE).put((byte) pieces.length);
+        for (int i = 0; i < 2; i++) {
+            tampon.put((byte) (i < pieces.length ? pieces[i] : 0));
+        }
+        tampon.put((byte) bits).putLong(0);
+        try (FileChannel sortie = FileChannel.open(chemin, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long mot = 0;
+            int rempli = 0;
+            for (byte c : codes) {
+                long v = c & 0xFF;
+                mot |= v << rempli;
+                rempli += bits;
+                if (rempli >= 64) {
+                    ecrireMot(sortie, tampon, mot);
+                    rempli -= 64;
+                    mot = rempli > 0 ? v >>> (bits - rempli) : 0;
+                }
+            }
+            if (rempli > 0) {
+                ecrireMot(sortie, tampon, mot);
+            }
+            // Mot de garde : une lecture à cheval ne sort jamais du fichier
+            ecrireMot(sortie, tampon, 0);
+            tampon.flip();
+            while (tampon.hasRemaining()) {
+                sortie.write(tampon);
+            }
+        }
+    }
+
+    private static void ecrireMot(FileChannel sortie, ByteBuffer tampon, long mot) throws IOException {
+        if (tampon.remaining() < 8) {
+            tampon.flip();
+            while (tampon.hasRemaining()) {
+                sortie.write(tampon);
+            }
+            tampon.clear();
+        }
+        tampon.putLong(mot);
+    }
+
+    /**
+     * Code stocké pour un index
+     */
+    int code(long index) {
+        long bit = index * bits;
+        int decalage = (int) (bit & 63);
+        long octet = TAILLE_ENTETE + (bit >>> 6) * 8;
+        long v = donnees.getLong((int) octet) >>> decalage;
+        if (decalage + bits > 64) {
+            v |= donnees.getLong((int) octet + 8) << (64 - decalage);
+        }
+        return (int) (v & ((1 << bits) - 1));
+    }
+
+    // --------------------------------------------------------------- index
+
+    /** Nombre de positions indexées avec n pièces en plus des rois */
+    static long taille(int n) {
+        return 2L * 32 * 64 << (6 * n);
+    }
+
+    /**
+     * Index d'une position
+     * @param trait Joueur au trait
+     * @param cases Roi blanc, roi noir, puis les autres pièces
+     */
+    static long index(int trait, int[] cases, int n) {
+        int miroir = (cases[0] & 7) > 3 ? 7 : 0;
+        int roi = cases[0] ^ miroir;
+        long index = trait * 32L + (roi >> 3) * 4 + (roi & 3);
+        for (int i = 1; i < n + 2; i++) {
+            index = index << 6 | (cases[i] ^ miroir);
+        }
+        return index;
+    }
+
+    /**
+     * Index d'une position de l'échiquier, sans allocation
+     * @param inverse Les couleurs sont-elles inversées par rapport à la table ?
+     */
+    long index(Echiquier e, boolean inverse) {
+        int retourne = inverse ? 56 : 0, c = inverse ? 8 : 0;
+        int roiBlanc = Long.numberOfTrailingZeros(e.pieces[Echiquier.ROI | c]) ^ retourne;
+        int roiNoir = Long.numberOfTrailingZeros(e.pieces[Echiquier.ROI | (8 ^ c)]) ^ retourne;
+        int miroir = (roiBlanc & 7) > 3 ? 7 : 0;
+        roiBlanc ^= miroir;
+        long index = (e.trait ^ (inverse ? 1 : 0)) * 32L + (roiBlanc >> 3) * 4 + (roiBlanc & 3);
+        index = index << 6 | (roiNoir ^ miroir);
+        for (int i = 0; i < pieces.length; i++) {
+            long bb = e.pieces[pieces[i] ^ c];
+            // Deux pièces identiques : la seconde prend la case suivante
+            if (i > 0 && pieces[i] == pieces[i - 1]) {
+                bb &= bb - 1;
+            }
+            index = index << 6 | (Long.numberOfTrailingZeros(bb) ^ retourne ^ miroir);
+        }
+        return index;
+    }
+
+    /**
+     * Position d'un index
+     * @param cases Reçoit les cases (roi blanc, roi noir, autres pièces)
+     * @return Le joueur au trait
+     */
+    static int decoder(long index, int[] cases, int n) {
+        for (int i = n + 1; i >= 1; i--) {
+            cases[i] = (int) (index & 63);
+            index >>>= 6;
+        }
+        int roi = (int) (index & 31);
+        cases[0] = (roi >> 2) * 8 + (roi & 3);
+        return (int) (index >>> 5);
+    }
+
+    // ------------------------------------------------------------- matériel
+
+    int[] getPieces() {
+        return pieces;
+    }
+
+    long getTaille() {
+        return taille;
+    }
+
+    /** Matériel de la table, par exemple « KBNK » */
+    String getNom() {
+        return nom;
+    }
+
+    static String nom(int[] pieces) {
+        StringBuilder sb = new StringBuilder("K");
+        for (int couleur = Echiquier.BLANC; couleur <= Echiquier.NOIR; couleur++) {
+            if (couleur == Echiquier.NOIR) {
+                sb.append('K');
+            }
+            for (int type : ORDRE) {
+                for (int p : pieces) {
+                    if (p == (type | couleur << 3)) {
+                        sb.append(LETTRES[type]);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Matériel canonique (blancs les plus forts, pièces triées) d'après un nom comme « KRKP »
+     * @throws IllegalArgumentException si le nom est invalide ou a plus de deux pièces hors rois
+     */
+    static int[] materiel(String nom) {
+        int second = nom.indexOf('K', 1);
+        if (nom.isEmpty() || nom.charAt(0) != 'K' || second < 0 || nom.length() > 6) {
+            throw new IllegalArgumentException("Matériel invalide : " + nom);
+        }
+        int[] pieces = new int[nom.length() - 2];
+        int n = 0;
+        for (int i = 1; i < nom.length(); i++) {
+            if (i == second) continue;
+            int type = new String(LETTRES).indexOf(nom.charAt(i));
+            if (type < Echiquier.PION || type > Echiquier.DAME) {
+                throw new IllegalArgumentException("Matériel invalide : " + nom);
+            }
+            pieces[n++] = type | (i > second ? 8 : 0);
+        }
+        if (n > 2) {
+            throw new IllegalArgumentException("Au plus deux pièces en plus des rois : " + nom);
+        }
+        return canonique(pieces);
+    }
+
+    /**
+     * Oriente un matériel (blancs les plus forts) et trie ses pièces
+     */
+    static int[] canonique(int[] pieces) {
+        int forceBlancs = 0, forceNoirs = 0;
+        for (int p : pieces) {
+            if (Echiquier.couleur(p) == Echiquier.BLANC) forceBlancs += Evaluation.VALEURS[Echiquier.type(p)];
+            else forceNoirs += Evaluation.VALEURS[Echiquier.type(p)];
+        }
+        int[] resultat = pieces.clone();
+        if (forceNoirs > forceBlancs || (forceNoirs == forceBlancs && cleTri(inverser(pieces)) > cleTri(pieces))) {
+            resultat = inverser(pieces);
+        }
+        // Blancs (codes 1..5) puis noirs (9..13), chaque camp par type décroissant
+        java.util.Arrays.sort(resultat);
+        int blancs = 0;
+        while (blancs < resultat.length && Echiquier.couleur(resultat[blancs]) == Echiquier.BLANC) blancs++;
+        inverserOrdre(resultat, 0, blancs);
+        inverserOrdre(resultat, blancs, resultat.length);
+        return resultat;
+    }
+
+    private static void inverserOrdre(int[] t, int debut, int fin) {
+        for (int i = debut, j = fin - 1; i < j; i++, j--) {
+            int x = t[i];
+            t[i] = t[j];
+            t[j] = x;
+        }
+    }
+
+    private static int[] inverser(int[] pieces) {
+        int[] inverse = new int[pieces.length];
+        for (int i = 0; i < pieces.length; i++) {
+            inverse[i] = pieces[i] ^ 8;
+        }
+        return inverse;
+    }
+
+    // Départage de deux camps de même valeur : le camp aux plus grosses pièces est « blanc »
+    private static int cleTri(int[] pieces) {
+        int cle = 0;
+        for (int p : pieces) {
+            if (Echiquier.couleur(p) == Echiquier.BLANC) cle += 1 << (3 * Echiquier.type(p));
+        }
+        return cle;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fichier.close();
+    }
+}
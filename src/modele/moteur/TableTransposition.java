@@ -0,0 +1,117 @@
+package modele.moteur;
+
+/**
+ * Table de transposition partagée entre les threads de recherche.
+ * Deux tableaux de long (clé et donnée), la clé étant stockée xorée avec la
+ * donnée : une entrée déchirée par une écriture concurrente est simplement
+ * ignorée, sans verrou.
+ *
+ * Donnée : coup (bits 0-17), score + 32768 (18-33), profondeur (34-41),
+ * borne (42-43), âge (44-49).
+ */
+public final class TableTransposition {
+    public static final int BORNE_EXACTE = 1, BORNE_BASSE = 2, BORNE_HAUTE = 3;
+
+    private static final int OCTETS_PAR_ENTREE = 16;
+
+    private long[] cles;
+    private long[] donnees;
+    private int masque;
+    private int age;
+
+    /**
+     * @param megaoctets Taille de la table
+     */
+    public TableTransposition(int megaoctets) {
+        redimensionner(megaoctets);
+    }
+
+    /**
+     * Réalloue la table (arrondie à une puissance de deux d'entrées) et la vide
+     */
+    public void redimensionner(int megaoctets) {
+        long entrees = Math.max(1024, (long) megaoctets * 1024 * 1024 / OCTETS_PAR_ENTREE);
+        int taille = Integer.highestOneBit((int) Math.min(entrees, 1 << 30));
+        cles = new long[taille];
+        donnees = new long[taille];
+        masque = taille - 1;
+        age = 0;
+    }
+
+    /** Vide la table (nouvelle partie) */
+    public void vider() {
+        java.util.Arrays.fill(cles, 0L);
+        java.util.Arrays.fill(donnees, 0L);
+        age = 0;
+    }
+
+    /** À appeler au début de chaque recherche : les anciennes entrées deviennent remplaçables */
+    public void nouvelleRecherche() {
+        age = (age + 1) & 63;
+    }
+
+    /**
+     * Cherche une entrée
+     * @return La donnée brute, ou 0 si la position est absente
+     */
+    public long sonder(long cle) {
+        int i = (int) cle & masque;
+        long donnee = donnees[i];
+        return (cles[i] ^ donnee) == cle ? donnee : 0L;
+    }
+
+    /**
+     * Enregistre une entrée (remplace si plus profonde, plus récente, ou autre position)
+     */
+    public void stocker(long cle, int coup, int score, int profondeur, int borne) {
+        int i = (int) cle & masque;
+        long ancienne = donnees[i];
+        boolean memePosition = (cles[i] ^ ancienne) == cle;
+        if (memePosition && profondeur < profondeurDe(ancienne) - 2 && ageDe(ancienne) == age
+                && borne != BORNE_EXACTE) {
+            return;
+        }
+        if (coup == CodeCoup.AUCUN && memePosition) {
+            coup = coupDe(ancienne);
+        }
+        long donnee = (coup & 0x3FFFFL)
+                | ((long) (score + 32768) & 0xFFFFL) << 18
+                | ((long) Math.max(0, Math.min(255, profondeur))) << 34
+                | ((long) borne) << 42
+                | ((long) age) << 44;
+        cles[i] = cle ^ donnee;
+        donnees[i] = donnee;
+    }
+
+    public static int coupDe(long donnee) {
+        return (int) (donnee & 0x3FFFF);
+    }
+
+    public static int scoreDe(long donnee) {
+        return (int) ((donnee >>> 18) & 0xFFFF) - 32768;
+    }
+
+    public static int profondeurDe(long donnee) {
+        return (int) ((donnee >>> 34) & 0xFF);
+    }
+
+    public static int borneDe(long donnee) {
+        return (int) ((donnee >>> 42) & 3);
+    }
+
+    private static int ageDe(long donnee) {
+        return (int) ((donnee >>> 44) & 63);
+    }
+
+    /**
+     * Taux de remplissage en pour mille (entrées de la recherche courante), format UCI
+     */
+    public int remplissage() {
+        int echantillon = Math.min(1000, cles.length);
+        int pleines = 0;
+        for (int i = 0; i < echantillon; i++) {
+            if (donnees[i] != 0 && ageDe(donnees[i]) == age) pleines++;
+        }
+        return pleines * 1000 / echantillon;
+    }
+}
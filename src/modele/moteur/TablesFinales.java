@@ -0,0 +1,214 @@
+package modele.moteur;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ensemble de tables de finales (fichiers .tbf d'un dossier), sondées par la
+ * recherche sans allocation. Un résultat de sondage vaut ABSENTE, NULLE, ou
+ * le nombre de demi-coups avant le mat plus un : impair si le joueur au trait
+ * est maté, pair s'il mate. Les droits de roque et la prise en passant ne
+ * sont pas couverts : ces positions sont absentes. Lecture thread-safe.
+ */
+public final class TablesFinales implements Closeable {
+    public static final int ABSENTE = -1;
+    public static final int NULLE = 0;
+    /** Nombre maximal de pièces (rois compris) d'une position couverte */
+    public static final int PIECES_MAX = 4;
+
+    /** Propriété système donnant le dossier des tables utilisé par défaut */
+    public static final String PROPRIETE_TABLES = "tables";
+    private static final String DOSSIER_PAR_DEFAUT = "tables";
+
+    // Signature du matériel (deux pièces hors rois au plus) : 11 * 11 combinaisons
+    private static final int SIGNATURES = 121;
+
+    private final Map<String, TableFinale> parNom = new LinkedHashMap<>();
+    private final TableFinale[] parSignature = new TableFinale[SIGNATURES];
+    private final boolean[] inversee = new boolean[SIGNATURES];
+
+    TablesFinales() {
+    }
+
+    /**
+     * Ouvre toutes les tables d'un dossier
+     */
+    public static TablesFinales ouvrir(Path dossier) throws IOException {
+        TablesFinales tables = new TablesFinales();
+        List<Path> fichiers = new ArrayList<>();
+        try (DirectoryStream<Path> flux = Files.newDirectoryStream(dossier, "*" + TableFinale.EXTENSION)) {
+            flux.forEach(fichiers::add);
+        }
+        fichiers.sort(null);
+        for (Path f : fichiers) {
+            tables.ajouter(TableFinale.ouvrir(f));
+        }
+        return tables;
+    }
+
+    /**
+     * Tables partagées du dossier désigné par la propriété « tables » (dossier tables par défaut)
+     * @return Les tables, ou null si le dossier est absent ou vide
+     */
+    public static TablesFinales parDefaut() {
+        return Partage.TABLES;
+    }
+
+    private static final class Partage {
+        static final TablesFinales TABLES = charger();
+
+        private static TablesFinales charger() {
+            Path dossier = Paths.get(System.getProperty(PROPRIETE_TABLES, DOSSIER_PAR_DEFAUT));
+            if (!Files.isDirectory(dossier)) {
+                return null;
+            }
+            try {
+                TablesFinales tables = ouvrir(dossier);
+                return tables.parNom.isEmpty() ? null : tables;
+            } catch (IOException e) {
+                System.err.println("Tables de finales illisibles : " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    void ajouter(TableFinale table) {
+        int[] pieces = table.getPieces();
+        parNom.put(table.getNom(), table);
+        int signature = signature(pieces, 0);
+        parSignature[signature] = table;
+        inversee[signature] = false;
+        int inverse = signature(pieces, 8);
+        if (inverse != signature) {
+            parSignature[inverse] = table;
+            inversee[inverse] = true;
+        }
+    }
+
+    private static int signature(int[] pieces, int inversion) {
+        int a = -1, b = -1;
+        for (int p : pieces) {
+            if (a < 0) a = genre(p ^ inversion);
+            else b = genre(p ^ inversion);
+        }
+        return signature(a, b);
+    }
+
+    private static int genre(int piece) {
+        return Echiquier.couleur(piece) * 5 + Echiquier.type(piece) - 1;
+    }
+
+    private static int signature(int a, int b) {
+        return (Math.min(a, b) + 1) * 11 + Math.max(a, b) + 1;
+    }
+
+    TableFinale getTable(String nom) {
+        return parNom.get(nom);
+    }
+
+    /** Matériels disponibles, par exemple « KQK » */
+    public List<String> getMateriels() {
+        return new ArrayList<>(parNom.keySet());
+    }
+
+    /**
+     * Sonde la position
+     * @return ABSENTE, NULLE, ou le nombre de demi-coups avant le mat plus un
+     */
+    public int sonder(Echiquier e) {
+        long occupation = e.getOccupation();
+        if (Long.bitCount(occupation) > PIECES_MAX || e.roques != 0) {
+            return ABSENTE;
+        }
+        int ep = e.enPassant;
+        if (ep >= 0 && (Attaques.PION[e.trait ^ 1][ep] & e.pieces[e.trait << 3 | Echiquier.PION]) != 0) {
+            return ABSENTE;
+        }
+        int a = -1, b = -1;
+        for (long bb = occupation & ~e.pieces[Echiquier.ROI] & ~e.pieces[8 | Echiquier.ROI]; bb != 0; bb &= bb - 1) {
+            int g = genre(e.cases[Long.numberOfTrailingZeros(bb)]);
+            if (a < 0) a = g;
+            else b = g;
+        }
+        int signature = signature(a, b);
+        TableFinale table = parSignature[signature];
+        if (table == null) {
+            return ABSENTE;
+        }
+        return table.code(table.index(e, inversee[signature]));
+    }
+
+    /**
+     * Meilleur coup d'après les tables : le mat le plus rapide, sinon une nulle,
+     * sinon le mat le plus lent
+     * @param e La position (rétablie au retour)
+     * @param tampon Tampon de travail pour la génération des coups
+     * @return Le coup, ou CodeCoup.AUCUN si la position n'est pas couverte
+     */
+    public int meilleurCoup(Echiquier e, int[] tampon) {
+        if (sonder(e) == ABSENTE) {
+            return CodeCoup.AUCUN;
+        }
+        int n = e.genererCoupsLegaux(tampon, 0);
+        int meilleur = CodeCoup.AUCUN;
+        int meilleureNote = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int coup = tampon[i];
+            e.jouer(coup);
+            int r = sonder(e);
+            e.dejouer(coup);
+            if (r == ABSENTE) {
+                continue;
+            }
+            // r est vu de l'adversaire
+            int note = r == NULLE ? 0 : estPerte(r) ? 1000 - r : -1000 + r;
+            if (note > meilleureNote) {
+                meilleureNote = note;
+                meilleur = coup;
+            }
+        }
+        return meilleur;
+    }
+
+    /** Le joueur au trait est-il maté ? */
+    public static boolean estPerte(int resultat) {
+        return resultat > 0 && (resultat & 1) == 1;
+    }
+
+    /** Le joueur au trait mate-t-il ? */
+    public static boolean estGain(int resultat) {
+        return resultat > 0 && (resultat & 1) == 0;
+    }
+
+    /** Demi-coups avant le mat pour un résultat gagnant ou perdant */
+    public static int demiCoupsAvantMat(int resultat) {
+        return resultat - 1;
+    }
+
+    /**
+     * Score de recherche d'un résultat, relatif à la racine
+     * @param ply Distance du nœud à la racine
+     */
+    public static int score(int resultat, int ply) {
+        if (resultat <= 0) {
+            return 0;
+        }
+        int mat = ply + demiCoupsAvantMat(resultat);
+        return estGain(resultat) ? Recherche.MAT - mat : -Recherche.MAT + mat;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (TableFinale t : parNom.values()) {
+            t.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package modele.moteur;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntSupplier;
+
+/**
+ * Poignée d'une recherche lancée par {@link Moteur#lancer}.
+ *
+ * L'arrêt est coopératif : la recherche contrôle sa demande d'arrêt tous les
+ * 1024 nœuds, soit moins d'une milliseconde. Deux façons de l'interrompre :
+ * {@link #arreter()} garde le meilleur coup trouvé jusque-là (fin d'analyse,
+ * « stop »), {@link #cancel(boolean)} l'abandonne (nouvelle partie, coup annulé)
+ * et get() lève alors CancellationException.
+ */
+public final class TacheRecherche implements Future<Integer> {
+    private final Moteur moteur;
+    private final long numero;
+    private final CountDownLatch fin = new CountDownLatch(1);
+    private volatile int coup = CodeCoup.AUCUN;
+    private volatile boolean annulee;
+    private volatile Throwable erreur;
+
+    TacheRecherche(Moteur moteur, long numero) {
+        this.moteur = moteur;
+        this.numero = numero;
+    }
+
+    void executer(IntSupplier recherche) {
+        try {
+            coup = recherche.getAsInt();
+        } catch (Throwable t) {
+            erreur = t;
+        } finally {
+            fin.countDown();
+        }
+    }
+
+    /** Arrête la recherche ; son résultat reste le meilleur coup trouvé */
+    public void arreter() {
+        moteur.arreter(numero);
+    }
+
+    /**
+     * Abandonne la recherche. Le paramètre est ignoré : l'arrêt est toujours
+     * coopératif, le thread de recherche n'est pas interrompu.
+     */
+    @Override
+    public boolean cancel(boolean interrompre) {
+        if (isDone()) {
+            return false;
+        }
+        annulee = true;
+        arreter();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return annulee;
+    }
+
+    @Override
+    public boolean isDone() {
+        return fin.getCount() == 0;
+    }
+
+    @Override
+    public Integer get() throws InterruptedException, ExecutionException {
+        fin.await();
+        return resultat();
+    }
+
+    @Override
+    public Integer get(long delai, TimeUnit unite) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!fin.await(delai, unite)) {
+            throw new TimeoutException();
+        }
+        return resultat();
+    }
+
+    private Integer resultat() throws ExecutionException {
+        if (annulee) {
+            throw new CancellationException();
+        }
+        if (erreur != null) {
+            throw new ExecutionException(erreur);
+        }
+        return coup;
+    }
+
+    /**
+     * Attend la fin effective du thread de recherche, même annulée
+     * (avant de réutiliser le moteur)
+     */
+    public void attendreFin() {
+        boolean interrompu = false;
+        while (true) {
+            try {
+                fin.await();
+                break;
+            } catch (InterruptedException e) {
+                interrompu = true;
+            }
+        }
+        if (interrompu) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package modele.pgn;
+
+import modele.jeu.Jeu;
+import modele.moteur.Echiquier;
+import modele.moteur.San;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture de parties au format PGN : balises puis coups en SAN,
+ * lignes limitées à 79 caractères. Chaque partie est préparée dans un
+ * tampon réutilisé puis écrite d'un bloc.
+ */
+public final class EcrivainPgn implements Closeable, Flushable {
+    private static final int LARGEUR_LIGNE = 79;
+
+    private final Writer sortie;
+    private final StringBuilder sb = new StringBuilder(4096);
+    private final StringBuilder san = new StringBuilder(16);
+    private final Echiquier echiquier = new Echiquier();
+    private final int[] tampon = new int[256];
+
+    public EcrivainPgn(Writer sortie) {
+        this.sortie = sortie;
+    }
+
+    /**
+     * Écrit en ISO-8859-1 (encodage de la norme PGN), avec un tampon de 64 Ko
+     */
+    public EcrivainPgn(OutputStream sortie) {
+        this(new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.ISO_8859_1), 1 << 16));
+    }
+
+    /**
+     * Exporte l'historique d'un jeu
+     * @param jeu La partie à écrire
+     */
+    public void ecrire(Jeu jeu) throws IOException {
+        ecrire(PartiePgn.depuis(jeu));
+    }
+
+    /**
+     * Écrit une partie
+     * @param partie La partie (coups légaux depuis sa position de départ)
+     */
+    public void ecrire(PartiePgn partie) throws IOException {
+        sb.setLength(0);
+        for (int i = 0; i < partie.getNombreBalises(); i++) {
+            sb.append('[').append(partie.getNomBalise(i)).append(" \"");
+            String valeur = partie.getValeurBalise(i);
+            for (int k = 0; k < valeur.length(); k++) {
+                char c = valeur.charAt(k);
+                if (c == '"' || c == '\\') sb.append('\\');
+                sb.append(c);
+            }
+            sb.append("\"]\n");
+        }
+        sb.append('\n');
+
+        if (partie.getFenDepart() != null) {
+            echiquier.chargerFen(partie.getFenDepart());
+        } else {
+            echiquier.chargerFen(Echiquier.FEN_INITIALE);
+        }
+        int debutLigne = sb.length();
+        for (int i = 0; i < partie.getNombreCoups(); i++) {
+            int coup = partie.getCoup(i);
+            san.setLength(0);
+            if (echiquier.getTrait() == Echiquier.BLANC) {
+                san.append(echiquier.getNumeroCoup()).append(". ");
+            } else if (i == 0) {
+                san.append(echiquier.getNumeroCoup()).append("... ");
+            }
+            San.ecrire(echiquier, coup, san, tampon);
+            debutLigne = ajouterMot(san, debutLigne);
+            echiquier.jouer(coup);
+            if (echiquier.getHauteur() > Echiquier.HISTORIQUE_MAX / 2) {
+                echiquier.tronquerHistorique();
+            }
+        }
+        san.setLength(0);
+        san.append(partie.getResultat());
+        ajouterMot(san, debutLigne);
+        sb.append("\n\n");
+        sortie.append(sb);
+    }
+
+    /** Ajoute un mot en passant à la ligne si besoin ; retourne le début de la ligne courante */
+    private int ajouterMot(CharSequence mot, int debutLigne) {
+        if (sb.length() > debutLigne) {
+            if (sb.length() - debutLigne + 1 + mot.length() > LARGEUR_LIGNE) {
+                sb.append('\n');
+                debutLigne = sb.length();
+            } else {
+                sb.append(' ');
+            }
+        }
+        sb.append(mot);
+        return debutLigne;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        sortie.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        sortie.close();
+    }
+}
@@ -0,0 +1,245 @@
+package modele.pgn;
+
+import modele.jeu.Jeu;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Validation en parallèle d'une archive PGN : le fichier est découpé en
+ * tranches alignées sur le début des parties, chaque tranche est lue et
+ * rejouée dans un Jeu sur un pool de threads, puis les résultats sont
+ * fusionnés dans l'ordre du fichier.
+ *
+ * Usage : java modele.pgn.IngestionPgn fichier.pgn [threads] [--sans-jeu]
+ */
+public final class IngestionPgn {
+    // Nombre de tranches par thread : équilibre la charge si les parties varient
+    private static final int TRANCHES_PAR_THREAD = 4;
+
+    /**
+     * Partie refusée : par le lecteur (coup SAN illégal) ou par le Jeu
+     */
+    public static final class Erreur {
+        private final long partie;
+        private final long offset;
+        private final String message;
+
+        Erreur(long partie, long offset, String message) {
+            this.partie = partie;
+            this.offset = offset;
+            this.message = message;
+        }
+
+        /** Numéro de la partie dans le fichier (à partir de 1) */
+        public long getPartie() { return partie; }
+        /** Position en octets de l'erreur dans le fichier */
+        public long getOffset() { return offset; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "partie " + partie + " (octet " + offset + ") : " + message;
+        }
+    }
+
+    /**
+     * Bilan d'une analyse complète
+     */
+    public static final class Bilan {
+        private final long parties;
+        private final long coups;
+        private final long erreurs;
+        private final long dureeNs;
+
+        Bilan(long parties, long coups, long erreurs, long dureeNs) {
+            this.parties = parties;
+            this.coups = coups;
+            this.erreurs = erreurs;
+            this.dureeNs = dureeNs;
+        }
+
+        public long getParties() { return parties; }
+        public long getCoups() { return coups; }
+        public long getErreurs() { return erreurs; }
+        public long getDureeNs() { return dureeNs; }
+
+        public double getPartiesParSeconde() {
+            return parties * 1e9 / Math.max(1, dureeNs);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d parties, %d coups, %d erreurs en %.2f s (%.0f parties/s)",
+                    parties, coups, erreurs, dureeNs / 1e9, getPartiesParSeconde());
+        }
+    }
+
+    /** Résultat d'une tranche, numéros de parties locaux à la tranche */
+    private static final class Tranche {
+        long parties;
+        long coups;
+        final List<Erreur> erreurs = new ArrayList<>();
+    }
+
+    private final int threads;
+    private final boolean rejouerDansJeu;
+
+    /**
+     * @param threads Taille du pool de lecture
+     * @param rejouerDansJeu Si vrai, chaque partie est aussi rejouée dans un Jeu
+     *                       (règles de l'interface) ; sinon seul le lecteur valide les coups
+     */
+    public IngestionPgn(int threads, boolean rejouerDansJeu) {
+        this.threads = Math.max(1, threads);
+        this.rejouerDansJeu = rejouerDansJeu;
+    }
+
+    /**
+     * Analyse un fichier PGN
+     * @param chemin Le fichier
+     * @param rapport Reçoit les erreurs dans l'ordre du fichier
+     * @return Le bilan de l'analyse
+     */
+    public Bilan analyser(Path chemin, Consumer<Erreur> rapport) throws IOException, InterruptedException {
+        long debut = System.nanoTime();
+        long[] bornes = decouper(chemin, threads * TRANCHES_PAR_THREAD);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "pgn-ingestion");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Tranche>> tranches = new ArrayList<>(bornes.length - 1);
+            for (int i = 0; i + 1 < bornes.length; i++) {
+                long de = bornes[i], a = bornes[i + 1];
+                tranches.add(pool.submit(() -> analyserTranche(chemin, de, a)));
+            }
+
+            // Fusion dans l'ordre : les numéros de parties deviennent globaux
+            long parties = 0, coups = 0, erreurs = 0;
+            for (Future<Tranche> future : tranches) {
+                Tranche tranche = attendre(future);
+                for (Erreur e : tranche.erreurs) {
+                    rapport.accept(new Erreur(parties + e.partie, e.offset, e.message));
+                }
+                parties += tranche.parties;
+                coups += tranche.coups;
+                erreurs += tranche.erreurs.size();
+            }
+            return new Bilan(parties, coups, erreurs, System.nanoTime() - debut);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Tranche analyserTranche(Path chemin, long debut, long fin) throws IOException {
+        Tranche tranche = new Tranche();
+        PartiePgn partie = new PartiePgn();
+        Jeu jeu = rejouerDansJeu ? new Jeu() : null;
+        try (LecteurPgn lecteur = LecteurPgn.ouvrir(chemin, debut, fin)) {
+            while (lecteur.suivante(partie)) {
+                tranche.parties++;
+                tranche.coups += partie.getNombreCoups();
+                if (partie.getErreur() != null) {
+                    tranche.erreurs.add(new Erreur(tranche.parties, partie.getOffsetErreur(), partie.getErreur()));
+                } else if (jeu != null) {
+                    int acceptes = partie.rejouer(jeu);
+                    if (acceptes < partie.getNombreCoups()) {
+                        // Octet du coup refusé, pas du début de la partie
+                        long offset = partie.getOffsetCoup(acceptes);
+                        tranche.erreurs.add(new Erreur(tranche.parties, offset >= 0 ? offset : partie.getOffset(),
+                                "Demi-coup " + (acceptes + 1) + " refusé par le jeu"));
+                    }
+                }
+            }
+        }
+        return tranche;
+    }
+
+    private static Tranche attendre(Future<Tranche> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Découpe un fichier en tranches commençant chacune au début d'une partie
+     * (une balise « [ » en début de ligne après une ligne vide)
+     * @return Les bornes des tranches, du début à la fin du fichier
+     */
+    public static long[] decouper(Path chemin, int tranches) throws IOException {
+        try (FileChannel fichier = FileChannel.open(chemin, StandardOpenOption.READ)) {
+            long taille = fichier.size();
+            long[] bornes = new long[tranches + 1];
+            int n = 1;
+            ByteBuffer tampon = ByteBuffer.allocate(1 << 16);
+            for (int i = 1; i < tranches; i++) {
+                long depart = Math.max(taille * i / tranches, bornes[n - 1]);
+                long borne = chercherDebutPartie(fichier, depart, tampon);
+                if (borne > bornes[n - 1] && borne < taille) {
+                    bornes[n++] = borne;
+                }
+            }
+            bornes[n++] = taille;
+            long[] resultat = new long[n];
+            System.arraycopy(bornes, 0, resultat, 0, n);
+            return resultat;
+        }
+    }
+
+    /** Position du prochain « \n\n[ » (ou « \n\r\n[ ») à partir d'un octet, ou la fin du fichier */
+    private static long chercherDebutPartie(FileChannel fichier, long position, ByteBuffer tampon) throws IOException {
+        int sautsDeLigne = 0;
+        while (true) {
+            tampon.clear();
+            int lus = fichier.read(tampon, position);
+            if (lus <= 0) {
+                return fichier.size();
+            }
+            for (int i = 0; i < lus; i++) {
+                byte b = tampon.get(i);
+                if (b == '\n') {
+                    sautsDeLigne++;
+                } else if (b == '[' && sautsDeLigne >= 2) {
+                    return position + i;
+                } else if (b != '\r' && b != ' ' && b != '\t') {
+                    sautsDeLigne = 0;
+                }
+            }
+            position += lus;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage : IngestionPgn fichier.pgn [threads] [--sans-jeu]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean rejouer = true;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--sans-jeu")) rejouer = false;
+            else threads = Integer.parseInt(args[i]);
+        }
+        IngestionPgn ingestion = new IngestionPgn(threads, rejouer);
+        Bilan bilan = ingestion.analyser(Paths.get(args[0]), System.out::println);
+        System.out.println(bilan);
+    }
+}
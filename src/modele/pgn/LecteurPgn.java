@@ -0,0 +1,296 @@
+package modele.pgn;
+
+import modele.jeu.Fen;
+import modele.moteur.CodeCoup;
+import modele.moteur.Echiquier;
+import modele.moteur.San;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lecteur PGN en flux : les parties sont lues une à une depuis un canal ou
+ * un fichier projeté en mémoire (par fenêtres, le fichier n'est jamais chargé
+ * en entier sur le tas). Chaque coup SAN est résolu contre les coups légaux
+ * d'un Echiquier du moteur ; le premier coup refusé est signalé dans la
+ * partie avec sa position en octets.
+ * Le texte est lu en ISO-8859-1, l'encodage prévu par la norme PGN.
+ */
+public final class LecteurPgn implements Closeable {
+    private static final int TAILLE_TAMPON = 1 << 16;
+    private static final long TAILLE_FENETRE = 1L << 28;
+
+    private final ReadableByteChannel canal;
+    private final FileChannel fichier;
+    private final long fin;
+
+    private ByteBuffer tampon;
+    // Position absolue du début du tampon dans la source
+    private long debutTampon;
+    // Octet relu après un jeton (-1 : aucun)
+    private int rendu = -1;
+
+    private final StringBuilder jeton = new StringBuilder(64);
+    private final StringBuilder texte = new StringBuilder(128);
+    private final Echiquier echiquier = new Echiquier();
+    private final Fen fen = new Fen();
+    private final Fen fenInitiale = new Fen(Fen.INITIALE);
+    private final int[] coupsLegaux = new int[256];
+
+    /**
+     * Lit les parties depuis un canal quelconque (tampon de 64 Ko)
+     * @param canal La source
+     */
+    public LecteurPgn(ReadableByteChannel canal) {
+        this.canal = canal;
+        this.fichier = null;
+        this.fin = Long.MAX_VALUE;
+        this.tampon = ByteBuffer.allocate(TAILLE_TAMPON);
+        this.tampon.flip();
+    }
+
+    private LecteurPgn(FileChannel fichier, long debut, long fin) {
+        this.canal = null;
+        this.fichier = fichier;
+        this.fin = fin;
+        this.debutTampon = debut;
+        this.tampon = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Ouvre un fichier PGN projeté en mémoire
+     * @param chemin Le fichier
+     * @return Le lecteur, à fermer après usage
+     */
+    public static LecteurPgn ouvrir(Path chemin) throws IOException {
+        FileChannel fichier = FileChannel.open(chemin, StandardOpenOption.READ);
+        return new LecteurPgn(fichier, 0, fichier.size());
+    }
+
+    /**
+     * Ouvre une tranche d'un fichier PGN projeté en mémoire. Les bornes doivent
+     * tomber entre deux parties ; les positions rapportées restent absolues.
+     * @param chemin Le fichier
+     * @param debut Position du premier octet de la tranche
+     * @param fin Position suivant le dernier octet
+     * @return Le lecteur, à fermer après usage
+     */
+    public static LecteurPgn ouvrir(Path chemin, long debut, long fin) throws IOException {
+        FileChannel fichier = FileChannel.open(chemin, StandardOpenOption.READ);
+        return new LecteurPgn(fichier, debut, Math.min(fin, fichier.size()));
+    }
+
+    /**
+     * Lit la partie suivante
+     * @param partie La partie à remplir (vidée au préalable)
+     * @return false à la fin du flux
+     */
+    public boolean suivante(PartiePgn partie) throws IOException {
+        partie.vider();
+        int c = sauterBlancs();
+        if (c < 0) {
+            return false;
+        }
+        partie.setOffset(position() - 1);
+        echiquier.chargerFen(fenInitiale);
+        boolean dansLesCoups = false;
+        boolean refusee = false;
+
+        while (c >= 0) {
+            switch (c) {
+                case '[' -> {
+                    // Une balise après des coups : début de la partie suivante (résultat manquant)
+                    if (dansLesCoups) {
+                        rendu = c;
+                        return true;
+                    }
+                    if (!lireBalise(partie)) {
+                        refusee = true;
+                    }
+                }
+                case '{' -> sauterJusqua('}');
+                case ';', '%' -> sauterJusqua('\n');
+                case '(' -> sauterVariante();
+                case ')', ']', '}' -> { }
+                case '*' -> {
+                    partie.setResultat("*");
+                    return true;
+                }
+                default -> {
+                    long debutJeton = position() - 1;
+                    lireJeton(c);
+                    dansLesCoups = true;
+                    if (jetonEgal("1-0") || jetonEgal("0-1") || jetonEgal("1/2-1/2")) {
+                        partie.setResultat(jeton.toString());
+                        return true;
+                    }
+                    if (c == '$' || refusee) {
+                        break;
+                    }
+                    // Numéro de coup éventuellement collé au coup : « 12.e4 », « 12... »
+                    int i = 0;
+                    while (i < jeton.length() && (Character.isDigit(jeton.charAt(i)) || jeton.charAt(i) == '.')) {
+                        i++;
+                    }
+                    if (i == jeton.length()) {
+                        break;
+                    }
+                    int coup = San.lire(echiquier, jeton, i, jeton.length(), coupsLegaux);
+                    if (coup == CodeCoup.AUCUN || !echiquier.jouer(coup)) {
+                        refusee = true;
+                        partie.signalerErreur("Coup illégal ou ambigu « " + jeton + " » au demi-coup "
+                                + (partie.getNombreCoups() + 1), debutJeton);
+                    } else {
+                        partie.ajouterCoup(coup, debutJeton + i);
+                        if (echiquier.getHauteur() > Echiquier.HISTORIQUE_MAX / 2) {
+                            echiquier.tronquerHistorique();
+                        }
+                    }
+                }
+            }
+            c = sauterBlancs();
+        }
+        return true;
+    }
+
+    /**
+     * Position courante du lecteur dans la source, en octets
+     */
+    public long position() {
+        return debutTampon + tampon.position() - (rendu >= 0 ? 1 : 0);
+    }
+
+    /** Lit une balise [Nom "valeur"] ; la balise FEN change la position de départ */
+    private boolean lireBalise(PartiePgn partie) throws IOException {
+        long debut = position() - 1;
+        int c = sauterBlancs();
+        jeton.setLength(0);
+        while (c > ' ' && c != '"' && c != ']') {
+            jeton.append((char) c);
+            c = lire();
+        }
+        while (c >= 0 && c != '"' && c != ']') {
+            c = lire();
+        }
+        texte.setLength(0);
+        if (c == '"') {
+            c = lire();
+            while (c >= 0 && c != '"') {
+                if (c == '\\') {
+                    c = lire();
+                }
+                if (c >= 0) {
+                    texte.append((char) c);
+                }
+                c = lire();
+            }
+            sauterJusqua(']');
+        }
+        String nom = jeton.toString();
+        String valeur = texte.toString();
+        partie.ajouterBalise(nom, valeur);
+        if (nom.equals("FEN")) {
+            partie.setFenDepart(valeur);
+            try {
+                fen.lire(valeur);
+                echiquier.chargerFen(fen);
+            } catch (IllegalArgumentException e) {
+                partie.signalerErreur(e.getMessage(), debut);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Lit un jeton de coup à partir de son premier octet */
+    private void lireJeton(int c) throws IOException {
+        jeton.setLength(0);
+        while (c > ' ' && c != '{' && c != '}' && c != '(' && c != ')' && c != '[' && c != ']' && c != ';') {
+            jeton.append((char) c);
+            c = lire();
+        }
+        if (c >= 0) {
+            rendu = c;
+        }
+    }
+
+    private boolean jetonEgal(String s) {
+        if (jeton.length() != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (jeton.charAt(i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void sauterVariante() throws IOException {
+        int profondeur = 1;
+        int c;
+        while (profondeur > 0 && (c = lire()) >= 0) {
+            if (c == '(') profondeur++;
+            else if (c == ')') profondeur--;
+            else if (c == '{') sauterJusqua('}');
+        }
+    }
+
+    private void sauterJusqua(int fin) throws IOException {
+        int c;
+        do {
+            c = lire();
+        } while (c >= 0 && c != fin);
+    }
+
+    private int sauterBlancs() throws IOException {
+        int c;
+        do {
+            c = lire();
+        } while (c >= 0 && c <= ' ');
+        return c;
+    }
+
+    private int lire() throws IOException {
+        if (rendu >= 0) {
+            int c = rendu;
+            rendu = -1;
+            return c;
+        }
+        if (!tampon.hasRemaining() && !remplir()) {
+            return -1;
+        }
+        return tampon.get() & 0xFF;
+    }
+
+    /** Recharge le tampon : lecture du canal ou projection de la fenêtre suivante */
+    private boolean remplir() throws IOException {
+        debutTampon += tampon.limit();
+        if (fichier != null) {
+            long taille = Math.min(TAILLE_FENETRE, fin - debutTampon);
+            if (taille <= 0) {
+                return false;
+            }
+            tampon = fichier.map(FileChannel.MapMode.READ_ONLY, debutTampon, taille);
+            return true;
+        }
+        tampon.clear();
+        int n;
+        do {
+            n = canal.read(tampon);
+        } while (n == 0);
+        tampon.flip();
+        return n > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fichier != null) {
+            fichier.close();
+        }
+        if (canal != null) {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package modele.pgn;
+
+import modele.jeu.Coup;
+import modele.jeu.Fen;
+import modele.jeu.Jeu;
+import modele.moteur.CodeCoup;
+import modele.moteur.Echiquier;
+import modele.pieces.PieceColor;
+import modele.plateau.Plateau;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Une partie lue ou à écrire en PGN : balises, position de départ, coups
+ * (codés comme dans le moteur) et résultat. L'objet est réutilisé d'une
+ * partie à l'autre par {@link LecteurPgn#suivante}.
+ */
+public final class PartiePgn {
+    private final List<String> nomsBalises = new ArrayList<>();
+    private final List<String> valeursBalises = new ArrayList<>();
+    private String fenDepart;
+    private int[] coups = new int[256];
+    // Octet de chaque demi-coup dans le fichier lu (-1 : coup ajouté hors lecture)
+    private long[] offsetsCoups = new long[256];
+    private int nombreCoups;
+    private String resultat = "*";
+    private long offset;
+    private String erreur;
+    private long offsetErreur = -1;
+
+    /**
+     * Remet la partie à zéro (balises, coups, erreur)
+     */
+    public void vider() {
+        nomsBalises.clear();
+        valeursBalises.clear();
+        fenDepart = null;
+        nombreCoups = 0;
+        resultat = "*";
+        offset = 0;
+        erreur = null;
+        offsetErreur = -1;
+    }
+
+    /**
+     * Construit la partie correspondant à l'historique d'un jeu
+     * (balises minimales, position de départ, résultat)
+     * @param jeu La partie à exporter
+     * @return La partie PGN
+     * @throws IllegalStateException si un coup de l'historique n'est pas légal pour le moteur
+     */
+    public static PartiePgn depuis(Jeu jeu) {
+        PartiePgn partie = new PartiePgn();
+        String fen = jeu.getFenDepart();
+        List<Coup> historique = jeu.getHistorique();
+
+        partie.ajouterBalise("Event", "?");
+        partie.ajouterBalise("Site", "?");
+        partie.ajouterBalise("Date", "????.??.??");
+        partie.ajouterBalise("Round", "?");
+        partie.ajouterBalise("White", "?");
+        partie.ajouterBalise("Black", "?");
+        if (jeu.estPartieTerminee()) {
+            PieceColor vainqueur = jeu.getVainqueur();
+            partie.resultat = vainqueur == null ? "1/2-1/2" : (vainqueur == PieceColor.WHITE ? "1-0" : "0-1");
+        }
+        partie.ajouterBalise("Result", partie.resultat);
+        if (fen != null && !fen.equals(Fen.INITIALE)) {
+            partie.ajouterBalise("SetUp", "1");
+            partie.ajouterBalise("FEN", fen);
+            partie.fenDepart = fen;
+        }
+
+        Echiquier echiquier = new Echiquier();
+        if (partie.fenDepart != null) {
+            echiquier.chargerFen(partie.fenDepart);
+        }
+        int[] tampon = new int[256];
+        for (Coup coup : historique) {
+            int code = versCode(echiquier, coup, tampon);
+            if (code == CodeCoup.AUCUN || !echiquier.jouer(code)) {
+                throw new IllegalStateException("Coup illégal dans l'historique : " + coup);
+            }
+            if (echiquier.getHauteur() > Echiquier.HISTORIQUE_MAX / 2) {
+                echiquier.tronquerHistorique();
+            }
+            partie.ajouterCoup(code);
+        }
+        return partie;
+    }
+
+    /** Coup du moteur correspondant à un coup du jeu (cases et promotion) */
+    static int versCode(Echiquier echiquier, Coup coup, int[] tampon) {
+        int de = coup.getDepart().getY() * 8 + coup.getDepart().getX();
+        int a = coup.getArrivee().getY() * 8 + coup.getArrivee().getX();
+        int promotion = coup.getPromotion() == null ? 0 : Echiquier.depuisPieceType(coup.getPromotion());
+        int n = echiquier.genererCoupsLegaux(tampon, 0);
+        for (int i = 0; i < n; i++) {
+            int c = tampon[i];
+            if (CodeCoup.depart(c) == de && CodeCoup.arrivee(c) == a
+                    && (CodeCoup.promotion(c) == promotion
+                        || (promotion == 0 && CodeCoup.promotion(c) == Echiquier.DAME))) {
+                return c;
+            }
+        }
+        return CodeCoup.AUCUN;
+    }
+
+    /**
+     * Rejoue la partie dans un jeu (qui valide chaque coup avec ses propres règles)
+     * @param jeu Le jeu à remplir ; sa position est remplacée
+     * @return Le nombre de demi-coups acceptés par le jeu
+     */
+    public int rejouer(Jeu jeu) {
+        jeu.chargerFen(fenDepart != null ? fenDepart : Fen.INITIALE);
+        Plateau plateau = jeu.getPlateau();
+        for (int i = 0; i < nombreCoups; i++) {
+            int coup = coups[i];
+            int de = CodeCoup.depart(coup), a = CodeCoup.arrivee(coup);
+            if (!jeu.jouerCoup(plateau.getCase(de & 7, de >> 3), plateau.getCase(a & 7, a >> 3))) {
+                return i;
+            }
+            if (jeu.isPromotionEnCours()) {
+                int promotion = CodeCoup.promotion(coup);
+                jeu.promouvoirPion(Echiquier.versPieceType(promotion != 0 ? promotion : Echiquier.DAME));
+            }
+        }
+        return nombreCoups;
+    }
+
+    // ---------------------------------------------------------------- balises
+
+    public void ajouterBalise(String nom, String valeur) {
+        nomsBalises.add(nom);
+        valeursBalises.add(valeur);
+    }
+
+    /**
+     * Valeur d'une balise
+     * @return La valeur, ou null si la balise est absente
+     */
+    public String getBalise(String nom) {
+        for (int i = 0; i < nomsBalises.size(); i++) {
+            if (nomsBalises.get(i).equals(nom)) return valeursBalises.get(i);
+        }
+        return null;
+    }
+
+    public int getNombreBalises() { return nomsBalises.size(); }
+    public String getNomBalise(int i) { return nomsBalises.get(i); }
+    public String getValeurBalise(int i) { return valeursBalises.get(i); }
+
+    // ------------------------------------------------------------------ coups
+
+    public void ajouterCoup(int coup) {
+        ajouterCoup(coup, -1);
+    }
+
+    /** Ajoute un demi-coup lu à un octet donné du fichier */
+    void ajouterCoup(int coup, long offset) {
+        if (nombreCoups == coups.length) {
+            coups = Arrays.copyOf(coups, coups.length * 2);
+            offsetsCoups = Arrays.copyOf(offsetsCoups, coups.length);
+        }
+        offsetsCoups[nombreCoups] = offset;
+        coups[nombreCoups++] = coup;
+    }
+
+    /** Demi-coup i, codé comme dans le moteur (voir CodeCoup) */
+    public int getCoup(int i) { return coups[i]; }
+    /** Octet du demi-coup i dans le fichier lu, -1 s'il n'a pas été lu d'un fichier */
+    public long getOffsetCoup(int i) { return offsetsCoups[i]; }
+    public int getNombreCoups() { return nombreCoups; }
+
+    /** Position de départ (balise FEN), null pour la position initiale */
+    public String getFenDepart() { return fenDepart; }
+    public void setFenDepart(String fenDepart) { this.fenDepart = fenDepart; }
+
+    /** Résultat : 1-0, 0-1, 1/2-1/2 ou * */
+    public String getResultat() { return resultat; }
+    public void setResultat(String resultat) { this.resultat = resultat; }
+
+    /** Position (en octets) du début de la partie dans le fichier */
+    public long getOffset() { return offset; }
+    void setOffset(long offset) { this.offset = offset; }
+
+    /** Description du premier coup refusé, ou null si la partie est valide */
+    public String getErreur() { return erreur; }
+    /** Position (en octets) du coup refusé, ou -1 */
+    public long getOffsetErreur() { return offsetErreur; }
+
+    void signalerErreur(String erreur, long offset) {
+        if (this.erreur == null) {
+            this.erreur = erreur;
+            this.offsetErreur = offset;
+        }
+    }
+}
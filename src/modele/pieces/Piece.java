@@ -64,4 +64,12 @@ public abstract class Piece {
         this.x = x;
         this.y = y;
     }
+
+    /**
+     * Replace la pièce sans la considérer comme déplacée (simulations)
+     */
+    public void placer(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
 }
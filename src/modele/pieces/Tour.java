@@ -25,4 +25,11 @@ public class Tour extends Piece {
         return hasMoved;
     }
 
+    /**
+     * Fixe l'indicateur de déplacement (chargement d'une position FEN)
+     */
+    public void setHasMoved(boolean hasMoved) {
+        this.hasMoved = hasMoved;
+    }
+
 }
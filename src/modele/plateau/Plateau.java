@@ -2,20 +2,28 @@
 package modele.plateau;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Observable;
 import modele.pieces.*;
 
 /**
- * Représente l'échiquier, stocke les cases et la liste des pièces,
- * et définit les directions via un enum interne.
+ * Représente l'échiquier, stocke les cases et les listes de pièces vivantes
+ * (par couleur et par type), tenues à jour à chaque ajout/retrait.
+ * Le plateau n'est pas thread-safe : il est protégé par le verrou de Jeu.
  */
 public class Plateau extends Observable {
     public static final int SIZE = 8;
 
     private final Case[][] cases;
-    private final List<Piece> pieces;
 
+    // Pièces vivantes indexées par couleur, puis par couleur et type (ordinal des enums)
+    private final List<Piece>[] piecesParCouleur;
+    private final List<Piece>[][] piecesParType;
+    // Accès direct aux rois, un par couleur
+    private final Piece[] rois = new Piece[2];
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public Plateau() {
         // Création du damier
         cases = new Case[SIZE][SIZE];
@@ -25,8 +33,15 @@ public class Plateau extends Observable {
             }
         }
 
-        // Initialisation de la liste de pièces
-        pieces = new ArrayList<>();
+        // Initialisation des listes de pièces
+        piecesParCouleur = new List[2];
+        piecesParType = new List[2][PieceType.values().length];
+        for (int c = 0; c < 2; c++) {
+            piecesParCouleur[c] = new ArrayList<>(16);
+            for (int t = 0; t < PieceType.values().length; t++) {
+                piecesParType[c][t] = new ArrayList<>(8);
+            }
+        }
         initPieces();
     }
 
@@ -36,35 +51,80 @@ public class Plateau extends Observable {
      */
     private void initPieces() {
         // Pièces blanches
-        pieces.add(new Tour    (0, 0, PieceColor.WHITE, this));
-        pieces.add(new Cavalier(1, 0, PieceColor.WHITE, this));
-        pieces.add(new Fou     (2, 0, PieceColor.WHITE, this));
-        pieces.add(new Dame    (3, 0, PieceColor.WHITE, this));
-        pieces.add(new Roi     (4, 0, PieceColor.WHITE, this));
-        pieces.add(new Fou     (5, 0, PieceColor.WHITE, this));
-        pieces.add(new Cavalier(6, 0, PieceColor.WHITE, this));
-        pieces.add(new Tour    (7, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Tour    (0, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Cavalier(1, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Fou     (2, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Dame    (3, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Roi     (4, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Fou     (5, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Cavalier(6, 0, PieceColor.WHITE, this));
+        ajouterPiece(new Tour    (7, 0, PieceColor.WHITE, this));
         for (int i = 0; i < SIZE; i++) {
-            pieces.add(new Pion(i, 1, PieceColor.WHITE, this));
+            ajouterPiece(new Pion(i, 1, PieceColor.WHITE, this));
         }
 
         // Pièces noires
-        pieces.add(new Tour    (0, 7, PieceColor.BLACK, this));
-        pieces.add(new Cavalier(1, 7, PieceColor.BLACK, this));
-        pieces.add(new Fou     (2, 7, PieceColor.BLACK, this));
-        pieces.add(new Dame    (3, 7, PieceColor.BLACK, this));
-        pieces.add(new Roi     (4, 7, PieceColor.BLACK, this));
-        pieces.add(new Fou     (5, 7, PieceColor.BLACK, this));
-        pieces.add(new Cavalier(6, 7, PieceColor.BLACK, this));
-        pieces.add(new Tour    (7, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Tour    (0, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Cavalier(1, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Fou     (2, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Dame    (3, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Roi     (4, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Fou     (5, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Cavalier(6, 7, PieceColor.BLACK, this));
+        ajouterPiece(new Tour    (7, 7, PieceColor.BLACK, this));
         for (int i = 0; i < SIZE; i++) {
-            pieces.add(new Pion(i, 6, PieceColor.BLACK, this));
+            ajouterPiece(new Pion(i, 6, PieceColor.BLACK, this));
         }
+    }
 
-        // Placement sur les cases
-        for (Piece p : pieces) {
-            Case c = getCase(p.getX(), p.getY());
-            c.setPiece(p);
+    /**
+     * Retire toutes les pièces : cases vides et listes remises à zéro
+     * (avant de charger une autre position).
+     */
+    public void vider() {
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                cases[x][y].setPiece(null);
+            }
+        }
+        for (int c = 0; c < 2; c++) {
+            piecesParCouleur[c].clear();
+            for (List<Piece> liste : piecesParType[c]) {
+                liste.clear();
+            }
+            rois[c] = null;
+        }
+    }
+
+    /**
+     * Ajoute une pièce vivante : la pose sur sa case et l'inscrit dans les listes.
+     * @param piece La pièce à ajouter
+     */
+    public void ajouterPiece(Piece piece) {
+        int c = piece.getColor().ordinal();
+        piecesParCouleur[c].add(piece);
+        piecesParType[c][piece.getType().ordinal()].add(piece);
+        if (piece.getType() == PieceType.ROI) {
+            rois[c] = piece;
+        }
+        getCase(piece.getX(), piece.getY()).setPiece(piece);
+    }
+
+    /**
+     * Retire une pièce du jeu (capture, promotion) : la sort des listes
+     * et libère sa case si elle l'occupe encore.
+     * @param piece La pièce à retirer
+     */
+    public void retirerPiece(Piece piece) {
+        int c = piece.getColor().ordinal();
+        piecesParCouleur[c].remove(piece);
+        piecesParType[c][piece.getType().ordinal()].remove(piece);
+        if (rois[c] == piece) {
+            rois[c] = null;
+        }
+        Case caseOccupee = getCase(piece.getX(), piece.getY());
+        if (caseOccupee != null && caseOccupee.getPiece() == piece) {
+            caseOccupee.setPiece(null);
         }
     }
 
@@ -74,7 +134,7 @@ public class Plateau extends Observable {
      * @param y Coordonnée y
      * @return La case aux coordonnées spécifiées, ou null si hors limites
      */
-    public synchronized Case getCase(int x, int y) {
+    public Case getCase(int x, int y) {
         if (x < 0 || x >= 8 || y < 0 || y >= 8) return null;
         return cases[x][y];
     }
@@ -83,8 +143,62 @@ public class Plateau extends Observable {
         return getCase(origine.getX() + dx, origine.getY() + dy);
     }
 
+    /**
+     * Retourne toutes les pièces vivantes (copie, les deux couleurs).
+     * Préférer {@link #getPieces(PieceColor)} quand une seule couleur est utile.
+     */
     public List<Piece> getPieces() {
-        return pieces;
+        List<Piece> toutes = new ArrayList<>(piecesParCouleur[0].size() + piecesParCouleur[1].size());
+        toutes.addAll(piecesParCouleur[0]);
+        toutes.addAll(piecesParCouleur[1]);
+        return toutes;
+    }
+
+    /**
+     * Retourne les pièces vivantes d'une couleur (vue non modifiable).
+     * @param couleur Couleur des pièces
+     */
+    public List<Piece> getPieces(PieceColor couleur) {
+        return Collections.unmodifiableList(piecesParCouleur[couleur.ordinal()]);
+    }
+
+    /**
+     * Retourne les pièces vivantes d'une couleur et d'un type (vue non modifiable).
+     * @param couleur Couleur des pièces
+     * @param type Type des pièces
+     */
+    public List<Piece> getPieces(PieceColor couleur, PieceType type) {
+        return Collections.unmodifiableList(piecesParType[couleur.ordinal()][type.ordinal()]);
+    }
+
+    /**
+     * Déplace temporairement une pièce pour tester la position obtenue,
+     * sans la marquer comme ayant bougé. La pièce éventuellement présente
+     * sur la case d'arrivée reste dans les listes mais n'est plus sur sa case.
+     * @param piece La pièce à déplacer
+     * @param arrivee La case d'arrivée
+     * @return La pièce qui occupait la case d'arrivée (à rendre à {@link #annulerSimulation})
+     */
+    public Piece simulerDeplacement(Piece piece, Case arrivee) {
+        Case depart = getCase(piece.getX(), piece.getY());
+        Piece occupant = arrivee.getPiece();
+        depart.setPiece(null);
+        arrivee.setPiece(piece);
+        piece.placer(arrivee.getX(), arrivee.getY());
+        return occupant;
+    }
+
+    /**
+     * Annule un déplacement fait avec {@link #simulerDeplacement}.
+     * @param piece La pièce déplacée
+     * @param depart Sa case d'origine
+     * @param arrivee La case où elle a été simulée
+     * @param occupant La pièce qui occupait la case d'arrivée
+     */
+    public void annulerSimulation(Piece piece, Case depart, Case arrivee, Piece occupant) {
+        arrivee.setPiece(occupant);
+        depart.setPiece(piece);
+        piece.placer(depart.getX(), depart.getY());
     }
 
     /**
@@ -93,35 +207,25 @@ public class Plateau extends Observable {
      * @param checkKingMoves Si true, vérifie aussi les mouvements des rois adverses
      * @return true si le joueur est en échec
      */
-    public synchronized boolean estEnEchec(PieceColor couleur, boolean checkKingMoves) {
-        // Trouver le roi
-        Case roiCase = null;
-        for (int x = 0; x < 8; x++) {
-            for (int y = 0; y < 8; y++) {
-                Case c = getCase(x, y);
-                if (c.getPiece() != null
-                        && c.getPiece().getType() == PieceType.ROI
-                        && c.getPiece().getColor() == couleur) {
-                    roiCase = c;
-                    break;
-                }
-            }
-            if (roiCase != null) break;
-        }
+    public boolean estEnEchec(PieceColor couleur, boolean checkKingMoves) {
+        // Le roi est connu directement
+        Piece roi = rois[couleur.ordinal()];
+        if (roi == null) return false;
+        Case roiCase = getCase(roi.getX(), roi.getY());
 
         // Vérifier si une pièce adverse peut atteindre le roi
-        for (int x = 0; x < 8; x++) {
-            for (int y = 0; y < 8; y++) {
-                Case c = getCase(x, y);
-                if (c.getPiece() != null && c.getPiece().getColor() != couleur) {
-                    // Si on ne vérifie pas les mouvements des rois ou si la pièce n'est pas un roi
-                    if (!checkKingMoves && c.getPiece().getType() == PieceType.ROI) {
-                        continue;
-                    }
-                    if (c.getPiece().getCasesAccessibles().contains(roiCase)) {
-                        return true;
-                    }
-                }
+        PieceColor adverse = (couleur == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
+        for (Piece p : piecesParCouleur[adverse.ordinal()]) {
+            // Si on ne vérifie pas les mouvements des rois ou si la pièce n'est pas un roi
+            if (!checkKingMoves && p.getType() == PieceType.ROI) {
+                continue;
+            }
+            // Pièce prise pendant une simulation : elle n'est plus sur sa case
+            if (getCase(p.getX(), p.getY()).getPiece() != p) {
+                continue;
+            }
+            if (p.getCasesAccessibles().contains(roiCase)) {
+                return true;
             }
         }
         return false;
@@ -132,7 +236,7 @@ public class Plateau extends Observable {
      * @param couleur Couleur du joueur à vérifier
      * @return true si le joueur est en échec
      */
-    public synchronized boolean estEnEchec(PieceColor couleur) {
+    public boolean estEnEchec(PieceColor couleur) {
         return estEnEchec(couleur, true);
     }
 
@@ -144,12 +248,23 @@ public class Plateau extends Observable {
         notifyObservers();
     }
 
+    /**
+     * Notifie les observateurs du plateau en leur transmettant un argument
+     * (l'instantané de position publié par le jeu).
+     * @param arg L'argument transmis à update()
+     */
+    public synchronized void notifierObservers(Object arg) {
+        setChanged();
+        notifyObservers(arg);
+    }
+
+    /**
+     * Retourne la case du roi de la couleur donnée, en temps constant.
+     * @param couleur Couleur du roi
+     * @return La case du roi, ou null s'il n'est pas sur le plateau
+     */
     public Case getRoi(PieceColor couleur) {
-        for (Piece p : pieces) {
-            if (p.getType() == PieceType.ROI && p.getColor() == couleur) {
-                return getCase(p.getX(), p.getY());
-            }
-        }
-        return null;
+        Piece roi = rois[couleur.ordinal()];
+        return roi == null ? null : getCase(roi.getX(), roi.getY());
     }
 }
@@ -0,0 +1,55 @@
+package outils;
+
+import modele.base.BaseParties;
+import modele.base.StatistiqueCoup;
+import modele.jeu.Fen;
+import modele.moteur.Echiquier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Importe des fichiers PGN dans une base de parties, puis affiche les coups
+ * joués depuis une position.
+ *
+ * Usage : java outils.ConstructionBase [-d base] [--threads n] [--fen "..."] [parties.pgn...]
+ */
+public final class ConstructionBase {
+    private ConstructionBase() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dossier = Paths.get("base");
+        int threads = Runtime.getRuntime().availableProcessors();
+        String fen = null;
+        List<Path> fichiers = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-d" -> dossier = Paths.get(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--fen" -> fen = args[++i];
+                default -> fichiers.add(Paths.get(args[i]));
+            }
+        }
+        try (BaseParties base = BaseParties.ouvrir(dossier)) {
+            if (!fichiers.isEmpty()) {
+                long debut = System.nanoTime();
+                long parties = base.importer(fichiers, threads);
+                System.out.printf("%d parties importées dans %s en %.2f s%n",
+                        parties, dossier, (System.nanoTime() - debut) / 1e9);
+            }
+            Echiquier position = new Echiquier();
+            position.chargerFen(fen != null ? fen : Fen.INITIALE);
+            long debut = System.nanoTime();
+            List<StatistiqueCoup> coups = base.explorer(position);
+            System.out.printf("%d parties dans la base, %d coups depuis cette position (%.1f ms)%n",
+                    base.getNombreParties(), coups.size(), (System.nanoTime() - debut) / 1e6);
+            for (StatistiqueCoup s : coups) {
+                System.out.println(s);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package outils;
+
+import modele.base.TriCles;
+import modele.jeu.Fen;
+import modele.moteur.ClesPolyglot;
+import modele.moteur.Echiquier;
+import modele.pgn.LecteurPgn;
+import modele.pgn.PartiePgn;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Construit un livre d'ouvertures Polyglot (.bin) à partir de fichiers PGN.
+ * Pour chaque position des premiers demi-coups, un coup gagne 2 points par
+ * victoire et 1 par nulle du camp qui le joue ; le poids Polyglot est ce total.
+ *
+ * Usage : java outils.ConstructionLivre [-o livre.bin] [--plies 20] [--min 2] parties.pgn...
+ */
+public final class ConstructionLivre {
+    private final ClesPolyglot cles;
+    private final int pliesMax;
+    private final int occurrencesMin;
+
+    // Occurrences (clé, coup) : coup << 48 | nombre << 24 | points
+    private long[] clesEntrees = new long[1 << 16];
+    private long[] valeurs = new long[1 << 16];
+    private int n;
+
+    public ConstructionLivre(ClesPolyglot cles, int pliesMax, int occurrencesMin) {
+        this.cles = cles;
+        this.pliesMax = pliesMax;
+        this.occurrencesMin = occurrencesMin;
+    }
+
+    /**
+     * Ajoute les parties d'un fichier PGN
+     * @return Le nombre de parties retenues
+     */
+    public long ajouter(Path pgn) throws IOException {
+        long parties = 0;
+        Echiquier echiquier = new Echiquier();
+        PartiePgn partie = new PartiePgn();
+        try (LecteurPgn lecteur = LecteurPgn.ouvrir(pgn)) {
+            while (lecteur.suivante(partie)) {
+                int pointsBlancs;
+                switch (partie.getResultat()) {
+                    case "1-0" -> pointsBlancs = 2;
+                    case "0-1" -> pointsBlancs = 0;
+                    case "1/2-1/2" -> pointsBlancs = 1;
+                    default -> {
+                        continue;
+                    }
+                }
+                parties++;
+                echiquier.chargerFen(partie.getFenDepart() != null ? partie.getFenDepart() : Fen.INITIALE);
+                int limite = Math.min(pliesMax, partie.getNombreCoups());
+                for (int i = 0; i < limite; i++) {
+                    int coup = partie.getCoup(i);
+                    int points = echiquier.getTrait() == Echiquier.BLANC ? pointsBlancs : 2 - pointsBlancs;
+                    ajouterOccurrence(cles.cle(echiquier), ClesPolyglot.versPolyglot(coup), points);
+                    echiquier.jouer(coup);
+                }
+            }
+        }
+        return parties;
+    }
+
+    private void ajouterOccurrence(long cle, int coup, int points) {
+        if (n == clesEntrees.length) {
+            clesEntrees = Arrays.copyOf(clesEntrees, n * 2);
+            valeurs = Arrays.copyOf(valeurs, n * 2);
+        }
+        clesEntrees[n] = cle;
+        valeurs[n] = (long) coup << 48 | 1L << 24 | points;
+        n++;
+    }
+
+    /**
+     * Écrit le livre : entrées triées par clé, puis par poids décroissant
+     * @return Le nombre d'entrées écrites
+     */
+    public long ecrire(Path sortie) throws IOException {
+        TriCles.trier(clesEntrees, valeurs, n);
+
+        // Fusion des occurrences identiques (même clé, même coup)
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (m > 0 && clesEntrees[m - 1] == clesEntrees[i] && (valeurs[m - 1] >>> 48) == (valeurs[i] >>> 48)) {
+                valeurs[m - 1] += valeurs[i] & 0xFFFF_FFFF_FFFFL;
+            } else {
+                clesEntrees[m] = clesEntrees[i];
+                valeurs[m] = valeurs[i];
+                m++;
+            }
+        }
+
+        long ecrites = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(sortie), 1 << 16))) {
+            List<long[]> groupe = new ArrayList<>();
+            for (int i = 0; i < m; ) {
+                int j = i;
+                long max = 0;
+                groupe.clear();
+                for (; j < m && clesEntrees[j] == clesEntrees[i]; j++) {
+                    long nombre = (valeurs[j] >>> 24) & 0xFFFFFF, points = valeurs[j] & 0xFFFFFF;
+                    if (nombre >= occurrencesMin && points > 0) {
+                        groupe.add(new long[] {valeurs[j] >>> 48, points});
+                        max = Math.max(max, points);
+                    }
+                }
+                // Les poids Polyglot tiennent sur 16 bits
+                double echelle = max > 0xFFFF ? 65535.0 / max : 1.0;
+                groupe.sort((a, b) -> Long.compare(b[1], a[1]));
+                for (long[] e : groupe) {
+                    out.writeLong(clesEntrees[i]);
+                    out.writeShort((int) e[0]);
+                    out.writeShort((int) Math.max(1, e[1] * echelle));
+                    out.writeInt(0);
+                    ecrites++;
+                }
+                i = j;
+            }
+        }
+        return ecrites;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path sortie = Paths.get("livre.bin");
+        int plies = 20, min = 1;
+        List<Path> fichiers = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o" -> sortie = Paths.get(args[++i]);
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--min" -> min = Integer.parseInt(args[++i]);
+                default -> fichiers.add(Paths.get(args[i]));
+            }
+        }
+        if (fichiers.isEmpty()) {
+            System.err.println("Usage : ConstructionLivre [-o livre.bin] [--plies 20] [--min 1] parties.pgn...");
+            return;
+        }
+        long debut = System.nanoTime();
+        ConstructionLivre construction = new ConstructionLivre(ClesPolyglot.parDefaut(), plies, min);
+        long parties = 0;
+        for (Path f : fichiers) {
+            parties += construction.ajouter(f);
+        }
+        long entrees = construction.ecrire(sortie);
+        System.out.printf("%d parties, %d entrées écrites dans %s en %.2f s%n",
+                parties, entrees, sortie, (System.nanoTime() - debut) / 1e9);
+    }
+}
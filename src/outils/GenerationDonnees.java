@@ -0,0 +1,216 @@
+package outils;
+
+import modele.moteur.CodeCoup;
+import modele.moteur.Echiquier;
+import modele.moteur.EcrivainPositions;
+import modele.moteur.Limites;
+import modele.moteur.Moteur;
+import modele.moteur.PositionCompacte;
+import modele.moteur.Recherche;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Génère des données d'apprentissage par parties du moteur contre lui-même,
+ * une partie par thread à la fois, sur tous les cœurs.
+ *
+ * Chaque partie commence par quelques coups légaux au hasard, puis le moteur
+ * joue les deux camps à budget fixe (nœuds ou profondeur). Seules les
+ * positions calmes sont gardées : pas d'échec, meilleur coup ni prise ni
+ * promotion, score hors mat. Une fois la partie finie (mat, pat, répétition,
+ * 50 coups, matériel insuffisant, ou arbitrage : score décisif soutenu, partie
+ * trop longue), ses positions reçoivent le résultat et sont ajoutées d'un bloc
+ * au fichier de sortie ({@link EcrivainPositions}), relu par
+ * {@link modele.moteur.LecteurPositions} ou outils.Texel.
+ *
+ * Usage : java outils.GenerationDonnees [--positions n] [--noeuds n | --profondeur p]
+ *         [--threads n] [--hash mo] [--aleatoires n] [--graine n] sortie.bin
+ */
+public final class GenerationDonnees {
+    private static final int PLIES_MAX = 400;
+    // Score (pour le joueur au trait) au-delà duquel la partie est jouée d'avance
+    private static final int SEUIL_ARBITRAGE = 1500;
+    private static final int PLIES_ARBITRAGE = 6;
+
+    private final Limites limites;
+    private final int hashMo;
+    private final int aleatoires;
+    private final long graine;
+    private final AtomicLong parties = new AtomicLong();
+    private final AtomicLong positions = new AtomicLong();
+
+    GenerationDonnees(Limites limites, int hashMo, int aleatoires, long graine) {
+        this.limites = limites;
+        this.hashMo = hashMo;
+        this.aleatoires = aleatoires;
+        this.graine = graine;
+    }
+
+    /**
+     * Joue des parties sur plusieurs threads jusqu'à avoir écrit assez de positions
+     * @param cible Nombre de positions à écrire (dépassé de quelques parties au plus)
+     */
+    void generer(EcrivainPositions sortie, long cible, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "donnees");
+            t.setDaemon(true);
+            return t;
+        });
+        long debut = System.nanoTime();
+        try {
+            List<Future<?>> taches = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random aleatoire = new Random(graine * 31 + t);
+                taches.add(pool.submit(() -> {
+                    jouerParties(sortie, cible, aleatoire);
+                    return null;
+                }));
+            }
+            for (Future<?> tache : taches) {
+                while (true) {
+                    try {
+                        tache.get(5, TimeUnit.SECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        afficherProgression(debut);
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                }
+            }
+            afficherProgression(debut);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void jouerParties(EcrivainPositions sortie, long cible, Random aleatoire) throws IOException {
+        Moteur moteur = new Moteur(hashMo, 1);
+        Limites l = new Limites();
+        l.copier(limites);
+        Echiquier echiquier = new Echiquier();
+        int[] coups = new int[256];
+        ByteBuffer partie = ByteBuffer.allocate(PositionCompacte.TAILLE * PLIES_MAX);
+        while (positions.get() < cible && !Thread.currentThread().isInterrupted()) {
+            partie.clear();
+            int resultat = jouerPartie(moteur, l, echiquier, coups, aleatoire, partie);
+            if (resultat < 0) {
+                continue;
+            }
+            partie.flip();
+            for (int debut = 0; debut < partie.limit(); debut += PositionCompacte.TAILLE) {
+                PositionCompacte.setResultat(partie, debut, resultat);
+            }
+            positions.addAndGet(partie.remaining() / PositionCompacte.TAILLE);
+            sortie.ajouter(partie);
+            parties.incrementAndGet();
+        }
+    }
+
+    /**
+     * Joue une partie en gardant ses positions calmes dans le tampon
+     * @return Le résultat (PositionCompacte.RESULTAT_*), ou -1 si l'ouverture
+     *         aléatoire a déjà fini la partie
+     */
+    private int jouerPartie(Moteur moteur, Limites l, Echiquier echiquier, int[] coups, Random aleatoire,
+                            ByteBuffer partie) {
+        echiquier.chargerFen(Echiquier.FEN_INITIALE);
+        for (int i = 0; i < aleatoires; i++) {
+            int n = echiquier.genererCoupsLegaux(coups, 0);
+            if (n == 0) {
+                return -1;
+            }
+            echiquier.jouer(coups[aleatoire.nextInt(n)]);
+        }
+        moteur.nouvellePartie();
+        int decisifs = 0;
+        for (int ply = 0; ; ply++) {
+            if (!echiquier.aUnCoupLegal(coups)) {
+                if (!echiquier.estEnEchec()) {
+                    return PositionCompacte.RESULTAT_NULLE;
+                }
+                return echiquier.getTrait() == Echiquier.BLANC
+                        ? PositionCompacte.RESULTAT_NOIRS : PositionCompacte.RESULTAT_BLANCS;
+            }
+            if (echiquier.estNulle() || ply >= PLIES_MAX) {
+                return PositionCompacte.RESULTAT_NULLE;
+            }
+            int coup = moteur.chercher(echiquier, l, null);
+            int score = moteur.getRecherchePrincipale().getMeilleurScore();
+            int scoreBlancs = echiquier.getTrait() == Echiquier.BLANC ? score : -score;
+            if (Math.abs(score) >= SEUIL_ARBITRAGE) {
+                if (++decisifs >= PLIES_ARBITRAGE) {
+                    return scoreBlancs > 0 ? PositionCompacte.RESULTAT_BLANCS : PositionCompacte.RESULTAT_NOIRS;
+                }
+            } else {
+                decisifs = 0;
+            }
+            if (!echiquier.estEnEchec() && !echiquier.estCapture(coup) && CodeCoup.promotion(coup) == 0
+                    && Math.abs(score) < Recherche.MAT - Recherche.PLY_MAX) {
+                PositionCompacte.ecrire(echiquier, scoreBlancs, PositionCompacte.RESULTAT_NULLE, partie);
+            }
+            echiquier.jouer(coup);
+        }
+    }
+
+    private void afficherProgression(long debut) {
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        long p = positions.get();
+        System.out.printf(Locale.ROOT, "%d parties, %d positions, %.0f positions/s%n",
+                parties.get(), p, p / Math.max(secondes, 1e-3));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Limites limites = new Limites();
+        limites.setNoeuds(5000);
+        long cible = 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors(), hash = 16, aleatoires = 8;
+        long graine = System.nanoTime();
+        Path sortie = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--positions" -> cible = Long.parseLong(args[++i]);
+                case "--noeuds" -> {
+                    limites.reinitialiser();
+                    limites.setNoeuds(Long.parseLong(args[++i]));
+                }
+                case "--profondeur" -> {
+                    limites.reinitialiser();
+                    limites.setProfondeur(Integer.parseInt(args[++i]));
+                }
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--hash" -> hash = Integer.parseInt(args[++i]);
+                case "--aleatoires" -> aleatoires = Integer.parseInt(args[++i]);
+                case "--graine" -> graine = Long.parseLong(args[++i]);
+                default -> sortie = Paths.get(args[i]);
+            }
+        }
+        if (sortie == null) {
+            System.err.println("Usage : GenerationDonnees [--positions n] [--noeuds n | --profondeur p] [--threads n]"
+                    + " [--hash mo] [--aleatoires n] [--graine n] sortie.bin");
+            return;
+        }
+        try (EcrivainPositions ecrivain = new EcrivainPositions(sortie)) {
+            long deja = ecrivain.getNombre();
+            if (deja > 0) {
+                System.out.println(deja + " positions déjà présentes, ajout à la suite");
+            }
+            new GenerationDonnees(limites, hash, aleatoires, graine).generer(ecrivain, cible, threads);
+            System.out.println(ecrivain.getNombre() + " positions dans " + sortie);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package outils;
+
+import modele.moteur.GenerateurTablesFinales;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Génère des tables de finales (avec les tables du matériel réduit dont
+ * elles dépendent) dans un dossier.
+ *
+ * Usage : java outils.GenerationTables [-d tables] [--threads n] KQK KRK KPK KBNK...
+ */
+public final class GenerationTables {
+    private GenerationTables() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dossier = Paths.get("tables");
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> materiels = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-d" -> dossier = Paths.get(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> materiels.add(args[i].toUpperCase());
+            }
+        }
+        if (materiels.isEmpty()) {
+            materiels = List.of("KQK", "KRK", "KPK", "KBNK");
+        }
+        GenerateurTablesFinales generateur = new GenerateurTablesFinales(dossier, threads);
+        generateur.setJournal(System.out::println);
+        long debut = System.nanoTime();
+        for (String materiel : materiels) {
+            generateur.generer(materiel);
+        }
+        System.out.printf("Tables disponibles dans %s : %s (%.1f s)%n", dossier,
+                generateur.getTables().getMateriels(), (System.nanoTime() - debut) / 1e9);
+    }
+}
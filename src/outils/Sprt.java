@@ -0,0 +1,137 @@
+package outils;
+
+/**
+ * Test séquentiel du rapport de vraisemblance (SPRT) sur l'écart Elo entre
+ * deux configurations, et estimation de cet écart.
+ *
+ * Les parties sont comptées par paires (même ouverture, couleurs inversées) :
+ * le score d'une paire vaut 0, 1/4, 1/2, 3/4 ou 1 (modèle pentanomial), ce qui
+ * tient compte de la corrélation entre les deux parties d'une ouverture.
+ * Le rapport de vraisemblance suit l'approximation normale usuelle :
+ * LLR = N (s1 - s0) (2 m - s0 - s1) / (2 v), où m et v sont la moyenne et la
+ * variance du score par paire, et s0, s1 les scores attendus sous H0 et H1.
+ */
+public final class Sprt {
+    /** Décision du test */
+    public enum Decision { EN_COURS, H0, H1 }
+
+    // En deçà, la variance estimée n'est pas fiable (quelques paires identiques
+    // la rendent presque nulle et le LLR explose) : pas de décision
+    static final int PAIRES_MIN = 10;
+
+    private final double elo0;
+    private final double elo1;
+    private final double borneBasse;
+    private final double borneHaute;
+    // Paires par score : 0, 1/2, 1, 3/2, 2 points sur deux parties
+    private final long[] paires = new long[5];
+    // Parties de la première configuration : gains, nulles, pertes
+    private long gains;
+    private long nulles;
+    private long pertes;
+
+    /**
+     * @param elo0 Écart sous H0 (aucun progrès, 0 en général)
+     * @param elo1 Écart sous H1 (progrès recherché)
+     * @param alpha Risque d'accepter H1 à tort
+     * @param beta Risque d'accepter H0 à tort
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.borneBasse = Math.log(beta / (1 - alpha));
+        this.borneHaute = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Enregistre une partie, du point de vue de la première configuration
+     * @param points 1 gain, 0.5 nulle, 0 perte
+     */
+    public synchronized void ajouterPartie(double points) {
+        if (points > 0.5) gains++;
+        else if (points < 0.5) pertes++;
+        else nulles++;
+    }
+
+    /**
+     * Enregistre une paire de parties jouées sur la même ouverture
+     * @param points Points de la première configuration sur les deux parties (0 à 2)
+     */
+    public synchronized void ajouterPaire(double points) {
+        paires[(int) Math.round(points * 2)]++;
+    }
+
+    /** Log du rapport de vraisemblance H1 / H0 */
+    public synchronized double llr() {
+        long n = nombrePaires();
+        if (n == 0) {
+            return 0;
+        }
+        double m = moyenne(n);
+        double v = variance(n, m);
+        if (v <= 0) {
+            return 0;
+        }
+        double s0 = scoreAttendu(elo0), s1 = scoreAttendu(elo1);
+        return n * (s1 - s0) * (2 * m - s0 - s1) / (2 * v);
+    }
+
+    public synchronized Decision decision() {
+        if (nombrePaires() < PAIRES_MIN) {
+            return Decision.EN_COURS;
+        }
+        double llr = llr();
+        return llr >= borneHaute ? Decision.H1 : (llr <= borneBasse ? Decision.H0 : Decision.EN_COURS);
+    }
+
+    /** Écart Elo estimé (positif : la première configuration est meilleure) */
+    public synchronized double elo() {
+        long n = nombrePaires();
+        return n == 0 ? 0 : versElo(moyenne(n));
+    }
+
+    /** Demi-largeur de l'intervalle de confiance à 95 % de l'écart Elo */
+    public synchronized double marge() {
+        long n = nombrePaires();
+        if (n < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double m = moyenne(n);
+        double ecart = 1.96 * Math.sqrt(variance(n, m) / n);
+        return (versElo(m + ecart) - versElo(m - ecart)) / 2;
+    }
+
+    public double getBorneBasse() { return borneBasse; }
+    public double getBorneHaute() { return borneHaute; }
+    public synchronized long getGains() { return gains; }
+    public synchronized long getNulles() { return nulles; }
+    public synchronized long getPertes() { return pertes; }
+
+    public synchronized long nombrePaires() {
+        long n = 0;
+        for (long p : paires) n += p;
+        return n;
+    }
+
+    private double moyenne(long n) {
+        double somme = 0;
+        for (int i = 0; i < 5; i++) somme += paires[i] * (i / 4.0);
+        return somme / n;
+    }
+
+    private double variance(long n, double m) {
+        double somme = 0;
+        for (int i = 0; i < 5; i++) somme += paires[i] * (i / 4.0 - m) * (i / 4.0 - m);
+        return somme / n;
+    }
+
+    /** Score attendu pour un écart Elo (modèle logistique) */
+    static double scoreAttendu(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    static double versElo(double score) {
+        double s = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / s - 1);
+    }
+}
@@ -0,0 +1,415 @@
+package outils;
+
+import modele.moteur.CodeCoup;
+import modele.moteur.EcouteurRecherche;
+import modele.moteur.Echiquier;
+import modele.moteur.Limites;
+import modele.moteur.Moteur;
+import modele.moteur.San;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Passe une suite de tests EPD (opérations bm / am) au moteur, à budget fixe
+ * de nœuds ou de temps par position.
+ *
+ * Les positions sont réparties entre plusieurs threads ; chacun a son propre
+ * moteur (table de transposition comprise, vidée à chaque position) et cherche
+ * sur un seul thread, ce qui rend un passage à nœuds fixes reproductible.
+ * Une position est résolue si le coup final est l'un des « bm » et aucun des
+ * « am » ; le temps de solution est celui de l'itération à partir de laquelle
+ * le coup choisi est resté correct.
+ *
+ * Usage : java outils.SuiteEpd [--noeuds n | --temps ms] [--profondeur p] [--threads n]
+ *         [--hash mo] [--json resume.json] suite.epd...
+ */
+public final class SuiteEpd {
+    private final Limites limites;
+    private final int threads;
+    private final int hashMo;
+
+    /**
+     * Position de la suite et ses coups attendus
+     */
+    static final class PositionEpd {
+        final String fichier;
+        final String fen;
+        String id;
+        final List<String> meilleurs = new ArrayList<>();
+        final List<String> evites = new ArrayList<>();
+
+        PositionEpd(String fichier, String fen) {
+            this.fichier = fichier;
+            this.fen = fen;
+        }
+    }
+
+    /**
+     * Résultat d'une position
+     */
+    static final class Resultat {
+        String coup;
+        boolean resolue;
+        long noeuds;
+        long tempsMs;
+        // Temps et nœuds au moment où le coup trouvé est devenu (définitivement) correct
+        long tempsSolutionMs = -1;
+        long noeudsSolution = -1;
+        int profondeur;
+        String erreur;
+    }
+
+    /**
+     * @param limites Budget de chaque position (recopié par chaque thread)
+     * @param threads Nombre de positions cherchées en même temps
+     * @param hashMo Table de transposition de chaque thread, en mégaoctets
+     */
+    public SuiteEpd(Limites limites, int threads, int hashMo) {
+        this.limites = limites;
+        this.threads = Math.max(1, threads);
+        this.hashMo = hashMo;
+    }
+
+    // ---------------------------------------------------------------- lecture
+
+    /**
+     * Lit un fichier EPD : quatre champs FEN puis des opérations « opcode opérandes; »
+     * @throws IOException en cas d'erreur de lecture
+     */
+    static List<PositionEpd> lire(Path fichier) throws IOException {
+        List<PositionEpd> positions = new ArrayList<>();
+        try (BufferedReader lecteur = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            String l;
+            int numero = 0;
+            while ((l = lecteur.readLine()) != null) {
+                numero++;
+                l = l.trim();
+                if (l.isEmpty() || l.startsWith("#")) {
+                    continue;
+                }
+                // Les quatre premiers champs : placement, trait, roques, prise en passant
+                int fin = 0;
+                for (int champ = 0; champ < 4; champ++) {
+                    while (fin < l.length() && l.charAt(fin) == ' ') fin++;
+                    while (fin < l.length() && l.charAt(fin) != ' ') fin++;
+                }
+                PositionEpd position = new PositionEpd(fichier.getFileName().toString(),
+                        l.substring(0, fin) + " 0 1");
+                lireOperations(l, fin, position);
+                if (position.id == null) {
+                    position.id = position.fichier + ":" + numero;
+                }
+                positions.add(position);
+            }
+        }
+        return positions;
+    }
+
+    private static void lireOperations(String l, int i, PositionEpd position) {
+        List<String> operandes = new ArrayList<>();
+        StringBuilder mot = new StringBuilder();
+        String opcode = null;
+        boolean guillemets = false;
+        for (; i <= l.length(); i++) {
+            char c = i < l.length() ? l.charAt(i) : ';';
+            if (guillemets) {
+                if (c == '"') guillemets = false;
+                else mot.append(c);
+            } else if (c == '"') {
+                guillemets = true;
+            } else if (c == ' ' || c == ';') {
+                if (mot.length() > 0) {
+                    if (opcode == null) opcode = mot.toString();
+                    else operandes.add(mot.toString());
+                    mot.setLength(0);
+                }
+                if (c == ';') {
+                    if (opcode != null) {
+                        switch (opcode) {
+                            case "bm" -> position.meilleurs.addAll(operandes);
+                            case "am" -> position.evites.addAll(operandes);
+                            case "id" -> position.id = operandes.isEmpty() ? null : operandes.get(0);
+                            default -> {
+                                // Autres opérations (c0, acd, hmvc...) ignorées
+                            }
+                        }
+                    }
+                    opcode = null;
+                    operandes.clear();
+                }
+            } else {
+                mot.append(c);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------- recherche
+
+    /**
+     * Cherche toutes les positions, en parallèle
+     * @return Les résultats, dans l'ordre des positions
+     */
+    public Resultat[] passer(List<PositionEpd> positions) throws InterruptedException {
+        Resultat[] resultats = new Resultat[positions.size()];
+        AtomicInteger suivante = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "epd");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> taches = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                taches.add(pool.submit(() -> {
+                    Moteur moteur = new Moteur(hashMo, 1);
+                    Limites l = new Limites();
+                    l.copier(limites);
+                    int i;
+                    while ((i = suivante.getAndIncrement()) < resultats.length) {
+                        resultats[i] = chercher(moteur, l, positions.get(i));
+                        afficher(positions.get(i), resultats[i]);
+                    }
+                }));
+            }
+            for (Future<?> tache : taches) {
+                try {
+                    tache.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return resultats;
+    }
+
+    private static Resultat chercher(Moteur moteur, Limites limites, PositionEpd position) {
+        Resultat resultat = new Resultat();
+        Echiquier echiquier = new Echiquier();
+        int[] tampon = new int[256];
+        try {
+            echiquier.chargerFen(position.fen);
+        } catch (IllegalArgumentException e) {
+            resultat.erreur = "FEN invalide";
+            return resultat;
+        }
+        List<Integer> meilleurs = lireCoups(echiquier, position.meilleurs, tampon);
+        List<Integer> evites = lireCoups(echiquier, position.evites, tampon);
+        if (meilleurs == null || evites == null || (meilleurs.isEmpty() && evites.isEmpty())) {
+            resultat.erreur = "coups bm/am absents ou illégaux";
+            return resultat;
+        }
+
+        moteur.nouvellePartie();
+        int coup = moteur.chercher(echiquier, limites, new EcouteurRecherche() {
+            @Override
+            public void iterationTerminee(int profondeur, int profondeurSelective, int score, long noeuds,
+                                          long tempsMs, int[] pv, int longueurPv) {
+                if (!estCorrect(pv[0], meilleurs, evites)) {
+                    resultat.tempsSolutionMs = -1;
+                    resultat.noeudsSolution = -1;
+                } else if (resultat.tempsSolutionMs < 0) {
+                    resultat.tempsSolutionMs = tempsMs;
+                    resultat.noeudsSolution = noeuds;
+                }
+                resultat.profondeur = profondeur;
+            }
+        });
+        resultat.noeuds = moteur.getNoeuds();
+        resultat.tempsMs = moteur.getRecherchePrincipale().getTempsEcouleMs();
+        resultat.resolue = coup != CodeCoup.AUCUN && estCorrect(coup, meilleurs, evites);
+        if (!resultat.resolue) {
+            resultat.tempsSolutionMs = resultat.noeudsSolution = -1;
+        } else if (resultat.tempsSolutionMs < 0) {
+            // Coup de secours correct, sans itération terminée
+            resultat.tempsSolutionMs = resultat.tempsMs;
+            resultat.noeudsSolution = resultat.noeuds;
+        }
+        if (coup != CodeCoup.AUCUN) {
+            StringBuilder sb = new StringBuilder();
+            San.ecrire(echiquier, coup, sb, tampon);
+            resultat.coup = sb.toString();
+        }
+        return resultat;
+    }
+
+    /** Coups SAN (ou UCI) de la position ; null si l'un d'eux est illégal */
+    private static List<Integer> lireCoups(Echiquier echiquier, List<String> textes, int[] tampon) {
+        List<Integer> coups = new ArrayList<>();
+        for (String texte : textes) {
+            int coup = San.lire(echiquier, texte, 0, texte.length(), tampon);
+            if (coup == CodeCoup.AUCUN) {
+                coup = echiquier.lireCoupUci(texte, 0, tampon);
+            }
+            if (coup == CodeCoup.AUCUN) {
+                return null;
+            }
+            coups.add(coup);
+        }
+        return coups;
+    }
+
+    private static boolean estCorrect(int coup, List<Integer> meilleurs, List<Integer> evites) {
+        return (meilleurs.isEmpty() || meilleurs.contains(coup)) && !evites.contains(coup);
+    }
+
+    // ------------------------------------------------------------------ sortie
+
+    private static synchronized void afficher(PositionEpd position, Resultat r) {
+        if (r.erreur != null) {
+            System.out.printf("%-24s ERREUR  %s%n", position.id, r.erreur);
+            return;
+        }
+        System.out.printf(Locale.ROOT, "%-24s %-7s %-8s attendu %-12s prof %2d  %8d ms  %10d nœuds%s%n",
+                position.id, r.resolue ? "OK" : "ÉCHEC", r.coup,
+                (position.meilleurs.isEmpty() ? "!" + String.join(" !", position.evites)
+                        : String.join(" ", position.meilleurs)),
+                r.profondeur, r.tempsMs, r.noeuds,
+                r.resolue ? "  (résolue en " + r.tempsSolutionMs + " ms)" : "");
+    }
+
+    /**
+     * Écrit le résumé au format JSON, pour suivre l'évolution d'une version à l'autre
+     */
+    static void ecrireJson(Writer sortie, List<PositionEpd> positions, Resultat[] resultats, Limites limites,
+                           int threads, long dureeMs) throws IOException {
+        int resolues = 0;
+        long noeuds = 0, temps = 0;
+        for (Resultat r : resultats) {
+            if (r.resolue) resolues++;
+            noeuds += r.noeuds;
+            temps += r.tempsMs;
+        }
+        StringBuilder sb = new StringBuilder(256 + 160 * resultats.length);
+        sb.append("{\n  \"positions\": ").append(resultats.length)
+                .append(",\n  \"resolues\": ").append(resolues)
+                .append(",\n  \"noeuds\": ").append(noeuds)
+                .append(",\n  \"nps\": ").append(noeuds * 1000 / Math.max(1, temps))
+                .append(",\n  \"nps_total\": ").append(noeuds * 1000 / Math.max(1, dureeMs))
+                .append(",\n  \"duree_ms\": ").append(dureeMs)
+                .append(",\n  \"threads\": ").append(threads)
+                .append(",\n  \"budget\": {\"noeuds\": ")
+                .append(limites.getNoeuds() == Long.MAX_VALUE ? -1 : limites.getNoeuds())
+                .append(", \"temps_ms\": ").append(limites.getTempsParCoupMs())
+                .append(", \"profondeur\": ").append(limites.getProfondeur())
+                .append("},\n  \"resultats\": [");
+        for (int i = 0; i < resultats.length; i++) {
+            Resultat r = resultats[i];
+            sb.append(i == 0 ? "\n" : ",\n").append("    {\"id\": ");
+            chaineJson(sb, positions.get(i).id);
+            sb.append(", \"resolue\": ").append(r.resolue).append(", \"coup\": ");
+            chaineJson(sb, r.coup);
+            sb.append(", \"profondeur\": ").append(r.profondeur)
+                    .append(", \"noeuds\": ").append(r.noeuds)
+                    .append(", \"temps_ms\": ").append(r.tempsMs)
+                    .append(", \"temps_solution_ms\": ").append(r.tempsSolutionMs)
+                    .append(", \"noeuds_solution\": ").append(r.noeudsSolution);
+            if (r.erreur != null) {
+                sb.append(", \"erreur\": ");
+                chaineJson(sb, r.erreur);
+            }
+            sb.append('}');
+        }
+        sb.append("\n  ]\n}\n");
+        sortie.write(sb.toString());
+    }
+
+    private static void chaineJson(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Limites limites = new Limites();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hash = Moteur.HASH_PAR_DEFAUT_MO;
+        Path json = null;
+        boolean budget = false;
+        List<Path> fichiers = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--noeuds" -> {
+                    limites.setNoeuds(Long.parseLong(args[++i]));
+                    budget = true;
+                }
+                case "--temps" -> {
+                    limites.setTempsParCoupMs(Long.parseLong(args[++i]));
+                    budget = true;
+                }
+                case "--profondeur" -> {
+                    limites.setProfondeur(Integer.parseInt(args[++i]));
+                    budget = true;
+                }
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--hash" -> hash = Integer.parseInt(args[++i]);
+                case "--json" -> json = Paths.get(args[++i]);
+                default -> fichiers.add(Paths.get(args[i]));
+            }
+        }
+        if (fichiers.isEmpty()) {
+            System.err.println("Usage : SuiteEpd [--noeuds n | --temps ms] [--profondeur p] [--threads n]"
+                    + " [--hash mo] [--json resume.json] suite.epd...");
+            return;
+        }
+        // Sans budget explicite : une seconde par position
+        if (!budget) {
+            limites.setTempsParCoupMs(1000);
+        }
+        List<PositionEpd> positions = new ArrayList<>();
+        for (Path f : fichiers) {
+            positions.addAll(lire(f));
+        }
+
+        long debut = System.nanoTime();
+        SuiteEpd suite = new SuiteEpd(limites, threads, hash);
+        Resultat[] resultats = suite.passer(positions);
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000L;
+
+        int resolues = 0;
+        long noeuds = 0, temps = 0, tempsSolution = 0;
+        for (Resultat r : resultats) {
+            noeuds += r.noeuds;
+            temps += r.tempsMs;
+            if (r.resolue) {
+                resolues++;
+                tempsSolution += r.tempsSolutionMs;
+            }
+        }
+        System.out.printf(Locale.ROOT, "%nRésolues : %d / %d (%.1f %%), temps de solution moyen %d ms%n",
+                resolues, resultats.length, 100.0 * resolues / Math.max(1, resultats.length),
+                resolues > 0 ? tempsSolution / resolues : 0);
+        System.out.printf(Locale.ROOT, "%d nœuds, %d nœuds/s par thread, %d nœuds/s au total (%d threads, %.1f s)%n",
+                noeuds, noeuds * 1000 / Math.max(1, temps), noeuds * 1000 / Math.max(1, dureeMs),
+                suite.threads, dureeMs / 1000.0);
+        if (json != null) {
+            try (Writer sortie = Files.newBufferedWriter(json, StandardCharsets.UTF_8)) {
+                ecrireJson(sortie, positions, resultats, limites, suite.threads, dureeMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package outils;
+
+import modele.moteur.Echiquier;
+import modele.moteur.EcrivainPositions;
+import modele.moteur.Evaluation;
+import modele.moteur.LecteurPositions;
+import modele.moteur.PositionCompacte;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Réglage des poids de l'évaluation par la méthode de Texel : on minimise
+ * l'écart quadratique moyen entre le résultat des parties et la prédiction
+ * sigmoïde(K × évaluation statique), sur des positions calmes étiquetées.
+ *
+ * L'évaluation étant linéaire en ses poids (matériel, tables, tables du roi
+ * pondérées par la phase), le gradient se calcule exactement à chaque passe ;
+ * les poids sont optimisés par Adam sur l'ensemble des positions, chaque passe
+ * étant répartie entre les threads. Les positions (fichiers de
+ * {@link PositionCompacte}) sont gardées dans des tableaux primitifs,
+ * 25 octets par position : plusieurs dizaines de millions tiennent en mémoire.
+ * K est d'abord ajusté aux poids de départ, puis fixé.
+ *
+ * Usage : java outils.Texel [--poids depart.txt] [--sortie poids.txt] [--iterations n]
+ *         [--pas p] [--k k] [--threads n] positions.bin...
+ *         java outils.Texel --convertir positions.epd positions.bin
+ * (EPD étiqueté : résultat « 1-0 », « 0-1 », « 1/2-1/2 » ou [1.0], [0.5], [0.0] sur la ligne)
+ */
+public final class Texel {
+    private static final int PHASE_MAX = 24;
+
+    // Positions : occupation, pièces (voir PositionCompacte) et résultat en demi-points pour les blancs
+    private final long[] occupations;
+    private final long[] piecesBas;
+    private final long[] piecesHaut;
+    private final byte[] resultats;
+    private final int nombre;
+
+    private final ExecutorService pool;
+    private final int tranches;
+    // Gradient partiel de chaque tranche, réutilisé d'une passe à l'autre
+    private final double[][] gradients;
+
+    private Texel(long[] occupations, long[] piecesBas, long[] piecesHaut, byte[] resultats, int nombre, int threads) {
+        this.occupations = occupations;
+        this.piecesBas = piecesBas;
+        this.piecesHaut = piecesHaut;
+        this.resultats = resultats;
+        this.nombre = nombre;
+        this.tranches = threads * 4;
+        this.gradients = new double[tranches][Evaluation.NOMBRE_POIDS];
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "texel");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Charge des fichiers de positions compactes. Les positions roi et pion
+     * contre roi sont écartées (évaluées par la bitbase, pas par les poids).
+     */
+    static Texel charger(List<Path> fichiers, int threads) throws IOException {
+        List<LecteurPositions> lecteurs = new ArrayList<>();
+        try {
+            long total = 0;
+            for (Path f : fichiers) {
+                LecteurPositions lecteur = new LecteurPositions(f);
+                lecteurs.add(lecteur);
+                total += lecteur.getNombre();
+            }
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IOException("Trop de positions : " + total);
+            }
+            int capacite = (int) total;
+            long[] occupations = new long[capacite], bas = new long[capacite], haut = new long[capacite];
+            byte[] resultats = new byte[capacite];
+            int n = 0;
+            for (LecteurPositions lecteur : lecteurs) {
+                for (long i = 0; i < lecteur.getNombre(); i++) {
+                    long occupation = lecteur.occupation(i);
+                    long b = lecteur.piecesBas(i);
+                    int resultat = lecteur.resultat(i);
+                    if (resultat < PositionCompacte.RESULTAT_NOIRS || resultat > PositionCompacte.RESULTAT_BLANCS
+                            || estKPK(occupation, b)) {
+                        continue;
+                    }
+                    occupations[n] = occupation;
+                    bas[n] = b;
+                    haut[n] = lecteur.piecesHaut(i);
+                    resultats[n] = (byte) resultat;
+                    n++;
+                }
+            }
+            return new Texel(occupations, bas, haut, resultats, n, threads);
+        } finally {
+            for (LecteurPositions lecteur : lecteurs) {
+                lecteur.close();
+            }
+        }
+    }
+
+    private static boolean estKPK(long occupation, long bas) {
+        if (Long.bitCount(occupation) != 3) {
+            return false;
+        }
+        for (int i = 0; i < 3; i++) {
+            if (Echiquier.type(PositionCompacte.piece(bas, 0, i)) == Echiquier.PION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int getNombre() {
+        return nombre;
+    }
+
+    // -------------------------------------------------------------- évaluation
+
+    /** Évaluation pour les blancs de la position i, avec des poids réels */
+    private double evaluer(int i, double[] poids) {
+        long bas = piecesBas[i], haut = piecesHaut[i];
+        double score = 0, roiMilieu = 0, roiFinale = 0;
+        int phase = 0, n = 0;
+        for (long bb = occupations[i]; bb != 0; bb &= bb - 1, n++) {
+            int sq = Long.numberOfTrailingZeros(bb);
+            int piece = PositionCompacte.piece(bas, haut, n);
+            int type = Echiquier.type(piece);
+            boolean blanc = Echiquier.couleur(piece) == Echiquier.BLANC;
+            int index = blanc ? Evaluation.indexBlanc(sq) : sq;
+            double signe = blanc ? 1 : -1;
+            if (type == Echiquier.ROI) {
+                roiMilieu += signe * poids[Evaluation.POIDS_ROI_MILIEU + index];
+                roiFinale += signe * poids[Evaluation.POIDS_ROI_FINALE + index];
+            } else {
+                score += signe * (poids[Evaluation.POIDS_MATERIEL + type - 1]
+                        + poids[Evaluation.POIDS_TABLES + (type - 1) * 64 + index]);
+                phase += Evaluation.phase(type);
+            }
+        }
+        phase = Math.min(phase, PHASE_MAX);
+        return score + (roiMilieu * phase + roiFinale * (PHASE_MAX - phase)) / PHASE_MAX;
+    }
+
+    /** Ajoute coefficient × dérivée de l'évaluation de la position i au gradient */
+    private void deriver(int i, double coefficient, double[] gradient) {
+        long bas = piecesBas[i], haut = piecesHaut[i];
+        int phase = 0, n = 0;
+        for (long bb = occupations[i]; bb != 0; bb &= bb - 1, n++) {
+            int type = Echiquier.type(PositionCompacte.piece(bas, haut, n));
+            if (type != Echiquier.ROI) {
+                phase += Evaluation.phase(type);
+            }
+        }
+        phase = Math.min(phase, PHASE_MAX);
+        double milieu = coefficient * phase / PHASE_MAX, finale = coefficient * (PHASE_MAX - phase) / PHASE_MAX;
+        n = 0;
+        for (long bb = occupations[i]; bb != 0; bb &= bb - 1, n++) {
+            int sq = Long.numberOfTrailingZeros(bb);
+            int piece = PositionCompacte.piece(bas, haut, n);
+            int type = Echiquier.type(piece);
+            boolean blanc = Echiquier.couleur(piece) == Echiquier.BLANC;
+            int index = blanc ? Evaluation.indexBlanc(sq) : sq;
+            double signe = blanc ? 1 : -1;
+            if (type == Echiquier.ROI) {
+                gradient[Evaluation.POIDS_ROI_MILIEU + index] += signe * milieu;
+                gradient[Evaluation.POIDS_ROI_FINALE + index] += signe * finale;
+            } else {
+                gradient[Evaluation.POIDS_MATERIEL + type - 1] += signe * coefficient;
+                gradient[Evaluation.POIDS_TABLES + (type - 1) * 64 + index] += signe * coefficient;
+            }
+        }
+    }
+
+    private static double sigmoide(double k, double evaluation) {
+        return 1 / (1 + Math.pow(10, -k * evaluation / 400));
+    }
+
+    /**
+     * Erreur quadratique moyenne, et son gradient si demandé, en parallèle
+     * @param gradient Reçoit le gradient (peut être null)
+     */
+    double erreur(double[] poids, double k, double[] gradient) throws InterruptedException {
+        List<Future<Double>> taches = new ArrayList<>(tranches);
+        int taille = (nombre + tranches - 1) / tranches;
+        for (int t = 0; t < tranches; t++) {
+            int debut = t * taille, fin = Math.min(nombre, debut + taille);
+            double[] partiel = gradient != null ? gradients[t] : null;
+            taches.add(pool.submit(() -> {
+                if (partiel != null) {
+                    Arrays.fill(partiel, 0);
+                }
+                double somme = 0;
+                for (int i = debut; i < fin; i++) {
+                    double s = sigmoide(k, evaluer(i, poids));
+                    double ecart = s - resultats[i] / 2.0;
+                    somme += ecart * ecart;
+                    if (partiel != null) {
+                        // d(ecart²)/d(évaluation)
+                        deriver(i, 2 * ecart * s * (1 - s) * k * Math.log(10) / 400, partiel);
+                    }
+                }
+                return somme;
+            }));
+        }
+        double somme = 0;
+        try {
+            for (Future<Double> tache : taches) {
+                somme += tache.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        if (gradient != null) {
+            Arrays.fill(gradient, 0);
+            for (double[] partiel : gradients) {
+                for (int j = 0; j < gradient.length; j++) {
+                    gradient[j] += partiel[j] / nombre;
+                }
+            }
+        }
+        return somme / nombre;
+    }
+
+    /** K qui minimise l'erreur pour des poids donnés (section dorée) */
+    double ajusterK(double[] poids) throws InterruptedException {
+        double a = 0.1, b = 3.0, r = (Math.sqrt(5) - 1) / 2;
+        double c = b - r * (b - a), d = a + r * (b - a);
+        double ec = erreur(poids, c, null), ed = erreur(poids, d, null);
+        for (int i = 0; i < 30; i++) {
+            if (ec < ed) {
+                b = d;
+                d = c;
+                ed = ec;
+                c = b - r * (b - a);
+                ec = erreur(poids, c, null);
+            } else {
+                a = c;
+                c = d;
+                ec = ed;
+                d = a + r * (b - a);
+                ed = erreur(poids, d, null);
+            }
+        }
+        return (a + b) / 2;
+    }
+
+    /**
+     * Descente de gradient (Adam) sur toutes les positions
+     * @param poids Poids de départ, modifiés sur place
+     * @param iterations Nombre de passes
+     * @param pas Pas d'apprentissage, en centipions
+     * @param sortie Fichier où enregistrer les poids arrondis au fil des passes (peut être null)
+     */
+    void optimiser(double[] poids, double k, int iterations, double pas, Path sortie)
+            throws InterruptedException, IOException {
+        double beta1 = 0.9, beta2 = 0.999, epsilon = 1e-8;
+        double[] gradient = new double[poids.length];
+        double[] moment = new double[poids.length], variance = new double[poids.length];
+        long debut = System.nanoTime();
+        for (int iteration = 1; iteration <= iterations; iteration++) {
+            double erreur = erreur(poids, k, gradient);
+            double correction1 = 1 - Math.pow(beta1, iteration), correction2 = 1 - Math.pow(beta2, iteration);
+            for (int j = 0; j < poids.length; j++) {
+                moment[j] = beta1 * moment[j] + (1 - beta1) * gradient[j];
+                variance[j] = beta2 * variance[j] + (1 - beta2) * gradient[j] * gradient[j];
+                poids[j] -= pas * (moment[j] / correction1) / (Math.sqrt(variance[j] / correction2) + epsilon);
+            }
+            if (iteration % 10 == 0 || iteration == iterations) {
+                double secondes = (System.nanoTime() - debut) / 1e9;
+                System.out.printf(Locale.ROOT, "Passe %5d : erreur %.6f  %.1f s  %.0f positions/s%n", iteration, erreur,
+                        secondes, (double) nombre * iteration / secondes);
+                if (sortie != null) {
+                    Evaluation.ecrirePoids(arrondir(poids), sortie);
+                }
+            }
+        }
+    }
+
+    void arreter() {
+        pool.shutdownNow();
+    }
+
+    static int[] arrondir(double[] poids) {
+        int[] entiers = new int[poids.length];
+        for (int i = 0; i < poids.length; i++) {
+            entiers[i] = (int) Math.round(poids[i]);
+        }
+        return entiers;
+    }
+
+    // ------------------------------------------------------------- conversion
+
+    /**
+     * Convertit un fichier EPD étiqueté en positions compactes
+     * @return Le nombre de positions écrites
+     */
+    static long convertir(Path epd, Path sortie) throws IOException {
+        Echiquier echiquier = new Echiquier();
+        Files.deleteIfExists(sortie);
+        long n = 0;
+        try (BufferedReader lecteur = Files.newBufferedReader(epd, StandardCharsets.UTF_8);
+             EcrivainPositions ecrivain = new EcrivainPositions(sortie)) {
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                int resultat = lireResultat(ligne);
+                String[] champs = ligne.trim().split("\\s+");
+                if (resultat < 0 || champs.length < 4) {
+                    continue;
+                }
+                try {
+                    echiquier.chargerFen(String.join(" ", champs[0], champs[1], champs[2], champs[3]));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                ecrivain.ajouter(echiquier, PositionCompacte.SCORE_INCONNU, resultat);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static int lireResultat(String ligne) {
+        if (ligne.contains("1/2-1/2") || ligne.contains("[0.5]")) return PositionCompacte.RESULTAT_NULLE;
+        if (ligne.contains("1-0") || ligne.contains("[1.0]")) return PositionCompacte.RESULTAT_BLANCS;
+        if (ligne.contains("0-1") || ligne.contains("[0.0]")) return PositionCompacte.RESULTAT_NOIRS;
+        return -1;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 3 && args[0].equals("--convertir")) {
+            long n = convertir(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.println(n + " positions écrites dans " + args[2]);
+            return;
+        }
+        Path depart = null, sortie = Paths.get("poids.txt");
+        int iterations = 1000, threads = Runtime.getRuntime().availableProcessors();
+        double pas = 1.0, k = Double.NaN;
+        List<Path> fichiers = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--poids" -> depart = Paths.get(args[++i]);
+                case "--sortie" -> sortie = Paths.get(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--pas" -> pas = Double.parseDouble(args[++i]);
+                case "--k" -> k = Double.parseDouble(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> fichiers.add(Paths.get(args[i]));
+            }
+        }
+        if (fichiers.isEmpty()) {
+            System.err.println("Usage : Texel [--poids depart.txt] [--sortie poids.txt] [--iterations n] [--pas p]"
+                    + " [--k k] [--threads n] positions.bin...");
+            System.err.println("        Texel --convertir positions.epd positions.bin");
+            return;
+        }
+
+        long debut = System.nanoTime();
+        Texel texel = charger(fichiers, threads);
+        if (texel.getNombre() == 0) {
+            System.err.println("Aucune position");
+            return;
+        }
+        System.out.printf(Locale.ROOT, "%d positions chargées en %.1f s%n", texel.getNombre(),
+                (System.nanoTime() - debut) / 1e9);
+        int[] initiaux = depart != null ? Evaluation.lirePoids(depart) : Evaluation.getPoids();
+        double[] poids = new double[initiaux.length];
+        for (int i = 0; i < poids.length; i++) {
+            poids[i] = initiaux[i];
+        }
+        try {
+            if (Double.isNaN(k)) {
+                k = texel.ajusterK(poids);
+            }
+            System.out.printf(Locale.ROOT, "K = %.4f, erreur initiale %.6f%n", k, texel.erreur(poids, k, null));
+            texel.optimiser(poids, k, iterations, pas, sortie);
+            System.out.printf(Locale.ROOT, "Erreur finale %.6f, poids dans %s%n",
+                    texel.erreur(poids, k, null), sortie);
+        } finally {
+            texel.arreter();
+        }
+    }
+}
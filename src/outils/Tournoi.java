@@ -0,0 +1,445 @@
+package outils;
+
+import modele.jeu.Coup;
+import modele.jeu.Jeu;
+import modele.jeu.Pendule;
+import modele.jeu.Position;
+import modele.joueur.IJoueur;
+import modele.joueur.JoueurIA;
+import modele.joueur.JoueurMCTS;
+import modele.moteur.Echiquier;
+import modele.moteur.Limites;
+import modele.pieces.PieceColor;
+import modele.pieces.PieceType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tournoi entre deux configurations du moteur, arrêté par un SPRT.
+ *
+ * Chaque ouverture est jouée deux fois, couleurs inversées ; les paires sont
+ * jouées en parallèle, une par thread virtuel, au plus --concurrence à la fois.
+ * Les parties passent par Jeu comme dans l'interface (joueurs IA, ordonnanceur
+ * de la partie), sans délai artificiel ni réflexion sur le temps adverse, à
+ * temps ou nombre de nœuds fixe par coup, ou à la pendule avec --cadence
+ * (« 1+0.1 » : minutes+secondes ; une chute du drapeau perd la partie).
+ * Répétition triple, règle des 50 coups, matériel insuffisant et parties trop
+ * longues sont déclarés nuls par l'arbitre.
+ *
+ * Usage : java outils.Tournoi [--a type=ab,hash=16] [--b type=mcts] [--noeuds n | --temps ms]
+ *         [--cadence 1+0.1] [--ouvertures fichier.epd] [--parties n] [--concurrence n] [--elo0 0] [--elo1 10]
+ *         [--alpha 0.05] [--beta 0.05] [--plies 400] [--graine n]
+ *
+ * Clés d'une configuration : type (ab, mcts), hash (Mo), threads, noeuds,
+ * temps (ms par coup), exploration (mcts).
+ */
+public final class Tournoi {
+    // Partie non terminée dans le délai imparti : ni comptée ni rejouée
+    private static final int ABANDON = Integer.MIN_VALUE;
+    // Période de vérification du drapeau pendant une partie à la pendule
+    private static final long PERIODE_PENDULE_MS = 50;
+
+    private final Configuration a;
+    private final Configuration b;
+    private final List<String> ouvertures;
+    private final Sprt sprt;
+    private final int pliesMax;
+    private final long delaiMaxMs;
+    private final String cadence;
+    private final AtomicInteger abandons = new AtomicInteger();
+
+    /**
+     * Une configuration du moteur, décrite par « cle=valeur,cle=valeur »
+     */
+    static final class Configuration {
+        final String nom;
+        String type = "ab";
+        int hash = 16;
+        int threads = 1;
+        long noeuds = -1;
+        long tempsMs = -1;
+        double exploration = Double.NaN;
+
+        Configuration(String nom, String description, long noeudsParDefaut, long tempsParDefaut) {
+            this.nom = nom;
+            noeuds = noeudsParDefaut;
+            tempsMs = tempsParDefaut;
+            if (description == null || description.isBlank()) {
+                return;
+            }
+            for (String option : description.split(",")) {
+                String[] cv = option.split("=", 2);
+                if (cv.length != 2) {
+                    throw new IllegalArgumentException("Option invalide : " + option);
+                }
+                String valeur = cv[1].trim();
+                switch (cv[0].trim()) {
+                    case "type" -> type = valeur;
+                    case "hash" -> hash = Integer.parseInt(valeur);
+                    case "threads" -> threads = Integer.parseInt(valeur);
+                    case "noeuds" -> {
+                        noeuds = Long.parseLong(valeur);
+                        tempsMs = -1;
+                    }
+                    case "temps" -> {
+                        tempsMs = Long.parseLong(valeur);
+                        noeuds = -1;
+                    }
+                    case "exploration" -> exploration = Double.parseDouble(valeur);
+                    default -> throw new IllegalArgumentException("Option inconnue : " + cv[0]);
+                }
+            }
+            if (!type.equals("ab") && !type.equals("mcts")) {
+                throw new IllegalArgumentException("Type inconnu : " + type);
+            }
+        }
+
+        /** Crée un joueur de cette configuration pour une partie */
+        IJoueur creer(PieceColor couleur) {
+            Limites limites;
+            IJoueur joueur;
+            if (type.equals("mcts")) {
+                JoueurMCTS mcts = new JoueurMCTS(couleur);
+                mcts.getMonteCarlo().setThreads(threads);
+                if (!Double.isNaN(exploration)) {
+                    mcts.getMonteCarlo().setExploration(exploration);
+                }
+                limites = mcts.getLimites();
+                joueur = mcts;
+            } else {
+                JoueurIA ia = new JoueurIA(couleur);
+                ia.setPonder(false);
+                // Les ouvertures du tournoi remplacent le livre
+                ia.getMoteur().setLivre(null);
+                ia.getMoteur().setHash(hash);
+                ia.getMoteur().setThreads(threads);
+                limites = ia.getLimites();
+                joueur = ia;
+            }
+            limites.reinitialiser();
+            if (noeuds > 0) {
+                limites.setNoeuds(noeuds);
+            } else {
+                limites.setTempsParCoupMs(tempsMs);
+            }
+            return joueur;
+        }
+
+        @Override
+        public String toString() {
+            return nom + " [" + type + ", " + (noeuds > 0 ? noeuds + " nœuds" : tempsMs + " ms") + "/coup]";
+        }
+    }
+
+    /**
+     * @param cadence Cadence des parties (Pendule.depuisCadence), ou null pour les limites par coup
+     */
+    Tournoi(Configuration a, Configuration b, List<String> ouvertures, Sprt sprt, int pliesMax, long delaiMaxMs,
+            String cadence) {
+        this.a = a;
+        this.b = b;
+        this.ouvertures = ouvertures;
+        this.sprt = sprt;
+        this.pliesMax = pliesMax;
+        this.delaiMaxMs = delaiMaxMs;
+        this.cadence = cadence;
+    }
+
+    /**
+     * Joue des paires jusqu'à la décision du SPRT ou au nombre maximal de parties
+     * @param partiesMax Nombre maximal de parties
+     * @param concurrence Nombre de paires jouées en même temps
+     */
+    void jouer(int partiesMax, int concurrence) throws InterruptedException {
+        Semaphore places = new Semaphore(concurrence);
+        long debut = System.nanoTime();
+        try (ExecutorService executeur = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int paire = 0; paire * 2 < partiesMax && sprt.decision() == Sprt.Decision.EN_COURS; paire++) {
+                places.acquire();
+                // La décision a pu tomber pendant l'attente
+                if (sprt.decision() != Sprt.Decision.EN_COURS) {
+                    places.release();
+                    break;
+                }
+                String fen = ouvertures.get(paire % ouvertures.size());
+                executeur.submit(() -> {
+                    try {
+                        jouerPaire(fen);
+                        afficherBilan(debut);
+                    } finally {
+                        places.release();
+                    }
+                });
+            }
+        }
+    }
+
+    /** Joue une ouverture avec les deux couleurs et enregistre la paire */
+    private void jouerPaire(String fen) {
+        int premiere = jouerPartie(fen, a, b);
+        int seconde = jouerPartie(fen, b, a);
+        if (premiere == ABANDON || seconde == ABANDON) {
+            abandons.incrementAndGet();
+            return;
+        }
+        // Points de la configuration A : résultat vu des blancs, puis des noirs
+        double pointsPremiere = (premiere + 1) / 2.0;
+        double pointsSeconde = (1 - seconde) / 2.0;
+        synchronized (sprt) {
+            sprt.ajouterPartie(pointsPremiere);
+            sprt.ajouterPartie(pointsSeconde);
+            sprt.ajouterPaire(pointsPremiere + pointsSeconde);
+        }
+    }
+
+    /**
+     * Joue une partie depuis une position
+     * @return 1 si les blancs gagnent, 0 nulle, -1 si les noirs gagnent, ABANDON sinon
+     */
+    private int jouerPartie(String fen, Configuration blancs, Configuration noirs) {
+        Jeu jeu = new Jeu(fen);
+        jeu.getOrdonnanceur().setDelai(0);
+        jeu.setJoueurs(blancs.creer(PieceColor.WHITE), noirs.creer(PieceColor.BLACK));
+        jeu.setPendule(Pendule.depuisCadence(cadence));
+        Arbitre arbitre = new Arbitre(jeu, pliesMax);
+        jeu.getPlateau().addObserver(arbitre);
+        arbitre.examiner(jeu.getPosition());
+        try {
+            if (!arbitre.estTerminee()) {
+                jeu.demarrerPartie();
+            }
+            return arbitre.attendre(delaiMaxMs) ? arbitre.resultat : ABANDON;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ABANDON;
+        } finally {
+            jeu.arreter();
+        }
+    }
+
+    private void afficherBilan(long debut) {
+        synchronized (sprt) {
+            long parties = sprt.getGains() + sprt.getNulles() + sprt.getPertes();
+            System.out.printf(Locale.ROOT, "Parties %5d : +%d =%d -%d  Elo %+.1f ± %.1f  LLR %.2f [%.2f, %.2f]  %.0f s%n",
+                    parties, sprt.getGains(), sprt.getNulles(), sprt.getPertes(), sprt.elo(), sprt.marge(),
+                    sprt.llr(), sprt.getBorneBasse(), sprt.getBorneHaute(), (System.nanoTime() - debut) / 1e9);
+        }
+    }
+
+    /**
+     * Observe le plateau d'une partie et déclare sa fin : mat, pat, ou nulle
+     * d'arbitrage (répétition triple, 50 coups, matériel insuffisant, longueur).
+     * Le plateau n'offre que Observable pour suivre les coups, comme pour l'interface.
+     */
+    @SuppressWarnings("deprecation")
+    private static final class Arbitre implements Observer {
+        private final Jeu jeu;
+        private final int pliesMax;
+        private final Echiquier echiquier = new Echiquier();
+        // Clés depuis le dernier coup irréversible
+        private final long[] cles = new long[128];
+        private int nombreCles;
+        private int plies;
+        private final CountDownLatch fin = new CountDownLatch(1);
+        private volatile int resultat;
+
+        Arbitre(Jeu jeu, int pliesMax) {
+            this.jeu = jeu;
+            this.pliesMax = pliesMax;
+        }
+
+        @Override
+        public void update(Observable o, Object arg) {
+            // Appelé par Jeu sous son verrou, après chaque coup ; une promotion
+            // n'est complète qu'au choix de la pièce (seconde notification)
+            if (arg instanceof Position position && !jeu.isPromotionEnCours()) {
+                plies++;
+                examiner(position);
+            }
+        }
+
+        void examiner(Position position) {
+            if (estTerminee()) {
+                return;
+            }
+            if (position.estTerminee()) {
+                PieceColor vainqueur = position.getVainqueur();
+                terminer(vainqueur == null ? 0 : (vainqueur == PieceColor.WHITE ? 1 : -1));
+                return;
+            }
+            echiquier.chargerPosition(position);
+            if (position.getDemiCoups() == 0 || nombreCles == cles.length) {
+                nombreCles = 0;
+            }
+            long cle = echiquier.getCle();
+            int repetitions = 0;
+            for (int i = 0; i < nombreCles; i++) {
+                if (cles[i] == cle) repetitions++;
+            }
+            cles[nombreCles++] = cle;
+            if (repetitions >= 2 || position.getDemiCoups() >= 100 || echiquier.materielInsuffisant()
+                    || plies >= pliesMax) {
+                terminer(0);
+            }
+        }
+
+        private void terminer(int r) {
+            resultat = r;
+            fin.countDown();
+        }
+
+        boolean estTerminee() {
+            return fin.getCount() == 0;
+        }
+
+        /**
+         * Attend la fin de la partie ; avec une pendule, le drapeau est vérifié
+         * régulièrement (une chute termine la partie par notification du plateau)
+         */
+        boolean attendre(long delaiMs) throws InterruptedException {
+            if (jeu.getPendule() == null) {
+                return fin.await(delaiMs, TimeUnit.MILLISECONDS);
+            }
+            long limite = System.nanoTime() + delaiMs * 1_000_000L;
+            while (!fin.await(PERIODE_PENDULE_MS, TimeUnit.MILLISECONDS)) {
+                if (System.nanoTime() - limite > 0) {
+                    return false;
+                }
+                jeu.verifierTemps();
+            }
+            return true;
+        }
+    }
+
+    // -------------------------------------------------------------- ouvertures
+
+    /** Positions d'un fichier FEN ou EPD, une par ligne */
+    static List<String> lireOuvertures(Path fichier) throws IOException {
+        List<String> positions = new ArrayList<>();
+        for (String l : Files.readAllLines(fichier, StandardCharsets.UTF_8)) {
+            l = l.trim();
+            if (l.isEmpty() || l.startsWith("#")) {
+                continue;
+            }
+            // EPD : les opérations après le 4e champ sont ignorées
+            int fin = l.indexOf(';');
+            String[] champs = (fin >= 0 ? l.substring(0, fin) : l).split("\\s+");
+            positions.add(champs.length >= 6 && champs[4].chars().allMatch(Character::isDigit)
+                    ? String.join(" ", List.of(champs).subList(0, 6))
+                    : String.join(" ", List.of(champs).subList(0, Math.min(4, champs.length))));
+        }
+        return positions;
+    }
+
+    /**
+     * Ouvertures tirées au hasard (coups légaux aléatoires depuis la position
+     * initiale), faute de fichier : reproductibles pour une graine donnée
+     */
+    static List<String> ouverturesAleatoires(int nombre, int plies, long graine) {
+        Random aleatoire = new Random(graine);
+        List<String> positions = new ArrayList<>();
+        while (positions.size() < nombre) {
+            Jeu jeu = new Jeu();
+            for (int i = 0; i < plies && !jeu.estPartieTerminee(); i++) {
+                List<Coup> coups = jeu.getCoupsLegaux();
+                Coup coup = coups.get(aleatoire.nextInt(coups.size()));
+                jeu.jouerCoup(coup.getDepart(), coup.getArrivee());
+                if (jeu.isPromotionEnCours()) {
+                    jeu.promouvoirPion(PieceType.DAME);
+                }
+            }
+            if (!jeu.estPartieTerminee()) {
+                positions.add(jeu.getFen());
+            }
+        }
+        return positions;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String descriptionA = "", descriptionB = "";
+        long noeuds = -1, temps = 100;
+        String cadence = null;
+        Path fichierOuvertures = null;
+        int parties = 20000, concurrence = Runtime.getRuntime().availableProcessors(), plies = 400;
+        double elo0 = 0, elo1 = 10, alpha = 0.05, beta = 0.05;
+        long graine = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--a" -> descriptionA = args[++i];
+                case "--b" -> descriptionB = args[++i];
+                case "--noeuds" -> noeuds = Long.parseLong(args[++i]);
+                case "--temps" -> temps = Long.parseLong(args[++i]);
+                case "--cadence" -> cadence = args[++i];
+                case "--ouvertures" -> fichierOuvertures = Paths.get(args[++i]);
+                case "--parties" -> parties = Integer.parseInt(args[++i]);
+                case "--concurrence" -> concurrence = Integer.parseInt(args[++i]);
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--elo0" -> elo0 = Double.parseDouble(args[++i]);
+                case "--elo1" -> elo1 = Double.parseDouble(args[++i]);
+                case "--alpha" -> alpha = Double.parseDouble(args[++i]);
+                case "--beta" -> beta = Double.parseDouble(args[++i]);
+                case "--graine" -> graine = Long.parseLong(args[++i]);
+                default -> {
+                    System.err.println("Option inconnue : " + args[i]);
+                    return;
+                }
+            }
+        }
+        if (noeuds > 0) {
+            temps = -1;
+        }
+        Configuration a = new Configuration("A", descriptionA, noeuds, temps);
+        Configuration b = new Configuration("B", descriptionB, noeuds, temps);
+        List<String> ouvertures = fichierOuvertures != null
+                ? lireOuvertures(fichierOuvertures) : ouverturesAleatoires(500, 8, graine);
+        if (ouvertures.isEmpty()) {
+            System.err.println("Aucune ouverture");
+            return;
+        }
+        // Délai de garde par partie : largement au-delà du temps de réflexion prévu
+        long delaiMax;
+        Pendule pendule = Pendule.depuisCadence(cadence);
+        if (pendule != null) {
+            // Les deux pendules entières, incréments compris, plus la marge des coups
+            delaiMax = 2 * pendule.getTempsRestantMs(PieceColor.WHITE)
+                    + plies * (pendule.getIncrementMs(PieceColor.WHITE) + 200L) + 60_000L;
+        } else {
+            long parCoup = a.tempsMs > 0 || b.tempsMs > 0 ? Math.max(a.tempsMs, b.tempsMs) : 1000;
+            delaiMax = plies * (parCoup + 200L) + 60_000L;
+        }
+
+        Sprt sprt = new Sprt(elo0, elo1, alpha, beta);
+        Tournoi tournoi = new Tournoi(a, b, ouvertures, sprt, plies, delaiMax, cadence);
+        System.out.println(a + " contre " + b + (cadence != null ? ", cadence " + cadence : "")
+                + ", " + ouvertures.size() + " ouvertures, SPRT elo0=" + elo0
+                + " elo1=" + elo1 + " alpha=" + alpha + " beta=" + beta);
+        tournoi.jouer(parties, concurrence);
+
+        System.out.printf(Locale.ROOT, "%nRésultat de A : +%d =%d -%d, Elo %+.1f ± %.1f, LLR %.2f%n",
+                sprt.getGains(), sprt.getNulles(), sprt.getPertes(), sprt.elo(), sprt.marge(), sprt.llr());
+        System.out.println(switch (sprt.decision()) {
+            case H1 -> "H1 acceptée : A est meilleure d'au moins elo1";
+            case H0 -> "H0 acceptée : pas de progrès d'elo1";
+            case EN_COURS -> "Non conclusif (nombre maximal de parties atteint)";
+        });
+        if (tournoi.abandons.get() > 0) {
+            System.out.println(tournoi.abandons.get() + " paires abandonnées (délai dépassé)");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package serveur;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Générateur de charge pour {@link ServeurParties} : chaque client virtuel
+ * joue des parties aléatoires (coups légaux tirés au hasard) et mesure la
+ * latence de chaque requête. Affiche le débit en coups/seconde et le p99.
+ *
+ * Usage : ClientCharge [port] [clients] [durée en secondes]
+ */
+public class ClientCharge {
+    // Au-delà, la partie aléatoire est abandonnée et une nouvelle commence
+    private static final int PLY_MAX = 200;
+
+    private final String hote;
+    private final int port;
+    private final AtomicLong coupsJoues = new AtomicLong();
+    private final AtomicLong partiesJouees = new AtomicLong();
+    private final AtomicLong erreurs = new AtomicLong();
+
+    public ClientCharge(String hote, int port) {
+        this.hote = hote;
+        this.port = port;
+    }
+
+    /**
+     * Lance les clients et attend la fin de la mesure
+     * @param nbClients Nombre de sessions simultanées
+     * @param dureeMs Durée de la mesure
+     * @return L'histogramme fusionné des latences
+     */
+    public Histogramme lancer(int nbClients, long dureeMs) throws InterruptedException {
+        long fin = System.nanoTime() + dureeMs * 1_000_000L;
+        List<Thread> threads = new ArrayList<>(nbClients);
+        List<Histogramme> histogrammes = new ArrayList<>(nbClients);
+        for (int i = 0; i < nbClients; i++) {
+            Histogramme h = new Histogramme();
+            histogrammes.add(h);
+            long graine = i;
+            threads.add(Thread.ofVirtual().name("client-" + i).start(() -> jouer(fin, h, graine)));
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Histogramme total = new Histogramme();
+        for (Histogramme h : histogrammes) {
+            total.fusionner(h);
+        }
+        return total;
+    }
+
+    private void jouer(long fin, Histogramme latences, long graine) {
+        SplittableRandom hasard = new SplittableRandom(graine);
+        try (Socket socket = new Socket(hote, port);
+             BufferedReader entree = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), 4096);
+             Writer sortie = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            socket.setTcpNoDelay(true);
+            while (System.nanoTime() < fin) {
+                requete("new", entree, sortie, latences);
+                for (int ply = 0; ply < PLY_MAX && System.nanoTime() < fin; ply++) {
+                    String coups = requete("moves", entree, sortie, latences);
+                    String coup = tirerCoup(coups, hasard);
+                    if (coup == null) {
+                        break; // mat ou pat
+                    }
+                    String reponse = requete("move " + coup, entree, sortie, latences);
+                    if (!reponse.startsWith("ok")) {
+                        erreurs.incrementAndGet();
+                        break;
+                    }
+                    coupsJoues.incrementAndGet();
+                    if (reponse.length() > 2) {
+                        break; // partie terminée
+                    }
+                }
+                partiesJouees.incrementAndGet();
+            }
+            sortie.write("quit\n");
+            sortie.flush();
+        } catch (IOException e) {
+            erreurs.incrementAndGet();
+        }
+    }
+
+    private static String requete(String commande, BufferedReader entree, Writer sortie,
+                                  Histogramme latences) throws IOException {
+        long debut = System.nanoTime();
+        sortie.write(commande);
+        sortie.write('\n');
+        sortie.flush();
+        String reponse = entree.readLine();
+        if (reponse == null) {
+            throw new IOException("connexion fermée par le serveur");
+        }
+        latences.enregistrer(System.nanoTime() - debut);
+        return reponse;
+    }
+
+    /** Choisit un coup au hasard dans une réponse "moves a b c" */
+    private static String tirerCoup(String reponse, SplittableRandom hasard) {
+        int nb = 0;
+        for (int i = 0; i < reponse.length(); i++) {
+            if (reponse.charAt(i) == ' ') nb++;
+        }
+        if (nb == 0) return null;
+        int cible = hasard.nextInt(nb);
+        int debut = -1;
+        for (int i = 0, vus = 0; i < reponse.length(); i++) {
+            if (reponse.charAt(i) == ' ' && vus++ == cible) {
+                debut = i + 1;
+                break;
+            }
+        }
+        int fin = reponse.indexOf(' ', debut);
+        return reponse.substring(debut, fin < 0 ? reponse.length() : fin);
+    }
+
+    /**
+     * Histogramme de latences log-linéaire (16 sous-intervalles par puissance de 2),
+     * un par client pour éviter toute contention, fusionnés à la fin.
+     */
+    public static class Histogramme {
+        private static final int SOUS_INTERVALLES = 16;
+        private final long[] comptes = new long[64 * SOUS_INTERVALLES];
+        private long total;
+
+        void enregistrer(long nanos) {
+            comptes[indice(Math.max(1, nanos))]++;
+            total++;
+        }
+
+        private static int indice(long valeur) {
+            int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+            if (exposant < 4) return (int) valeur;
+            int sous = (int) ((valeur >>> (exposant - 4)) & (SOUS_INTERVALLES - 1));
+            return exposant * SOUS_INTERVALLES + sous;
+        }
+
+        private static long borneSuperieure(int indice) {
+            if (indice < 4 * SOUS_INTERVALLES) return indice;
+            int exposant = indice / SOUS_INTERVALLES;
+            int sous = indice % SOUS_INTERVALLES;
+            return ((long) (SOUS_INTERVALLES + sous + 1)) << (exposant - 4);
+        }
+
+        void fusionner(Histogramme autre) {
+            for (int i = 0; i < comptes.length; i++) {
+                comptes[i] += autre.comptes[i];
+            }
+            total += autre.total;
+        }
+
+        /**
+         * @param fraction Centile voulu, entre 0 et 1 (0.99 pour le p99)
+         * @return La latence correspondante en nanosecondes (borne supérieure de l'intervalle)
+         */
+        public long centile(double fraction) {
+            long rang = (long) Math.ceil(total * fraction);
+            long cumul = 0;
+            for (int i = 0; i < comptes.length; i++) {
+                cumul += comptes[i];
+                if (cumul >= rang && cumul > 0) return borneSuperieure(i);
+            }
+            return 0;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : ServeurParties.PORT_PAR_DEFAUT;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int secondes = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        ClientCharge charge = new ClientCharge("127.0.0.1", port);
+        long debut = System.nanoTime();
+        Histogramme latences = charge.lancer(clients, secondes * 1000L);
+        double duree = (System.nanoTime() - debut) / 1e9;
+
+        System.out.printf("clients=%d durée=%.1fs parties=%d coups=%d erreurs=%d%n",
+                clients, duree, charge.partiesJouees.get(), charge.coupsJoues.get(), charge.erreurs.get());
+        System.out.printf("coups/s=%.0f requêtes=%d p50=%.3fms p99=%.3fms p999=%.3fms%n",
+                charge.coupsJoues.get() / duree, latences.getTotal(),
+                latences.centile(0.50) / 1e6, latences.centile(0.99) / 1e6, latences.centile(0.999) / 1e6);
+    }
+}
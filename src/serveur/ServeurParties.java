@@ -0,0 +1,142 @@
+package serveur;
+
+import modele.jeu.Jeu;
+import modele.jeu.Pendule;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur de parties sans interface graphique.
+ * Chaque connexion locale ouvre une session (une partie, un thread virtuel),
+ * ce qui permet d'héberger des milliers de parties simultanées.
+ *
+ * Protocole ligne par ligne (ASCII, une réponse par commande) :
+ * <pre>
+ *   new          -> ok                         nouvelle partie
+ *   move e2e4    -> ok [résultat] | illegal    promotion : e7e8q, e7e8n...
+ *   moves        -> moves e2e4 g1f3 ...        coups légaux du joueur au trait
+ *   state        -> state w|b ply *|1-0|0-1|1/2-1/2
+ *   clock        -> clock msBlancs msNoirs | clock -   temps restants
+ *   quit                                       ferme la session
+ * </pre>
+ *
+ * Avec une cadence, chaque partie a sa pendule ; un seul thread vérifie les
+ * drapeaux de toutes les parties, une perte au temps apparaît donc dans
+ * « state » sans attendre le coup suivant.
+ */
+public class ServeurParties {
+    public static final int PORT_PAR_DEFAUT = 7777;
+    // Période de vérification des drapeaux
+    private static final long PERIODE_PENDULES_MS = 100;
+
+    private final int port;
+    private final String cadence;
+    private final AtomicInteger sessionsActives = new AtomicInteger();
+    private final AtomicLong sessionsTotales = new AtomicLong();
+    // Parties en cours avec une pendule
+    private final Set<Jeu> partiesChronometrees = ConcurrentHashMap.newKeySet();
+
+    public ServeurParties(int port) {
+        this(port, null);
+    }
+
+    /**
+     * @param cadence Cadence des parties (« 5+3 », voir Pendule.depuisCadence), ou null sans limite de temps
+     */
+    public ServeurParties(int port, String cadence) {
+        // Une cadence invalide est refusée au démarrage, pas à la première partie
+        Pendule.depuisCadence(cadence);
+        this.port = port;
+        this.cadence = cadence;
+    }
+
+    /**
+     * Accepte les connexions jusqu'à l'arrêt du processus (bloquant)
+     */
+    public void demarrer() throws IOException {
+        ScheduledExecutorService arbitre = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pendules");
+            t.setDaemon(true);
+            return t;
+        });
+        arbitre.scheduleAtFixedRate(this::verifierPendules, PERIODE_PENDULES_MS, PERIODE_PENDULES_MS,
+                TimeUnit.MILLISECONDS);
+        try (ServerSocket serveur = new ServerSocket(port, 4096, InetAddress.getLoopbackAddress())) {
+            System.out.println("Serveur de parties à l'écoute sur le port " + port
+                    + (cadence != null ? ", cadence " + cadence : ""));
+            while (true) {
+                Socket socket = serveur.accept();
+                socket.setTcpNoDelay(true);
+                sessionsActives.incrementAndGet();
+                long id = sessionsTotales.incrementAndGet();
+                Thread.ofVirtual()
+                        .name("session-" + id)
+                        .start(new SessionPartie(socket, this));
+            }
+        } finally {
+            arbitre.shutdownNow();
+        }
+    }
+
+    /**
+     * Crée une partie à la cadence du serveur, pendule en marche
+     */
+    Jeu nouvellePartie() {
+        Jeu jeu = new Jeu();
+        Pendule pendule = Pendule.depuisCadence(cadence);
+        if (pendule != null) {
+            jeu.setPendule(pendule);
+            partiesChronometrees.add(jeu);
+        }
+        jeu.demarrerPartie();
+        return jeu;
+    }
+
+    /**
+     * Appelée quand une session abandonne sa partie (nouvelle partie, déconnexion)
+     */
+    void finPartie(Jeu jeu) {
+        partiesChronometrees.remove(jeu);
+        jeu.arreter();
+    }
+
+    private void verifierPendules() {
+        for (Jeu jeu : partiesChronometrees) {
+            jeu.verifierTemps();
+            if (jeu.estPartieTerminee()) {
+                partiesChronometrees.remove(jeu);
+            }
+        }
+    }
+
+    /**
+     * Appelée par une session qui se termine
+     */
+    void finSession() {
+        sessionsActives.decrementAndGet();
+    }
+
+    public int getSessionsActives() {
+        return sessionsActives.get();
+    }
+
+    /**
+     * Usage : java serveur.ServeurParties [port] [cadence], la cadence pouvant
+     * aussi venir de -Dcadence=5+3
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT_PAR_DEFAUT;
+        String cadence = args.length > 1 ? args[1] : System.getProperty(Pendule.PROPRIETE_CADENCE);
+        new ServeurParties(port, cadence).demarrer();
+    }
+}
@@ -0,0 +1,192 @@
+package serveur;
+
+import modele.jeu.Coup;
+import modele.jeu.Jeu;
+import modele.jeu.Pendule;
+import modele.jeu.Position;
+import modele.pieces.PieceColor;
+import modele.pieces.PieceType;
+import modele.plateau.Case;
+import modele.plateau.Plateau;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Une session du serveur : une connexion, une partie en cours, un thread virtuel.
+ * La session ne garde que la partie et de petits tampons d'entrée/sortie.
+ */
+public class SessionPartie implements Runnable {
+    // Tampons volontairement petits : les lignes du protocole sont courtes
+    private static final int TAILLE_TAMPON = 256;
+    // Une promotion est listée une fois par pièce, dans l'ordre de l'UCI
+    private static final PieceType[] PROMOTIONS = {PieceType.DAME, PieceType.TOUR, PieceType.FOU, PieceType.CAVALIER};
+
+    private final Socket socket;
+    private final ServeurParties serveur;
+    private Jeu jeu;
+
+    public SessionPartie(Socket socket, ServeurParties serveur) {
+        this.socket = socket;
+        this.serveur = serveur;
+    }
+
+    @Override
+    public void run() {
+        try (socket;
+             BufferedReader entree = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), TAILLE_TAMPON);
+             Writer sortie = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            jeu = serveur.nouvellePartie();
+            String ligne;
+            while ((ligne = entree.readLine()) != null) {
+                String reponse = traiter(ligne.trim());
+                if (reponse == null) {
+                    break;
+                }
+                sortie.write(reponse);
+                sortie.write('\n');
+                sortie.flush();
+            }
+        } catch (IOException e) {
+            // Client parti : rien à faire de plus
+        } finally {
+            if (jeu != null) {
+                serveur.finPartie(jeu);
+            }
+            serveur.finSession();
+        }
+    }
+
+    /**
+     * Traite une commande du protocole
+     * @param commande La ligne reçue
+     * @return La réponse, ou null pour fermer la session
+     */
+    String traiter(String commande) {
+        int espace = commande.indexOf(' ');
+        String verbe = espace < 0 ? commande : commande.substring(0, espace);
+        String argument = espace < 0 ? "" : commande.substring(espace + 1).trim();
+
+        switch (verbe) {
+            case "new":
+                serveur.finPartie(jeu);
+                jeu = serveur.nouvellePartie();
+                return "ok";
+            case "move":
+                return jouer(argument);
+            case "moves":
+                return listerCoups();
+            case "state":
+                return etat();
+            case "clock":
+                return pendule();
+            case "quit":
+                return null;
+            default:
+                return "error commande inconnue: " + verbe;
+        }
+    }
+
+    private String jouer(String notation) {
+        Plateau plateau = jeu.getPlateau();
+        if (notation.length() < 4) {
+            return "error format attendu: e2e4";
+        }
+        Case depart = lireCase(plateau, notation, 0);
+        Case arrivee = lireCase(plateau, notation, 2);
+        if (depart == null || arrivee == null) {
+            return "error case invalide";
+        }
+        // Contrôles sur l'instantané publié (le plateau ne se lit que sous le verrou) ; jouerCoup revalide
+        Position position = jeu.getPosition();
+        if (position.estTerminee() || position.getCouleur(depart.getX(), depart.getY()) != position.getTrait()
+                || !jeu.jouerCoup(depart, arrivee)) {
+            return "illegal";
+        }
+        if (jeu.isPromotionEnCours()) {
+            jeu.promouvoirPion(lirePromotion(notation.length() > 4 ? notation.charAt(4) : 'q'));
+        }
+        return jeu.estPartieTerminee() ? "ok " + resultat() : "ok";
+    }
+
+    private String listerCoups() {
+        List<Coup> coups = jeu.getCoupsLegaux();
+        StringBuilder sb = new StringBuilder(6 + coups.size() * 5);
+        sb.append("moves");
+        for (Coup coup : coups) {
+            if (estPromotion(coup)) {
+                for (PieceType promotion : PROMOTIONS) {
+                    sb.append(' ');
+                    ecrireCoup(coup, sb);
+                    sb.append(Character.toLowerCase(promotion.getLetter()));
+                }
+            } else {
+                sb.append(' ');
+                ecrireCoup(coup, sb);
+            }
+        }
+        return sb.toString();
+    }
+
+    private String etat() {
+        Position position = jeu.getPosition();
+        return "state " + (position.getTrait() == PieceColor.WHITE ? "w" : "b")
+                + " " + position.getPly() + " " + (position.estTerminee() ? resultat() : "*");
+    }
+
+    private String pendule() {
+        Pendule pendule = jeu.getPendule();
+        if (pendule == null) {
+            return "clock -";
+        }
+        return "clock " + Math.max(0, pendule.getTempsRestantMs(PieceColor.WHITE))
+                + " " + Math.max(0, pendule.getTempsRestantMs(PieceColor.BLACK));
+    }
+
+    /** Résultat au format PGN (1-0, 0-1, 1/2-1/2) */
+    private String resultat() {
+        PieceColor vainqueur = jeu.getVainqueur();
+        if (vainqueur == null) return "1/2-1/2";
+        return vainqueur == PieceColor.WHITE ? "1-0" : "0-1";
+    }
+
+    /** Pion qui atteint la dernière rangée (pièce lue à la création du coup, sous le verrou) */
+    private static boolean estPromotion(Coup coup) {
+        int y = coup.getArrivee().getY();
+        return coup.getPiece().getType() == PieceType.PION && (y == 0 || y == 7);
+    }
+
+    /**
+     * Écrit un coup en notation coordonnées (e2e4, e7e8q pour une promotion
+     * choisie), sans allocation intermédiaire
+     */
+    static void ecrireCoup(Coup coup, StringBuilder sb) {
+        sb.append((char) ('a' + coup.getDepart().getX()))
+          .append((char) ('1' + coup.getDepart().getY()))
+          .append((char) ('a' + coup.getArrivee().getX()))
+          .append((char) ('1' + coup.getArrivee().getY()));
+        if (coup.getPromotion() != null) {
+            sb.append(Character.toLowerCase(coup.getPromotion().getLetter()));
+        }
+    }
+
+    private static Case lireCase(Plateau plateau, String notation, int debut) {
+        return plateau.getCase(notation.charAt(debut) - 'a', notation.charAt(debut + 1) - '1');
+    }
+
+    private static PieceType lirePromotion(char lettre) {
+        return switch (Character.toLowerCase(lettre)) {
+            case 'r' -> PieceType.TOUR;
+            case 'b' -> PieceType.FOU;
+            case 'n' -> PieceType.CAVALIER;
+            default -> PieceType.DAME;
+        };
+    }
+}
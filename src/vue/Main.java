@@ -45,6 +45,10 @@ public class Main {
                 mettreAJourVue(controleur);
             });
             
+            JMenuItem annuler = new JMenuItem("Annuler le coup");
+            annuler.setAccelerator(KeyStroke.getKeyStroke("control Z"));
+            annuler.addActionListener(e -> controleur.annulerCoup());
+            
             JMenuItem quitter = new JMenuItem("Quitter");
             quitter.addActionListener(e -> System.exit(0));
             
@@ -52,6 +56,8 @@ public class Main {
             menuJeu.add(iaBlanche);
             menuJeu.add(iaNoire);
             menuJeu.addSeparator();
+            menuJeu.add(annuler);
+            menuJeu.addSeparator();
             menuJeu.add(quitter);
             
             menuBar.add(menuJeu);
@@ -1,7 +1,6 @@
 package vue;
 
-import modele.plateau.Case;
-import modele.plateau.Plateau;
+import modele.jeu.Position;
 
 import javax.swing.*;
 import java.awt.*;
@@ -106,22 +105,23 @@ public abstract class VueBase extends JPanel implements Observer {
      * Cette méthode est appelée à chaque changement du plateau.
      * J'ai choisi de redessiner toutes les cases à chaque fois plutôt que
      * de faire des mises à jour partielles - c'est plus simple à maintenir.
+     * On lit un instantané immuable, donc pas besoin du verrou du jeu.
      */
-    protected void updatePieces(Plateau plateau) {
+    protected void updatePieces(Position position) {
         for (int x = 0; x < 8; x++) {
             for (int y = 0; y < 8; y++) {
                 JLabel caseLabel = grille[x][y];
-                Case caseCourante = plateau.getCase(x, y);
+                String imagePath = position.getImagePath(x, y);
                 
                 // On commence par le fond
                 caseLabel.setBackground(getCaseColor(x, y));
                 
                 // Puis on gère la pièce
-                if (caseCourante.getPiece() != null) {
+                if (imagePath != null) {
                     // Chargement et redimensionnement de l'image
                     // J'ai choisi 70x70 pour laisser une petite marge
                     ImageIcon icone = new ImageIcon(
-                            getClass().getResource(caseCourante.getPiece().getImagePath())
+                            getClass().getResource(imagePath)
                     );
                     Image image = icone.getImage().getScaledInstance(70, 70, Image.SCALE_SMOOTH);
                     caseLabel.setIcon(new ImageIcon(image));
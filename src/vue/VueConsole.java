@@ -2,6 +2,9 @@ package vue;
 
 import modele.jeu.Coup;
 import modele.jeu.Jeu;
+import modele.jeu.Position;
+import modele.joueur.Analyse;
+import modele.joueur.JoueurIA;
 import modele.pieces.PieceColor;
 import modele.pieces.PieceType;
 import modele.plateau.Case;
@@ -11,6 +14,7 @@ import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Scanner;
+import java.util.concurrent.Flow;
 
 /**
  * Vue console pour le jeu d'échecs - permet de jouer dans la console
@@ -21,6 +25,9 @@ public class VueConsole implements Observer {
     private final Scanner scanner;
     private boolean running = true;
     private boolean afficherMisesAJour = false; // Option pour désactiver l'affichage automatique
+    // Moteur d'analyse (commande « analyse »), créé à la première utilisation
+    private JoueurIA analyseur;
+    private static final int LIGNES_ANALYSE = 3;
 
     public VueConsole(Jeu jeu) {
         this.jeu = jeu;
@@ -50,11 +57,12 @@ public class VueConsole implements Observer {
         while (running && !jeu.estPartieTerminee()) {
             System.out.println("\nTour des " + 
                 (jeu.getJoueurActuel() == PieceColor.WHITE ? "Blancs" : "Noirs"));
-            System.out.print("Entrez votre coup (ex: e2 e4) ou 'aide' pour l'aide: ");
+            System.out.print("Entrez votre coup (ex: e2 e4 ou Nf3) ou 'aide' pour l'aide: ");
             
-            String input = scanner.nextLine().trim().toLowerCase();
+            String input = scanner.nextLine().trim();
             
-            switch (input) {
+            // Seules les commandes ignorent la casse : en SAN, Nbd7 et O-O en dépendent
+            switch (input.toLowerCase()) {
                 case "exit", "quitter" -> {
                     running = false;
                     System.out.println("Au revoir!");
@@ -69,28 +77,83 @@ public class VueConsole implements Observer {
                     afficherMisesAJour = true;
                     System.out.println("Mode verbeux activé : les mises à jour du plateau seront affichées automatiquement.");
                 }
+                case "analyse", "analyze" -> lancerAnalyse();
+                case "stop" -> {
+                    if (analyseur != null) {
+                        analyseur.arreterAnalyse();
+                    }
+                }
                 default -> traiterCoup(input);
             }
         }
+        if (analyseur != null) {
+            analyseur.arreter();
+        }
         
         if (jeu.estPartieTerminee()) {
             afficherFinPartie();
         }
     }
 
+    /**
+     * Analyse la position courante : les meilleurs coups s'affichent à chaque
+     * profondeur, jusqu'à « stop » ou au prochain coup
+     */
+    private void lancerAnalyse() {
+        if (analyseur == null) {
+            analyseur = new JoueurIA(jeu.getJoueurActuel());
+            analyseur.setJeu(jeu);
+        }
+        analyseur.analyser(LIGNES_ANALYSE).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription abonnement) {
+                abonnement.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Analyse analyse) {
+                StringBuilder sb = new StringBuilder();
+                sb.append("\nProfondeur ").append(analyse.getProfondeur())
+                        .append(" (").append(analyse.getNoeuds()).append(" nœuds, ")
+                        .append(analyse.getTempsMs()).append(" ms)");
+                for (Analyse.Ligne ligne : analyse.getLignes()) {
+                    sb.append("\n  ").append(ligne);
+                }
+                System.out.println(sb);
+            }
+
+            @Override
+            public void onError(Throwable erreur) {
+                System.out.println("Analyse interrompue : " + erreur.getMessage());
+            }
+
+            @Override
+            public void onComplete() {
+                System.out.println("Analyse terminée.");
+            }
+        });
+    }
+
     /**
      * Traite un coup entré par l'utilisateur
      */
     private void traiterCoup(String input) {
         try {
             String[] parts = input.split("\\s+");
+            if (parts.length == 1) {
+                // Notation SAN : e4, Nbd7, exd8=Q+, O-O
+                if (!jeu.jouerSan(parts[0])) {
+                    System.out.println("Coup invalide ou ambigu !");
+                }
+                return;
+            }
             if (parts.length != 2) {
-                System.out.println("Format incorrect. Utilisez: e2 e4");
+                System.out.println("Format incorrect. Utilisez: e2 e4 ou Nf3");
                 return;
             }
             
-            String depart = parts[0];
-            String arrivee = parts[1];
+            String depart = parts[0].toLowerCase();
+            String arrivee = parts[1].toLowerCase();
             
             // Conversion notation algébrique -> coordonnées
             int departX = depart.charAt(0) - 'a';
@@ -168,11 +231,13 @@ public class VueConsole implements Observer {
     private void afficherTutoriel() {
         System.out.println("\n===== TUTORIEL DU JEU D'ÉCHECS EN CONSOLE =====");
         System.out.println("Pour jouer un coup, entrez la position de départ et d'arrivée comme ceci: e2 e4");
+        System.out.println("ou la notation algébrique standard : e4, Nf3, Nbd7, exd8=Q+, O-O");
         System.out.println("Les commandes disponibles:");
         System.out.println("  afficher : Affiche l'état actuel du plateau");
         System.out.println("  aide     : Affiche ce tutoriel");
         System.out.println("  silencieux : Désactive l'affichage automatique du plateau après chaque coup");
         System.out.println("  verbeux    : Active l'affichage automatique du plateau après chaque coup");
+        System.out.println("  analyse  : Affiche les meilleurs coups de la position, jusqu'à 'stop'");
         System.out.println("  quitter  : Quitte le jeu console (la vue graphique reste active)");
         System.out.println("Notations:");
         System.out.println("  P: Pion blanc     p: Pion noir");
@@ -188,18 +253,19 @@ public class VueConsole implements Observer {
      * Affiche le plateau d'échecs dans la console
      */
     private void afficherPlateau() {
-        Plateau plateau = jeu.getPlateau();
+        // Instantané cohérent, lu sans verrou pendant que l'IA peut jouer
+        Position position = jeu.getPosition();
         System.out.println("\n  a b c d e f g h");
         System.out.println(" +-+-+-+-+-+-+-+-+");
         
         for (int y = 7; y >= 0; y--) {
             System.out.print(y+1 + "|");
             for (int x = 0; x < 8; x++) {
-                Case c = plateau.getCase(x, y);
-                if (c.getPiece() != null) {
+                PieceType type = position.getType(x, y);
+                if (type != null) {
                     // Déterminer le type de la pièce
                     char lettre;
-                    switch (c.getPiece().getType()) {
+                    switch (type) {
                         case ROI -> lettre = 'K';
                         case DAME -> lettre = 'Q';
                         case TOUR -> lettre = 'R';
@@ -209,7 +275,7 @@ public class VueConsole implements Observer {
                     }
                     
                     // Ajuster la casse selon la couleur
-                    if (c.getPiece().getColor() == PieceColor.BLACK) {
+                    if (position.getCouleur(x, y) == PieceColor.BLACK) {
                         lettre = Character.toLowerCase(lettre);
                     }
                     
@@ -224,10 +290,10 @@ public class VueConsole implements Observer {
         System.out.println("  a b c d e f g h");
         
         // Afficher les informations supplémentaires
-        if (jeu.estEnEchec(PieceColor.WHITE)) {
+        if (position.estEnEchec(PieceColor.WHITE)) {
             System.out.println("Les blancs sont en ÉCHEC !");
         }
-        if (jeu.estEnEchec(PieceColor.BLACK)) {
+        if (position.estEnEchec(PieceColor.BLACK)) {
             System.out.println("Les noirs sont en ÉCHEC !");
         }
     }
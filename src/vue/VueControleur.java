@@ -2,6 +2,9 @@ package vue;
 
 import controlleur.Controlleur;
 import modele.jeu.Jeu;
+import modele.jeu.Pendule;
+import modele.jeu.Position;
+import modele.pieces.PieceColor;
 import modele.pieces.PieceType;
 import modele.plateau.Case;
 import modele.plateau.Plateau;
@@ -27,6 +30,8 @@ public class VueControleur extends VueBase implements PropertyChangeListener {
     
     // Label pour l'état de l'IA
     private JLabel statusLabel;
+    // Temps restants, vide sans pendule
+    private final JLabel penduleLabel = new JLabel();
 
     public VueControleur(Jeu jeu) {
         this.jeu = jeu;
@@ -45,12 +50,13 @@ public class VueControleur extends VueBase implements PropertyChangeListener {
         JPanel statusPanel = new JPanel();
         statusLabel = new JLabel("Prêt");
         statusPanel.add(statusLabel);
+        statusPanel.add(penduleLabel);
         
         // Ajout des composants
         add(echiquierPanel, BorderLayout.CENTER);
         add(statusPanel, BorderLayout.SOUTH);
         
-        update(plateau, null);
+        update(plateau, jeu.getPosition());
     }
     
     /**
@@ -63,16 +69,17 @@ public class VueControleur extends VueBase implements PropertyChangeListener {
 
     /**
      * Met à jour l'affichage quand le plateau change.
+     * L'argument est l'instantané publié par le jeu ; on ne relit pas le plateau.
      */
     @Override
     public void update(Observable o, Object arg) {
-        Plateau plateau = (Plateau) o;
+        Position position = (arg instanceof Position) ? (Position) arg : jeu.getPosition();
 
         // On met d'abord à jour les pièces
-        updatePieces(plateau);
+        updatePieces(position);
 
         // Puis on gère les surbrillances
-        mettreAJourSurbrillances(plateau);
+        mettreAJourSurbrillances(position);
 
         // Force le rafraîchissement immédiat
         revalidate();
@@ -104,49 +111,60 @@ public class VueControleur extends VueBase implements PropertyChangeListener {
     /**
      * Gère toutes les surbrillances : sélection, coups possibles, et rois en échec.
      */
-    private void mettreAJourSurbrillances(Plateau plateau) {
-        // On récupère les positions des rois une seule fois
-        Case roiBlanc = plateau.getRoi(modele.pieces.PieceColor.WHITE);
-        Case roiNoir = plateau.getRoi(modele.pieces.PieceColor.BLACK);
+    private void mettreAJourSurbrillances(Position position) {
+        // On récupère les positions des rois une seule fois (index y * 8 + x)
+        int roiBlanc = position.getRoi(PieceColor.WHITE);
+        int roiNoir = position.getRoi(PieceColor.BLACK);
 
-        // Vérification des échecs
-        boolean blancEnEchec = jeu.estEnEchec(modele.pieces.PieceColor.WHITE);
-        boolean noirEnEchec = jeu.estEnEchec(modele.pieces.PieceColor.BLACK);
+        // Vérification des échecs, déjà calculée dans l'instantané
+        boolean blancEnEchec = position.estEnEchec(PieceColor.WHITE);
+        boolean noirEnEchec = position.estEnEchec(PieceColor.BLACK);
 
         // Parcours de la grille
         for (int x = 0; x < 8; x++) {
             for (int y = 0; y < 8; y++) {
                 JLabel caseLabel = grille[x][y];
-                Case caseCourante = plateau.getCase(x, y);
+                int index = y * 8 + x;
 
                 // On commence avec la couleur de base
                 caseLabel.setBackground(getCaseColor(x, y));
 
                 // Case sélectionnée
-                if (caseSelectionnee != null && caseSelectionnee.equals(caseCourante)) {
+                if (caseSelectionnee != null && caseSelectionnee.getX() == x && caseSelectionnee.getY() == y) {
                     caseLabel.setBackground(new Color(255, 255, 0, 150));
                 } 
                 // Coups possibles
-                else if (coupsPossibles != null && coupsPossibles.contains(caseCourante)) {
+                else if (estCoupPossible(x, y)) {
                     caseLabel.setBackground(new Color(144, 238, 144, 150));
                 }
 
                 // Roi en échec
-                if ((blancEnEchec && caseCourante.equals(roiBlanc)) || 
-                    (noirEnEchec && caseCourante.equals(roiNoir))) {
+                if ((blancEnEchec && index == roiBlanc) || 
+                    (noirEnEchec && index == roiNoir)) {
                     caseLabel.setBackground(new Color(255, 0, 0, 150));
                 }
             }
         }
     }
 
+    /**
+     * Vérifie si une case fait partie des coups possibles affichés
+     */
+    private boolean estCoupPossible(int x, int y) {
+        if (coupsPossibles == null) return false;
+        for (Case c : coupsPossibles) {
+            if (c.getX() == x && c.getY() == y) return true;
+        }
+        return false;
+    }
+
     /**
      * Définit la case sélectionnée et les coups possibles.
      */
     public void selectCase(Case selection, List<Case> coups) {
         this.caseSelectionnee = selection;
         this.coupsPossibles = coups;
-        mettreAJourSurbrillances(jeu.getPlateau());
+        mettreAJourSurbrillances(jeu.getPosition());
         revalidate();
         repaint();
     }
@@ -157,7 +175,7 @@ public class VueControleur extends VueBase implements PropertyChangeListener {
     public void clearSelection() {
         this.caseSelectionnee = null;
         this.coupsPossibles = null;
-        mettreAJourSurbrillances(jeu.getPlateau());
+        mettreAJourSurbrillances(jeu.getPosition());
         revalidate();
         repaint();
     }
@@ -187,6 +205,24 @@ public class VueControleur extends VueBase implements PropertyChangeListener {
         };
     }
     
+    /**
+     * Affiche les temps restants des deux joueurs
+     * @param pendule La pendule de la partie, ou null pour ne rien afficher
+     */
+    public void afficherPendule(Pendule pendule) {
+        if (pendule == null) {
+            penduleLabel.setText("");
+            return;
+        }
+        penduleLabel.setText("Blancs " + formaterTemps(pendule.getTempsRestantMs(PieceColor.WHITE))
+                + "   Noirs " + formaterTemps(pendule.getTempsRestantMs(PieceColor.BLACK)));
+    }
+
+    private static String formaterTemps(long ms) {
+        long s = Math.max(0, ms) / 1000;
+        return s / 60 + ":" + (s % 60 < 10 ? "0" : "") + s % 60;
+    }
+
     /**
      * Reçoit les événements de changement de propriétés du contrôleur
      */
@@ -1,5 +1,6 @@
 package vue;
 
+import modele.jeu.Position;
 import modele.plateau.Plateau;
 
 import java.util.Observable;
@@ -25,19 +26,20 @@ public class VueEchiquier extends VueBase {
         
         // On initialise l'interface et on affiche l'état initial
         initUI();
-        update(plateau, null);
+        update(plateau, Position.depuis(plateau));
     }
 
     /**
      * Met à jour l'affichage quand le plateau change.
      * C'est une version simplifiée de la mise à jour - on ne gère
      * que l'affichage des pièces, pas de sélection ni de surbrillance.
+     * L'argument est l'instantané publié par le jeu.
      */
     @Override
     public void update(Observable o, Object arg) {
-        Plateau plateau = (Plateau) o;
+        Position position = (arg instanceof Position) ? (Position) arg : Position.depuis((Plateau) o);
         // On met juste à jour les pièces
-        updatePieces(plateau);
+        updatePieces(position);
         // Rafraîchissement de l'affichage
         revalidate();
         repaint();
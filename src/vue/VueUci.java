@@ -0,0 +1,536 @@
+package vue;
+
+import modele.moteur.BancEssai;
+import modele.moteur.CodeCoup;
+import modele.moteur.EcouteurRecherche;
+import modele.moteur.Echiquier;
+import modele.moteur.Evaluation;
+import modele.moteur.Limites;
+import modele.moteur.LivreOuvertures;
+import modele.moteur.Moteur;
+import modele.moteur.Recherche;
+import modele.moteur.TablesFinales;
+import modele.moteur.TacheRecherche;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Vue texte au protocole UCI (entrée/sortie standard), pour piloter le moteur
+ * de l'IA depuis une interface ou un gestionnaire de tournois.
+ * La recherche tourne sur son propre thread pour que « stop » et « ponderhit »
+ * restent lus pendant le calcul ; toute autre commande l'arrête d'abord. Les lignes « info » sont écrites dans un
+ * tampon d'octets réutilisé, sans allocation.
+ */
+public class VueUci implements EcouteurRecherche {
+    private static final String NOM = "ChessJava";
+
+    private final Moteur moteur = new Moteur();
+    private final Echiquier position = new Echiquier();
+    private final Limites limites = new Limites();
+    private final int[] tampon = new int[256];
+    private final SortieUci sortie = new SortieUci(System.out);
+    // Attend la fin de chaque recherche pour écrire « bestmove »
+    private final ExecutorService threadReponse = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "uci-reponse");
+        t.setDaemon(true);
+        return t;
+    });
+    // Numérotée dès son lancement : un « stop » qui suit « go » n'est jamais perdu
+    private TacheRecherche rechercheEnCours;
+    private Future<?> reponseEnCours;
+    // En mode infini ou ponder, « bestmove » attend stop/ponderhit
+    private boolean attenteStop;
+    // Livre d'ouvertures (options OwnBook et BookFile)
+    private boolean livreActif;
+    private String fichierLivre = "livre.bin";
+    // Dossier des tables de finales (option TablesPath, vide : aucune)
+    private String dossierTables = "";
+    // Nombre de lignes analysées (option MultiPV)
+    private int lignes = 1;
+    // Dernière position refusée : « go » répond « bestmove 0000 » sans chercher
+    private boolean positionValide = true;
+
+    // Ligne en cours d'analyse et position de lecture
+    private String ligne;
+    private int curseur;
+    private int debutMot;
+
+    /**
+     * Sans argument : boucle UCI sur l'entrée standard.
+     * « bench [profondeur] » : passe le banc d'essai et quitte.
+     */
+    public static void main(String[] args) throws IOException {
+        VueUci uci = new VueUci();
+        if (args.length > 0 && args[0].equals("bench")) {
+            uci.traiter(String.join(" ", args));
+            return;
+        }
+        uci.boucle();
+    }
+
+    /**
+     * Lit les commandes jusqu'à « quit » ou la fin de l'entrée
+     */
+    public void boucle() throws IOException {
+        BufferedReader entree = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII));
+        String l;
+        while ((l = entree.readLine()) != null) {
+            if (!traiter(l)) {
+                break;
+            }
+        }
+        arreterRecherche();
+    }
+
+    /**
+     * Traite une commande UCI
+     * @return false pour quitter
+     */
+    boolean traiter(String commande) {
+        ligne = commande;
+        curseur = 0;
+        if (motSuivant("uci")) {
+            synchronized (sortie) {
+                sortie.ecrire("id name ").ecrire(NOM).finLigne();
+                sortie.ecrire("id author ChessJava").finLigne();
+                sortie.ecrire("option name Hash type spin default ").ecrire(Moteur.HASH_PAR_DEFAUT_MO)
+                        .ecrire(" min 1 max 4096").finLigne();
+                sortie.ecrire("option name Threads type spin default 1 min 1 max 256").finLigne();
+                sortie.ecrire("option name Ponder type check default false").finLigne();
+                sortie.ecrire("option name MultiPV type spin default 1 min 1 max ").ecrire(Recherche.LIGNES_MAX).finLigne();
+                sortie.ecrire("option name OwnBook type check default false").finLigne();
+                sortie.ecrire("option name BookFile type string default ").ecrire(fichierLivre).finLigne();
+                sortie.ecrire("option name TablesPath type string default <empty>").finLigne();
+                sortie.ecrire("option name EvalFile type string default <empty>").finLigne();
+                sortie.ecrire("uciok").finLigne();
+            }
+        } else if (motSuivant("isready")) {
+            synchronized (sortie) {
+                sortie.ecrire("readyok").finLigne();
+            }
+        } else if (motSuivant("setoption")) {
+            arreterRecherche();
+            definirOption();
+        } else if (motSuivant("ucinewgame")) {
+            arreterRecherche();
+            moteur.nouvellePartie();
+        } else if (motSuivant("position")) {
+            arreterRecherche();
+            lirePosition();
+        } else if (motSuivant("go")) {
+            arreterRecherche();
+            lancerRecherche();
+        } else if (motSuivant("stop")) {
+            arreterRecherche();
+        } else if (motSuivant("ponderhit")) {
+            ponderhit();
+        } else if (motSuivant("bench")) {
+            arreterRecherche();
+            passerBancEssai();
+        } else if (motSuivant("quit")) {
+            return false;
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------ commandes
+
+    private void definirOption() {
+        if (!motSuivant("name")) return;
+        if (motSuivant("Hash")) {
+            if (motSuivant("value")) moteur.setHash((int) lireNombre());
+        } else if (motSuivant("Threads")) {
+            if (motSuivant("value")) moteur.setThreads((int) lireNombre());
+        } else if (motSuivant("MultiPV")) {
+            if (motSuivant("value")) lignes = (int) lireNombre();
+        } else if (motSuivant("OwnBook")) {
+            if (motSuivant("value")) {
+                livreActif = motSuivant("true");
+                chargerLivre();
+            }
+        } else if (motSuivant("BookFile")) {
+            if (motSuivant("value")) {
+                sauterEspaces();
+                fichierLivre = ligne.substring(curseur).trim();
+                chargerLivre();
+            }
+        } else if (motSuivant("TablesPath")) {
+            if (motSuivant("value")) {
+                sauterEspaces();
+                dossierTables = ligne.substring(curseur).trim();
+                chargerTables();
+            }
+        } else if (motSuivant("EvalFile")) {
+            if (motSuivant("value")) {
+                sauterEspaces();
+                chargerPoids(ligne.substring(curseur).trim());
+            }
+        }
+    }
+
+    private void chargerPoids(String fichier) {
+        try {
+            Evaluation.setPoids(fichier.isEmpty() || fichier.equals("<empty>")
+                    ? Evaluation.getPoidsParDefaut() : Evaluation.lirePoids(Paths.get(fichier)));
+        } catch (IOException e) {
+            synchronized (sortie) {
+                sortie.ecrire("info string poids illisibles : ").ecrire(e.getMessage()).finLigne();
+            }
+        }
+    }
+
+    /**
+     * Banc d'essai (commande hors protocole) : nœuds de chaque position, puis
+     * la signature (total des nœuds) et la vitesse
+     */
+    private void passerBancEssai() {
+        long p = lireNombre();
+        int profondeur = p > 0 ? (int) p : BancEssai.PROFONDEUR_PAR_DEFAUT;
+        BancEssai.Resultat resultat = BancEssai.executer(profondeur);
+        synchronized (sortie) {
+            for (int i = 0; i < resultat.getNombrePositions(); i++) {
+                sortie.ecrire("Position ").ecrire(i + 1).ecrire("/").ecrire(resultat.getNombrePositions())
+                        .ecrire(" : ").ecrire(resultat.getNoeuds(i)).ecrire(" noeuds").finLigne();
+            }
+            sortie.ecrire("===========================").finLigne();
+            sortie.ecrire("Profondeur : ").ecrire(profondeur).finLigne();
+            sortie.ecrire("Temps (ms) : ").ecrire(resultat.getDureeMs()).finLigne();
+            sortie.ecrire("Noeuds     : ").ecrire(resultat.getNoeudsTotal()).finLigne();
+            sortie.ecrire("Noeuds/s   : ").ecrire(resultat.getNoeudsParSeconde()).finLigne();
+        }
+    }
+
+    private void chargerTables() {
+        TablesFinales anciennes = moteur.getTablesFinales();
+        moteur.setTablesFinales(null);
+        if (anciennes != null) {
+            try {
+                anciennes.close();
+            } catch (IOException e) {
+                // Fermeture best effort
+            }
+        }
+        if (!dossierTables.isEmpty() && !dossierTables.equals("<empty>")) {
+            try {
+                moteur.setTablesFinales(TablesFinales.ouvrir(Paths.get(dossierTables)));
+            } catch (IOException e) {
+                synchronized (sortie) {
+                    sortie.ecrire("info string tables de finales introuvables : ").ecrire(dossierTables).finLigne();
+                }
+            }
+        }
+    }
+
+    private void chargerLivre() {
+        LivreOuvertures ancien = moteur.getLivre();
+        moteur.setLivre(null);
+        if (ancien != null) {
+            try {
+                ancien.close();
+            } catch (IOException e) {
+                // Fermeture best effort
+            }
+        }
+        if (livreActif) {
+            try {
+                moteur.setLivre(LivreOuvertures.ouvrir(Paths.get(fichierLivre)));
+            } catch (IOException e) {
+                synchronized (sortie) {
+                    sortie.ecrire("info string livre introuvable : ").ecrire(fichierLivre).finLigne();
+                }
+            }
+        }
+    }
+
+    private void lirePosition() {
+        if (motSuivant("startpos")) {
+            position.chargerFen(Echiquier.FEN_INITIALE);
+        } else if (motSuivant("fen")) {
+            sauterEspaces();
+            int fin = ligne.indexOf(" moves", curseur);
+            if (fin < 0) fin = ligne.length();
+            try {
+                position.chargerFen(ligne.substring(curseur, fin));
+            } catch (IllegalArgumentException e) {
+                refuserPosition(e.getMessage());
+                return;
+            }
+            if (!position.estValide()) {
+                refuserPosition("position illegale : " + ligne.substring(curseur, fin));
+                return;
+            }
+            curseur = fin;
+        } else {
+            return;
+        }
+        positionValide = true;
+        if (motSuivant("moves")) {
+            while (lireMot()) {
+                int coup = position.lireCoupUci(ligne, debutMot, tampon);
+                if (coup == CodeCoup.AUCUN || !position.jouer(coup)) {
+                    synchronized (sortie) {
+                        sortie.ecrire("info string coup illegal ignore avec la suite : ")
+                                .ecrire(ligne.substring(debutMot, curseur)).finLigne();
+                    }
+                    break;
+                }
+                // Parties plus longues que la pile : on garde de quoi voir les répétitions
+                if (position.getHauteur() > Echiquier.HISTORIQUE_MAX / 2) {
+                    position.tronquerHistorique();
+                }
+            }
+        }
+    }
+
+    private void refuserPosition(String raison) {
+        positionValide = false;
+        synchronized (sortie) {
+            sortie.ecrire("info string ").ecrire(raison).finLigne();
+        }
+    }
+
+    private void lancerRecherche() {
+        limites.reinitialiser();
+        limites.setLignes(lignes);
+        while (lireMot()) {
+            if (motEgal("depth")) limites.setProfondeur((int) lireNombre());
+            else if (motEgal("nodes")) limites.setNoeuds(lireNombre());
+            else if (motEgal("movetime")) limites.setTempsParCoupMs(lireNombre());
+            else if (motEgal("wtime")) limites.setTempsRestantMs(Echiquier.BLANC, lireNombre());
+            else if (motEgal("btime")) limites.setTempsRestantMs(Echiquier.NOIR, lireNombre());
+            else if (motEgal("winc")) limites.setIncrementMs(Echiquier.BLANC, lireNombre());
+            else if (motEgal("binc")) limites.setIncrementMs(Echiquier.NOIR, lireNombre());
+            else if (motEgal("movestogo")) limites.setCoupsAvantControle((int) lireNombre());
+            else if (motEgal("infinite")) limites.setInfini(true);
+            else if (motEgal("ponder")) limites.setPonder(true);
+        }
+        synchronized (this) {
+            attenteStop = limites.estInfini() || limites.estPonder();
+        }
+        // Position refusée : pas de recherche, mais « go » a toujours sa réponse
+        TacheRecherche tache = positionValide ? moteur.lancer(position, limites, this) : null;
+        rechercheEnCours = tache;
+        reponseEnCours = threadReponse.submit(() -> repondre(tache));
+    }
+
+    private void repondre(TacheRecherche tache) {
+        int coup = CodeCoup.AUCUN;
+        if (tache != null) {
+            try {
+                coup = tache.get();
+            } catch (ExecutionException e) {
+                synchronized (sortie) {
+                    sortie.ecrire("info string recherche en echec : ").ecrire(String.valueOf(e.getCause())).finLigne();
+                }
+            } catch (InterruptedException | CancellationException e) {
+                // Pas de coup : « bestmove 0000 »
+            }
+        }
+        synchronized (this) {
+            while (attenteStop) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+        Recherche principale = moteur.getRecherchePrincipale();
+        synchronized (sortie) {
+            sortie.ecrire("bestmove ").ecrireCoup(coup);
+            if (coup != CodeCoup.AUCUN && principale.getLongueurPv() > 1 && principale.getPv()[0] == coup) {
+                sortie.ecrire(" ponder ").ecrireCoup(principale.getPv()[1]);
+            }
+            sortie.finLigne();
+        }
+    }
+
+    private void arreterRecherche() {
+        if (rechercheEnCours != null) {
+            rechercheEnCours.arreter();
+        }
+        synchronized (this) {
+            attenteStop = false;
+            notifyAll();
+        }
+        attendreFinRecherche();
+    }
+
+    private void ponderhit() {
+        limites.setPonder(false);
+        moteur.ponderhit(limites, position.getTrait());
+        synchronized (this) {
+            attenteStop = limites.estInfini();
+            notifyAll();
+        }
+    }
+
+    private void attendreFinRecherche() {
+        if (reponseEnCours != null) {
+            try {
+                reponseEnCours.get();
+            } catch (Exception e) {
+                // La recherche précédente a échoué : on repart d'un état propre
+            }
+            reponseEnCours = null;
+            rechercheEnCours = null;
+        }
+    }
+
+    @Override
+    public void iterationTerminee(int profondeur, int profondeurSelective, int score, long noeuds,
+                                  long tempsMs, int[] pv, int longueurPv) {
+        ligneTerminee(1, 1, profondeur, profondeurSelective, score, noeuds, tempsMs, pv, longueurPv);
+    }
+
+    @Override
+    public void ligneTerminee(int rang, int lignes, int profondeur, int profondeurSelective, int score,
+                              long noeuds, long tempsMs, int[] pv, int longueurPv) {
+        long total = moteur.getNoeuds();
+        synchronized (sortie) {
+            sortie.ecrire("info depth ").ecrire(profondeur)
+                    .ecrire(" seldepth ").ecrire(Math.max(profondeur, profondeurSelective));
+            if (lignes > 1) {
+                sortie.ecrire(" multipv ").ecrire(rang);
+            }
+            if (Recherche.estScoreMat(score)) {
+                sortie.ecrire(" score mate ").ecrire(Recherche.coupsAvantMat(score));
+            } else {
+                sortie.ecrire(" score cp ").ecrire(score);
+            }
+            sortie.ecrire(" nodes ").ecrire(total)
+                    .ecrire(" nps ").ecrire(total * 1000 / Math.max(1, tempsMs))
+                    .ecrire(" time ").ecrire(tempsMs)
+                    .ecrire(" hashfull ").ecrire(moteur.getTable().remplissage())
+                    .ecrire(" pv");
+            for (int i = 0; i < longueurPv; i++) {
+                sortie.ecrire(" ").ecrireCoup(pv[i]);
+            }
+            sortie.finLigne();
+        }
+    }
+
+    // ---------------------------------------------------- lecture des mots
+
+    private void sauterEspaces() {
+        while (curseur < ligne.length() && Character.isWhitespace(ligne.charAt(curseur))) {
+            curseur++;
+        }
+    }
+
+    /** Avance sur le mot suivant ; ses bornes sont [debutMot, curseur[ */
+    private boolean lireMot() {
+        sauterEspaces();
+        debutMot = curseur;
+        while (curseur < ligne.length() && !Character.isWhitespace(ligne.charAt(curseur))) {
+            curseur++;
+        }
+        return curseur > debutMot;
+    }
+
+    private boolean motEgal(String attendu) {
+        return curseur - debutMot == attendu.length() && ligne.startsWith(attendu, debutMot);
+    }
+
+    /** Consomme le mot suivant s'il vaut « attendu » */
+    private boolean motSuivant(String attendu) {
+        int sauvegarde = curseur;
+        if (lireMot() && motEgal(attendu)) {
+            return true;
+        }
+        curseur = sauvegarde;
+        return false;
+    }
+
+    private long lireNombre() {
+        if (!lireMot()) return 0;
+        long v = 0;
+        boolean negatif = ligne.charAt(debutMot) == '-';
+        for (int i = negatif ? debutMot + 1 : debutMot; i < curseur; i++) {
+            char c = ligne.charAt(i);
+            if (c < '0' || c > '9') break;
+            v = v * 10 + (c - '0');
+        }
+        return negatif ? -v : v;
+    }
+
+    /**
+     * Sortie ASCII tamponnée : une ligne est construite dans un tableau
+     * d'octets réutilisé puis écrite d'un bloc.
+     */
+    private static final class SortieUci {
+        private final OutputStream flux;
+        private final byte[] octets = new byte[8192];
+        private final byte[] chiffres = new byte[20];
+        private int n;
+
+        SortieUci(OutputStream flux) {
+            this.flux = flux;
+        }
+
+        SortieUci ecrire(String s) {
+            for (int i = 0; i < s.length() && n < octets.length - 1; i++) {
+                octets[n++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        SortieUci ecrire(long v) {
+            if (v < 0) {
+                octets[n++] = '-';
+                v = -v;
+            }
+            int k = 0;
+            do {
+                chiffres[k++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            while (k > 0) {
+                octets[n++] = chiffres[--k];
+            }
+            return this;
+        }
+
+        SortieUci ecrireCoup(int coup) {
+            if (coup == CodeCoup.AUCUN) {
+                return ecrire("0000");
+            }
+            ecrireCase(CodeCoup.depart(coup));
+            ecrireCase(CodeCoup.arrivee(coup));
+            switch (CodeCoup.promotion(coup)) {
+                case Echiquier.DAME -> octets[n++] = 'q';
+                case Echiquier.TOUR -> octets[n++] = 'r';
+                case Echiquier.FOU -> octets[n++] = 'b';
+                case Echiquier.CAVALIER -> octets[n++] = 'n';
+                default -> { }
+            }
+            return this;
+        }
+
+        private void ecrireCase(int sq) {
+            octets[n++] = (byte) ('a' + (sq & 7));
+            octets[n++] = (byte) ('1' + (sq >> 3));
+        }
+
+        void finLigne() {
+            octets[n++] = '\n';
+            try {
+                flux.write(octets, 0, n);
+                flux.flush();
+            } catch (IOException e) {
+                // Sortie fermée : l'interface s'est arrêtée
+            }
+            n = 0;
+        }
+    }
+}